@@ -0,0 +1,15 @@
+package com.velasconino.application.exceptions;
+
+/**
+ * Exception thrown when a batch contains more URLs than allowed.
+ */
+public class BatchSizeExceededException extends RuntimeException {
+    
+    public BatchSizeExceededException(String message) {
+        super(message);
+    }
+    
+    public BatchSizeExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.velasconino.application.exceptions;
+
+/**
+ * Exception thrown when a link cannot be given the requested expiry.
+ */
+public class InvalidExpiryException extends RuntimeException {
+    
+    public InvalidExpiryException(String message) {
+        super(message);
+    }
+}
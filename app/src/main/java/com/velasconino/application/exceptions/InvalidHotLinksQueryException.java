@@ -0,0 +1,15 @@
+package com.velasconino.application.exceptions;
+
+/**
+ * Exception thrown when hot links are requested over an unsupported window or limit.
+ */
+public class InvalidHotLinksQueryException extends RuntimeException {
+    
+    public InvalidHotLinksQueryException(String message) {
+        super(message);
+    }
+    
+    public InvalidHotLinksQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
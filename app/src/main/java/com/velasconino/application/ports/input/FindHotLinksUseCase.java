@@ -0,0 +1,19 @@
+package com.velasconino.application.ports.input;
+
+import com.velasconino.domain.HotLink;
+
+import java.util.List;
+
+/**
+ * Use case interface for finding the short codes resolved most often in a recent window.
+ */
+public interface FindHotLinksUseCase {
+    
+    /**
+     * Finds the most frequently resolved short codes.
+     * 
+     * @param query The validated hot links query
+     * @return The hot links, most clicked first
+     */
+    List<HotLink> findHotLinks(HotLinksQuery query);
+}
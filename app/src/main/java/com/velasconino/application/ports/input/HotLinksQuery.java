@@ -0,0 +1,29 @@
+package com.velasconino.application.ports.input;
+
+import com.velasconino.application.exceptions.InvalidHotLinksQueryException;
+
+import java.time.Duration;
+
+/**
+ * Query object for the most frequently resolved short codes.
+ */
+public record HotLinksQuery(Duration window, int limit) {
+    
+    public static final int MAX_LIMIT = 100;
+    
+    /**
+     * Creates a new HotLinksQuery, validating the window and limit.
+     * 
+     * @param window How far back to look
+     * @param limit The maximum number of short codes to return
+     * @throws InvalidHotLinksQueryException if the window is not positive or the limit is out of range
+     */
+    public HotLinksQuery {
+        if (window == null || !window.isPositive()) {
+            throw new InvalidHotLinksQueryException("Window must be positive");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidHotLinksQueryException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+}
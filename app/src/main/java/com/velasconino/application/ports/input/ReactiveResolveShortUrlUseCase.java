@@ -0,0 +1,30 @@
+package com.velasconino.application.ports.input;
+
+import com.velasconino.domain.UrlMapping;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Use case interface for resolving a short code to its original URL without blocking.
+ */
+public interface ReactiveResolveShortUrlUseCase {
+    
+    /**
+     * Resolves a short code to its original URL without blocking the calling thread.
+     * 
+     * @param query The validated short code query
+     * @return A Mono emitting the original URL if found and not expired, or completing empty otherwise
+     */
+    default Mono<String> resolveShortUrl(ShortCodeQuery query) {
+        return resolveMapping(query).map(UrlMapping::originalUrl);
+    }
+    
+    /**
+     * Resolves a short code to its original URL and expiry without blocking the calling thread.
+     * Expired links are not found.
+     * 
+     * @param query The validated short code query
+     * @return A Mono emitting the mapping if found and not expired, or completing empty otherwise
+     */
+    Mono<UrlMapping> resolveMapping(ShortCodeQuery query);
+}
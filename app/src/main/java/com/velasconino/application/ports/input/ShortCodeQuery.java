@@ -1,22 +1,41 @@
 package com.velasconino.application.ports.input;
 
 import com.velasconino.application.exceptions.InvalidShortCodeException;
+import com.velasconino.domain.ShortCodeCodec;
 
 /**
  * Query object for retrieving original URLs by short code.
- * Validates the short code format before passing it to the use case.
+ * Validates the short code format before passing it to the use case: only codes that
+ * {@link ShortCodeCodec} can encode may have been generated, so no other code is looked up.
+ * The user agent and address of the client are carried along for click analytics only.
  */
-public record ShortCodeQuery(String shortCode) {
+public record ShortCodeQuery(String shortCode, String userAgent, String clientAddress) {
     
     /**
      * Creates a new ShortCodeQuery, validating the short code.
      * 
      * @param shortCode The short code to validate
+     * @param userAgent The User-Agent header of the client, or null if unknown
+     * @param clientAddress The address of the client, or null if unknown
      * @throws InvalidShortCodeException if the short code is null, empty, or invalid
      */
     public ShortCodeQuery {
         if (shortCode == null || shortCode.trim().isEmpty()) {
             throw new InvalidShortCodeException("Short code cannot be null or empty");
         }
+        if (!ShortCodeCodec.isEncodable(shortCode)) {
+            throw new InvalidShortCodeException("Short code must be 1 to "
+                    + ShortCodeCodec.MAX_LENGTH + " letters and digits");
+        }
+    }
+    
+    /**
+     * Creates a new ShortCodeQuery for an unknown client.
+     * 
+     * @param shortCode The short code to validate
+     * @throws InvalidShortCodeException if the short code is null, empty, or invalid
+     */
+    public ShortCodeQuery(String shortCode) {
+        this(shortCode, null, null);
     }
-} 
\ No newline at end of file
+}
@@ -1,24 +1,75 @@
 package com.velasconino.application.ports.input;
 
 import com.velasconino.application.exceptions.EmptyUrlException;
+import com.velasconino.application.exceptions.InvalidExpiryException;
 import com.velasconino.application.exceptions.InvalidUrlException;
+import com.velasconino.domain.ParsedUrl;
 
-import java.util.regex.Pattern;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Command object for the ShortenUrlUseCase.
+ * The URL is validated and parsed once, when the command is created, and later stages
+ * read its components from the parsed URL instead of parsing it again.
+ * A link may be given an expiry, kept to whole seconds, which must be in the future.
+ *
+ * @param parsedUrl The URL to shorten
+ * @param expiresAt When the link expires, or null if it never does
  */
-public record ShortenUrlCommand(String url) {
-    private static final Pattern URL_PATTERN = Pattern.compile(
-            "^(https?|ftp)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]");
-    
+public record ShortenUrlCommand(ParsedUrl parsedUrl, Instant expiresAt) {
+
+    public static final int DEFAULT_MAX_URL_LENGTH = 2048;
+
     public ShortenUrlCommand {
-        if (url == null || url.trim().isEmpty()) {
+        if (parsedUrl == null) {
+            throw new EmptyUrlException("URL cannot be null or empty");
+        }
+        if (expiresAt != null) {
+            expiresAt = expiresAt.truncatedTo(ChronoUnit.SECONDS);
+            if (!expiresAt.isAfter(Instant.now())) {
+                throw new InvalidExpiryException("Expiry must be in the future: " + expiresAt);
+            }
+        }
+    }
+
+    public ShortenUrlCommand(ParsedUrl parsedUrl) {
+        this(parsedUrl, null);
+    }
+
+    public ShortenUrlCommand(String url) {
+        this(url, DEFAULT_MAX_URL_LENGTH);
+    }
+
+    public ShortenUrlCommand(String url, int maxUrlLength) {
+        this(url, maxUrlLength, null);
+    }
+
+    public ShortenUrlCommand(String url, int maxUrlLength, Instant expiresAt) {
+        this(parse(url, maxUrlLength), expiresAt);
+    }
+
+    /**
+     * @return The URL to shorten, as given
+     */
+    public String url() {
+        return parsedUrl.url();
+    }
+
+    private static ParsedUrl parse(String url, int maxUrlLength) {
+        if (url == null || url.isBlank()) {
             throw new EmptyUrlException("URL cannot be null or empty");
         }
-        
-        if (!URL_PATTERN.matcher(url).matches()) {
+
+        // Checked before parsing so oversized input is rejected without being scanned
+        if (url.length() > maxUrlLength) {
+            throw new InvalidUrlException("URL cannot be longer than " + maxUrlLength + " characters");
+        }
+
+        ParsedUrl parsedUrl = ParsedUrl.parse(url);
+        if (parsedUrl == null) {
             throw new InvalidUrlException("Invalid URL format: " + url);
         }
+        return parsedUrl;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.velasconino.application.ports.input;
+
+/**
+ * Outcome of shortening one URL of a batch: either the response or the error that prevented it.
+ */
+public record ShortenUrlResult(UrlShortenedResponse response, RuntimeException error) {
+    
+    public static ShortenUrlResult success(UrlShortenedResponse response) {
+        return new ShortenUrlResult(response, null);
+    }
+    
+    public static ShortenUrlResult failure(RuntimeException error) {
+        return new ShortenUrlResult(null, error);
+    }
+    
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -1,5 +1,10 @@
 package com.velasconino.application.ports.input;
 
+import com.velasconino.application.exceptions.UrlShorteningCollisionException;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Use case interface for shortening URLs.
  */
@@ -12,4 +17,24 @@ public interface ShortenUrlUseCase {
      * @return The response containing the short code and full short URL
      */
     UrlShortenedResponse shortenUrl(ShortenUrlCommand command);
+    
+    /**
+     * Shortens several URLs at once. A URL that cannot be shortened does not fail the others.
+     * The default implementation shortens the URLs one by one; implementations
+     * should resolve and persist the codes in bulk.
+     * 
+     * @param commands The commands containing the URLs to shorten
+     * @return One result per command, in the same order
+     */
+    default List<ShortenUrlResult> shortenUrls(List<ShortenUrlCommand> commands) {
+        List<ShortenUrlResult> results = new ArrayList<>(commands.size());
+        for (ShortenUrlCommand command : commands) {
+            try {
+                results.add(ShortenUrlResult.success(shortenUrl(command)));
+            } catch (UrlShorteningCollisionException e) {
+                results.add(ShortenUrlResult.failure(e));
+            }
+        }
+        return results;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.velasconino.application.ports.output;
+
+import com.velasconino.domain.ClickEvent;
+
+/**
+ * Output port for click events of resolved short URLs.
+ */
+public interface ClickEventPublisher {
+
+    /**
+     * Publishes a click event. Implementations must never block the caller;
+     * an event that cannot be accepted right away is dropped.
+     *
+     * @param event The click event
+     */
+    void publish(ClickEvent event);
+}
@@ -0,0 +1,26 @@
+package com.velasconino.application.ports.output;
+
+import com.velasconino.domain.HotLink;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Output port for approximate statistics of recently resolved short codes.
+ */
+public interface HotLinkStatistics {
+    
+    /**
+     * Finds the most frequently resolved short codes.
+     * 
+     * @param window How far back to look, at most {@link #retention()}
+     * @param limit The maximum number of short codes to return
+     * @return The hot links, most clicked first
+     */
+    List<HotLink> topLinks(Duration window, int limit);
+    
+    /**
+     * @return How far back statistics are kept
+     */
+    Duration retention();
+}
@@ -0,0 +1,14 @@
+package com.velasconino.application.ports.output;
+
+/**
+ * Output port handing out blocks of IDs that no other caller, on this node or any other, ever gets.
+ */
+public interface IdBlockAllocator {
+
+    /**
+     * Reserves the next block of IDs.
+     *
+     * @return A positive block number never returned before; what IDs it stands for is up to the caller
+     */
+    long nextBlock();
+}
@@ -0,0 +1,31 @@
+package com.velasconino.application.ports.output;
+
+import com.velasconino.domain.UrlMapping;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking repository interface for resolving short codes.
+ * Writes keep going through {@link UrlRepository}.
+ */
+public interface ReactiveUrlRepository {
+    
+    /**
+     * Finds the original URL for a given short code.
+     * 
+     * @param shortCode The short code to look up
+     * @return A Mono emitting the original URL if found, or completing empty if not found
+     */
+    Mono<String> findOriginalUrlByShortCode(String shortCode);
+    
+    /**
+     * Finds the original URL for a given short code together with its expiry, in the same lookup.
+     * Expired mappings that have not been purged yet are emitted too; the caller decides.
+     * 
+     * @param shortCode The short code to look up
+     * @return A Mono emitting the mapping if found, or completing empty if not found
+     */
+    default Mono<UrlMapping> findMappingByShortCode(String shortCode) {
+        return findOriginalUrlByShortCode(shortCode).map(UrlMapping::permanent);
+    }
+}
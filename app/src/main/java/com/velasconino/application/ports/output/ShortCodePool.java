@@ -0,0 +1,17 @@
+package com.velasconino.application.ports.output;
+
+import java.util.Optional;
+
+/**
+ * Output port handing out short codes reserved in advance for this node, which no other node
+ * hands out and which were free when they were reserved.
+ */
+public interface ShortCodePool {
+
+    /**
+     * Takes the next reserved short code. It is never handed out again, whether or not it gets used.
+     *
+     * @return The short code, or empty if the pool has run dry
+     */
+    Optional<String> take();
+}
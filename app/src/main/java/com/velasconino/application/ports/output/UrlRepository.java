@@ -1,5 +1,11 @@
 package com.velasconino.application.ports.output;
 
+import com.velasconino.application.exceptions.InvalidExpiryException;
+import com.velasconino.domain.UrlMapping;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,6 +21,43 @@ public interface UrlRepository {
      */
     void save(String shortCode, String originalUrl);
     
+    /**
+     * Atomically saves a mapping unless the short code is already taken.
+     * Concurrent callers racing for the same short code all observe the same winner.
+     * 
+     * @param shortCode The short code
+     * @param originalUrl The original URL
+     * @return The URL the short code maps to after the call: originalUrl if it was
+     *         inserted or was already mapped to it, otherwise the URL that holds the code
+     */
+    String insertIfAbsent(String shortCode, String originalUrl);
+    
+    /**
+     * Atomically saves a mapping that expires unless the short code is already taken,
+     * like {@link #insertIfAbsent(String, String)}. Storage that cannot expire links
+     * rejects every mapping with an expiry.
+     * 
+     * @param shortCode The short code
+     * @param originalUrl The original URL
+     * @param expiresAt When the link expires, or null if it never does
+     * @return The URL the short code maps to after the call
+     * @throws InvalidExpiryException if the storage cannot expire links
+     */
+    default String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        if (expiresAt != null) {
+            throw new InvalidExpiryException("Links cannot expire with the configured storage");
+        }
+        return insertIfAbsent(shortCode, originalUrl);
+    }
+    
+    /**
+     * Saves several mappings at once, skipping short codes that are already taken.
+     * 
+     * @param mappings The original URLs keyed by short code
+     * @return For every short code of the input, the URL it maps to after the call
+     */
+    Map<String, String> insertAllIfAbsent(Map<String, String> mappings);
+    
     /**
      * Finds the original URL for a given short code.
      * 
@@ -22,4 +65,23 @@ public interface UrlRepository {
      * @return An Optional containing the original URL if found, or empty if not found
      */
     Optional<String> findOriginalUrlByShortCode(String shortCode);
+    
+    /**
+     * Finds the original URL for a given short code together with its expiry, in the same lookup.
+     * Expired mappings that have not been purged yet are returned too; the caller decides.
+     * 
+     * @param shortCode The short code to look up
+     * @return An Optional containing the mapping if found, or empty if not found
+     */
+    default Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        return findOriginalUrlByShortCode(shortCode).map(UrlMapping::permanent);
+    }
+    
+    /**
+     * Finds the original URLs for several short codes in a single lookup.
+     * 
+     * @param shortCodes The short codes to look up
+     * @return The original URLs keyed by short code; short codes that were not found are absent
+     */
+    Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes);
 } 
\ No newline at end of file
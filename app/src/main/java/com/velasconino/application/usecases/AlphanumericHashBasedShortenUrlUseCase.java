@@ -1,14 +1,29 @@
 package com.velasconino.application.usecases;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import com.velasconino.application.exceptions.InvalidExpiryException;
 import com.velasconino.application.exceptions.UrlShorteningCollisionException;
 import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.ShortenUrlResult;
 import com.velasconino.application.ports.input.ShortenUrlUseCase;
 import com.velasconino.application.ports.input.UrlShortenedResponse;
 import com.velasconino.application.ports.output.UrlRepository;
 import com.velasconino.domain.HashBasedAlphanumericShortener;
+import com.velasconino.domain.ShortCodeCodec;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Requires;
 import io.micronaut.context.annotation.Value;
 import jakarta.inject.Singleton;
 
@@ -16,69 +31,209 @@ import jakarta.inject.Singleton;
  * Implementation of the ShortenUrlUseCase that generates alphanumeric codes
  * based on SHA-256 hash of the URL. The generated short codes consist only of
  * letters (a-z, A-Z) and numbers (0-9).
+ * Each single-URL call is timed, and the number of candidate codes it tried is recorded,
+ * so a growing share of calls needing more than one attempt shows the code space filling up.
  */
 @Singleton
+@Requires(property = "url.shortener.code-generation", value = "hash", defaultValue = "hash")
 public class AlphanumericHashBasedShortenUrlUseCase implements ShortenUrlUseCase {
     
     private final int initialCodeLength;
     private final int maxCodeLengthIncrease;
     private final String baseShortUrl;
     private final UrlRepository urlRepository;
+    private final Timer shortenTimer;
+    private final DistributionSummary shortenAttempts;
     
     public AlphanumericHashBasedShortenUrlUseCase(
             UrlRepository urlRepository,
+            MeterRegistry meterRegistry,
             @Value("${url.shortener.initial-code-length}") int initialCodeLength,
-            @Value("${url.shortener.max-code-length-increase:5}") int maxCodeLengthIncrease,
+            @Value("${url.shortener.max-code-length-increase:2}") int maxCodeLengthIncrease,
             @Value("${url.shortener.base-url}") String baseShortUrl) {
+        if (initialCodeLength < 1 || initialCodeLength + maxCodeLengthIncrease > ShortCodeCodec.MAX_LENGTH) {
+            throw new IllegalArgumentException("Short codes must be between 1 and "
+                    + ShortCodeCodec.MAX_LENGTH + " characters long to be stored as integers");
+        }
         this.urlRepository = urlRepository;
         this.initialCodeLength = initialCodeLength;
         this.maxCodeLengthIncrease = maxCodeLengthIncrease;
         this.baseShortUrl = baseShortUrl;
+        this.shortenTimer = Timer.builder("url.shortener.use-case")
+                .description("Time spent in use case calls")
+                .tag("use-case", "shorten")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.shortenAttempts = DistributionSummary.builder("url.shortener.shorten.attempts")
+                .description("Candidate short codes tried per shortened URL")
+                .publishPercentileHistogram()
+                .maximumExpectedValue((double) maxCodeLengthIncrease + 1)
+                .register(meterRegistry);
     }
     
     @Override
     public UrlShortenedResponse shortenUrl(ShortenUrlCommand command) {
-        HashBasedAlphanumericShortener shortener = new HashBasedAlphanumericShortener(command.url());
+        long start = System.nanoTime();
+        try {
+            // Find or generate a unique short code
+            String shortCode = findOrGenerateUniqueShortCode(command);
+            
+            return UrlShortenedResponse.of(shortCode, baseShortUrl);
+        } finally {
+            shortenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Shortens a batch of URLs with one candidate lookup and one bulk insert for the whole batch.
+     * Codes are chosen locally, so URLs of the same batch that collide with each other get
+     * longer codes just like URLs colliding with stored ones. URLs whose chosen code is claimed
+     * by a concurrent request in the meantime fall back to the single-URL path, and so do
+     * links that expire.
+     */
+    @Override
+    public List<ShortenUrlResult> shortenUrls(List<ShortenUrlCommand> commands) {
+        List<ShortenUrlCommand> permanentCommands = new ArrayList<>(commands.size());
+        for (ShortenUrlCommand command : commands) {
+            if (command.expiresAt() == null) {
+                permanentCommands.add(command);
+            }
+        }
+        if (permanentCommands.size() == commands.size()) {
+            return shortenPermanentUrls(commands);
+        }
+        
+        Iterator<ShortenUrlResult> permanentResults = shortenPermanentUrls(permanentCommands).iterator();
+        List<ShortenUrlResult> results = new ArrayList<>(commands.size());
+        for (ShortenUrlCommand command : commands) {
+            results.add(command.expiresAt() == null ? permanentResults.next() : shortenAlone(command));
+        }
+        return results;
+    }
+    
+    private List<ShortenUrlResult> shortenPermanentUrls(List<ShortenUrlCommand> commands) {
+        if (commands.isEmpty()) {
+            return List.of();
+        }
+        int maxLength = initialCodeLength + maxCodeLengthIncrease;
+        List<List<String>> candidateShortCodes = new ArrayList<>(commands.size());
+        Set<String> allCandidateShortCodes = new LinkedHashSet<>();
+        for (ShortenUrlCommand command : commands) {
+            List<String> candidates = new HashBasedAlphanumericShortener(command.url())
+                    .generateShortCodes(initialCodeLength, maxLength);
+            candidateShortCodes.add(candidates);
+            allCandidateShortCodes.addAll(candidates);
+        }
         
-        // Find or generate a unique short code
-        String shortCode = findOrGenerateUniqueShortCode(shortener, command.url());
+        // One lookup for every candidate of every URL
+        Map<String, String> takenShortCodes = new HashMap<>(
+                urlRepository.findOriginalUrlsByShortCodes(allCandidateShortCodes));
         
-        return UrlShortenedResponse.of(shortCode, baseShortUrl);
+        Map<String, String> newMappings = new LinkedHashMap<>();
+        String[] chosenShortCodes = new String[commands.size()];
+        for (int i = 0; i < commands.size(); i++) {
+            String url = commands.get(i).url();
+            for (String shortCode : candidateShortCodes.get(i)) {
+                String existingUrl = takenShortCodes.putIfAbsent(shortCode, url);
+                if (existingUrl == null) {
+                    newMappings.put(shortCode, url);
+                }
+                if (existingUrl == null || existingUrl.equals(url)) {
+                    chosenShortCodes[i] = shortCode;
+                    break;
+                }
+            }
+        }
+        
+        // One bulk insert for every new code
+        Map<String, String> winningUrls = urlRepository.insertAllIfAbsent(newMappings);
+        
+        List<ShortenUrlResult> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            results.add(toResult(commands.get(i), chosenShortCodes[i], winningUrls));
+        }
+        return results;
+    }
+    
+    private ShortenUrlResult toResult(ShortenUrlCommand command, String shortCode, Map<String, String> winningUrls) {
+        if (shortCode == null) {
+            return ShortenUrlResult.failure(new UrlShorteningCollisionException(
+                "Could not generate a unique short code within the maximum allowed length increase"));
+        }
+        
+        String winningUrl = winningUrls.get(shortCode);
+        if (winningUrl == null || winningUrl.equals(command.url())) {
+            return ShortenUrlResult.success(UrlShortenedResponse.of(shortCode, baseShortUrl));
+        }
+        
+        // Lost the code to a concurrent request
+        return shortenAlone(command);
+    }
+    
+    private ShortenUrlResult shortenAlone(ShortenUrlCommand command) {
+        try {
+            return ShortenUrlResult.success(shortenUrl(command));
+        } catch (UrlShorteningCollisionException | InvalidExpiryException e) {
+            return ShortenUrlResult.failure(e);
+        }
     }
     
     /**
      * Finds an existing short code for the URL or generates a new unique one.
-     * If a new code is generated, it is saved in the repository.
+     * The shortest candidate is claimed with a single atomic insert; only when it belongs to
+     * another URL are the longer candidates looked up, all at once, and claimed in turn.
+     * A link that expires is hashed together with its expiry, so it never shares a short code
+     * with a permanent link to the same URL, nor with one expiring at another time.
      * 
-     * @param shortener The shortener to use for code generation
-     * @param url The URL to find or generate a code for
+     * @param command The URL to find or generate a code for, and its expiry
      * @return A short code for the URL
      * @throws UrlShorteningCollisionException if a unique code cannot be generated within the maximum length increase
      */
-    private String findOrGenerateUniqueShortCode(HashBasedAlphanumericShortener shortener, String url) {
-        int codeLength = initialCodeLength;
-        int maxLength = initialCodeLength + maxCodeLengthIncrease;
+    private String findOrGenerateUniqueShortCode(ShortenUrlCommand command) {
+        String url = command.url();
+        HashBasedAlphanumericShortener shortener = new HashBasedAlphanumericShortener(command.expiresAt() == null
+                ? url
+                : url + '\n' + command.expiresAt().getEpochSecond());
+        List<String> candidateShortCodes = shortener.generateShortCodes(
+                initialCodeLength, initialCodeLength + maxCodeLengthIncrease);
+        
+        // Common case: the shortest code is free or already ours
+        String initialShortCode = candidateShortCodes.get(0);
+        if (insertIfAbsent(initialShortCode, command).equals(url)) {
+            shortenAttempts.record(1);
+            return initialShortCode;
+        }
         
-        while (codeLength <= maxLength) {
-            String shortCode = shortener.generateShortCode(codeLength);
-            Optional<String> existingUrl = urlRepository.findOriginalUrlByShortCode(shortCode);
+        // Code collision with different URL, look up the longer codes at once and choose locally
+        List<String> longerShortCodes = candidateShortCodes.subList(1, candidateShortCodes.size());
+        Map<String, String> existingUrls = urlRepository.findOriginalUrlsByShortCodes(longerShortCodes);
+        
+        for (int i = 0; i < longerShortCodes.size(); i++) {
+            String shortCode = longerShortCodes.get(i);
+            String existingUrl = existingUrls.get(shortCode);
             
-            if (existingUrl.isEmpty()) {
-                // New short code, save and return it
-                urlRepository.save(shortCode, url);
-                return shortCode;
+            if (existingUrl == null) {
+                // Free when looked up, but a concurrent request may claim it first
+                existingUrl = insertIfAbsent(shortCode, command);
             }
             
-            if (existingUrl.get().equals(url)) {
-                // URL already has this short code, return it
+            if (existingUrl.equals(url)) {
+                // URL now has this short code, return it
+                shortenAttempts.record(i + 2);
                 return shortCode;
             }
             
             // Code collision with different URL, try longer code
-            codeLength++;
         }
         
+        shortenAttempts.record(candidateShortCodes.size());
         throw new UrlShorteningCollisionException(
             "Could not generate a unique short code within the maximum allowed length increase");
     }
-} 
\ No newline at end of file
+    
+    private String insertIfAbsent(String shortCode, ShortenUrlCommand command) {
+        return command.expiresAt() == null
+                ? urlRepository.insertIfAbsent(shortCode, command.url())
+                : urlRepository.insertIfAbsent(shortCode, command.url(), command.expiresAt());
+    }
+}
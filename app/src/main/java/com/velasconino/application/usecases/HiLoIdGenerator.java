@@ -0,0 +1,71 @@
+package com.velasconino.application.usecases;
+
+import com.velasconino.application.ports.output.IdBlockAllocator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out unique IDs with the hi/lo algorithm: each block number from the allocator stands for
+ * the next {@code blockSize} IDs, which this node then hands out from memory. Only one call in
+ * {@code blockSize} reaches the allocator, and IDs stay unique across nodes because no two get the
+ * same block. IDs left in the block of a node that stops are never used. Taking an ID is a single
+ * atomic increment; the lock is only taken to fetch the next block, and is not held by a virtual
+ * thread's carrier while it waits.
+ */
+public class HiLoIdGenerator {
+
+    private final IdBlockAllocator allocator;
+    private final int blockSize;
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile Block block = new Block(0, 0);
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+
+    /**
+     * @param allocator The source of block numbers shared by every node
+     * @param blockSize The number of IDs per block; lowering it makes new blocks overlap the ones already handed out
+     */
+    public HiLoIdGenerator(IdBlockAllocator allocator, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return An ID no other call, on this node or any other, returns
+     */
+    public long nextId() {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            refill(current);
+        }
+    }
+
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (block == exhausted) {
+                long hi = allocator.nextBlock();
+                long first = Math.multiplyExact(hi, blockSize);
+                block = new Block(first, first + blockSize);
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.velasconino.application.usecases;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.velasconino.application.exceptions.InvalidExpiryException;
+import com.velasconino.application.exceptions.UrlShorteningCollisionException;
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.ShortenUrlResult;
+import com.velasconino.application.ports.input.ShortenUrlUseCase;
+import com.velasconino.application.ports.input.UrlShortenedResponse;
+import com.velasconino.application.ports.output.ShortCodePool;
+import com.velasconino.application.ports.output.UrlRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+
+/**
+ * Implementation of the ShortenUrlUseCase that gives every URL a random short code reserved in
+ * advance, so shortening a URL is taking a code from memory and a single insert. Pooled codes
+ * were free when reserved; one mapped since is skipped for the next. When the pool runs dry,
+ * URLs are shortened by hashing instead, as by {@link AlphanumericHashBasedShortenUrlUseCase},
+ * so shortening slows down rather than fails. Like sequence codes, the same URL shortened twice
+ * from the pool gets two short codes.
+ * Calls served from the pool are timed here; those falling back are timed by the hashing use case.
+ */
+@Singleton
+@Requires(property = "url.shortener.code-generation", value = "pool")
+public class PooledShortenUrlUseCase implements ShortenUrlUseCase {
+
+    // Pooled codes are only ever mapped since by the hash path, which is rare
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final UrlRepository urlRepository;
+    private final ShortCodePool shortCodePool;
+    private final ShortenUrlUseCase fallback;
+    private final String baseShortUrl;
+    private final Timer shortenTimer;
+
+    public PooledShortenUrlUseCase(
+            UrlRepository urlRepository,
+            ShortCodePool shortCodePool,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.initial-code-length}") int initialCodeLength,
+            @Value("${url.shortener.max-code-length-increase:2}") int maxCodeLengthIncrease,
+            @Value("${url.shortener.base-url}") String baseShortUrl) {
+        this.urlRepository = urlRepository;
+        this.shortCodePool = shortCodePool;
+        this.fallback = new AlphanumericHashBasedShortenUrlUseCase(
+                urlRepository, meterRegistry, initialCodeLength, maxCodeLengthIncrease, baseShortUrl);
+        this.baseShortUrl = baseShortUrl;
+        this.shortenTimer = Timer.builder("url.shortener.use-case")
+                .description("Time spent in use case calls")
+                .tag("use-case", "shorten")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public UrlShortenedResponse shortenUrl(ShortenUrlCommand command) {
+        long start = System.nanoTime();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Optional<String> shortCode = shortCodePool.take();
+            if (shortCode.isEmpty()) {
+                break;
+            }
+            if (insertIfAbsent(shortCode.get(), command).equals(command.url())) {
+                shortenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return UrlShortenedResponse.of(shortCode.get(), baseShortUrl);
+            }
+            // Mapped since it was reserved, take the next one
+        }
+        return fallback.shortenUrl(command);
+    }
+
+    /**
+     * Shortens a batch of URLs with one bulk insert of pooled codes and no lookup. URLs left over
+     * when the pool runs dry are shortened in bulk by hashing; those whose code turns out to be
+     * taken, and links that expire, go through the single-URL path.
+     */
+    @Override
+    public List<ShortenUrlResult> shortenUrls(List<ShortenUrlCommand> commands) {
+        String[] shortCodes = new String[commands.size()];
+        Map<String, String> newMappings = new LinkedHashMap<>();
+        List<Integer> fallbackIndexes = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            ShortenUrlCommand command = commands.get(i);
+            if (command.expiresAt() != null) {
+                continue;
+            }
+            Optional<String> shortCode = fallbackIndexes.isEmpty() ? shortCodePool.take() : Optional.empty();
+            if (shortCode.isPresent()) {
+                shortCodes[i] = shortCode.get();
+                newMappings.put(shortCodes[i], command.url());
+            } else {
+                fallbackIndexes.add(i);
+            }
+        }
+
+        Map<String, String> winningUrls = newMappings.isEmpty()
+                ? Map.of()
+                : urlRepository.insertAllIfAbsent(newMappings);
+
+        ShortenUrlResult[] results = new ShortenUrlResult[commands.size()];
+        if (!fallbackIndexes.isEmpty()) {
+            List<ShortenUrlResult> fallbackResults = fallback.shortenUrls(
+                    fallbackIndexes.stream().map(commands::get).toList());
+            for (int i = 0; i < fallbackIndexes.size(); i++) {
+                results[fallbackIndexes.get(i)] = fallbackResults.get(i);
+            }
+        }
+        for (int i = 0; i < commands.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            ShortenUrlCommand command = commands.get(i);
+            String winningUrl = shortCodes[i] != null ? winningUrls.get(shortCodes[i]) : null;
+            results[i] = winningUrl != null && winningUrl.equals(command.url())
+                    ? ShortenUrlResult.success(UrlShortenedResponse.of(shortCodes[i], baseShortUrl))
+                    : shortenAlone(command);
+        }
+        return Arrays.asList(results);
+    }
+
+    private ShortenUrlResult shortenAlone(ShortenUrlCommand command) {
+        try {
+            return ShortenUrlResult.success(shortenUrl(command));
+        } catch (UrlShorteningCollisionException | InvalidExpiryException e) {
+            return ShortenUrlResult.failure(e);
+        }
+    }
+
+    private String insertIfAbsent(String shortCode, ShortenUrlCommand command) {
+        return command.expiresAt() == null
+                ? urlRepository.insertIfAbsent(shortCode, command.url())
+                : urlRepository.insertIfAbsent(shortCode, command.url(), command.expiresAt());
+    }
+}
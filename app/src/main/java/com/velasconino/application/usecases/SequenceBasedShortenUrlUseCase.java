@@ -0,0 +1,149 @@
+package com.velasconino.application.usecases;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.velasconino.application.exceptions.InvalidExpiryException;
+import com.velasconino.application.exceptions.UrlShorteningCollisionException;
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.ShortenUrlResult;
+import com.velasconino.application.ports.input.ShortenUrlUseCase;
+import com.velasconino.application.ports.input.UrlShortenedResponse;
+import com.velasconino.application.ports.output.IdBlockAllocator;
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.ShortCodePermutation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+
+/**
+ * Implementation of the ShortenUrlUseCase that gives every URL the short code of a new unique ID,
+ * instead of hashing it. IDs come from a shared sequence in blocks cached by each node, so
+ * shortening a URL is a single insert without any lookup, and a code can only be taken already
+ * if it was generated otherwise, such as by hashing before the switch; its ID is then skipped.
+ * The ID is read as a bijective base-62 number, or, with a scramble key, mapped by a keyed
+ * permutation to a code of at least the initial code length, so codes cannot be enumerated.
+ * Unlike hashing, shortening the same URL twice gives two short codes.
+ * Each single-URL call is timed, and the number of IDs it tried is recorded.
+ */
+@Singleton
+@Requires(property = "url.shortener.code-generation", value = "sequence")
+public class SequenceBasedShortenUrlUseCase implements ShortenUrlUseCase {
+
+    // Codes are only ever taken by codes generated otherwise, which are rare among ours
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final UrlRepository urlRepository;
+    private final HiLoIdGenerator idGenerator;
+    @Nullable
+    private final ShortCodePermutation permutation;
+    private final String baseShortUrl;
+    private final Timer shortenTimer;
+    private final DistributionSummary shortenAttempts;
+
+    public SequenceBasedShortenUrlUseCase(
+            UrlRepository urlRepository,
+            IdBlockAllocator idBlockAllocator,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.sequence.block-size:1000}") int blockSize,
+            @Nullable @Property(name = "url.shortener.sequence.scramble-key") String scrambleKey,
+            @Value("${url.shortener.initial-code-length}") int initialCodeLength,
+            @Value("${url.shortener.base-url}") String baseShortUrl) {
+        this.urlRepository = urlRepository;
+        this.idGenerator = new HiLoIdGenerator(idBlockAllocator, blockSize);
+        this.permutation = scrambleKey != null && !scrambleKey.isEmpty()
+                ? new ShortCodePermutation(scrambleKey, initialCodeLength)
+                : null;
+        this.baseShortUrl = baseShortUrl;
+        this.shortenTimer = Timer.builder("url.shortener.use-case")
+                .description("Time spent in use case calls")
+                .tag("use-case", "shorten")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.shortenAttempts = DistributionSummary.builder("url.shortener.shorten.attempts")
+                .description("Candidate short codes tried per shortened URL")
+                .publishPercentileHistogram()
+                .maximumExpectedValue((double) MAX_ATTEMPTS)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public UrlShortenedResponse shortenUrl(ShortenUrlCommand command) {
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                String shortCode = nextShortCode();
+                if (insertIfAbsent(shortCode, command).equals(command.url())) {
+                    shortenAttempts.record(attempt);
+                    return UrlShortenedResponse.of(shortCode, baseShortUrl);
+                }
+                // Taken by a code generated otherwise, skip the ID
+            }
+            shortenAttempts.record(MAX_ATTEMPTS);
+            throw new UrlShorteningCollisionException(
+                "Could not find a free short code within " + MAX_ATTEMPTS + " IDs");
+        } finally {
+            shortenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Shortens a batch of URLs with one bulk insert and no lookup. URLs whose code turns out to be
+     * taken fall back to the single-URL path, and so do links that expire.
+     */
+    @Override
+    public List<ShortenUrlResult> shortenUrls(List<ShortenUrlCommand> commands) {
+        String[] shortCodes = new String[commands.size()];
+        Map<String, String> newMappings = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            ShortenUrlCommand command = commands.get(i);
+            if (command.expiresAt() == null) {
+                shortCodes[i] = nextShortCode();
+                newMappings.put(shortCodes[i], command.url());
+            }
+        }
+
+        Map<String, String> winningUrls = newMappings.isEmpty()
+                ? Map.of()
+                : urlRepository.insertAllIfAbsent(newMappings);
+
+        List<ShortenUrlResult> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            ShortenUrlCommand command = commands.get(i);
+            String winningUrl = shortCodes[i] != null ? winningUrls.get(shortCodes[i]) : null;
+            results.add(winningUrl == null || !winningUrl.equals(command.url())
+                    ? shortenAlone(command)
+                    : ShortenUrlResult.success(UrlShortenedResponse.of(shortCodes[i], baseShortUrl)));
+        }
+        return results;
+    }
+
+    private ShortenUrlResult shortenAlone(ShortenUrlCommand command) {
+        try {
+            return ShortenUrlResult.success(shortenUrl(command));
+        } catch (UrlShorteningCollisionException | InvalidExpiryException e) {
+            return ShortenUrlResult.failure(e);
+        }
+    }
+
+    private String nextShortCode() {
+        long id = idGenerator.nextId();
+        return permutation != null ? permutation.shortCodeOf(id) : ShortCodeCodec.decode(id);
+    }
+
+    private String insertIfAbsent(String shortCode, ShortenUrlCommand command) {
+        return command.expiresAt() == null
+                ? urlRepository.insertIfAbsent(shortCode, command.url())
+                : urlRepository.insertIfAbsent(shortCode, command.url(), command.expiresAt());
+    }
+}
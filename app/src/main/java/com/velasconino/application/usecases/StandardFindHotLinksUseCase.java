@@ -0,0 +1,34 @@
+package com.velasconino.application.usecases;
+
+import com.velasconino.application.exceptions.InvalidHotLinksQueryException;
+import com.velasconino.application.ports.input.FindHotLinksUseCase;
+import com.velasconino.application.ports.input.HotLinksQuery;
+import com.velasconino.application.ports.output.HotLinkStatistics;
+import com.velasconino.domain.HotLink;
+
+import jakarta.inject.Singleton;
+
+import java.util.List;
+
+/**
+ * Standard implementation of the FindHotLinksUseCase.
+ * Rejects windows longer than the statistics are kept for, rather than silently shortening them.
+ */
+@Singleton
+public class StandardFindHotLinksUseCase implements FindHotLinksUseCase {
+    
+    private final HotLinkStatistics hotLinkStatistics;
+    
+    public StandardFindHotLinksUseCase(HotLinkStatistics hotLinkStatistics) {
+        this.hotLinkStatistics = hotLinkStatistics;
+    }
+    
+    @Override
+    public List<HotLink> findHotLinks(HotLinksQuery query) {
+        if (query.window().compareTo(hotLinkStatistics.retention()) > 0) {
+            throw new InvalidHotLinksQueryException(
+                    "Window cannot be longer than " + hotLinkStatistics.retention());
+        }
+        return hotLinkStatistics.topLinks(query.window(), query.limit());
+    }
+}
@@ -0,0 +1,61 @@
+package com.velasconino.application.usecases;
+
+import com.velasconino.application.ports.input.ReactiveResolveShortUrlUseCase;
+import com.velasconino.application.ports.input.ShortCodeQuery;
+import com.velasconino.application.ports.output.ClickEventPublisher;
+import com.velasconino.application.ports.output.ReactiveUrlRepository;
+import com.velasconino.domain.ClickEvent;
+import com.velasconino.domain.UrlMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Standard implementation of the ReactiveResolveShortUrlUseCase.
+ * Uses the reactive repository to look up the original URL by short code. The expiry of a link
+ * comes with its URL, so an expired link that has not been purged yet is not found without
+ * another query.
+ * The lookup is timed from subscription until it completes, fails or is cancelled,
+ * and every successful resolution is published as a click event.
+ */
+@Singleton
+public class StandardReactiveResolveShortUrlUseCase implements ReactiveResolveShortUrlUseCase {
+    
+    private final ReactiveUrlRepository urlRepository;
+    private final ClickEventPublisher clickEventPublisher;
+    private final Timer resolveTimer;
+    
+    public StandardReactiveResolveShortUrlUseCase(ReactiveUrlRepository urlRepository,
+                                                  ClickEventPublisher clickEventPublisher,
+                                                  MeterRegistry meterRegistry) {
+        this.urlRepository = urlRepository;
+        this.clickEventPublisher = clickEventPublisher;
+        this.resolveTimer = Timer.builder("url.shortener.use-case")
+                .description("Time spent in use case calls")
+                .tag("use-case", "resolve")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public Mono<UrlMapping> resolveMapping(ShortCodeQuery query) {
+        // The validation is already done in the ShortCodeQuery constructor
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return urlRepository.findMappingByShortCode(query.shortCode())
+                    .filter(mapping -> !mapping.isExpiredAt(Instant.now()))
+                    .doOnNext(mapping -> publishClick(query))
+                    .doFinally(signal -> resolveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+    
+    private void publishClick(ShortCodeQuery query) {
+        clickEventPublisher.publish(new ClickEvent(
+                query.shortCode(), System.currentTimeMillis(), query.userAgent(), query.clientAddress()));
+    }
+}
@@ -0,0 +1,14 @@
+package com.velasconino.domain;
+
+/**
+ * Domain event recording that a short URL was followed.
+ * It only holds references to values the redirect already has, so publishing one is cheap;
+ * the user agent is classified later, off the request path.
+ *
+ * @param shortCode The short code that was resolved
+ * @param timestampMillis When it was resolved, in milliseconds since the epoch
+ * @param userAgent The User-Agent header of the request, or null if absent
+ * @param clientAddress The address of the client, or null if unknown
+ */
+public record ClickEvent(String shortCode, long timestampMillis, String userAgent, String clientAddress) {
+}
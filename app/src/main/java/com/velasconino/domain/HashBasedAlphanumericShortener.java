@@ -1,28 +1,53 @@
 package com.velasconino.domain;
 
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Domain object representing a URL shortener that generates hash-based alphanumeric codes.
- * Uses SHA-256 hashing and Base64 encoding to create short codes consisting of
- * letters (a-z, A-Z) and numbers (0-9).
+ * The URL is hashed once with SHA-256; short codes are read from the hash six bits at a time,
+ * skipping values outside the alphanumeric range. This yields the same codes as filtering the
+ * Base64 encoding of the hash, without building the encoded string. Codes of every length are
+ * prefixes of one another, so all candidate lengths come from the same digest.
+ * Codes use the alphabet of {@link ShortCodeCodec}, so those of up to {@link ShortCodeCodec#MAX_LENGTH}
+ * characters can be stored as integers.
  */
 @Getter
-@RequiredArgsConstructor
 public class HashBasedAlphanumericShortener {
-    private static final String ALPHANUMERIC_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-    
+    private static final char[] ALPHANUMERIC_CHARS = ShortCodeCodec.ALPHABET.toCharArray();
+    private static final int HASH_LENGTH = 32;
+    private static final int SEXTET_COUNT = (HASH_LENGTH * 8 + 5) / 6;
+    private static final int MAX_REUSED_BUFFER_LENGTH = 8192;
+
+    // A power of two of at least four slots per core
+    private static final int SHA_256_POOL_SIZE = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+
+    // Digests are pooled rather than kept per thread, as requests may each run on a new virtual thread
+    private static final AtomicReferenceArray<Sha256> SHA_256_POOL = new AtomicReferenceArray<>(SHA_256_POOL_SIZE);
+    // Neighbouring slots tried before a new digest is created; the pool has at least this many
+    private static final int SHA_256_PROBES = 4;
+
     private final String url;
 
+    @Getter(AccessLevel.NONE)
+    private final byte[] hash;
+
+    public HashBasedAlphanumericShortener(String url) {
+        this.url = url;
+        this.hash = sha256(url);
+    }
+
     /**
      * Generates a short code for this URL with the specified length.
-     * 
+     *
      * @param length The length of the short code to generate
      * @return A short code of the specified length consisting of alphanumeric characters
      */
@@ -31,38 +56,143 @@ public class HashBasedAlphanumericShortener {
             throw new IllegalArgumentException("Length must be positive");
         }
 
-        try {
-            // Create a hash of the URL
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(url.getBytes(StandardCharsets.UTF_8));
-            
-            // Convert to Base64 to get more characters
-            String base64Hash = Base64.getUrlEncoder().withoutPadding().encodeToString(hashBytes);
-            
-            // Filter to only include alphanumeric characters and ensure length
-            StringBuilder shortCode = new StringBuilder();
-            
-            for (char c : base64Hash.toCharArray()) {
-                if (ALPHANUMERIC_CHARS.indexOf(c) != -1) {
-                    shortCode.append(c);
-                    if (shortCode.length() == length) {
-                        break;
-                    }
+        char[] shortCode = new char[length];
+        fill(shortCode);
+        return new String(shortCode);
+    }
+
+    /**
+     * Generates the short codes for this URL for every length in the given range.
+     * Each code is a prefix of the next one.
+     *
+     * @param minLength The length of the first short code
+     * @param maxLength The length of the last short code
+     * @return The short codes ordered by increasing length
+     */
+    public List<String> generateShortCodes(int minLength, int maxLength) {
+        if (minLength <= 0) {
+            throw new IllegalArgumentException("Length must be positive");
+        }
+        if (maxLength < minLength) {
+            throw new IllegalArgumentException("Maximum length must not be smaller than minimum length");
+        }
+
+        char[] longestShortCode = new char[maxLength];
+        fill(longestShortCode);
+
+        List<String> shortCodes = new ArrayList<>(maxLength - minLength + 1);
+        for (int length = minLength; length <= maxLength; length++) {
+            shortCodes.add(new String(longestShortCode, 0, length));
+        }
+        return shortCodes;
+    }
+
+    private void fill(char[] shortCode) {
+        int length = 0;
+        for (int sextet = 0; sextet < SEXTET_COUNT && length < shortCode.length; sextet++) {
+            int value = sextet(sextet);
+            if (value < ALPHANUMERIC_CHARS.length) {
+                shortCode[length++] = ALPHANUMERIC_CHARS[value];
+            }
+        }
+
+        // If the hash runs out of characters, append more deterministically
+        while (length < shortCode.length) {
+            int index = (length * 31 + url.hashCode()) % ALPHANUMERIC_CHARS.length;
+            if (index < 0) {
+                index += ALPHANUMERIC_CHARS.length;
+            }
+            shortCode[length++] = ALPHANUMERIC_CHARS[index];
+        }
+    }
+
+    /**
+     * Reads the six-bit group at the given position of the hash, most significant bit first.
+     * The last group is zero-padded, as in Base64.
+     */
+    private int sextet(int index) {
+        int bitOffset = index * 6;
+        int byteIndex = bitOffset >>> 3;
+        int high = (hash[byteIndex] & 0xFF) << 8;
+        int low = byteIndex + 1 < HASH_LENGTH ? hash[byteIndex + 1] & 0xFF : 0;
+        return ((high | low) >>> (10 - (bitOffset & 7))) & 0x3F;
+    }
+
+    private static byte[] sha256(String url) {
+        // Starting from a slot picked by thread spreads concurrent callers; when it is busy, the
+        // next few are tried before a digest is created, and the digest goes back to a free one
+        int home = Long.hashCode(Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L);
+        Sha256 sha256 = null;
+        for (int probe = 0; probe < SHA_256_PROBES && sha256 == null; probe++) {
+            sha256 = SHA_256_POOL.getAndSet((home + probe) & (SHA_256_POOL_SIZE - 1), null);
+        }
+        if (sha256 == null) {
+            sha256 = new Sha256();
+        }
+        byte[] hash = sha256.hash(url);
+        for (int probe = 0; probe < SHA_256_PROBES; probe++) {
+            if (SHA_256_POOL.compareAndSet((home + probe) & (SHA_256_POOL_SIZE - 1), null, sha256)) {
+                break;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * A SHA-256 digest with a buffer for the bytes of ASCII URLs, used by one caller at a time.
+     */
+    private static final class Sha256 {
+
+        private final MessageDigest digest = newSha256Digest();
+        private byte[] urlBytes = new byte[512];
+
+        byte[] hash(String url) {
+            byte[] hash = new byte[HASH_LENGTH];
+            try {
+                byte[] asciiBytes = asciiBytes(url);
+                if (asciiBytes != null) {
+                    digest.update(asciiBytes, 0, url.length());
+                } else {
+                    digest.update(url.getBytes(StandardCharsets.UTF_8));
                 }
+                digest.digest(hash, 0, HASH_LENGTH);
+                return hash;
+            } catch (DigestException e) {
+                digest.reset();
+                throw new IllegalStateException("Failed to generate short code", e);
+            }
+        }
+
+        /**
+         * Copies an ASCII URL into the reused buffer, which then holds its UTF-8 encoding.
+         *
+         * @return The buffer, or null if the URL is too long or contains non-ASCII characters
+         */
+        private byte[] asciiBytes(String url) {
+            int length = url.length();
+            if (length > MAX_REUSED_BUFFER_LENGTH) {
+                return null;
             }
-            
-            // If we don't have enough characters, append more deterministically
-            while (shortCode.length() < length) {
-                int index = (shortCode.length() * 31 + url.hashCode()) % ALPHANUMERIC_CHARS.length();
-                if (index < 0) {
-                    index += ALPHANUMERIC_CHARS.length();
+            if (urlBytes.length < length) {
+                urlBytes = new byte[length];
+            }
+
+            for (int i = 0; i < length; i++) {
+                char c = url.charAt(i);
+                if (c >= 0x80) {
+                    return null;
                 }
-                shortCode.append(ALPHANUMERIC_CHARS.charAt(index));
+                urlBytes[i] = (byte) c;
+            }
+            return urlBytes;
+        }
+
+        private static MessageDigest newSha256Digest() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Failed to generate short code", e);
             }
-            
-            return shortCode.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Failed to generate short code", e);
         }
     }
-} 
\ No newline at end of file
+}
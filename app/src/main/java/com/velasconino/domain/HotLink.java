@@ -0,0 +1,11 @@
+package com.velasconino.domain;
+
+/**
+ * Approximate traffic of a frequently resolved short code over a recent window.
+ *
+ * @param shortCode The short code
+ * @param clicks The estimated number of redirects, never an underestimate for the tracked period
+ * @param distinctClients The estimated number of distinct clients behind those redirects
+ */
+public record HotLink(String shortCode, long clicks, long distinctClients) {
+}
@@ -0,0 +1,479 @@
+package com.velasconino.domain;
+
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Domain object representing an absolute http, https or ftp URL, validated and split into its
+ * components in one left-to-right scan.
+ * The syntax follows RFC 3986 for scheme, authority, host, port, path, query and fragment.
+ * Non-ASCII characters are accepted where RFC 3987 allows them in internationalized URLs, so
+ * IDN hosts and unencoded Unicode paths are valid, except for Unicode spaces; IDN hosts must
+ * convert to ASCII. Percent-encodings must be well formed. IP literals must be well-formed IPv6
+ * addresses; future IP versions are not accepted. Every valid URL can therefore be redirected to
+ * through its {@link #asciiUrl() ASCII form}.
+ * Parsing only records offsets into the original string and never backtracks, so its cost is
+ * linear in the length of the URL; components are extracted when they are asked for.
+ */
+public final class ParsedUrl {
+
+    private static final int UNRESERVED = 1;
+    private static final int SUB_DELIM = 1 << 1;
+    private static final int COLON = 1 << 2;
+    private static final int AT = 1 << 3;
+    private static final int SLASH = 1 << 4;
+    private static final int QUESTION_MARK = 1 << 5;
+
+    private static final int USER_INFO = UNRESERVED | SUB_DELIM | COLON;
+    private static final int REG_NAME = UNRESERVED | SUB_DELIM;
+    private static final int PATH = UNRESERVED | SUB_DELIM | COLON | AT | SLASH;
+    private static final int QUERY = PATH | QUESTION_MARK;
+
+    private static final byte[] ASCII_CLASSES = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            ASCII_CLASSES[c] = UNRESERVED;
+            ASCII_CLASSES[Character.toUpperCase(c)] = UNRESERVED;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ASCII_CLASSES[c] = UNRESERVED;
+        }
+        for (char c : "-._~".toCharArray()) {
+            ASCII_CLASSES[c] = UNRESERVED;
+        }
+        for (char c : "!$&'()*+,;=".toCharArray()) {
+            ASCII_CLASSES[c] = SUB_DELIM;
+        }
+        ASCII_CLASSES[':'] = COLON;
+        ASCII_CLASSES['@'] = AT;
+        ASCII_CLASSES['/'] = SLASH;
+        ASCII_CLASSES['?'] = QUESTION_MARK;
+    }
+
+    private static final int MAX_PORT = 65535;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final String url;
+    private final int schemeEnd;
+    private final int userInfoEnd;
+    private final int hostStart;
+    private final int hostEnd;
+    private final int port;
+    private final int pathStart;
+    private final int queryStart;
+    private final int fragmentStart;
+
+    private ParsedUrl(String url, int schemeEnd, int userInfoEnd, int hostStart, int hostEnd,
+                      int port, int pathStart, int queryStart, int fragmentStart) {
+        this.url = url;
+        this.schemeEnd = schemeEnd;
+        this.userInfoEnd = userInfoEnd;
+        this.hostStart = hostStart;
+        this.hostEnd = hostEnd;
+        this.port = port;
+        this.pathStart = pathStart;
+        this.queryStart = queryStart;
+        this.fragmentStart = fragmentStart;
+    }
+
+    /**
+     * Parses an absolute http, https or ftp URL.
+     * The only allocation is the returned object, and only when the URL is valid, besides the
+     * conversion of IDN hosts to ASCII.
+     *
+     * @param url The URL to parse
+     * @return The parsed URL, or null if the URL is not valid
+     */
+    public static ParsedUrl parse(String url) {
+        int length = url.length();
+
+        // scheme ":" "//"
+        int schemeEnd = 0;
+        while (schemeEnd < length && isSchemeChar(url.charAt(schemeEnd), schemeEnd)) {
+            schemeEnd++;
+        }
+        if (schemeEnd == 0 || !isSupportedScheme(url, schemeEnd) || !url.startsWith("://", schemeEnd)) {
+            return null;
+        }
+
+        // authority = [ userinfo "@" ] host [ ":" port ]
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = authorityStart;
+        int userInfoEnd = -1;
+        while (authorityEnd < length) {
+            char c = url.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@') {
+                userInfoEnd = authorityEnd;
+            }
+            authorityEnd++;
+        }
+        if (userInfoEnd >= 0 && scan(url, authorityStart, userInfoEnd, USER_INFO, false) != userInfoEnd) {
+            return null;
+        }
+
+        int hostStart = userInfoEnd >= 0 ? userInfoEnd + 1 : authorityStart;
+        int hostEnd = hostStart < authorityEnd && url.charAt(hostStart) == '['
+                ? scanIpLiteral(url, hostStart, authorityEnd)
+                : scan(url, hostStart, authorityEnd, REG_NAME, false);
+        if (hostEnd <= hostStart || !hasAsciiForm(url, hostStart, hostEnd)) {
+            return null;
+        }
+
+        int port = -1;
+        if (hostEnd < authorityEnd) {
+            if (url.charAt(hostEnd) != ':') {
+                return null;
+            }
+            port = parsePort(url, hostEnd + 1, authorityEnd);
+            if (port == -2) {
+                return null;
+            }
+        }
+
+        // path [ "?" query ] [ "#" fragment ]
+        int index = scan(url, authorityEnd, length, PATH, false);
+        int queryStart = -1;
+        if (index < length && url.charAt(index) == '?') {
+            queryStart = index;
+            index = scan(url, index + 1, length, QUERY, true);
+        }
+        int fragmentStart = -1;
+        if (index < length && url.charAt(index) == '#') {
+            fragmentStart = index;
+            index = scan(url, index + 1, length, QUERY, false);
+        }
+        if (index != length) {
+            return null;
+        }
+
+        return new ParsedUrl(url, schemeEnd, userInfoEnd, hostStart, hostEnd,
+                port, authorityEnd, queryStart, fragmentStart);
+    }
+
+    /**
+     * @return The URL as given
+     */
+    public String url() {
+        return url;
+    }
+
+    /**
+     * @return The scheme, as written in the URL
+     */
+    public String scheme() {
+        return url.substring(0, schemeEnd);
+    }
+
+    /**
+     * @return The user information before the host, or null if there is none
+     */
+    public String userInfo() {
+        return userInfoEnd < 0 ? null : url.substring(schemeEnd + 3, userInfoEnd);
+    }
+
+    /**
+     * @return The host; IP literals keep their brackets
+     */
+    public String host() {
+        return url.substring(hostStart, hostEnd);
+    }
+
+    /**
+     * @return The port, or -1 if the URL does not specify one
+     */
+    public int port() {
+        return port;
+    }
+
+    /**
+     * @return The path, which is empty when the URL has none
+     */
+    public String path() {
+        int pathEnd = queryStart >= 0 ? queryStart : fragmentStart >= 0 ? fragmentStart : url.length();
+        return url.substring(pathStart, pathEnd);
+    }
+
+    /**
+     * @return The query without the leading "?", or null if there is none
+     */
+    public String query() {
+        if (queryStart < 0) {
+            return null;
+        }
+        return url.substring(queryStart + 1, fragmentStart >= 0 ? fragmentStart : url.length());
+    }
+
+    /**
+     * @return The fragment without the leading "#", or null if there is none
+     */
+    public String fragment() {
+        return fragmentStart < 0 ? null : url.substring(fragmentStart + 1);
+    }
+
+    /**
+     * Returns the URL in ASCII, as sent in a Location header: an IDN host is converted to Punycode
+     * and any other non-ASCII character is percent-encoded as UTF-8.
+     *
+     * @return The URL itself if it is ASCII, otherwise its ASCII form
+     */
+    public String asciiUrl() {
+        if (isAscii(url, 0, url.length())) {
+            return url;
+        }
+        StringBuilder ascii = new StringBuilder(url.length() * 2);
+        appendPercentEncoded(ascii, url, 0, hostStart);
+        ascii.append(isAscii(url, hostStart, hostEnd) ? host() : IDN.toASCII(host()));
+        appendPercentEncoded(ascii, url, hostEnd, url.length());
+        return ascii.toString();
+    }
+
+    /**
+     * Returns the ASCII form of a URL, as {@link #asciiUrl()} does, even if this parser rejects it,
+     * e.g. one stored before it was introduced; its non-ASCII characters are then all percent-encoded.
+     *
+     * @param url A URL
+     * @return The ASCII form of the URL
+     */
+    public static String asciiUrl(String url) {
+        // Stored URLs are nearly always ASCII already, which needs no parsing
+        if (isAscii(url, 0, url.length())) {
+            return url;
+        }
+        ParsedUrl parsedUrl = parse(url);
+        if (parsedUrl != null) {
+            return parsedUrl.asciiUrl();
+        }
+        StringBuilder ascii = new StringBuilder(url.length() * 2);
+        appendPercentEncoded(ascii, url, 0, url.length());
+        return ascii.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ParsedUrl parsedUrl && url.equals(parsedUrl.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return url.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+    private static boolean isSchemeChar(char c, int index) {
+        boolean alpha = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        return alpha || (index > 0 && ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'));
+    }
+
+    private static boolean isSupportedScheme(String url, int schemeEnd) {
+        return switch (schemeEnd) {
+            case 3 -> url.regionMatches(true, 0, "ftp", 0, 3);
+            case 4 -> url.regionMatches(true, 0, "http", 0, 4);
+            case 5 -> url.regionMatches(true, 0, "https", 0, 5);
+            default -> false;
+        };
+    }
+
+    /**
+     * Skips the characters of one component.
+     *
+     * @return The index of the first character that does not belong to the component
+     */
+    private static int scan(String url, int start, int end, int allowed, boolean privateUse) {
+        int index = start;
+        while (index < end) {
+            int next = skipCharacter(url, index, end, allowed, privateUse);
+            if (next < 0) {
+                return index;
+            }
+            index = next;
+        }
+        return index;
+    }
+
+    /**
+     * @return The index after the character at the given index, or -1 if it is not allowed
+     */
+    private static int skipCharacter(String url, int index, int end, int allowed, boolean privateUse) {
+        char c = url.charAt(index);
+        if (c < 0x80) {
+            if ((ASCII_CLASSES[c] & allowed) != 0) {
+                return index + 1;
+            }
+            if (c == '%' && index + 2 < end
+                    && isHexDigit(url.charAt(index + 1)) && isHexDigit(url.charAt(index + 2))) {
+                return index + 3;
+            }
+            return -1;
+        }
+        if (Character.isHighSurrogate(c)) {
+            if (index + 1 >= end || !Character.isLowSurrogate(url.charAt(index + 1))) {
+                return -1;
+            }
+            int codePoint = Character.toCodePoint(c, url.charAt(index + 1));
+            boolean allowedCodePoint = (codePoint & 0xFFFE) != 0xFFFE
+                    && (codePoint < 0xE0000 || codePoint > 0xE0FFF)
+                    && (privateUse || codePoint < 0xF0000);
+            return allowedCodePoint ? index + 2 : -1;
+        }
+        boolean ucsChar = (c >= 0xA0 && c <= 0xD7FF) || (c >= 0xF900 && c <= 0xFDCF) || (c >= 0xFDF0 && c <= 0xFFEF);
+        boolean privateUseChar = privateUse && c >= 0xE000 && c <= 0xF8FF;
+        // Unicode spaces are ucschars, but a URL holding one is almost certainly mistyped
+        return (ucsChar || privateUseChar) && !Character.isSpaceChar(c) ? index + 1 : -1;
+    }
+
+    /**
+     * Skips an IP literal, which must be an IPv6 address in square brackets.
+     *
+     * @return The index after the closing bracket, or -1 if the literal is not valid
+     */
+    private static int scanIpLiteral(String url, int start, int end) {
+        int close = url.indexOf(']', start + 1);
+        return close >= 0 && close < end && isIpv6Address(url, start + 1, close) ? close + 1 : -1;
+    }
+
+    /**
+     * Checks an IPv6 address: eight groups of up to four hex digits, the last two of which may be
+     * written as an IPv4 address, with at most one run of groups compressed to "::".
+     */
+    private static boolean isIpv6Address(String url, int start, int end) {
+        int index = start;
+        int groups = 0;
+        boolean compressed = url.startsWith("::", index);
+        if (compressed) {
+            index += 2;
+        }
+        while (index < end) {
+            int digitsEnd = index;
+            while (digitsEnd < end && isHexDigit(url.charAt(digitsEnd))) {
+                digitsEnd++;
+            }
+            if (digitsEnd < end && url.charAt(digitsEnd) == '.') {
+                if (!isIpv4Address(url, index, end)) {
+                    return false;
+                }
+                groups += 2;
+                break;
+            }
+            if (digitsEnd == index || digitsEnd - index > 4) {
+                return false;
+            }
+            groups++;
+            index = digitsEnd;
+            if (index == end) {
+                break;
+            }
+            if (url.charAt(index) != ':' || index + 1 == end) {
+                return false;
+            }
+            index++;
+            if (url.charAt(index) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                index++;
+            }
+        }
+        return compressed ? groups <= 7 : groups == 8;
+    }
+
+    /**
+     * Checks a dotted-decimal IPv4 address, without leading zeros.
+     */
+    private static boolean isIpv4Address(String url, int start, int end) {
+        int index = start;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (index == end || url.charAt(index) != '.') {
+                    return false;
+                }
+                index++;
+            }
+            int digitsStart = index;
+            int value = 0;
+            while (index < end && index - digitsStart < 3 && url.charAt(index) >= '0' && url.charAt(index) <= '9') {
+                value = value * 10 + (url.charAt(index) - '0');
+                index++;
+            }
+            int digits = index - digitsStart;
+            if (digits == 0 || value > 255 || (digits > 1 && url.charAt(digitsStart) == '0')) {
+                return false;
+            }
+        }
+        return index == end;
+    }
+
+    /**
+     * Checks that a host converts to ASCII, which only IDN hosts might not.
+     */
+    private static boolean hasAsciiForm(String url, int hostStart, int hostEnd) {
+        if (isAscii(url, hostStart, hostEnd)) {
+            return true;
+        }
+        try {
+            IDN.toASCII(url.substring(hostStart, hostEnd));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean isAscii(String url, int start, int end) {
+        for (int index = start; index < end; index++) {
+            if (url.charAt(index) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void appendPercentEncoded(StringBuilder ascii, String url, int start, int end) {
+        int index = start;
+        while (index < end) {
+            char c = url.charAt(index);
+            if (c < 0x80) {
+                ascii.append(c);
+                index++;
+                continue;
+            }
+            int charCount = Character.isHighSurrogate(c) && index + 1 < end ? 2 : 1;
+            for (byte b : url.substring(index, index + charCount).getBytes(StandardCharsets.UTF_8)) {
+                ascii.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+            }
+            index += charCount;
+        }
+    }
+
+    /**
+     * @return The port, -1 if empty, or -2 if it is not a valid port
+     */
+    private static int parsePort(String url, int start, int end) {
+        if (start == end) {
+            return -1;
+        }
+        if (end - start > 5) {
+            return -2;
+        }
+        int port = 0;
+        for (int index = start; index < end; index++) {
+            char c = url.charAt(index);
+            if (c < '0' || c > '9') {
+                return -2;
+            }
+            port = port * 10 + (c - '0');
+        }
+        return port <= MAX_PORT ? port : -2;
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
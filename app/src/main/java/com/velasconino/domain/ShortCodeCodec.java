@@ -0,0 +1,131 @@
+package com.velasconino.domain;
+
+/**
+ * Lossless encoding of alphanumeric short codes of up to ten characters as positive 64-bit integers.
+ * Codes are read as bijective base-62 numbers, each character counting as its position in the
+ * alphabet plus one, so codes that differ only in leading characters, such as "A" and "AA",
+ * still get different values. No code encodes to zero or a negative value.
+ */
+public final class ShortCodeCodec {
+
+    /**
+     * The longest short code that can be encoded; 62^10 + ... + 62 still fits in a signed long.
+     */
+    public static final int MAX_LENGTH = 10;
+
+    // Shared with HashBasedAlphanumericShortener, so every code it generates can be encoded
+    static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int BASE = ALPHABET.length();
+
+    private ShortCodeCodec() {
+    }
+
+    /**
+     * @return Whether the short code is between one and {@link #MAX_LENGTH} alphanumeric characters
+     */
+    public static boolean isEncodable(CharSequence shortCode) {
+        int length = shortCode.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (digit(shortCode.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes a short code.
+     *
+     * @param shortCode The short code
+     * @return The positive value of the short code
+     * @throws IllegalArgumentException if the short code is not encodable
+     */
+    public static long encode(CharSequence shortCode) {
+        long value = encodeOrZero(shortCode);
+        if (value == 0) {
+            throw new IllegalArgumentException("Short code cannot be encoded as an integer: " + shortCode);
+        }
+        return value;
+    }
+
+    /**
+     * Encodes a short code without throwing, for callers that handle other codes separately.
+     *
+     * @param shortCode The short code
+     * @return The positive value of the short code, or zero if it is not encodable
+     */
+    public static long encodeOrZero(CharSequence shortCode) {
+        int length = shortCode.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return 0;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = digit(shortCode.charAt(i));
+            if (digit < 0) {
+                return 0;
+            }
+            value = value * BASE + digit + 1;
+        }
+        return value;
+    }
+
+    /**
+     * Decodes the value of a short code.
+     *
+     * @param value A value returned by {@link #encode}
+     * @return The short code
+     * @throws IllegalArgumentException if the value is not positive
+     */
+    public static String decode(long value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Encoded short code must be positive: " + value);
+        }
+        char[] shortCode = new char[MAX_LENGTH + 1];
+        int start = shortCode.length;
+        while (value > 0) {
+            value--;
+            shortCode[--start] = ALPHABET.charAt((int) (value % BASE));
+            value /= BASE;
+        }
+        return new String(shortCode, start, shortCode.length - start);
+    }
+
+    /**
+     * @return The value of the first short code of a length; the values of all codes of that length follow it
+     */
+    public static long firstValueOfLength(int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = value * BASE + 1;
+        }
+        return value;
+    }
+
+    /**
+     * @return The number of short codes of a length
+     */
+    public static long valuesOfLength(int length) {
+        long values = 1;
+        for (int i = 0; i < length; i++) {
+            values *= BASE;
+        }
+        return values;
+    }
+
+    private static int digit(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        }
+        return -1;
+    }
+}
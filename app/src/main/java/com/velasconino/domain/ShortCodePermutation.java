@@ -0,0 +1,136 @@
+package com.velasconino.domain;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keyed, reversible mapping of sequential IDs to short codes, so consecutive IDs give short codes
+ * that look unrelated and cannot be enumerated by counting. IDs fill the codes of the minimum
+ * length first, then those one character longer, and so on; within each length the ID is shuffled
+ * by a four-round Feistel network over the smallest even number of bits that holds every code,
+ * walking the cycle until the result is a code of that length. Being a permutation, distinct IDs
+ * always give distinct short codes. It hides the order of IDs from casual inspection; it is not
+ * meant as encryption.
+ */
+public final class ShortCodePermutation {
+
+    private static final int ROUNDS = 4;
+
+    private final int minLength;
+    private final long[] roundKeys;
+
+    /**
+     * @param key The secret the permutation is derived from; the same key always gives the same codes
+     * @param minLength The length of the shortest codes
+     */
+    public ShortCodePermutation(String key, int minLength) {
+        if (minLength < 1 || minLength > ShortCodeCodec.MAX_LENGTH) {
+            throw new IllegalArgumentException("Minimum length must be between 1 and " + ShortCodeCodec.MAX_LENGTH);
+        }
+        this.minLength = minLength;
+        this.roundKeys = roundKeys(key);
+    }
+
+    /**
+     * Maps an ID to its short code.
+     *
+     * @param id A non-negative ID
+     * @return The short code of the ID
+     * @throws IllegalArgumentException if the ID is negative or beyond the codes of {@link ShortCodeCodec#MAX_LENGTH}
+     */
+    public String shortCodeOf(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("ID must not be negative: " + id);
+        }
+        long index = id;
+        for (int length = minLength; length <= ShortCodeCodec.MAX_LENGTH; length++) {
+            long codes = ShortCodeCodec.valuesOfLength(length);
+            if (index < codes) {
+                return ShortCodeCodec.decode(ShortCodeCodec.firstValueOfLength(length) + permute(index, codes, true));
+            }
+            index -= codes;
+        }
+        throw new IllegalArgumentException("ID is beyond the longest short codes: " + id);
+    }
+
+    /**
+     * Maps a short code back to its ID.
+     *
+     * @param shortCode A short code returned by {@link #shortCodeOf}
+     * @return The ID of the short code
+     * @throws IllegalArgumentException if the short code is shorter than the minimum length or not encodable
+     */
+    public long idOf(String shortCode) {
+        if (shortCode.length() < minLength) {
+            throw new IllegalArgumentException("Short code is shorter than " + minLength + " characters: " + shortCode);
+        }
+        int length = shortCode.length();
+        long index = ShortCodeCodec.encode(shortCode) - ShortCodeCodec.firstValueOfLength(length);
+        long id = permute(index, ShortCodeCodec.valuesOfLength(length), false);
+        for (int shorter = minLength; shorter < length; shorter++) {
+            id += ShortCodeCodec.valuesOfLength(shorter);
+        }
+        return id;
+    }
+
+    /**
+     * Shuffles an index among the codes of one length, cycle-walking until the result is one of them.
+     */
+    private long permute(long index, long codes, boolean forward) {
+        int halfBits = (64 - Long.numberOfLeadingZeros(codes - 1) + 1) / 2;
+        long value = index;
+        do {
+            value = forward ? encrypt(value, halfBits) : decrypt(value, halfBits);
+        } while (value >= codes);
+        return value;
+    }
+
+    private long encrypt(long value, int halfBits) {
+        long mask = (1L << halfBits) - 1;
+        long left = value >>> halfBits;
+        long right = value & mask;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ (mix(right ^ roundKeys[round]) & mask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long decrypt(long value, int halfBits) {
+        long mask = (1L << halfBits) - 1;
+        long left = value >>> halfBits;
+        long right = value & mask;
+        for (int round = ROUNDS - 1; round >= 0; round--) {
+            long previous = right ^ (mix(left ^ roundKeys[round]) & mask);
+            right = left;
+            left = previous;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * The SplitMix64 finalizer, spreading every input bit over the whole output.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static long[] roundKeys(String key) {
+        try {
+            ByteBuffer digest = ByteBuffer.wrap(
+                    MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+            long[] roundKeys = new long[ROUNDS];
+            for (int round = 0; round < ROUNDS; round++) {
+                roundKeys[round] = digest.getLong();
+            }
+            return roundKeys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to derive the short code permutation", e);
+        }
+    }
+}
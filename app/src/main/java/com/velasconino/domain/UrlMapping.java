@@ -0,0 +1,28 @@
+package com.velasconino.domain;
+
+import java.time.Instant;
+
+/**
+ * The original URL a short code resolves to, and when the link stops resolving.
+ *
+ * @param originalUrl The original URL
+ * @param expiresAt When the link expires, or null if it never does
+ */
+public record UrlMapping(String originalUrl, Instant expiresAt) {
+
+    /**
+     * @param originalUrl The original URL
+     * @return A mapping that never expires
+     */
+    public static UrlMapping permanent(String originalUrl) {
+        return new UrlMapping(originalUrl, null);
+    }
+
+    /**
+     * @param now The current time
+     * @return Whether the link no longer resolves at that time
+     */
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
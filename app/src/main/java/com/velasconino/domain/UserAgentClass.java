@@ -0,0 +1,51 @@
+package com.velasconino.domain;
+
+import java.util.Locale;
+
+/**
+ * Coarse class of the client behind a User-Agent header, used to break click counts down
+ * without storing the header itself.
+ */
+public enum UserAgentClass {
+    BOT,
+    MOBILE,
+    DESKTOP,
+    OTHER,
+    UNKNOWN;
+
+    private static final String[] BOT_MARKERS = {"bot", "crawler", "spider", "preview", "curl", "wget", "python"};
+    private static final String[] MOBILE_MARKERS = {"mobile", "android", "iphone", "ipad"};
+
+    /**
+     * Classifies a User-Agent header.
+     *
+     * @param userAgent The header value, or null if absent
+     * @return The class of the client
+     */
+    public static UserAgentClass of(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return UNKNOWN;
+        }
+
+        String normalized = userAgent.toLowerCase(Locale.ROOT);
+        if (containsAny(normalized, BOT_MARKERS)) {
+            return BOT;
+        }
+        if (containsAny(normalized, MOBILE_MARKERS)) {
+            return MOBILE;
+        }
+        if (normalized.startsWith("mozilla/")) {
+            return DESKTOP;
+        }
+        return OTHER;
+    }
+
+    private static boolean containsAny(String value, String[] markers) {
+        for (String marker : markers) {
+            if (value.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
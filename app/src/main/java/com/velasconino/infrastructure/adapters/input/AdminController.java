@@ -0,0 +1,44 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import com.velasconino.application.ports.input.FindHotLinksUseCase;
+import com.velasconino.application.ports.input.HotLinksQuery;
+import com.velasconino.infrastructure.adapters.input.dto.HotLinksDto;
+import com.velasconino.infrastructure.adapters.input.dto.HotLinksDto.HotLinkDto;
+import com.velasconino.infrastructure.config.ExecutionFactory;
+
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.scheduling.annotation.ExecuteOn;
+
+import java.time.Duration;
+
+/**
+ * REST controller for operational insight into the traffic of short URLs.
+ * It is only served on the management port, next to the metrics, never on the public one.
+ */
+@Controller(value = "/admin", port = "${endpoints.all.port}")
+public class AdminController {
+    
+    private final FindHotLinksUseCase findHotLinksUseCase;
+    
+    public AdminController(FindHotLinksUseCase findHotLinksUseCase) {
+        this.findHotLinksUseCase = findHotLinksUseCase;
+    }
+    
+    /**
+     * Lists the short codes resolved most often in a recent window, such as 30s, 5m or 1h,
+     * with approximate click and distinct client counts.
+     */
+    @ExecuteOn(ExecutionFactory.URL_SHORTENER_EXECUTOR)
+    @Get(value = "/hot", produces = MediaType.APPLICATION_JSON)
+    public HotLinksDto hotLinks(@QueryValue(defaultValue = "5m") Duration window,
+                                @QueryValue(defaultValue = "10") int limit) {
+        HotLinksQuery query = new HotLinksQuery(window, limit);
+        
+        return new HotLinksDto(window.toString(), findHotLinksUseCase.findHotLinks(query).stream()
+                .map(hotLink -> new HotLinkDto(hotLink.shortCode(), hotLink.clicks(), hotLink.distinctClients()))
+                .toList());
+    }
+}
@@ -0,0 +1,140 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.core.annotation.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.ReferenceCounted;
+
+import java.time.Duration;
+
+/**
+ * Pre-serialized redirect responses of the fast path, keyed by short code. Each entry keeps the
+ * head of the redirect and of its {@code 304 Not Modified} answer in pooled direct buffers, every
+ * header but the Date included, so serving a cached redirect is a buffer duplicate and a write.
+ * Entries are reference counted: an evicted entry frees its buffers once the last response
+ * written from it has been flushed.
+ */
+public class FastRedirectCache implements AutoCloseable {
+
+    private static final String CACHE_NAME = "url-fast-path";
+
+    /**
+     * A cached redirect. Retain it before writing from it and release it afterwards.
+     */
+    public static final class Entry extends AbstractReferenceCounted {
+
+        private final ByteBuf redirect;
+        private final ByteBuf notModified;
+        private final String entityTag;
+
+        /**
+         * @param redirect The status line and headers of the redirect, without the Date header and the blank line
+         * @param notModified The status line and headers of the {@code 304 Not Modified} answer, likewise
+         * @param entityTag The entity tag of the mapping, compared with {@code If-None-Match}
+         */
+        public Entry(ByteBuf redirect, ByteBuf notModified, String entityTag) {
+            this.redirect = redirect;
+            this.notModified = notModified;
+            this.entityTag = entityTag;
+        }
+
+        /**
+         * @return A retained duplicate of the redirect head, for the caller to write
+         */
+        public ByteBuf redirect() {
+            return redirect.retainedDuplicate();
+        }
+
+        /**
+         * @return A retained duplicate of the {@code 304 Not Modified} head, for the caller to write
+         */
+        public ByteBuf notModified() {
+            return notModified.retainedDuplicate();
+        }
+
+        public String entityTag() {
+            return entityTag;
+        }
+
+        @Override
+        protected void deallocate() {
+            redirect.release();
+            notModified.release();
+        }
+
+        @Override
+        public ReferenceCounted touch(Object hint) {
+            return this;
+        }
+    }
+
+    private final Cache<String, Entry> cache;
+
+    /**
+     * @param maximumSize The maximum number of cached redirects
+     * @param expireAfterWrite How long a redirect is served from the cache before the controller answers it again
+     * @param meterRegistry The registry the cache metrics are published to
+     */
+    public FastRedirectCache(long maximumSize, Duration expireAfterWrite, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                // Run maintenance inline, so evicted buffers are released right away
+                .executor(Runnable::run)
+                .<String, Entry>removalListener((shortCode, entry, cause) -> {
+                    if (entry != null) {
+                        entry.release();
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Looks up the redirect of a short code and retains it for the caller.
+     *
+     * @param shortCode The short code
+     * @return The retained entry, or null if the short code is not cached
+     */
+    @Nullable
+    public Entry retain(String shortCode) {
+        Entry entry = cache.getIfPresent(shortCode);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return (Entry) entry.retain();
+        } catch (IllegalReferenceCountException e) {
+            // Evicted and freed since the lookup
+            return null;
+        }
+    }
+
+    /**
+     * Caches the redirect of a short code, taking over the reference to the entry.
+     *
+     * @param shortCode The short code
+     * @param entry The pre-serialized redirect
+     */
+    public void put(String shortCode, Entry entry) {
+        cache.put(shortCode, entry);
+    }
+
+    /**
+     * @return Whether the redirect of a short code is cached
+     */
+    public boolean contains(String shortCode) {
+        return cache.getIfPresent(shortCode) != null;
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,119 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The half of the fast path behind the HTTP codec of a connection. It watches the requests the
+ * router answers: while any is in flight, the {@link FastRedirectHandler} in front of the codec
+ * leaves the connection alone, so responses keep their order. Each redirect the controller
+ * answers a {@code GET /{shortCode}} with is serialized into the {@link FastRedirectCache},
+ * so the next request for the short code never reaches the router. Redirects of links that
+ * expire, which carry an Expires header, are not cached: they must stop resolving on time.
+ */
+public class FastRedirectCapture extends ChannelDuplexHandler {
+
+    private static final Set<Integer> REDIRECT_STATUSES = Set.of(301, 302, 307, 308);
+    // Headers that depend on the request or the moment, written per response instead
+    private static final Set<String> UNCACHED_HEADERS = Set.of("date", "connection", "keep-alive", "content-length",
+            "transfer-encoding");
+
+    private final FastRedirectCache cache;
+    // The short code of each request in flight, or an empty string for other requests
+    private final ArrayDeque<String> inFlight = new ArrayDeque<>();
+
+    public FastRedirectCapture(FastRedirectCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return Whether the router still owes a response on this connection
+     */
+    boolean idle() {
+        return inFlight.isEmpty();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest request) {
+            String shortCode = request.method().equals(HttpMethod.GET)
+                    ? FastRedirectHandler.shortCodeOf(request.uri())
+                    : null;
+            inFlight.add(shortCode != null ? shortCode : "");
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof HttpResponse response && isInformational(response.status())) {
+            // An interim response, such as 100 Continue, does not end the request
+            ctx.write(msg, promise);
+            return;
+        }
+        if (msg instanceof HttpResponse response) {
+            String shortCode = inFlight.peek();
+            if (shortCode != null && !shortCode.isEmpty() && REDIRECT_STATUSES.contains(response.status().code())) {
+                capture(ctx.alloc(), shortCode, response);
+            }
+        }
+        if (msg instanceof LastHttpContent) {
+            inFlight.poll();
+        }
+        ctx.write(msg, promise);
+    }
+
+    private void capture(ByteBufAllocator allocator, String shortCode, HttpResponse response) {
+        String entityTag = response.headers().get(HttpHeaderNames.ETAG);
+        if (entityTag == null || !response.headers().contains(HttpHeaderNames.LOCATION)
+                || response.headers().contains(HttpHeaderNames.EXPIRES) || cache.contains(shortCode)) {
+            return;
+        }
+
+        StringBuilder redirect = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(response.status()).append("\r\n");
+        for (Iterator<Map.Entry<String, String>> headers = response.headers().iteratorAsString(); headers.hasNext(); ) {
+            Map.Entry<String, String> header = headers.next();
+            if (!UNCACHED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                redirect.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+        }
+        redirect.append(HttpHeaderNames.CONTENT_LENGTH).append(": 0\r\n");
+
+        StringBuilder notModified = new StringBuilder(128)
+                .append("HTTP/1.1 ").append(HttpResponseStatus.NOT_MODIFIED).append("\r\n")
+                .append(HttpHeaderNames.ETAG).append(": ").append(entityTag).append("\r\n");
+        String cacheControl = response.headers().get(HttpHeaderNames.CACHE_CONTROL);
+        if (cacheControl != null) {
+            notModified.append(HttpHeaderNames.CACHE_CONTROL).append(": ").append(cacheControl).append("\r\n");
+        }
+
+        cache.put(shortCode, new FastRedirectCache.Entry(
+                toDirectBuffer(allocator, redirect), toDirectBuffer(allocator, notModified), entityTag));
+    }
+
+    private static ByteBuf toDirectBuffer(ByteBufAllocator allocator, CharSequence head) {
+        byte[] bytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        return allocator.directBuffer(bytes.length, bytes.length).writeBytes(bytes);
+    }
+
+    private static boolean isInformational(HttpResponseStatus status) {
+        return status.code() >= 100 && status.code() < 200;
+    }
+}
@@ -0,0 +1,269 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import com.velasconino.application.ports.output.ClickEventPublisher;
+import com.velasconino.domain.ClickEvent;
+import com.velasconino.domain.ShortCodeCodec;
+
+import io.micrometer.core.instrument.Counter;
+import io.micronaut.core.annotation.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * The half of the fast path in front of the HTTP codec of a connection. It reads the raw bytes of
+ * each request and answers a keep-alive {@code GET /{shortCode}} whose redirect is in the
+ * {@link FastRedirectCache} by writing the pre-serialized response straight to the socket, so the
+ * request is never decoded into objects nor routed. Any other request, and any request while the
+ * router still owes a response on the connection, is passed on to the codec byte for byte.
+ * A request with a body, or one it cannot parse, hands the rest of the connection to the codec.
+ * Filters and request metrics of the router do not see the requests answered here.
+ */
+public class FastRedirectHandler extends ChannelInboundHandlerAdapter {
+
+    // Longer request heads are rare and left to the codec
+    private static final int MAX_HEAD_LENGTH = 8192;
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+    private record DateLine(long epochSecond, byte[] bytes) {
+    }
+
+    // The Date header and the blank line ending the head, formatted once a second for all connections
+    private static volatile DateLine dateLine = new DateLine(-1, new byte[0]);
+
+    private final FastRedirectCache cache;
+    private final FastRedirectCapture capture;
+    private final ClickEventPublisher clickEventPublisher;
+    @Nullable
+    private final String clientAddressHeader;
+    private final Counter hits;
+    private final Counter misses;
+    private ByteBuf cumulation;
+    private boolean passThrough;
+    private boolean wrote;
+
+    /**
+     * @param cache The cached redirects
+     * @param capture The capture behind the codec of the same connection
+     * @param clickEventPublisher The publisher clicks on cached redirects are reported to
+     * @param clientAddressHeader The header carrying the client address behind a proxy, or null to use the peer address
+     * @param hits Counts requests answered from the cache
+     * @param misses Counts {@code GET /{shortCode}} requests passed on to the router
+     */
+    public FastRedirectHandler(FastRedirectCache cache,
+                               FastRedirectCapture capture,
+                               ClickEventPublisher clickEventPublisher,
+                               @Nullable String clientAddressHeader,
+                               Counter hits,
+                               Counter misses) {
+        this.cache = cache;
+        this.capture = capture;
+        this.clickEventPublisher = clickEventPublisher;
+        this.clientAddressHeader = clientAddressHeader;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (passThrough || !(msg instanceof ByteBuf in)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        cumulation = cumulation == null ? in : ByteToMessageDecoder.MERGE_CUMULATOR.cumulate(ctx.alloc(), cumulation, in);
+        while (!passThrough && cumulation.isReadable()) {
+            int headLength = headLength(cumulation);
+            if (headLength == 0) {
+                // Incomplete; wait for more bytes unless the head is too long to be ours
+                passThrough = cumulation.readableBytes() > MAX_HEAD_LENGTH;
+                break;
+            }
+            if (headLength < 0) {
+                passThrough = true;
+                break;
+            }
+            String head = cumulation.toString(cumulation.readerIndex(), headLength, StandardCharsets.ISO_8859_1);
+            if (serveFromCache(ctx, head)) {
+                cumulation.skipBytes(headLength);
+            } else {
+                ctx.fireChannelRead(cumulation.readRetainedSlice(headLength));
+            }
+        }
+
+        if (passThrough && cumulation.isReadable()) {
+            ByteBuf rest = cumulation;
+            cumulation = null;
+            ctx.fireChannelRead(rest);
+        } else if (!cumulation.isReadable()) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        if (wrote) {
+            wrote = false;
+            ctx.flush();
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseCumulation();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releaseCumulation();
+    }
+
+    private void releaseCumulation() {
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+
+    /**
+     * Answers a request from the cache if it can be.
+     *
+     * @return Whether the request was answered; if not, it is for the codec and router
+     */
+    private boolean serveFromCache(ChannelHandlerContext ctx, String head) {
+        int requestLineEnd = head.indexOf("\r\n");
+        String[] requestLine = head.substring(0, requestLineEnd).split(" ", -1);
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            passThrough = true;
+            return false;
+        }
+
+        String ifNoneMatch = null;
+        String userAgent = null;
+        String clientAddress = null;
+        boolean eligible = requestLine[2].equals("HTTP/1.1");
+        int lineStart = requestLineEnd + 2;
+        while (lineStart < head.length() - 2) {
+            int lineEnd = head.indexOf("\r\n", lineStart);
+            int colon = head.indexOf(':', lineStart);
+            if (colon < 0 || colon > lineEnd) {
+                passThrough = true;
+                return false;
+            }
+            String name = head.substring(lineStart, colon).strip();
+            String value = head.substring(colon + 1, lineEnd).strip();
+            lineStart = lineEnd + 2;
+            if (name.equalsIgnoreCase("Content-Length") && value.equals("0")) {
+                eligible = false;
+            } else if (name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Transfer-Encoding")) {
+                // The body follows the head; leave the rest of the connection to the codec
+                passThrough = true;
+                return false;
+            } else if (name.equalsIgnoreCase("Connection")) {
+                String options = value.toLowerCase(Locale.ROOT);
+                eligible &= !options.contains("close") && !options.contains("upgrade");
+            } else if (name.equalsIgnoreCase("Upgrade") || name.equalsIgnoreCase("Expect")) {
+                eligible = false;
+            } else if (name.equalsIgnoreCase("If-None-Match")) {
+                ifNoneMatch = ifNoneMatch == null ? value : ifNoneMatch + ", " + value;
+            } else if (name.equalsIgnoreCase("User-Agent")) {
+                userAgent = value;
+            } else if (clientAddressHeader != null && name.equalsIgnoreCase(clientAddressHeader)) {
+                clientAddress = value;
+            } else if (clientAddressHeader == null
+                    && (name.equalsIgnoreCase("Forwarded") || name.equalsIgnoreCase("X-Forwarded-For"))) {
+                // The router resolves the client address from proxy headers
+                eligible = false;
+            }
+        }
+
+        String shortCode = requestLine[0].equals("GET") ? shortCodeOf(requestLine[1]) : null;
+        if (shortCode == null) {
+            return false;
+        }
+        FastRedirectCache.Entry entry = eligible && capture.idle() ? cache.retain(shortCode) : null;
+        if (entry == null) {
+            misses.increment();
+            return false;
+        }
+
+        try {
+            ctx.write(RedirectPolicy.matches(ifNoneMatch, entry.entityTag()) ? entry.notModified() : entry.redirect(),
+                    ctx.voidPromise());
+        } finally {
+            entry.release();
+        }
+        ctx.write(Unpooled.wrappedBuffer(dateLine()), ctx.voidPromise());
+        wrote = true;
+        hits.increment();
+        if (clientAddressHeader == null) {
+            clientAddress = hostOf(ctx.channel().remoteAddress());
+        }
+        clickEventPublisher.publish(new ClickEvent(shortCode, System.currentTimeMillis(), userAgent, clientAddress));
+        return true;
+    }
+
+    /**
+     * @return The short code a request target names, or null if it is not {@code /{shortCode}} without a query
+     */
+    @Nullable
+    static String shortCodeOf(String uri) {
+        if (uri.length() < 2 || uri.charAt(0) != '/') {
+            return null;
+        }
+        String shortCode = uri.substring(1);
+        return ShortCodeCodec.isEncodable(shortCode) ? shortCode : null;
+    }
+
+    /**
+     * @return The length of the request head at the reader index, up to and including the blank line;
+     *         0 if it is incomplete, or -1 if its lines do not end in CRLF
+     */
+    static int headLength(ByteBuf buffer) {
+        int start = buffer.readerIndex();
+        int end = buffer.writerIndex();
+        for (int i = buffer.indexOf(start, end, (byte) '\n'); i >= 0; i = buffer.indexOf(i + 1, end, (byte) '\n')) {
+            if (i == start || buffer.getByte(i - 1) != '\r') {
+                return -1;
+            }
+            if (i + 1 < end && buffer.getByte(i + 1) != '\r') {
+                continue;
+            }
+            if (i + 2 >= end) {
+                return 0;
+            }
+            return buffer.getByte(i + 2) == '\n' ? i + 3 - start : -1;
+        }
+        return 0;
+    }
+
+    private static byte[] dateLine() {
+        long epochSecond = System.currentTimeMillis() / 1000;
+        DateLine current = dateLine;
+        if (current.epochSecond() != epochSecond) {
+            String line = "date: " + HTTP_DATE.format(Instant.ofEpochSecond(epochSecond)) + "\r\n\r\n";
+            current = new DateLine(epochSecond, line.getBytes(StandardCharsets.ISO_8859_1));
+            dateLine = current;
+        }
+        return current.bytes();
+    }
+
+    @Nullable
+    private static String hostOf(SocketAddress address) {
+        return address instanceof InetSocketAddress inetAddress ? inetAddress.getHostString() : null;
+    }
+}
@@ -0,0 +1,181 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import com.velasconino.infrastructure.adapters.output.Hashing;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides how a resolved short code is redirected: the status code and how long browsers and
+ * CDNs may cache the redirect. A mapping never changes once saved, so every redirect carries an
+ * entity tag derived from it, and a conditional request whose {@code If-None-Match} still matches
+ * is answered with {@code 304 Not Modified}. Rules can be overridden for individual short codes
+ * or for destinations starting with a prefix. A link that expires is never cached past its expiry.
+ */
+public class RedirectPolicy {
+
+    private static final Set<HttpStatus> REDIRECT_STATUSES = Set.of(HttpStatus.MOVED_PERMANENTLY, HttpStatus.FOUND,
+            HttpStatus.TEMPORARY_REDIRECT, HttpStatus.PERMANENT_REDIRECT);
+
+    /**
+     * How a redirect is answered.
+     *
+     * @param status The redirect status: 301, 302, 307 or 308
+     * @param maxAge How long the redirect may be cached; zero makes caches revalidate every time
+     */
+    public record Rule(HttpStatus status, Duration maxAge) {
+
+        public Rule {
+            if (!REDIRECT_STATUSES.contains(status)) {
+                throw new IllegalArgumentException("Redirect status must be 301, 302, 307 or 308: " + status.getCode());
+            }
+            if (maxAge.isNegative()) {
+                throw new IllegalArgumentException("Redirect max age cannot be negative: " + maxAge);
+            }
+        }
+
+        String cacheControl() {
+            return cacheControl(maxAge.toSeconds());
+        }
+
+        /**
+         * @return The Cache-Control of a redirect that may be cached for no longer than the given time
+         */
+        String cacheControl(Duration untilExpiry) {
+            return cacheControl(Math.min(maxAge.toSeconds(), Math.max(0, untilExpiry.toSeconds())));
+        }
+
+        private static String cacheControl(long maxAgeSeconds) {
+            return maxAgeSeconds == 0 ? "no-cache" : "public, max-age=" + maxAgeSeconds;
+        }
+    }
+
+    /**
+     * A rule that replaces the default one for some redirects.
+     *
+     * @param shortCodes The short codes it applies to
+     * @param urlPrefix The prefix of the original URLs it applies to, or null for none
+     * @param rule The rule
+     */
+    public record RuleOverride(List<String> shortCodes, @Nullable String urlPrefix, Rule rule) {
+
+        public RuleOverride {
+            shortCodes = List.copyOf(shortCodes);
+        }
+    }
+
+    private final Rule defaultRule;
+    private final Map<String, Rule> shortCodeRules = new HashMap<>();
+    private final List<RuleOverride> urlPrefixOverrides;
+
+    /**
+     * @param defaultRule The rule of redirects no override applies to
+     * @param overrides The overrides; one naming the short code wins over one matching the URL prefix,
+     *                  and among the latter the longest prefix wins
+     */
+    public RedirectPolicy(Rule defaultRule, List<RuleOverride> overrides) {
+        this.defaultRule = defaultRule;
+        for (RuleOverride override : overrides) {
+            override.shortCodes().forEach(shortCode -> shortCodeRules.putIfAbsent(shortCode, override.rule()));
+        }
+        this.urlPrefixOverrides = overrides.stream()
+                .filter(override -> override.urlPrefix() != null)
+                .sorted(Comparator.comparingInt((RuleOverride override) -> override.urlPrefix().length()).reversed())
+                .toList();
+    }
+
+    /**
+     * Builds the response to a request for a resolved short code.
+     *
+     * @param request The request, whose {@code If-None-Match} header is checked
+     * @param shortCode The short code
+     * @param originalUrl The original URL the short code maps to
+     * @param location The original URL in ASCII, as sent in the Location header
+     * @return A redirect, or {@code 304 Not Modified} if the client's copy is still current
+     */
+    public MutableHttpResponse<?> respond(HttpRequest<?> request, String shortCode, String originalUrl, String location) {
+        return respond(request, shortCode, originalUrl, location, null);
+    }
+
+    /**
+     * Builds the response to a request for a resolved short code that may expire.
+     * Its max age is cut to the time left before the link expires, which is also sent as the Expires header.
+     *
+     * @param request The request, whose {@code If-None-Match} header is checked
+     * @param shortCode The short code
+     * @param originalUrl The original URL the short code maps to
+     * @param location The original URL in ASCII, as sent in the Location header
+     * @param expiresAt When the link expires, or null if it never does
+     * @return A redirect, or {@code 304 Not Modified} if the client's copy is still current
+     */
+    public MutableHttpResponse<?> respond(HttpRequest<?> request, String shortCode, String originalUrl, String location,
+                                          @Nullable Instant expiresAt) {
+        Rule rule = ruleFor(shortCode, originalUrl);
+        String entityTag = entityTag(shortCode, originalUrl);
+        MutableHttpResponse<?> response = matches(request.getHeaders().get(HttpHeaders.IF_NONE_MATCH), entityTag)
+                ? HttpResponse.notModified()
+                : HttpResponse.status(rule.status()).header(HttpHeaders.LOCATION, location);
+        response.header(HttpHeaders.ETAG, entityTag);
+        if (expiresAt == null) {
+            return response.header(HttpHeaders.CACHE_CONTROL, rule.cacheControl());
+        }
+        return response
+                .header(HttpHeaders.CACHE_CONTROL, rule.cacheControl(Duration.between(Instant.now(), expiresAt)))
+                .header(HttpHeaders.EXPIRES, DateTimeFormatter.RFC_1123_DATE_TIME.format(expiresAt.atZone(ZoneOffset.UTC)));
+    }
+
+    Rule ruleFor(String shortCode, String originalUrl) {
+        Rule shortCodeRule = shortCodeRules.get(shortCode);
+        if (shortCodeRule != null) {
+            return shortCodeRule;
+        }
+        for (RuleOverride override : urlPrefixOverrides) {
+            if (originalUrl.startsWith(override.urlPrefix())) {
+                return override.rule();
+            }
+        }
+        return defaultRule;
+    }
+
+    /**
+     * An entity tag only has to tell the URLs one short code has redirected to apart, so it is a
+     * 64-bit non-cryptographic hash rather than a digest computed on every redirect.
+     *
+     * @return A strong entity tag of the mapping: a hash of the short code and original URL in hex
+     */
+    static String entityTag(String shortCode, String originalUrl) {
+        long hash = Hashing.mix(Hashing.hash(shortCode) * 31 + Hashing.hash(originalUrl));
+        return '"' + Long.toHexString(hash) + '"';
+    }
+
+    static boolean matches(@Nullable String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.strip();
+            // GET requests compare entity tags weakly
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,22 +1,43 @@
 package com.velasconino.infrastructure.adapters.input;
 
-import com.velasconino.application.ports.input.ResolveShortUrlUseCase;
+import com.velasconino.application.exceptions.BatchSizeExceededException;
+import com.velasconino.application.exceptions.EmptyUrlException;
+import com.velasconino.application.exceptions.InvalidExpiryException;
+import com.velasconino.application.exceptions.InvalidUrlException;
+import com.velasconino.application.ports.input.ReactiveResolveShortUrlUseCase;
 import com.velasconino.application.ports.input.ShortCodeQuery;
 import com.velasconino.application.ports.input.ShortenUrlCommand;
 import com.velasconino.application.ports.input.ShortenUrlUseCase;
+import com.velasconino.application.ports.input.ShortenUrlResult;
 import com.velasconino.application.ports.input.UrlShortenedResponse;
+import com.velasconino.domain.ParsedUrl;
+import com.velasconino.infrastructure.adapters.input.dto.BatchUrlResultDto;
 import com.velasconino.infrastructure.adapters.input.dto.UrlRequestDto;
 import com.velasconino.infrastructure.adapters.input.dto.UrlResponseDto;
+import com.velasconino.infrastructure.adapters.input.error.UrlShortenerExceptionHandler;
+import com.velasconino.infrastructure.adapters.input.error.UrlShortenerExceptionHandler.ErrorResponse;
+import com.velasconino.infrastructure.config.ExecutionFactory;
 
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.server.util.HttpClientAddressResolver;
+import io.micronaut.scheduling.annotation.ExecuteOn;
+import reactor.core.publisher.Mono;
 
-import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * REST controller for URL shortening operations.
@@ -25,29 +46,101 @@ import java.net.URI;
 public class UrlShortenerController {
     
     private final ShortenUrlUseCase shortenUrlUseCase;
-    private final ResolveShortUrlUseCase resolveShortUrlUseCase;
+    private final ReactiveResolveShortUrlUseCase resolveShortUrlUseCase;
+    private final int maxBatchSize;
+    private final int maxUrlLength;
+    private final UrlShortenerExceptionHandler exceptionHandler;
+    private final HttpClientAddressResolver clientAddressResolver;
+    private final RedirectPolicy redirectPolicy;
     
     public UrlShortenerController(ShortenUrlUseCase shortenUrlUseCase, 
-                                 ResolveShortUrlUseCase resolveShortUrlUseCase) {
+                                 ReactiveResolveShortUrlUseCase resolveShortUrlUseCase,
+                                 UrlShortenerExceptionHandler exceptionHandler,
+                                 HttpClientAddressResolver clientAddressResolver,
+                                 RedirectPolicy redirectPolicy,
+                                 @Value("${url.shortener.batch.max-size:1000}") int maxBatchSize,
+                                 @Value("${url.shortener.max-url-length:2048}") int maxUrlLength) {
         this.shortenUrlUseCase = shortenUrlUseCase;
         this.resolveShortUrlUseCase = resolveShortUrlUseCase;
+        this.maxBatchSize = maxBatchSize;
+        this.maxUrlLength = maxUrlLength;
+        this.exceptionHandler = exceptionHandler;
+        this.clientAddressResolver = clientAddressResolver;
+        this.redirectPolicy = redirectPolicy;
     }
     
+    @ExecuteOn(ExecutionFactory.URL_SHORTENER_EXECUTOR)
     @Post(value = "/shorten", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
     public HttpResponse<UrlResponseDto> createShortUrl(@Body UrlRequestDto request) {
         UrlShortenedResponse response = shortenUrlUseCase.shortenUrl(
-                new ShortenUrlCommand(request.url()));
+                new ShortenUrlCommand(request.url(), maxUrlLength, request.expiresAt()));
         
         return HttpResponse.created(new UrlResponseDto(response.shortUrl()));
     }
     
+    /**
+     * Shortens a JSON array of URLs. Each URL gets its own result, in input order;
+     * an invalid URL is reported in place and does not fail the rest of the batch.
+     */
+    @ExecuteOn(ExecutionFactory.URL_SHORTENER_EXECUTOR)
+    @Post(value = "/shorten/batch", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<List<BatchUrlResultDto>> createShortUrls(@Body List<UrlRequestDto> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new BatchSizeExceededException(
+                "Batch cannot contain more than " + maxBatchSize + " URLs");
+        }
+        
+        BatchUrlResultDto[] results = new BatchUrlResultDto[requests.size()];
+        List<ShortenUrlCommand> commands = new ArrayList<>(requests.size());
+        List<Integer> commandPositions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            UrlRequestDto request = requests.get(i);
+            try {
+                commands.add(request == null
+                        ? new ShortenUrlCommand(null, maxUrlLength)
+                        : new ShortenUrlCommand(request.url(), maxUrlLength, request.expiresAt()));
+                commandPositions.add(i);
+            } catch (EmptyUrlException | InvalidUrlException | InvalidExpiryException e) {
+                results[i] = toFailure(e);
+            }
+        }
+        
+        List<ShortenUrlResult> shortenedUrls = shortenUrlUseCase.shortenUrls(commands);
+        for (int i = 0; i < shortenedUrls.size(); i++) {
+            ShortenUrlResult result = shortenedUrls.get(i);
+            results[commandPositions.get(i)] = result.isSuccess()
+                    ? BatchUrlResultDto.success(HttpStatus.CREATED.getCode(), result.response().shortUrl())
+                    : toFailure(result.error());
+        }
+        
+        return HttpResponse.ok(Arrays.asList(results));
+    }
+    
+    /**
+     * Redirects to the original URL. The lookup is non-blocking, so the event loop
+     * keeps serving other requests while it is in flight.
+     * The Location header holds the ASCII form of the URL: an IDN host in Punycode and
+     * other non-ASCII characters percent-encoded.
+     * The User-Agent header and the client address are passed on for click analytics;
+     * the address honours micronaut.server.client-address-header behind a proxy.
+     * The status and caching headers of the redirect come from the {@link RedirectPolicy}.
+     * An expired link is not found, even before it has been purged.
+     */
     @Get("/{shortCode}")
-    public HttpResponse<?> redirectToOriginal(@PathVariable String shortCode) {
+    public Mono<HttpResponse<?>> redirectToOriginal(@PathVariable String shortCode,
+                                                     @Header(HttpHeaders.USER_AGENT) @Nullable String userAgent,
+                                                     HttpRequest<?> request) {
         // Create a ShortCodeQuery object that will validate the short code
-        ShortCodeQuery query = new ShortCodeQuery(shortCode);
+        ShortCodeQuery query = new ShortCodeQuery(shortCode, userAgent, clientAddressResolver.resolve(request));
         
-        return resolveShortUrlUseCase.resolveShortUrl(query)
-                .map(originalUrl -> HttpResponse.redirect(URI.create(originalUrl)))
-                .orElse(HttpResponse.notFound());
+        return resolveShortUrlUseCase.resolveMapping(query)
+                .<HttpResponse<?>>map(mapping -> redirectPolicy.respond(request, shortCode, mapping.originalUrl(),
+                        ParsedUrl.asciiUrl(mapping.originalUrl()), mapping.expiresAt()))
+                .defaultIfEmpty(HttpResponse.notFound());
+    }
+    
+    private BatchUrlResultDto toFailure(RuntimeException exception) {
+        ErrorResponse error = exceptionHandler.report(exception);
+        return BatchUrlResultDto.failure(error.status(), error.message());
     }
-} 
\ No newline at end of file
+}
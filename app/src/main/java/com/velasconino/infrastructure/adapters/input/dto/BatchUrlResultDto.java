@@ -0,0 +1,20 @@
+package com.velasconino.infrastructure.adapters.input.dto;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * Result DTO for one URL of a batch shortening request.
+ * Carries the short URL on success, or the error message otherwise.
+ */
+@Serdeable
+public record BatchUrlResultDto(int status, @Nullable String shortUrl, @Nullable String message) {
+    
+    public static BatchUrlResultDto success(int status, String shortUrl) {
+        return new BatchUrlResultDto(status, shortUrl, null);
+    }
+    
+    public static BatchUrlResultDto failure(int status, String message) {
+        return new BatchUrlResultDto(status, null, message);
+    }
+}
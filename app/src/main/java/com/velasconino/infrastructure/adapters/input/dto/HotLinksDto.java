@@ -0,0 +1,18 @@
+package com.velasconino.infrastructure.adapters.input.dto;
+
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.util.List;
+
+/**
+ * Response DTO for the hot links of a window, given as an ISO-8601 duration.
+ */
+@Serdeable
+public record HotLinksDto(String window, List<HotLinkDto> links) {
+    
+    /**
+     * Approximate traffic of one short code over the window.
+     */
+    @Serdeable
+    public record HotLinkDto(String shortCode, long clicks, long distinctClients) {}
+}
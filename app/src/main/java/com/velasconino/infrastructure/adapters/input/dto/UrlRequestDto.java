@@ -1,9 +1,25 @@
 package com.velasconino.infrastructure.adapters.input.dto;
 
+import io.micronaut.core.annotation.Creator;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.serde.annotation.Serdeable;
+
+import java.time.Instant;
  
 /**
  * Request DTO for URL shortening.
+ *
+ * @param url The URL to shorten
+ * @param expiresAt When the link expires, as an ISO-8601 instant, or null if it never does
  */
 @Serdeable
-public record UrlRequestDto(String url) {} 
\ No newline at end of file
+public record UrlRequestDto(String url, @Nullable Instant expiresAt) {
+
+    @Creator
+    public UrlRequestDto {
+    }
+
+    public UrlRequestDto(String url) {
+        this(url, null);
+    }
+}
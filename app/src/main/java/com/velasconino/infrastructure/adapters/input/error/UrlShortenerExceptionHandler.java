@@ -1,10 +1,15 @@
 package com.velasconino.infrastructure.adapters.input.error;
 
+import com.velasconino.application.exceptions.BatchSizeExceededException;
 import com.velasconino.application.exceptions.EmptyUrlException;
+import com.velasconino.application.exceptions.InvalidExpiryException;
+import com.velasconino.application.exceptions.InvalidHotLinksQueryException;
 import com.velasconino.application.exceptions.InvalidShortCodeException;
 import com.velasconino.application.exceptions.InvalidUrlException;
 import com.velasconino.application.exceptions.UrlShorteningCollisionException;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
@@ -14,41 +19,102 @@ import io.micronaut.http.server.exceptions.ExceptionHandler;
 import io.micronaut.serde.annotation.Serdeable;
 import jakarta.inject.Singleton;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * Exception handler for URL shortener specific exceptions.
- * Maps custom exceptions to appropriate HTTP responses.
+ * Maps custom exceptions to appropriate HTTP responses, and counts every mapped exception
+ * by type; exceptions of any other type are counted together as "other".
  */
 @Singleton
 @Produces
 @Requires(classes = {RuntimeException.class, ExceptionHandler.class})
 public class UrlShortenerExceptionHandler implements ExceptionHandler<RuntimeException, HttpResponse<?>> {
 
+    private static final List<Class<? extends RuntimeException>> MAPPED_EXCEPTIONS = List.of(
+            EmptyUrlException.class,
+            InvalidUrlException.class,
+            InvalidExpiryException.class,
+            InvalidShortCodeException.class,
+            BatchSizeExceededException.class,
+            InvalidHotLinksQueryException.class,
+            UrlShorteningCollisionException.class);
+
+    private final Map<Class<?>, Counter> errorCounters;
+    private final Counter otherErrorCounter;
+
+    public UrlShortenerExceptionHandler(MeterRegistry meterRegistry) {
+        this.errorCounters = MAPPED_EXCEPTIONS.stream().collect(Collectors.toUnmodifiableMap(
+                Function.identity(), type -> errorCounter(type.getSimpleName(), meterRegistry)));
+        this.otherErrorCounter = errorCounter("other", meterRegistry);
+    }
+
     @Override
     public HttpResponse<?> handle(HttpRequest request, RuntimeException exception) {
+        ErrorResponse errorResponse = report(exception);
+        return HttpResponse.status(HttpStatus.valueOf(errorResponse.status())).body(errorResponse);
+    }
+    
+    /**
+     * Counts an exception and maps it to the error reported to the client.
+     * Also used for the per-URL errors of batch requests.
+     * 
+     * @param exception The exception to report
+     * @return The error response
+     */
+    public ErrorResponse report(RuntimeException exception) {
+        errorCounters.getOrDefault(exception.getClass(), otherErrorCounter).increment();
+        return toErrorResponse(exception);
+    }
+    
+    /**
+     * Maps an exception to the error reported to the client.
+     * 
+     * @param exception The exception to map
+     * @return The error response
+     */
+    private static ErrorResponse toErrorResponse(RuntimeException exception) {
         if (exception instanceof EmptyUrlException) {
-            return HttpResponse.badRequest()
-                    .body(new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage()));
+            return new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage());
         }
         
         if (exception instanceof InvalidUrlException) {
-            return HttpResponse.badRequest()
-                    .body(new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage()));
+            return new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage());
+        }
+        
+        if (exception instanceof InvalidExpiryException) {
+            return new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage());
         }
         
         if (exception instanceof InvalidShortCodeException) {
-            return HttpResponse.badRequest()
-                    .body(new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage()));
+            return new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage());
+        }
+        
+        if (exception instanceof BatchSizeExceededException) {
+            return new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage());
+        }
+        
+        if (exception instanceof InvalidHotLinksQueryException) {
+            return new ErrorResponse(HttpStatus.BAD_REQUEST.getCode(), exception.getMessage());
         }
         
         if (exception instanceof UrlShorteningCollisionException) {
-            return HttpResponse.serverError()
-                    .body(new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.getCode(), 
-                        "URL shortening collision occurred"));
+            return new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.getCode(), 
+                "URL shortening collision occurred");
         }
         
         // Default case for other runtime exceptions
-        return HttpResponse.serverError()
-                .body(new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.getCode(), "An unexpected error occurred"));
+        return new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.getCode(), "An unexpected error occurred");
+    }
+    
+    private static Counter errorCounter(String exception, MeterRegistry meterRegistry) {
+        return Counter.builder("url.shortener.errors")
+                .description("Exceptions mapped to error responses")
+                .tag("exception", exception)
+                .register(meterRegistry);
     }
     
     /**
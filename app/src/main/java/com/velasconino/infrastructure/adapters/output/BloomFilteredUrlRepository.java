@@ -0,0 +1,125 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Decorator for a UrlRepository that answers lookups for unknown short codes
+ * from a Bloom filter, without calling the delegate.
+ * While the filter is still being populated every lookup is passed through.
+ */
+public class BloomFilteredUrlRepository implements UrlRepository {
+
+    private final UrlRepository delegate;
+    private final ShortCodeBloomFilter filter;
+    private final Counter rejectedLookups;
+    private final Counter falsePositives;
+
+    public BloomFilteredUrlRepository(UrlRepository delegate,
+                                      ShortCodeBloomFilter filter,
+                                      MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.filter = filter;
+        this.rejectedLookups = Counter.builder("url.shortener.bloom-filter.lookups")
+                .tag("result", "rejected")
+                .description("Lookups answered as not found by the Bloom filter")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("url.shortener.bloom-filter.lookups")
+                .tag("result", "false-positive")
+                .description("Lookups let through by the Bloom filter that found no mapping")
+                .register(meterRegistry);
+        Gauge.builder("url.shortener.bloom-filter.false-positive-probability",
+                        filter, ShortCodeBloomFilter::expectedFalsePositiveProbability)
+                .description("Estimated false-positive probability of the Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("url.shortener.bloom-filter.memory", filter, ShortCodeBloomFilter::memoryBytes)
+                .description("Memory held by the Bloom filter bit array")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        // Added before the insert so a concurrent lookup can never miss a committed mapping
+        filter.add(shortCode);
+        delegate.save(shortCode, originalUrl);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        filter.add(shortCode);
+        return delegate.insertIfAbsent(shortCode, originalUrl);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        filter.add(shortCode);
+        return delegate.insertIfAbsent(shortCode, originalUrl, expiresAt);
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        mappings.keySet().forEach(filter::add);
+        return delegate.insertAllIfAbsent(mappings);
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        return find(shortCode, delegate::findOriginalUrlByShortCode);
+    }
+
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        return find(shortCode, delegate::findMappingByShortCode);
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        if (!filter.isPopulated()) {
+            return delegate.findOriginalUrlsByShortCodes(shortCodes);
+        }
+
+        List<String> possiblyStoredShortCodes = new ArrayList<>(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            if (filter.mightContain(shortCode)) {
+                possiblyStoredShortCodes.add(shortCode);
+            } else {
+                rejectedLookups.increment();
+            }
+        }
+
+        if (possiblyStoredShortCodes.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, String> originalUrls = delegate.findOriginalUrlsByShortCodes(possiblyStoredShortCodes);
+        falsePositives.increment(possiblyStoredShortCodes.size() - originalUrls.size());
+        return originalUrls;
+    }
+
+    private <T> Optional<T> find(String shortCode, Function<String, Optional<T>> lookup) {
+        boolean populated = filter.isPopulated();
+        if (populated && !filter.mightContain(shortCode)) {
+            rejectedLookups.increment();
+            return Optional.empty();
+        }
+
+        Optional<T> found = lookup.apply(shortCode);
+        if (populated && found.isEmpty()) {
+            falsePositives.increment();
+        }
+        return found;
+    }
+}
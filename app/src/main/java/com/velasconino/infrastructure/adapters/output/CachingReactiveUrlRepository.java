@@ -0,0 +1,35 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.ReactiveUrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Caching decorator for a ReactiveUrlRepository, sharing the cache of the blocking repository chain.
+ * Cached short codes are resolved on the calling thread; mappings found by the delegate are cached,
+ * so redirects and shortening warm the same cache whichever path served them.
+ */
+public class CachingReactiveUrlRepository implements ReactiveUrlRepository {
+
+    private final ReactiveUrlRepository delegate;
+    private final CachingUrlRepository cache;
+
+    public CachingReactiveUrlRepository(ReactiveUrlRepository delegate, CachingUrlRepository cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Mono<String> findOriginalUrlByShortCode(String shortCode) {
+        return findMappingByShortCode(shortCode).map(UrlMapping::originalUrl);
+    }
+
+    @Override
+    public Mono<UrlMapping> findMappingByShortCode(String shortCode) {
+        return cache.findCachedMapping(shortCode)
+                .map(Mono::just)
+                .orElseGet(() -> delegate.findMappingByShortCode(shortCode)
+                        .doOnNext(mapping -> cache.cacheMapping(shortCode, mapping)));
+    }
+}
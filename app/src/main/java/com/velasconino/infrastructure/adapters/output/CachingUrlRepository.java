@@ -0,0 +1,241 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Caching decorator for a UrlRepository.
+ * Keeps resolved mappings in a bounded in-process cache with frequency-aware
+ * (Window TinyLFU) eviction, so hot short codes are served without a database round trip.
+ * Mappings never change once saved, so cached entries never need to be invalidated; a mapping
+ * that expires leaves the cache no later than it expires, so an expired link is never served from it.
+ * Only existing mappings are cached; unknown short codes always reach the delegate.
+ */
+public class CachingUrlRepository implements UrlRepository {
+
+    private static final String CACHE_NAME = "url-mapping";
+
+    private final UrlRepository delegate;
+    private final Cache<String, UrlMapping> cache;
+
+    public CachingUrlRepository(UrlRepository delegate,
+                                long maximumSize,
+                                Duration expireAfterWrite,
+                                MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireWithMapping(expireAfterWrite))
+                .recordStats()
+                // Maintenance is cheap; run it inline instead of on the shared common pool
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        delegate.save(shortCode, originalUrl);
+        cache.put(shortCode, UrlMapping.permanent(originalUrl));
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        // A cached short code is taken for good, so the cached URL is the winner
+        UrlMapping cachedMapping = cache.getIfPresent(shortCode);
+        if (cachedMapping != null) {
+            return cachedMapping.originalUrl();
+        }
+
+        String winningUrl = delegate.insertIfAbsent(shortCode, originalUrl);
+        if (winningUrl.equals(originalUrl)) {
+            cache.put(shortCode, UrlMapping.permanent(winningUrl));
+        }
+        return winningUrl;
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        UrlMapping cachedMapping = cache.getIfPresent(shortCode);
+        if (cachedMapping != null) {
+            return cachedMapping.originalUrl();
+        }
+
+        String winningUrl = delegate.insertIfAbsent(shortCode, originalUrl, expiresAt);
+        if (winningUrl.equals(originalUrl)) {
+            cache.put(shortCode, new UrlMapping(winningUrl, expiresAt));
+        }
+        return winningUrl;
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        Map<String, String> winningUrls = originalUrls(cache.getAllPresent(mappings.keySet()));
+        if (winningUrls.size() == mappings.size()) {
+            return winningUrls;
+        }
+
+        Map<String, String> uncachedMappings = new LinkedHashMap<>();
+        mappings.forEach((shortCode, originalUrl) -> {
+            if (!winningUrls.containsKey(shortCode)) {
+                uncachedMappings.put(shortCode, originalUrl);
+            }
+        });
+
+        Map<String, String> insertedUrls = delegate.insertAllIfAbsent(uncachedMappings);
+        insertedUrls.forEach((shortCode, winningUrl) -> {
+            // A short code taken by another URL may belong to a link that expires
+            if (winningUrl.equals(uncachedMappings.get(shortCode))) {
+                cache.put(shortCode, UrlMapping.permanent(winningUrl));
+            }
+        });
+        winningUrls.putAll(insertedUrls);
+        return winningUrls;
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        return findMappingByShortCode(shortCode).map(UrlMapping::originalUrl);
+    }
+
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        UrlMapping cachedMapping = cache.getIfPresent(shortCode);
+        if (cachedMapping != null) {
+            return Optional.of(cachedMapping);
+        }
+
+        Optional<UrlMapping> mapping = delegate.findMappingByShortCode(shortCode);
+        mapping.ifPresent(found -> cache.put(shortCode, found));
+        return mapping;
+    }
+
+    /**
+     * Finds several mappings, cached or not. Mappings loaded from the delegate are not cached,
+     * as they come without their expiry; this lookup only serves shortening, never redirects.
+     */
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        Map<String, String> originalUrls = originalUrls(cache.getAllPresent(shortCodes));
+        if (originalUrls.size() == shortCodes.size()) {
+            return originalUrls;
+        }
+
+        List<String> uncachedShortCodes = new ArrayList<>(shortCodes.size() - originalUrls.size());
+        for (String shortCode : shortCodes) {
+            if (!originalUrls.containsKey(shortCode)) {
+                uncachedShortCodes.add(shortCode);
+            }
+        }
+
+        originalUrls.putAll(delegate.findOriginalUrlsByShortCodes(uncachedShortCodes));
+        return originalUrls;
+    }
+
+    /**
+     * Finds a mapping in the cache only, without reaching the delegate.
+     *
+     * @param shortCode The short code to look up
+     * @return The cached mapping, or empty if it is not cached
+     */
+    public Optional<UrlMapping> findCachedMapping(String shortCode) {
+        return Optional.ofNullable(cache.getIfPresent(shortCode));
+    }
+
+    /**
+     * Caches a mapping found by a lookup that went around the delegate, e.g. a non-blocking one.
+     *
+     * @param shortCode The short code of the mapping
+     * @param mapping The stored mapping
+     */
+    public void cacheMapping(String shortCode, UrlMapping mapping) {
+        cache.put(shortCode, mapping);
+    }
+
+    /**
+     * Returns the cached mappings the eviction policy values most, hottest first.
+     * Mappings that expire are left out, so they are never preloaded after they have expired.
+     *
+     * @param limit The maximum number of mappings to return
+     * @return The hottest mappings keyed by short code, in descending order of hotness
+     */
+    public Map<String, String> hottest(int limit) {
+        Map<String, String> hottest = new LinkedHashMap<>();
+        cache.policy().eviction().ifPresent(eviction -> eviction.hottest(limit).forEach((shortCode, mapping) -> {
+            if (mapping.expiresAt() == null) {
+                hottest.put(shortCode, mapping.originalUrl());
+            }
+        }));
+        return hottest;
+    }
+
+    /**
+     * Adds mappings to the cache without reaching the delegate, e.g. to warm it at startup.
+     * Only mappings known to be stored and never to expire may be added, as cached mappings are never revalidated.
+     *
+     * @param mappings The original URLs keyed by short code
+     */
+    public void preload(Map<String, String> mappings) {
+        mappings.forEach((shortCode, originalUrl) -> cache.put(shortCode, UrlMapping.permanent(originalUrl)));
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters of the cache.
+     *
+     * @return The current cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Keeps a mapping for the configured time after it was loaded, or until it expires if that is sooner.
+     */
+    private record ExpireWithMapping(Duration expireAfterWrite) implements Expiry<String, UrlMapping> {
+
+        @Override
+        public long expireAfterCreate(String shortCode, UrlMapping mapping, long currentTime) {
+            if (mapping.expiresAt() == null) {
+                return expireAfterWrite.toNanos();
+            }
+            Duration untilExpiry = Duration.between(Instant.now(), mapping.expiresAt());
+            if (untilExpiry.isNegative()) {
+                return 0;
+            }
+            return untilExpiry.compareTo(expireAfterWrite) < 0 ? untilExpiry.toNanos() : expireAfterWrite.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String shortCode, UrlMapping mapping, long currentTime, long currentDuration) {
+            return expireAfterCreate(shortCode, mapping, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String shortCode, UrlMapping mapping, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static Map<String, String> originalUrls(Map<String, UrlMapping> mappings) {
+        Map<String, String> originalUrls = HashMap.newHashMap(mappings.size());
+        mappings.forEach((shortCode, mapping) -> originalUrls.put(shortCode, mapping.originalUrl()));
+        return originalUrls;
+    }
+}
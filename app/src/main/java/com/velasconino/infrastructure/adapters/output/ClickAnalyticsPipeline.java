@@ -0,0 +1,148 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.ClickEventPublisher;
+import com.velasconino.domain.ClickEvent;
+import com.velasconino.domain.UserAgentClass;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlClickStats;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlClickStatsRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Click analytics kept off the request path.
+ * Redirects publish click events into a bounded lock-free ring buffer and return at once;
+ * when the buffer is full the event is dropped and counted rather than waited on.
+ * One consumer thread aggregates the events in memory per short code, minute and class of client,
+ * and periodically adds the aggregates to url_click_stats in one batched transaction.
+ */
+public class ClickAnalyticsPipeline implements ClickEventPublisher, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClickAnalyticsPipeline.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ClickEventRingBuffer buffer;
+    private final UrlClickStatsRepository clickStatsRepository;
+    private final long flushIntervalNanos;
+    private final Counter droppedClicks;
+    private final Counter recordedClicks;
+    private final Counter lostClicks;
+    // Only the consumer thread touches the pending clicks
+    private final Map<ClickBucket, Long> pendingClicks = new HashMap<>();
+    private final Thread consumer;
+    private volatile boolean closed;
+
+    public ClickAnalyticsPipeline(UrlClickStatsRepository clickStatsRepository,
+                                  int bufferSize,
+                                  Duration flushInterval,
+                                  MeterRegistry meterRegistry) {
+        if (!flushInterval.isPositive()) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        this.buffer = new ClickEventRingBuffer(bufferSize);
+        this.clickStatsRepository = clickStatsRepository;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.droppedClicks = clickCounter("dropped", "Clicks dropped because the buffer was full", meterRegistry);
+        this.recordedClicks = clickCounter("recorded", "Clicks written to url_click_stats", meterRegistry);
+        this.lostClicks = clickCounter("lost", "Clicks lost because writing them failed", meterRegistry);
+        this.consumer = Thread.ofPlatform()
+                .name("url-click-analytics")
+                .daemon()
+                .start(this::consumeUntilClosed);
+    }
+
+    @Override
+    public void publish(ClickEvent event) {
+        if (closed || !buffer.offer(event)) {
+            droppedClicks.increment();
+        }
+    }
+
+    /**
+     * Stops the consumer after it has aggregated the buffered events and written them.
+     * Events published after closing are dropped.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(consumer);
+        consumer.join();
+    }
+
+    private void consumeUntilClosed() {
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (!closed) {
+            int drained = drain();
+            if (System.nanoTime() - nextFlush >= 0) {
+                flush();
+                nextFlush = System.nanoTime() + flushIntervalNanos;
+            } else if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drain();
+        flush();
+    }
+
+    /**
+     * Aggregates at most one buffer's worth of events, so a steady stream cannot delay a flush.
+     */
+    private int drain() {
+        int drained = 0;
+        ClickEvent event;
+        while (drained < buffer.capacity() && (event = buffer.poll()) != null) {
+            long minute = event.timestampMillis() - Math.floorMod(event.timestampMillis(), MINUTE_MILLIS);
+            ClickBucket bucket = new ClickBucket(event.shortCode(), minute, UserAgentClass.of(event.userAgent()));
+            pendingClicks.merge(bucket, 1L, Long::sum);
+            drained++;
+        }
+        return drained;
+    }
+
+    private void flush() {
+        if (pendingClicks.isEmpty()) {
+            return;
+        }
+
+        List<UrlClickStats> stats = new ArrayList<>(pendingClicks.size());
+        long clicks = 0;
+        for (Map.Entry<ClickBucket, Long> pending : pendingClicks.entrySet()) {
+            ClickBucket bucket = pending.getKey();
+            stats.add(new UrlClickStats(bucket.shortCode(), Instant.ofEpochMilli(bucket.minuteMillis()),
+                    bucket.userAgentClass().name(), pending.getValue()));
+            clicks += pending.getValue();
+        }
+        pendingClicks.clear();
+
+        try {
+            clickStatsRepository.addClicks(stats);
+            recordedClicks.increment(clicks);
+        } catch (RuntimeException e) {
+            lostClicks.increment(clicks);
+            LOG.warn("Failed to write {} clicks to url_click_stats", clicks, e);
+        }
+    }
+
+    private static Counter clickCounter(String result, String description, MeterRegistry meterRegistry) {
+        return Counter.builder("url.shortener.clicks")
+                .tag("result", result)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private record ClickBucket(String shortCode, long minuteMillis, UserAgentClass userAgentClass) {
+    }
+}
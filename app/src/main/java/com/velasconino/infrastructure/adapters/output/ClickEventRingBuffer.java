@@ -0,0 +1,88 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.ClickEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of click events for many producers and a single consumer.
+ * Each slot carries a sequence number telling producers and the consumer whose turn it is,
+ * so a producer claims a slot with one compare-and-set and never waits: when the buffer is
+ * full, {@link #offer(ClickEvent)} fails at once and the caller drops the event.
+ */
+public class ClickEventRingBuffer {
+
+    private final ClickEvent[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only the consumer thread reads or writes the head
+    private long head;
+
+    public ClickEventRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two greater than one");
+        }
+        this.events = new ClickEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an event unless the buffer is full. Safe to call from any thread.
+     *
+     * @param event The event to add
+     * @return true if the event was added, false if the buffer was full
+     */
+    public boolean offer(ClickEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    // Publishes the event to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer has not freed this slot yet
+                return false;
+            } else {
+                // Another producer claimed this position first
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest event. Must only be called from the single consumer thread.
+     *
+     * @return The oldest event, or null if the buffer is empty
+     */
+    public ClickEvent poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        ClickEvent event = events[index];
+        events[index] = null;
+        // Hands the slot back to producers for the next lap
+        sequences.set(index, head + events.length);
+        head++;
+        return event;
+    }
+
+    /**
+     * @return The number of slots
+     */
+    public int capacity() {
+        return events.length;
+    }
+}
@@ -0,0 +1,314 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory UrlRepository packed into primitive arrays, sized for tens of millions of mappings.
+ * Short codes are encoded as longs by {@link ShortCodeCodec} and kept in open-addressing tables of
+ * interleaved key and URL reference slots. URLs are stored as length-prefixed UTF-8 in shared byte
+ * slabs of up to a megabyte. A mapping costs its URL bytes plus 21 to 43 bytes of table, depending on
+ * how full the table is, instead of the two strings and entry of a hash map.
+ * Short codes that cannot be encoded are kept in a plain map.
+ * The tables are split into stripes, each written under its own lock. Lookups take no lock:
+ * a slot's reference is published before its key, so a lookup that sees the key also sees the URL.
+ * Saving over an existing mapping leaves the old URL's bytes unused in its slab.
+ */
+public class CompactInMemoryUrlRepository implements UrlRepository {
+
+    static final int SLAB_BYTES = 1 << 20;
+    private static final int FIRST_SLAB_BYTES = 1 << 12;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int MIN_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final Map<String, String> unencodable = new ConcurrentHashMap<>();
+
+    /**
+     * @param stripes The number of independently locked stripes, a power of two
+     * @param expectedEntries The number of mappings the tables are initially sized for
+     */
+    public CompactInMemoryUrlRepository(int stripes, long expectedEntries) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two");
+        }
+        if (expectedEntries < 0) {
+            throw new IllegalArgumentException("Expected entries must not be negative");
+        }
+        long entriesPerStripe = Math.ceilDiv(expectedEntries, stripes);
+        int capacity = capacityFor(entriesPerStripe);
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(capacity);
+        }
+        this.stripeMask = stripes - 1;
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        long key = ShortCodeCodec.encodeOrZero(shortCode);
+        if (key == 0) {
+            unencodable.put(shortCode, originalUrl);
+            return;
+        }
+        stripeFor(key).put(key, originalUrl, true);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        long key = ShortCodeCodec.encodeOrZero(shortCode);
+        if (key == 0) {
+            String existingUrl = unencodable.putIfAbsent(shortCode, originalUrl);
+            return existingUrl == null ? originalUrl : existingUrl;
+        }
+        return stripeFor(key).put(key, originalUrl, false);
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        Map<String, String> winningUrls = LinkedHashMap.newLinkedHashMap(mappings.size());
+        mappings.forEach((shortCode, originalUrl) ->
+                winningUrls.put(shortCode, insertIfAbsent(shortCode, originalUrl)));
+        return winningUrls;
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        return Optional.ofNullable(find(shortCode));
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        Map<String, String> originalUrls = HashMap.newHashMap(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            String originalUrl = find(shortCode);
+            if (originalUrl != null) {
+                originalUrls.put(shortCode, originalUrl);
+            }
+        }
+        return originalUrls;
+    }
+
+    /**
+     * @return The number of stored mappings
+     */
+    public long size() {
+        long size = unencodable.size();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The heap taken by the tables and slabs, excluding short codes that could not be encoded
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                bytes += (long) stripe.slots.length * Long.BYTES + stripe.slabBytes;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return bytes;
+    }
+
+    private String find(String shortCode) {
+        long key = ShortCodeCodec.encodeOrZero(shortCode);
+        if (key == 0) {
+            return unencodable.get(shortCode);
+        }
+        return stripeFor(key).get(key);
+    }
+
+    private Stripe stripeFor(long key) {
+        return stripes[(int) (Hashing.mix(key) >>> 40) & stripeMask];
+    }
+
+    private static int capacityFor(long entries) {
+        long slots = (long) Math.ceil(entries / MAX_LOAD_FACTOR);
+        if (slots > 1 << 29) {
+            throw new IllegalArgumentException("Too many entries per stripe: " + entries);
+        }
+        return Math.max(MIN_STRIPE_CAPACITY, Integer.highestOneBit((int) Math.max(1, slots - 1)) << 1);
+    }
+
+    /**
+     * One independently locked table and the slabs its URLs are stored in.
+     * A URL reference is the index of its slab in the upper half and the offset of its length prefix
+     * in the lower half.
+     */
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        // Key and URL reference of each slot, side by side; replaced as a whole when the table grows
+        private volatile long[] slots;
+        // Replaced as a whole when a slab is added, before any reference into the new slab is published
+        private volatile byte[][] slabs = new byte[0][];
+        private int slabCount;
+        private int slabOffset;
+        private long slabBytes;
+        private int size;
+
+        private Stripe(int capacity) {
+            this.slots = new long[capacity * 2];
+        }
+
+        private String get(long key) {
+            long[] table = slots;
+            int mask = (table.length >>> 1) - 1;
+            for (int slot = (int) Hashing.mix(key) & mask; ; slot = (slot + 1) & mask) {
+                long candidate = (long) SLOTS.getAcquire(table, slot * 2);
+                if (candidate == 0) {
+                    return null;
+                }
+                if (candidate == key) {
+                    return readUrl((long) SLOTS.getAcquire(table, slot * 2 + 1));
+                }
+            }
+        }
+
+        /**
+         * Stores the URL of a key, replacing an existing one only if asked to.
+         *
+         * @return The URL the key maps to after the call
+         */
+        private String put(long key, String originalUrl, boolean replace) {
+            lock.lock();
+            try {
+                long[] table = slots;
+                int mask = (table.length >>> 1) - 1;
+                int slot = (int) Hashing.mix(key) & mask;
+                for (long candidate; (candidate = (long) SLOTS.get(table, slot * 2)) != 0; slot = (slot + 1) & mask) {
+                    if (candidate == key) {
+                        if (replace) {
+                            SLOTS.setRelease(table, slot * 2 + 1, writeUrl(originalUrl));
+                            return originalUrl;
+                        }
+                        return readUrl((long) SLOTS.get(table, slot * 2 + 1));
+                    }
+                }
+
+                long reference = writeUrl(originalUrl);
+                if ((size + 1) > MAX_LOAD_FACTOR * (mask + 1)) {
+                    table = grow(table);
+                    mask = (table.length >>> 1) - 1;
+                    slot = (int) Hashing.mix(key) & mask;
+                    while ((long) SLOTS.get(table, slot * 2) != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                }
+                SLOTS.setRelease(table, slot * 2 + 1, reference);
+                SLOTS.setRelease(table, slot * 2, key);
+                size++;
+                return originalUrl;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long[] grow(long[] table) {
+            int capacity = table.length >>> 1;
+            if (capacity >= 1 << 29) {
+                throw new IllegalStateException("URL table stripe is full at " + size + " mappings");
+            }
+            long[] grown = new long[table.length * 2];
+            int mask = capacity * 2 - 1;
+            for (int i = 0; i < capacity; i++) {
+                long key = table[i * 2];
+                if (key != 0) {
+                    int slot = (int) Hashing.mix(key) & mask;
+                    while (grown[slot * 2] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    grown[slot * 2] = key;
+                    grown[slot * 2 + 1] = table[i * 2 + 1];
+                }
+            }
+            // The volatile write publishes the copied slots to lookups
+            slots = grown;
+            return grown;
+        }
+
+        private long writeUrl(String originalUrl) {
+            byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+            int recordBytes = lengthPrefixBytes(url.length) + url.length;
+            if (recordBytes > SLAB_BYTES) {
+                throw new IllegalArgumentException("URL of " + url.length + " bytes does not fit in a slab");
+            }
+            if (slabCount == 0 || slabOffset + recordBytes > slabs[slabCount - 1].length) {
+                addSlab(recordBytes);
+            }
+
+            byte[] slab = slabs[slabCount - 1];
+            int offset = slabOffset;
+            int position = writeLength(slab, offset, url.length);
+            System.arraycopy(url, 0, slab, position, url.length);
+            slabOffset = position + url.length;
+            return (long) (slabCount - 1) << 32 | offset;
+        }
+
+        private String readUrl(long reference) {
+            byte[] slab = slabs[(int) (reference >>> 32)];
+            int offset = (int) reference;
+            // Variable-length prefix: seven bits per byte, high bit set on all but the last
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = slab[offset++];
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return new String(slab, offset, length, StandardCharsets.UTF_8);
+        }
+
+        private void addSlab(int recordBytes) {
+            // Slabs start small so a lightly used stripe stays cheap, and double up to the full size
+            int previousBytes = slabCount == 0 ? FIRST_SLAB_BYTES / 2 : slabs[slabCount - 1].length;
+            int bytes = Math.max(recordBytes, Math.min(SLAB_BYTES, previousBytes * 2));
+            byte[][] grown = Arrays.copyOf(slabs, slabCount + 1);
+            grown[slabCount] = new byte[bytes];
+            slabs = grown;
+            slabBytes += bytes;
+            slabCount++;
+            slabOffset = 0;
+        }
+
+        private static int writeLength(byte[] slab, int offset, int length) {
+            while (length >= 0x80) {
+                slab[offset++] = (byte) (length | 0x80);
+                length >>>= 7;
+            }
+            slab[offset++] = (byte) length;
+            return offset;
+        }
+
+        private static int lengthPrefixBytes(int length) {
+            return length < 1 << 7 ? 1 : length < 1 << 14 ? 2 : length < 1 << 21 ? 3 : 4;
+        }
+    }
+}
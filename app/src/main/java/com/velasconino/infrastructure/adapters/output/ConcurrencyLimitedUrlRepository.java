@@ -0,0 +1,96 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Decorator for a UrlRepository that bounds how many calls reach the delegate at once.
+ * Sized to the connection pool, it makes surplus callers wait on a semaphore, which parks a
+ * virtual thread cheaply, instead of piling up inside the pool's connection wait.
+ */
+public class ConcurrencyLimitedUrlRepository implements UrlRepository {
+
+    private final UrlRepository delegate;
+    private final Semaphore permits;
+
+    public ConcurrencyLimitedUrlRepository(UrlRepository delegate, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Maximum concurrency must be positive");
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        withPermit(() -> {
+            delegate.save(shortCode, originalUrl);
+            return null;
+        });
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        return withPermit(() -> delegate.insertIfAbsent(shortCode, originalUrl));
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        return withPermit(() -> delegate.insertIfAbsent(shortCode, originalUrl, expiresAt));
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        return withPermit(() -> delegate.insertAllIfAbsent(mappings));
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        return withPermit(() -> delegate.findOriginalUrlByShortCode(shortCode));
+    }
+
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        return withPermit(() -> delegate.findMappingByShortCode(shortCode));
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        return withPermit(() -> delegate.findOriginalUrlsByShortCodes(shortCodes));
+    }
+
+    /**
+     * @return The number of calls that can currently start without waiting
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * @return An estimate of the number of calls waiting for a permit
+     */
+    public int waitingCalls() {
+        return permits.getQueueLength();
+    }
+
+    private <T> T withPermit(Supplier<T> call) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database permit", e);
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.ShortCodeCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring assigning short codes to named nodes, such as database shards.
+ * Each node is placed at a number of pseudo-random virtual points on the ring and owns the
+ * positions from the previous point up to each of its own, so adding or removing a node only
+ * reassigns the positions next to its points.
+ * <p>
+ * Generated short codes are already uniformly random, so instead of hashing them again a short
+ * code's position is its own base-62 value, right-padded to ten characters. Every arc of the ring
+ * then holds, for each code length, one contiguous range of {@link ShortCodeCodec} values, which
+ * lets the codes on an arc be found by a range scan of the primary key.
+ */
+public final class ConsistentHashRing {
+
+    /**
+     * A range of positions whose owner differs between two rings.
+     *
+     * @param source The node owning the positions on this ring
+     * @param target The node owning them on the other ring
+     * @param fromPosition The first position of the range
+     * @param toPosition The position the range ends before
+     */
+    public record Move(String source, String target, long fromPosition, long toPosition) {
+
+        /**
+         * @return The ranges of {@link ShortCodeCodec} values of the short codes in this range of positions
+         */
+        public List<IdRange> idRanges() {
+            return ConsistentHashRing.idRanges(fromPosition, toPosition);
+        }
+    }
+
+    /**
+     * A range of {@link ShortCodeCodec} values.
+     *
+     * @param fromId The first value of the range
+     * @param toId The value the range ends before
+     */
+    public record IdRange(long fromId, long toId) {
+    }
+
+    private static final int BASE = 62;
+    private static final long[] POWERS = new long[ShortCodeCodec.MAX_LENGTH + 1];
+    // The value of the lowest code of each length, "A", "AA" and so on
+    private static final long[] LOWEST_IDS = new long[ShortCodeCodec.MAX_LENGTH + 1];
+
+    static {
+        POWERS[0] = 1;
+        for (int length = 1; length <= ShortCodeCodec.MAX_LENGTH; length++) {
+            POWERS[length] = POWERS[length - 1] * BASE;
+            LOWEST_IDS[length] = LOWEST_IDS[length - 1] + POWERS[length - 1];
+        }
+    }
+
+    /**
+     * The number of positions on the ring, one for every ten-character short code.
+     */
+    static final long SIZE = POWERS[ShortCodeCodec.MAX_LENGTH];
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * @param nodes The names of the nodes
+     * @param virtualNodes The number of points each node is placed at
+     */
+    public ConsistentHashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        if (nodes.stream().distinct().count() != nodes.size()) {
+            throw new IllegalArgumentException("Node names must be unique: " + nodes);
+        }
+        this.nodes = List.copyOf(nodes);
+
+        // Points depend only on the node names, so every instance builds the same ring
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                long point = Math.floorMod(Hashing.hash(node + "#" + i), SIZE);
+                // In the unlikely event of a collision the lowest node name keeps the point
+                ring.merge(point, node, (existing, candidate) -> existing.compareTo(candidate) <= 0 ? existing : candidate);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new String[ring.size()];
+        int index = 0;
+        for (Map.Entry<Long, String> point : ring.entrySet()) {
+            points[index] = point.getKey();
+            owners[index++] = point.getValue();
+        }
+    }
+
+    /**
+     * @return The names of the nodes on the ring
+     */
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * @param id The {@link ShortCodeCodec} value of a short code
+     * @return The name of the node owning the short code
+     */
+    public String nodeFor(long id) {
+        return ownerOf(position(id));
+    }
+
+    /**
+     * Lists the ranges of positions that another ring assigns to a different node,
+     * such as the positions a node added to the ring takes over. Adjacent ranges moving
+     * between the same nodes are merged.
+     *
+     * @param target The ring the positions move to
+     * @return The ranges of positions whose owner changes, in ascending order
+     */
+    public List<Move> movesTo(ConsistentHashRing target) {
+        long[] boundaries = union(points, target.points);
+        List<Move> moves = new ArrayList<>();
+        long from = 0;
+        for (int i = 0; i <= boundaries.length; i++) {
+            // Every position between two consecutive boundaries has the same owner on both rings
+            long to = i < boundaries.length ? boundaries[i] + 1 : SIZE;
+            if (from == to) {
+                continue;
+            }
+            String source = ownerOf(from);
+            String destination = target.ownerOf(from);
+            if (!source.equals(destination)) {
+                Move last = moves.isEmpty() ? null : moves.getLast();
+                if (last != null && last.toPosition() == from
+                        && last.source().equals(source) && last.target().equals(destination)) {
+                    moves.set(moves.size() - 1, new Move(source, destination, last.fromPosition(), to));
+                } else {
+                    moves.add(new Move(source, destination, from, to));
+                }
+            }
+            from = to;
+        }
+        return moves;
+    }
+
+    String ownerOf(long position) {
+        int index = Arrays.binarySearch(points, position);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // Positions past the last point belong to the first one
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @param id The {@link ShortCodeCodec} value of a short code
+     * @return The position of the short code on the ring
+     */
+    static long position(long id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Encoded short code must be positive: " + id);
+        }
+        int length = ShortCodeCodec.MAX_LENGTH;
+        while (id < LOWEST_IDS[length]) {
+            length--;
+        }
+        return (id - LOWEST_IDS[length]) * POWERS[ShortCodeCodec.MAX_LENGTH - length];
+    }
+
+    static List<IdRange> idRanges(long fromPosition, long toPosition) {
+        List<IdRange> ranges = new ArrayList<>();
+        for (int length = 1; length <= ShortCodeCodec.MAX_LENGTH; length++) {
+            // Codes of this length sit on the multiples of the scale
+            long scale = POWERS[ShortCodeCodec.MAX_LENGTH - length];
+            long from = Math.ceilDiv(fromPosition, scale);
+            long to = Math.ceilDiv(toPosition, scale);
+            if (from < to) {
+                ranges.add(new IdRange(from + LOWEST_IDS[length], to + LOWEST_IDS[length]));
+            }
+        }
+        return ranges;
+    }
+
+    private static long[] union(long[] first, long[] second) {
+        long[] union = new long[first.length + second.length];
+        System.arraycopy(first, 0, union, 0, first.length);
+        System.arraycopy(second, 0, union, first.length, second.length);
+        Arrays.sort(union);
+        int size = 0;
+        for (long point : union) {
+            if (size == 0 || union[size - 1] != point) {
+                union[size++] = point;
+            }
+        }
+        return Arrays.copyOf(union, size);
+    }
+}
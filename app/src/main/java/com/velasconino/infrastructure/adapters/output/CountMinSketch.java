@@ -0,0 +1,72 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count-min sketch over 64-bit hashes.
+ * Each row counts a hash in one of its counters, picked by a different hash function per row;
+ * the smallest of those counters never underestimates how often the hash was added, and
+ * overestimates it by at most the total count times e / width with probability 1 - e^-depth.
+ * Its size is fixed, however many distinct hashes are added.
+ */
+public class CountMinSketch {
+
+    private final AtomicLongArray counters;
+    private final int depth;
+    private final int width;
+
+    /**
+     * @param depth The number of rows, and of hash functions
+     * @param width The number of counters per row, a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be positive");
+        }
+        if (width < 2 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Width must be a power of two greater than one");
+        }
+        this.counters = new AtomicLongArray(depth * width);
+        this.depth = depth;
+        this.width = width;
+    }
+
+    /**
+     * Counts one occurrence of a hash.
+     *
+     * @param hash The hash to count
+     * @return The estimated count of the hash, including this occurrence
+     */
+    public long add(long hash) {
+        long hash2 = Hashing.mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, hash, hash2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * @param hash The hash to look up
+     * @return The estimated count of the hash, 0 if it was never added
+     */
+    public long estimate(long hash) {
+        long hash2 = Hashing.mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash, hash2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * @return The memory held by the counters, in bytes
+     */
+    public long memoryBytes() {
+        return (long) counters.length() * Long.BYTES;
+    }
+
+    private int index(int row, long hash1, long hash2) {
+        return row * width + (int) ((hash1 + row * hash2) & (width - 1));
+    }
+}
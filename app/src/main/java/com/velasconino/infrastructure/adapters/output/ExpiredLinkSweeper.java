@@ -0,0 +1,155 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.infrastructure.adapters.output.persistence.AdvisoryLock;
+import com.velasconino.infrastructure.adapters.output.persistence.JdbcUrlMappingRepository;
+import com.velasconino.infrastructure.adapters.output.persistence.JdbcUrlMappingRepository.ExpiryKey;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deletes expired URL mappings in the background.
+ * Expired mappings are already treated as not found, so purging them is never urgent: one thread
+ * sweeps every database periodically, walking the expiry index in keyset-paginated batches and
+ * pausing between them. Each batch is a short range scan and a small delete in its own transaction,
+ * so a sweep never holds locks for long nor leaves a burst of dead rows for vacuum to catch up on.
+ * Every node runs a sweeper, so each database is swept under an advisory lock of its own: a node
+ * finding it taken skips that database until its next sweep instead of deleting the same rows.
+ */
+public class ExpiredLinkSweeper implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExpiredLinkSweeper.class);
+
+    // "url_expi" in ASCII; only has to differ from other advisory locks taken on the same database
+    static final long LOCK_KEY = 0x75726C5F65787069L;
+
+    private final List<Database> databases;
+    private final int batchSize;
+    private final long batchPauseNanos;
+    private final long intervalNanos;
+    private final Counter purged;
+    private final Timer sweeps;
+    private final Thread sweeper;
+    private volatile boolean closed;
+
+    /**
+     * @param databases The connection pools of the databases to purge, such as the default one or every shard,
+     *                  not bound to Micronaut transactions
+     * @param batchSize The maximum number of mappings deleted by one statement
+     * @param batchPause How long to wait between batches
+     * @param interval How long to wait between sweeps
+     * @param meterRegistry The registry the purge metrics are published to
+     */
+    public ExpiredLinkSweeper(List<DataSource> databases,
+                              int batchSize,
+                              Duration batchPause,
+                              Duration interval,
+                              MeterRegistry meterRegistry) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (!interval.isPositive()) {
+            throw new IllegalArgumentException("Sweep interval must be positive");
+        }
+        this.databases = databases.stream()
+                .map(dataSource -> new Database(new JdbcUrlMappingRepository(dataSource),
+                        new AdvisoryLock(dataSource, LOCK_KEY)))
+                .toList();
+        this.batchSize = batchSize;
+        this.batchPauseNanos = batchPause.toNanos();
+        this.intervalNanos = interval.toNanos();
+        this.purged = Counter.builder("url.shortener.expiry.purged")
+                .description("Expired URL mappings deleted")
+                .register(meterRegistry);
+        this.sweeps = Timer.builder("url.shortener.expiry.sweep")
+                .description("Time taken by sweeps for expired URL mappings")
+                .register(meterRegistry);
+        this.sweeper = Thread.ofPlatform()
+                .name("url-expiry-sweeper")
+                .daemon()
+                .start(this::sweepUntilClosed);
+    }
+
+    /**
+     * Deletes every mapping that has expired by now from each database no other node is sweeping.
+     *
+     * @return The number of mappings deleted
+     */
+    public long sweep() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        long[] deleted = {0};
+        try {
+            for (Database database : databases) {
+                if (!database.lock().runIfFree(() -> deleted[0] += sweep(database.repository(), now))) {
+                    LOG.debug("Skipped purging expired URL mappings of a database another node is sweeping");
+                }
+            }
+        } finally {
+            sweeps.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+        return deleted[0];
+    }
+
+    /**
+     * Stops the sweeper, waiting for the batch being deleted to commit.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(sweeper);
+        sweeper.join();
+    }
+
+    private long sweep(JdbcUrlMappingRepository database, Instant now) {
+        long deleted = 0;
+        ExpiryKey after = null;
+        while (!closed) {
+            List<ExpiryKey> batch = database.findExpired(now, after, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            int batchDeleted = database.deleteByIds(batch.stream().map(ExpiryKey::id).toList());
+            purged.increment(batchDeleted);
+            deleted += batchDeleted;
+            if (batch.size() < batchSize) {
+                break;
+            }
+            after = batch.getLast();
+            LockSupport.parkNanos(batchPauseNanos);
+        }
+        return deleted;
+    }
+
+    private void sweepUntilClosed() {
+        long nextSweep = System.nanoTime() + intervalNanos;
+        while (!closed) {
+            long remaining = nextSweep - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                continue;
+            }
+            try {
+                long deleted = sweep();
+                if (deleted > 0) {
+                    LOG.debug("Purged {} expired URL mappings", deleted);
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to purge expired URL mappings, retrying on the next sweep", e);
+            }
+            nextSweep = System.nanoTime() + intervalNanos;
+        }
+    }
+
+    private record Database(JdbcUrlMappingRepository repository, AdvisoryLock lock) {
+    }
+}
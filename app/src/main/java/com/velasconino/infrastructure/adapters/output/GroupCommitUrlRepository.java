@@ -0,0 +1,214 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorator for a UrlRepository that coalesces concurrent single-row inserts into group commits.
+ * Inserts are queued and written by one flusher thread as a single batch insert, in one transaction,
+ * once the window has elapsed since the first queued insert or the batch is full.
+ * Each caller blocks until the batch holding its row has been committed.
+ */
+public class GroupCommitUrlRepository implements UrlRepository, AutoCloseable {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final UrlRepository delegate;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final BlockingQueue<PendingInsert> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSizes;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    public GroupCommitUrlRepository(UrlRepository delegate,
+                                    int maxBatchSize,
+                                    Duration window,
+                                    MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be positive");
+        }
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("Window must not be negative");
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.batchSizes = DistributionSummary.builder("url.shortener.group-commit.batch-size")
+                .description("Number of inserts written by each group commit")
+                .publishPercentileHistogram()
+                .maximumExpectedValue((double) maxBatchSize)
+                .register(meterRegistry);
+        this.flusher = Thread.ofPlatform()
+                .name("url-group-commit")
+                .daemon()
+                .start(this::flushUntilClosed);
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        delegate.save(shortCode, originalUrl);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        if (closed) {
+            return delegate.insertIfAbsent(shortCode, originalUrl);
+        }
+
+        PendingInsert insert = new PendingInsert(shortCode, originalUrl, new CompletableFuture<>());
+        queue.add(insert);
+        // Closed while queuing: if the flusher did not take the insert it may never do so
+        if (closed && queue.remove(insert)) {
+            return delegate.insertIfAbsent(shortCode, originalUrl);
+        }
+        return await(insert.winningUrl());
+    }
+
+    /**
+     * Inserts a link that expires on its own; such links are rare enough not to be worth batching.
+     */
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        return expiresAt == null
+                ? insertIfAbsent(shortCode, originalUrl)
+                : delegate.insertIfAbsent(shortCode, originalUrl, expiresAt);
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        return delegate.insertAllIfAbsent(mappings);
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        return delegate.findOriginalUrlByShortCode(shortCode);
+    }
+
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        return delegate.findMappingByShortCode(shortCode);
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        return delegate.findOriginalUrlsByShortCodes(shortCodes);
+    }
+
+    /**
+     * Stops accepting inserts into the queue, then waits until every queued insert has been written.
+     * Inserts made after closing go straight to the delegate.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        flusher.join();
+    }
+
+    private void flushUntilClosed() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                try {
+                    PendingInsert first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    collectBatch(batch, System.nanoTime() + windowNanos);
+                } catch (InterruptedException e) {
+                    // Only close() stops the flusher, so queued inserts are never abandoned
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (Throwable e) {
+            // The flusher is gone: later inserts go straight to the delegate and queued ones fail
+            closed = true;
+            fail(batch, e);
+            List<PendingInsert> queued = new ArrayList<>();
+            queue.drainTo(queued);
+            fail(queued, e);
+            throw e;
+        }
+    }
+
+    private void collectBatch(List<PendingInsert> batch, long deadline) throws InterruptedException {
+        while (batch.size() < maxBatchSize && !closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            // Polls in slices so that closing cuts a long window short
+            PendingInsert next = queue.poll(
+                    Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS)), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+        queue.drainTo(batch, maxBatchSize - batch.size());
+    }
+
+    private void flush(List<PendingInsert> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+
+        // The first insert of a short code wins over later ones in the same batch
+        Map<String, String> mappings = new LinkedHashMap<>();
+        for (PendingInsert insert : batch) {
+            mappings.putIfAbsent(insert.shortCode(), insert.originalUrl());
+        }
+
+        try {
+            Map<String, String> winningUrls = delegate.insertAllIfAbsent(mappings);
+            for (PendingInsert insert : batch) {
+                insert.winningUrl().complete(winningUrls.get(insert.shortCode()));
+            }
+        } catch (Throwable e) {
+            // Errors included, so a failed commit never leaves its callers waiting or stops the flusher
+            fail(batch, e);
+        }
+    }
+
+    private static void fail(List<PendingInsert> inserts, Throwable cause) {
+        for (PendingInsert insert : inserts) {
+            insert.winningUrl().completeExceptionally(cause);
+        }
+    }
+
+    private static String await(CompletableFuture<String> winningUrl) {
+        try {
+            return winningUrl.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to save URL mapping", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for URL mapping to be saved", e);
+        }
+    }
+
+    private record PendingInsert(String shortCode, String originalUrl, CompletableFuture<String> winningUrl) {
+    }
+}
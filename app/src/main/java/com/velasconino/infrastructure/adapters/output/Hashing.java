@@ -0,0 +1,30 @@
+package com.velasconino.infrastructure.adapters.output;
+
+/**
+ * 64-bit non-cryptographic hashing of strings for the probabilistic data structures in this package
+ * and other hot paths that only need to tell values apart.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    public static long hash(CharSequence value) {
+        // 64-bit FNV-1a over the UTF-16 code units, finalised with a strong mixer
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    public static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,213 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.ClickEventPublisher;
+import com.velasconino.application.ports.output.HotLinkStatistics;
+import com.velasconino.domain.ClickEvent;
+import com.velasconino.domain.HotLink;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Streaming sketch of the most clicked short codes and their distinct clients over sliding windows.
+ * Time is cut into a ring of fixed-length buckets. Each bucket counts clicks per short code in a
+ * count-min sketch and tracks a fixed number of candidate hot codes, each with a HyperLogLog of
+ * its clients. A click replaces the least clicked candidate near its slot once it has been clicked
+ * more often, so memory stays the same however many short codes exist.
+ * Windows are answered by merging the buckets they cover, rounded up to whole buckets.
+ * Every update is lock-free, so clicks are recorded on the request thread without contention.
+ */
+public class HotLinkSketch implements ClickEventPublisher, HotLinkStatistics {
+
+    private static final int SKETCH_DEPTH = 4;
+    // Counters per candidate, keeping the overestimate of a count well below the clicks of a hot code
+    private static final int SKETCH_WIDTH_PER_CANDIDATE = 8;
+    private static final int CANDIDATE_PROBES = 8;
+    // 256 registers, a relative error of about 6.5%
+    private static final int CLIENT_PRECISION = 8;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final long bucketMillis;
+    private final int capacity;
+    private final Clock clock;
+
+    /**
+     * @param bucketDuration The length of one bucket, the granularity of windows
+     * @param bucketCount The number of buckets kept, so the longest window is bucketCount bucket durations
+     * @param capacity The number of candidate hot codes tracked per bucket, a power of two
+     * @param clock The clock windows end at
+     */
+    public HotLinkSketch(Duration bucketDuration, int bucketCount, int capacity, Clock clock) {
+        if (bucketDuration.toMillis() < 1) {
+            throw new IllegalArgumentException("Bucket duration must be at least one millisecond");
+        }
+        if (bucketCount < 1) {
+            throw new IllegalArgumentException("Bucket count must be positive");
+        }
+        if (capacity < CANDIDATE_PROBES || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least " + CANDIDATE_PROBES);
+        }
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        this.bucketMillis = bucketDuration.toMillis();
+        this.capacity = capacity;
+        this.clock = clock;
+    }
+
+    @Override
+    public void publish(ClickEvent event) {
+        Bucket bucket = bucketFor(Math.floorDiv(event.timestampMillis(), bucketMillis));
+        if (bucket == null) {
+            // The click is older than every bucket kept
+            return;
+        }
+
+        long codeHash = Hashing.hash(event.shortCode());
+        long clicks = bucket.clicks.add(codeHash);
+        Candidate candidate = bucket.track(event.shortCode(), codeHash, clicks);
+        if (candidate != null) {
+            candidate.clients.add(clientHash(event));
+        }
+    }
+
+    @Override
+    public List<HotLink> topLinks(Duration window, int limit) {
+        long currentEpoch = Math.floorDiv(clock.millis(), bucketMillis);
+        long bucketsInWindow = Math.min(buckets.length(), Math.ceilDiv(window.toMillis(), bucketMillis));
+        List<Bucket> windowBuckets = new ArrayList<>();
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch <= currentEpoch && bucket.epoch > currentEpoch - bucketsInWindow) {
+                windowBuckets.add(bucket);
+            }
+        }
+
+        Map<String, HyperLogLog> clientsByCode = new HashMap<>();
+        Map<String, Long> hashesByCode = new HashMap<>();
+        for (Bucket bucket : windowBuckets) {
+            for (int slot = 0; slot < capacity; slot++) {
+                Candidate candidate = bucket.candidates.get(slot);
+                if (candidate != null) {
+                    hashesByCode.putIfAbsent(candidate.shortCode, candidate.codeHash);
+                    clientsByCode.computeIfAbsent(candidate.shortCode, code -> new HyperLogLog(CLIENT_PRECISION))
+                            .addAll(candidate.clients);
+                }
+            }
+        }
+
+        List<HotLink> hotLinks = new ArrayList<>(hashesByCode.size());
+        for (Map.Entry<String, Long> code : hashesByCode.entrySet()) {
+            long clicks = 0;
+            for (Bucket bucket : windowBuckets) {
+                clicks += bucket.clicks.estimate(code.getValue());
+            }
+            hotLinks.add(new HotLink(code.getKey(), clicks, clientsByCode.get(code.getKey()).estimate()));
+        }
+        return hotLinks.stream()
+                .sorted(Comparator.comparingLong(HotLink::clicks).reversed().thenComparing(HotLink::shortCode))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Duration retention() {
+        return Duration.ofMillis(bucketMillis * buckets.length());
+    }
+
+    /**
+     * Returns the bucket of an epoch, replacing the bucket of an older epoch in its slot.
+     *
+     * @return The bucket, or null if the slot already holds a newer epoch
+     */
+    private Bucket bucketFor(long epoch) {
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length());
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.epoch < epoch) {
+            Bucket fresh = new Bucket(epoch, capacity);
+            Bucket witness = buckets.compareAndExchange(slot, bucket, fresh);
+            if (witness == bucket) {
+                return fresh;
+            }
+            bucket = witness;
+        }
+        return bucket.epoch == epoch ? bucket : null;
+    }
+
+    private static long clientHash(ClickEvent event) {
+        // The address alone would count every client behind a NAT or proxy as one
+        long addressHash = event.clientAddress() == null ? 0 : Hashing.hash(event.clientAddress());
+        long userAgentHash = event.userAgent() == null ? 0 : Hashing.hash(event.userAgent());
+        return Hashing.mix(addressHash * 31 + userAgentHash);
+    }
+
+    private static final class Bucket {
+
+        private final long epoch;
+        private final CountMinSketch clicks;
+        private final AtomicReferenceArray<Candidate> candidates;
+
+        private Bucket(long epoch, int capacity) {
+            this.epoch = epoch;
+            this.clicks = new CountMinSketch(SKETCH_DEPTH, capacity * SKETCH_WIDTH_PER_CANDIDATE);
+            this.candidates = new AtomicReferenceArray<>(capacity);
+        }
+
+        /**
+         * Finds the candidate of a short code among the slots it may occupy, claiming an empty slot
+         * or the least clicked candidate's slot if the short code has been clicked more often.
+         *
+         * @return The candidate of the short code, or null if it is not hot enough to be tracked
+         */
+        private Candidate track(String shortCode, long codeHash, long clicks) {
+            int mask = candidates.length() - 1;
+            int firstSlot = (int) (codeHash >>> 32) & mask;
+            int coldestSlot = -1;
+            Candidate coldest = null;
+            long coldestClicks = Long.MAX_VALUE;
+
+            for (int probe = 0; probe < CANDIDATE_PROBES; probe++) {
+                int slot = (firstSlot + probe) & mask;
+                Candidate candidate = candidates.get(slot);
+                if (candidate == null) {
+                    Candidate claimed = new Candidate(shortCode, codeHash);
+                    candidate = candidates.compareAndExchange(slot, null, claimed);
+                    if (candidate == null) {
+                        return claimed;
+                    }
+                }
+                if (candidate.codeHash == codeHash && candidate.shortCode.equals(shortCode)) {
+                    return candidate;
+                }
+                long candidateClicks = this.clicks.estimate(candidate.codeHash);
+                if (candidateClicks < coldestClicks) {
+                    coldestSlot = slot;
+                    coldest = candidate;
+                    coldestClicks = candidateClicks;
+                }
+            }
+
+            if (clicks <= coldestClicks) {
+                return null;
+            }
+            Candidate replacement = new Candidate(shortCode, codeHash);
+            return candidates.compareAndSet(coldestSlot, coldest, replacement) ? replacement : null;
+        }
+    }
+
+    private static final class Candidate {
+
+        private final String shortCode;
+        private final long codeHash;
+        private final HyperLogLog clients = new HyperLogLog(CLIENT_PRECISION);
+
+        private Candidate(String shortCode, long codeHash) {
+            this.shortCode = shortCode;
+            this.codeHash = codeHash;
+        }
+    }
+}
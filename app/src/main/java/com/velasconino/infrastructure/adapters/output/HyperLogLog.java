@@ -0,0 +1,104 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free HyperLogLog estimating the number of distinct 64-bit hashes added to it.
+ * Registers are one byte each, packed four to an int and raised with compare-and-set,
+ * so concurrent adds never block each other. With 2^precision registers the relative
+ * standard error is about 1.04 / sqrt(2^precision).
+ */
+public class HyperLogLog {
+
+    private final AtomicIntegerArray registers;
+    private final int precision;
+
+    /**
+     * @param precision The number of hash bits selecting a register, from 4 to 16
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new AtomicIntegerArray((1 << precision) / 4);
+    }
+
+    /**
+     * Adds a hash. The hash must be well mixed, as every one of its bits is used.
+     *
+     * @param hash The hash to add
+     */
+    public void add(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        // The position of the first one bit in the remaining bits, capped by a sentinel bit
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        raise(register, rank);
+    }
+
+    /**
+     * Adds every hash added to another HyperLogLog of the same precision.
+     *
+     * @param other The HyperLogLog to merge in
+     */
+    public void addAll(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLogs of different precision");
+        }
+        for (int register = 0; register < registerCount(); register++) {
+            raise(register, other.register(register));
+        }
+    }
+
+    /**
+     * @return The estimated number of distinct hashes added
+     */
+    public long estimate() {
+        int registerCount = registerCount();
+        double sum = 0;
+        int zeros = 0;
+        for (int register = 0; register < registerCount; register++) {
+            int rank = register(register);
+            sum += Math.scalb(1.0, -rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * @return The memory held by the registers, in bytes
+     */
+    public long memoryBytes() {
+        return (long) registers.length() * Integer.BYTES;
+    }
+
+    private int registerCount() {
+        return 1 << precision;
+    }
+
+    private int register(int register) {
+        return (registers.get(register >>> 2) >>> ((register & 3) << 3)) & 0xFF;
+    }
+
+    private void raise(int register, int rank) {
+        int index = register >>> 2;
+        int shift = (register & 3) << 3;
+        int word = registers.get(index);
+        while (((word >>> shift) & 0xFF) < rank) {
+            int witness = registers.compareAndExchange(index, word, (word & ~(0xFF << shift)) | (rank << shift));
+            if (witness == word) {
+                return;
+            }
+            word = witness;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.UrlMapping;
+import com.velasconino.infrastructure.adapters.output.persistence.JdbcUrlMappingRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * UrlRepository over a PostgreSQL database other than the default one, such as a shard.
+ * Short codes are stored by their {@link ShortCodeCodec} values, as {@link PostgresUrlRepository}
+ * stores them, so only encodable short codes can be saved.
+ */
+public class JdbcPostgresUrlRepository implements UrlRepository {
+
+    private final JdbcUrlMappingRepository repository;
+
+    public JdbcPostgresUrlRepository(JdbcUrlMappingRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        repository.insert(ShortCodeCodec.encode(shortCode), originalUrl);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        if (repository.insertIfAbsent(ShortCodeCodec.encode(shortCode), originalUrl) > 0) {
+            return originalUrl;
+        }
+        // The short code was taken, possibly by a concurrent insert: report the winner
+        return findOriginalUrlByShortCode(shortCode)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Short code " + shortCode + " was taken but could not be read back"));
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        if (expiresAt == null) {
+            return insertIfAbsent(shortCode, originalUrl);
+        }
+        if (repository.insertIfAbsent(ShortCodeCodec.encode(shortCode), originalUrl, expiresAt) > 0) {
+            return originalUrl;
+        }
+        return findOriginalUrlByShortCode(shortCode)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Short code " + shortCode + " was taken but could not be read back"));
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        if (mappings.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, String> winningUrls = new HashMap<>(mappings);
+        if (repository.insertAllIfAbsent(mappings) < mappings.size()) {
+            // Some short codes were taken, possibly by concurrent inserts: report their winners
+            winningUrls.putAll(findOriginalUrlsByShortCodes(mappings.keySet()));
+        }
+        return winningUrls;
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        long id = ShortCodeCodec.encodeOrZero(shortCode);
+        return id == 0 ? Optional.empty() : repository.findOriginalUrlById(id);
+    }
+
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        long id = ShortCodeCodec.encodeOrZero(shortCode);
+        return id == 0 ? Optional.empty() : repository.findMappingById(id);
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        List<Long> ids = PostgresUrlRepository.encodableIds(shortCodes);
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> originalUrls = new HashMap<>();
+        repository.findOriginalUrlsByIds(ids).forEach((id, originalUrl) ->
+                originalUrls.put(ShortCodeCodec.decode(id), originalUrl));
+        return originalUrls;
+    }
+}
@@ -0,0 +1,356 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded UrlRepository storing mappings in local memory-mapped files instead of PostgreSQL.
+ * Mappings are appended to a log and indexed by an off-heap hash index, so resolving a short code
+ * is a hash probe and one read of the mapped log, without a network round trip or a query.
+ * The index is rebuilt by replaying the log when the repository is opened, which also discards
+ * a record torn by a crash. Records replaced by {@link #save} become garbage in the log, and once
+ * they exceed a fraction of it the live records are copied into a new log in the background.
+ * Lookups take no lock; writes are serialized, and with synchronous writes each call returns
+ * only once its records are on the storage device.
+ */
+public class MappedFileUrlRepository implements UrlRepository, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileUrlRepository.class);
+
+    static final String LOG_FILE = "urls.log";
+    static final String INDEX_FILE = "urls.index";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private final Path directory;
+    private final int chunkSize;
+    private final boolean syncWrites;
+    private final double compactionThreshold;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ExecutorService compactor;
+    // Replaced as a whole by compaction and index growth, so a lookup always sees a matching log and index
+    private volatile Store store;
+    private long garbageBytes;
+    private boolean closed;
+
+    /**
+     * @param directory The directory holding the log and index files, created if missing
+     * @param syncWrites Whether writes are forced to the storage device before they return
+     * @param compactionThreshold The fraction of the log replaced records may take up before it is compacted
+     */
+    public MappedFileUrlRepository(Path directory, boolean syncWrites, double compactionThreshold) throws IOException {
+        this(directory, syncWrites, compactionThreshold, MappedUrlLog.DEFAULT_CHUNK_SIZE);
+    }
+
+    MappedFileUrlRepository(Path directory, boolean syncWrites, double compactionThreshold, int chunkSize)
+            throws IOException {
+        if (compactionThreshold <= 0 || compactionThreshold >= 1) {
+            throw new IllegalArgumentException("Compaction threshold must be between 0 and 1");
+        }
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+        this.syncWrites = syncWrites;
+        this.compactionThreshold = compactionThreshold;
+
+        Files.createDirectories(directory);
+        // Left behind by a compaction that did not finish; the log it was replacing is intact
+        Files.deleteIfExists(directory.resolve(LOG_FILE + COMPACTING_SUFFIX));
+        Files.deleteIfExists(directory.resolve(INDEX_FILE + COMPACTING_SUFFIX));
+        this.store = recover();
+        this.compactor = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                .name("url-storage-compaction")
+                .daemon()
+                .factory());
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        Store written;
+        long from;
+        long to;
+        boolean compact;
+        writeLock.lock();
+        try {
+            written = writable();
+            from = written.log.end();
+            long position = written.log.append(shortCode, originalUrl.getBytes(StandardCharsets.UTF_8));
+            to = written.log.end();
+            long previous = written.index.put(Hashing.hash(shortCode), position, written.log);
+            if (previous >= 0) {
+                garbageBytes += written.log.recordSize(previous);
+            }
+            compact = garbageBytes > compactionThreshold * to;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save URL mapping", e);
+        } finally {
+            writeLock.unlock();
+        }
+        sync(written, from, to);
+        if (compact) {
+            compactInBackground();
+        }
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        return insertAllIfAbsent(Map.of(shortCode, originalUrl)).get(shortCode);
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        Map<String, String> winningUrls = LinkedHashMap.newLinkedHashMap(mappings.size());
+        Map<String, Long> winningPositions = HashMap.newHashMap(mappings.size());
+        Store written;
+        long from;
+        long to;
+        writeLock.lock();
+        try {
+            written = writable();
+            from = written.log.end();
+            for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+                long hash = Hashing.hash(mapping.getKey());
+                long position = written.index.find(hash, mapping.getKey(), written.log);
+                if (position >= 0) {
+                    winningPositions.put(mapping.getKey(), position);
+                    continue;
+                }
+                if (written.index.needsGrowth()) {
+                    written = grow(written);
+                }
+                position = written.log.append(mapping.getKey(), mapping.getValue().getBytes(StandardCharsets.UTF_8));
+                written.index.put(hash, position, written.log);
+                winningUrls.put(mapping.getKey(), mapping.getValue());
+            }
+            to = written.log.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save URL mappings", e);
+        } finally {
+            writeLock.unlock();
+        }
+        sync(written, from, to);
+
+        for (Map.Entry<String, Long> existing : winningPositions.entrySet()) {
+            winningUrls.put(existing.getKey(), written.log.readUrl(existing.getValue()));
+        }
+        return winningUrls;
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        Store current = store;
+        long position = current.index.find(Hashing.hash(shortCode), shortCode, current.log);
+        return position < 0 ? Optional.empty() : Optional.of(current.log.readUrl(position));
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        Store current = store;
+        Map<String, String> originalUrls = HashMap.newHashMap(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            long position = current.index.find(Hashing.hash(shortCode), shortCode, current.log);
+            if (position >= 0) {
+                originalUrls.put(shortCode, current.log.readUrl(position));
+            }
+        }
+        return originalUrls;
+    }
+
+    /**
+     * Copies the live records into a new log and index, which replace the current ones.
+     * Lookups and writes continue while the records are copied, and are blocked only while the
+     * records written meanwhile are copied and the files are swapped.
+     */
+    public synchronized void compact() throws IOException {
+        Store source;
+        long snapshotEnd;
+        writeLock.lock();
+        try {
+            source = writable();
+            snapshotEnd = source.log.end();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Path compactingLogPath = directory.resolve(LOG_FILE + COMPACTING_SUFFIX);
+        Files.deleteIfExists(compactingLogPath);
+        MappedUrlLog compactedLog = MappedUrlLog.open(compactingLogPath, chunkSize);
+        compactedLog.recover(position -> {
+        });
+        Store[] compacted = {new Store(compactedLog, MappedUrlIndex.create(
+                directory.resolve(INDEX_FILE + COMPACTING_SUFFIX), source.index.capacity()))};
+        long[] replacedBytes = {0};
+
+        try {
+            copyLive(source, compacted, replacedBytes, 0, snapshotEnd);
+
+            writeLock.lock();
+            try {
+                Store current = store;
+                copyLive(current, compacted, replacedBytes, snapshotEnd, current.log.end());
+                Store swapped = compacted[0];
+                swapped.log.force(0, swapped.log.end());
+                swapped.log.moveTo(directory.resolve(LOG_FILE));
+                swapped.index.moveTo(directory.resolve(INDEX_FILE));
+                store = swapped;
+                garbageBytes = replacedBytes[0];
+                current.close();
+                LOG.info("Compacted the URL log from {} to {} bytes", current.log.end(), swapped.log.end());
+            } finally {
+                writeLock.unlock();
+            }
+        } catch (UncheckedIOException e) {
+            compacted[0].close();
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Waits for a running compaction and closes the files.
+     * Writes are forced to the storage device first, even if they were not synchronous.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        compactor.shutdown();
+        compactor.awaitTermination(1, TimeUnit.MINUTES);
+        writeLock.lock();
+        try {
+            closed = true;
+            Store current = store;
+            current.log.force(0, current.log.end());
+            current.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return The size of the log in bytes, including replaced records
+     */
+    long logSize() {
+        return store.log.end();
+    }
+
+    private Store recover() throws IOException {
+        MappedUrlLog log = MappedUrlLog.open(directory.resolve(LOG_FILE), chunkSize);
+        Store[] recovered = {new Store(log, MappedUrlIndex.create(directory.resolve(INDEX_FILE),
+                MappedUrlIndex.DEFAULT_CAPACITY))};
+        try {
+            log.recover(position -> {
+                Store current = recovered[0];
+                if (current.index.needsGrowth()) {
+                    current = grow(current);
+                    recovered[0] = current;
+                }
+                long previous = current.index.put(log.shortCodeHash(position), position, log);
+                if (previous >= 0) {
+                    garbageBytes += log.recordSize(previous);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        LOG.info("Recovered {} URL mappings from {}", recovered[0].index.size(), log.path());
+        return recovered[0];
+    }
+
+    /**
+     * @return The store writes go to, grown first if its index is half full
+     */
+    private Store writable() {
+        if (closed) {
+            throw new IllegalStateException("URL storage is closed");
+        }
+        Store current = store;
+        return current.index.needsGrowth() ? grow(current) : current;
+    }
+
+    private Store grow(Store current) {
+        try {
+            MappedUrlIndex grown = current.index.grow();
+            Store replaced = new Store(current.log, grown);
+            if (store == current) {
+                store = replaced;
+            }
+            current.index.close();
+            return replaced;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copies the live records between two positions of the source into the target,
+     * adding up the size of the target's records they replace.
+     */
+    private void copyLive(Store source, Store[] target, long[] replacedBytes, long from, long to) {
+        source.log.forEach(from, to, position -> {
+            long hash = source.log.shortCodeHash(position);
+            if (source.index.findLatest(hash, position, source.log) != position) {
+                return;
+            }
+            try {
+                Store compacted = target[0];
+                if (compacted.index.needsGrowth()) {
+                    MappedUrlIndex grown = compacted.index.grow();
+                    compacted.index.close();
+                    compacted = new Store(compacted.log, grown);
+                    target[0] = compacted;
+                }
+                long copy = compacted.log.copy(source.log, position);
+                long previous = compacted.index.put(hash, copy, compacted.log);
+                if (previous >= 0) {
+                    replacedBytes[0] += compacted.log.recordSize(previous);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void sync(Store written, long from, long to) {
+        if (syncWrites) {
+            written.log.force(from, to);
+        }
+    }
+
+    private void compactInBackground() {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        compactor.execute(() -> {
+            try {
+                compact();
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Failed to compact the URL log", e);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    private record Store(MappedUrlLog log, MappedUrlIndex index) {
+
+        private void close() throws IOException {
+            log.close();
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Open-addressing hash index from short codes to the positions of their records in a {@link MappedUrlLog},
+ * kept off-heap in a memory-mapped file.
+ * Each slot holds the 64-bit hash of a short code and the position of its latest record; a hash of zero
+ * marks an empty slot. Collisions are resolved by linear probing, and the index is kept at most half full.
+ * Writes must be serialized by the caller. Lookups take no lock: a slot's position is published before
+ * its hash, so a lookup that sees the hash also sees the position.
+ */
+final class MappedUrlIndex implements AutoCloseable {
+
+    static final int DEFAULT_CAPACITY = 1 << 10;
+    static final int MAX_CAPACITY = 1 << 26;
+
+    private static final int SLOT_BYTES = 16;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer slots;
+    private final int mask;
+    private int size;
+
+    private MappedUrlIndex(Path path, FileChannel channel, MappedByteBuffer slots, int capacity) {
+        this.path = path;
+        this.channel = channel;
+        this.slots = slots;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Creates an empty index, replacing any existing file.
+     * The file is deleted rather than truncated, so mappings of a previous index stay readable.
+     *
+     * @param path The index file
+     * @param capacity The number of slots, a power of two
+     */
+    static MappedUrlIndex create(Path path, int capacity) throws IOException {
+        if (capacity < 2 || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at most " + MAX_CAPACITY);
+        }
+        Files.deleteIfExists(path);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * SLOT_BYTES);
+        return new MappedUrlIndex(path, channel, slots, capacity);
+    }
+
+    /**
+     * Finds the record of a short code.
+     *
+     * @param hash The hash of the short code
+     * @return The position of the latest record of the short code, or -1 if it is not indexed
+     */
+    long find(long hash, String shortCode, MappedUrlLog log) {
+        long slotHash = slotHash(hash);
+        for (int slot = (int) slotHash & mask; ; slot = (slot + 1) & mask) {
+            long candidate = (long) LONGS.getAcquire(slots, slot * SLOT_BYTES);
+            if (candidate == 0) {
+                return -1;
+            }
+            if (candidate == slotHash) {
+                long position = (long) LONGS.getAcquire(slots, slot * SLOT_BYTES + Long.BYTES);
+                if (log.hasShortCode(position, shortCode)) {
+                    return position;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the latest record of the short code of another record.
+     *
+     * @param hash The hash of the short code
+     * @param recordPosition The position of any record of the short code
+     * @return The position of the latest record of the short code, or -1 if it is not indexed
+     */
+    long findLatest(long hash, long recordPosition, MappedUrlLog log) {
+        long slotHash = slotHash(hash);
+        for (int slot = (int) slotHash & mask; ; slot = (slot + 1) & mask) {
+            long candidate = (long) LONGS.getAcquire(slots, slot * SLOT_BYTES);
+            if (candidate == 0) {
+                return -1;
+            }
+            if (candidate == slotHash) {
+                long position = (long) LONGS.getAcquire(slots, slot * SLOT_BYTES + Long.BYTES);
+                if (log.haveSameShortCode(position, recordPosition)) {
+                    return position;
+                }
+            }
+        }
+    }
+
+    /**
+     * Points the short code of a record at it.
+     *
+     * @param hash The hash of the record's short code
+     * @param position The position of the record
+     * @return The position of the record the short code pointed at before, or -1 if it was not indexed
+     */
+    long put(long hash, long position, MappedUrlLog log) {
+        long slotHash = slotHash(hash);
+        for (int slot = (int) slotHash & mask; ; slot = (slot + 1) & mask) {
+            long candidate = (long) LONGS.getAcquire(slots, slot * SLOT_BYTES);
+            if (candidate == 0) {
+                LONGS.setRelease(slots, slot * SLOT_BYTES + Long.BYTES, position);
+                LONGS.setRelease(slots, slot * SLOT_BYTES, slotHash);
+                size++;
+                return -1;
+            }
+            if (candidate == slotHash) {
+                long previous = (long) LONGS.getAcquire(slots, slot * SLOT_BYTES + Long.BYTES);
+                if (log.haveSameShortCode(previous, position)) {
+                    LONGS.setRelease(slots, slot * SLOT_BYTES + Long.BYTES, position);
+                    return previous;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether the index is half full and should be grown before the next insert
+     */
+    boolean needsGrowth() {
+        return (size + 1) * 2L > mask + 1L;
+    }
+
+    /**
+     * Copies the index into one of twice the capacity, which replaces this one's file.
+     * This index stays readable until it is closed, so lookups in flight are not disturbed.
+     *
+     * @return The grown index
+     */
+    MappedUrlIndex grow() throws IOException {
+        int capacity = mask + 1;
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("URL index is full at " + size + " short codes");
+        }
+        Path growing = path.resolveSibling(path.getFileName() + ".growing");
+        MappedUrlIndex grown = create(growing, capacity * 2);
+        for (int slot = 0; slot < capacity; slot++) {
+            long slotHash = (long) LONGS.getAcquire(slots, slot * SLOT_BYTES);
+            if (slotHash != 0) {
+                grown.putNew(slotHash, (long) LONGS.getAcquire(slots, slot * SLOT_BYTES + Long.BYTES));
+            }
+        }
+        grown.moveTo(path);
+        return grown;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Atomically renames the file, replacing any file at the target. The mapping is not affected.
+     */
+    void moveTo(Path target) throws IOException {
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        path = target;
+    }
+
+    /**
+     * Closes the file. The mapping stays readable until it is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void putNew(long slotHash, long position) {
+        int slot = (int) slotHash & mask;
+        while ((long) LONGS.get(slots, slot * SLOT_BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        LONGS.set(slots, slot * SLOT_BYTES + Long.BYTES, position);
+        LONGS.set(slots, slot * SLOT_BYTES, slotHash);
+        size++;
+    }
+
+    private static long slotHash(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,338 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of URL mappings in a memory-mapped file.
+ * The file is mapped in fixed-size chunks, so it can grow past the 2 GB limit of a single mapping.
+ * A record never spans two chunks; the rest of a chunk that cannot hold the next record is skipped.
+ * Each record is laid out as
+ * <pre>
+ *   int  short code length in chars (0 marks the end of the log, -1 the skipped rest of a chunk)
+ *   int  URL length in bytes
+ *   int  CRC32C of the short code and URL
+ *   char short code, UTF-16
+ *   byte URL, UTF-8
+ * </pre>
+ * The short code length is written last, so a record becomes visible only once it is complete,
+ * and a record torn by a crash fails its checksum and ends the log on recovery.
+ * Positions are offsets from the start of the file. Appends must be serialized by the caller;
+ * reads may run concurrently with them.
+ */
+final class MappedUrlLog implements AutoCloseable {
+
+    static final int DEFAULT_CHUNK_SIZE = 1 << 26;
+
+    private static final int HEADER_BYTES = 12;
+    private static final int SKIPPED = -1;
+
+    private Path path;
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final int chunkShift;
+    // Replaced as a whole when the log grows, so readers always see a consistent array
+    private volatile MappedByteBuffer[] chunks;
+    private long end;
+
+    private MappedUrlLog(Path path, FileChannel channel, int chunkSize) {
+        this.path = path;
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunks = new MappedByteBuffer[0];
+    }
+
+    /**
+     * Opens a log, creating the file if it does not exist.
+     * Call {@link #recover(LongConsumer)} before appending to find the end of an existing log.
+     *
+     * @param path The log file
+     * @param chunkSize The size of each mapped chunk, a power of two
+     */
+    static MappedUrlLog open(Path path, int chunkSize) throws IOException {
+        if (chunkSize < 1024 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two of at least 1024");
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedUrlLog log = new MappedUrlLog(path, channel, chunkSize);
+        long chunkCount = Math.max(1, (channel.size() + chunkSize - 1) >>> log.chunkShift);
+        log.mapChunks((int) chunkCount);
+        return log;
+    }
+
+    /**
+     * Replays the records of the log in order and positions the end after the last valid one.
+     * A record that is incomplete or fails its checksum ends the log, and the space after it
+     * is cleared so it cannot be mistaken for records later.
+     *
+     * @param consumer Receives the position of every valid record
+     */
+    void recover(LongConsumer consumer) {
+        long position = 0;
+        while (true) {
+            position = skipToRecord(position);
+            if (!isValidRecord(position)) {
+                break;
+            }
+            consumer.accept(position);
+            position += recordSize(position);
+        }
+        end = position;
+        clearAfterEnd();
+    }
+
+    /**
+     * Calls the consumer with every record between two positions, in order.
+     *
+     * @param from The position of the first record
+     * @param to The end of the log at the time, exclusive
+     */
+    void forEach(long from, long to, LongConsumer consumer) {
+        long position = skipToRecord(from);
+        while (position < to) {
+            consumer.accept(position);
+            position = skipToRecord(position + recordSize(position));
+        }
+    }
+
+    /**
+     * Appends a mapping.
+     *
+     * @param shortCode The short code
+     * @param url The original URL, UTF-8 encoded
+     * @return The position of the new record
+     */
+    long append(String shortCode, byte[] url) throws IOException {
+        int size = HEADER_BYTES + shortCode.length() * Character.BYTES + url.length;
+        if (size > chunkSize) {
+            throw new IllegalArgumentException("Mapping of " + size + " bytes does not fit in a log chunk");
+        }
+
+        int offset = offset(end);
+        if (offset + size > chunkSize) {
+            if (offset + Integer.BYTES <= chunkSize) {
+                chunk(end).putInt(offset, SKIPPED);
+            }
+            end = (chunkIndex(end) + 1L) << chunkShift;
+            offset = 0;
+        }
+        if (chunkIndex(end) >= chunks.length) {
+            mapChunks(chunkIndex(end) + 1);
+        }
+
+        long position = end;
+        MappedByteBuffer chunk = chunk(position);
+        int codeOffset = offset + HEADER_BYTES;
+        for (int i = 0; i < shortCode.length(); i++) {
+            chunk.putChar(codeOffset + i * Character.BYTES, shortCode.charAt(i));
+        }
+        chunk.put(codeOffset + shortCode.length() * Character.BYTES, url);
+        chunk.putInt(offset + 4, url.length);
+        chunk.putInt(offset + 8, checksum(chunk, offset, size));
+        // The record must be complete before its length makes it visible
+        VarHandle.releaseFence();
+        chunk.putInt(offset, shortCode.length());
+        end = position + size;
+        return position;
+    }
+
+    /**
+     * Appends a copy of a record of another log.
+     *
+     * @return The position of the copy in this log
+     */
+    long copy(MappedUrlLog source, long position) throws IOException {
+        return append(source.readShortCode(position), source.readUrlBytes(position));
+    }
+
+    /**
+     * Compares the short code of a record with a string, without allocating.
+     */
+    boolean hasShortCode(long position, String shortCode) {
+        MappedByteBuffer chunk = chunk(position);
+        int offset = offset(position);
+        if (chunk.getInt(offset) != shortCode.length()) {
+            return false;
+        }
+        int codeOffset = offset + HEADER_BYTES;
+        for (int i = 0; i < shortCode.length(); i++) {
+            if (chunk.getChar(codeOffset + i * Character.BYTES) != shortCode.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the short codes of two records of this log.
+     */
+    boolean haveSameShortCode(long position, long otherPosition) {
+        MappedByteBuffer chunk = chunk(position);
+        MappedByteBuffer otherChunk = chunk(otherPosition);
+        int offset = offset(position);
+        int otherOffset = offset(otherPosition);
+        int length = chunk.getInt(offset);
+        if (otherChunk.getInt(otherOffset) != length) {
+            return false;
+        }
+        return chunk.slice(offset + HEADER_BYTES, length * Character.BYTES)
+                .equals(otherChunk.slice(otherOffset + HEADER_BYTES, length * Character.BYTES));
+    }
+
+    /**
+     * @return The hash of the short code of a record, equal to the hash of the short code as a string
+     */
+    long shortCodeHash(long position) {
+        int offset = offset(position);
+        MappedByteBuffer chunk = chunk(position);
+        int length = chunk.getInt(offset);
+        return Hashing.hash(chunk.slice(offset + HEADER_BYTES, length * Character.BYTES).asCharBuffer());
+    }
+
+    String readShortCode(long position) {
+        int offset = offset(position);
+        MappedByteBuffer chunk = chunk(position);
+        return chunk.slice(offset + HEADER_BYTES, chunk.getInt(offset) * Character.BYTES).asCharBuffer().toString();
+    }
+
+    /**
+     * Reads the URL of a record. The only allocations are the returned string and its bytes.
+     */
+    String readUrl(long position) {
+        return new String(readUrlBytes(position), StandardCharsets.UTF_8);
+    }
+
+    int recordSize(long position) {
+        MappedByteBuffer chunk = chunk(position);
+        int offset = offset(position);
+        return HEADER_BYTES + chunk.getInt(offset) * Character.BYTES + chunk.getInt(offset + 4);
+    }
+
+    /**
+     * @return The position the next record will be appended at
+     */
+    long end() {
+        return end;
+    }
+
+    /**
+     * Writes the records between two positions through to the storage device.
+     */
+    void force(long from, long to) {
+        MappedByteBuffer[] mapped = chunks;
+        for (long position = from; position < to; position = (chunkIndex(position) + 1L) << chunkShift) {
+            int offset = offset(position);
+            long chunkEnd = (chunkIndex(position) + 1L) << chunkShift;
+            int length = (int) (Math.min(to, chunkEnd) - position);
+            mapped[chunkIndex(position)].force(offset, length);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Atomically renames the file, replacing any file at the target. The mapping is not affected.
+     */
+    void moveTo(Path target) throws IOException {
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        path = target;
+    }
+
+    /**
+     * Closes the file. Existing mappings stay readable until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private byte[] readUrlBytes(long position) {
+        MappedByteBuffer chunk = chunk(position);
+        int offset = offset(position);
+        int urlLength = chunk.getInt(offset + 4);
+        if (urlLength < 0 || urlLength > chunkSize) {
+            throw new IllegalStateException("Corrupt record at position " + position);
+        }
+        byte[] url = new byte[urlLength];
+        chunk.get(offset + HEADER_BYTES + chunk.getInt(offset) * Character.BYTES, url);
+        return url;
+    }
+
+    private long skipToRecord(long position) {
+        int offset = offset(position);
+        if (chunkIndex(position) < chunks.length
+                && (offset + HEADER_BYTES > chunkSize || chunk(position).getInt(offset) == SKIPPED)) {
+            return (chunkIndex(position) + 1L) << chunkShift;
+        }
+        return position;
+    }
+
+    private boolean isValidRecord(long position) {
+        if (chunkIndex(position) >= chunks.length) {
+            return false;
+        }
+        MappedByteBuffer chunk = chunk(position);
+        int offset = offset(position);
+        int codeLength = chunk.getInt(offset);
+        int urlLength = chunk.getInt(offset + 4);
+        if (codeLength <= 0 || urlLength < 0) {
+            return false;
+        }
+        long size = HEADER_BYTES + (long) codeLength * Character.BYTES + urlLength;
+        return offset + size <= chunkSize && chunk.getInt(offset + 8) == checksum(chunk, offset, (int) size);
+    }
+
+    private void clearAfterEnd() {
+        // Records written after a torn one must not reappear once appends overwrite the torn record
+        for (int index = chunkIndex(end); index < chunks.length; index++) {
+            MappedByteBuffer chunk = chunks[index];
+            int from = index == chunkIndex(end) ? offset(end) : 0;
+            for (int offset = from; offset < chunkSize; offset++) {
+                if (chunk.get(offset) != 0) {
+                    chunk.put(offset, new byte[chunkSize - offset]);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void mapChunks(int chunkCount) throws IOException {
+        MappedByteBuffer[] grown = Arrays.copyOf(chunks, chunkCount);
+        for (int i = chunks.length; i < chunkCount; i++) {
+            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << chunkShift, chunkSize);
+        }
+        chunks = grown;
+    }
+
+    private static int checksum(MappedByteBuffer chunk, int offset, int size) {
+        CRC32C crc = new CRC32C();
+        crc.update(chunk.slice(offset + HEADER_BYTES, size - HEADER_BYTES));
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer chunk(long position) {
+        return chunks[chunkIndex(position)];
+    }
+
+    private int chunkIndex(long position) {
+        return (int) (position >>> chunkShift);
+    }
+
+    private int offset(long position) {
+        return (int) position & (chunkSize - 1);
+    }
+}
@@ -0,0 +1,41 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.ReactiveUrlRepository;
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Adapts a blocking UrlRepository to the ReactiveUrlRepository port.
+ * Lookups are moved off the calling thread onto a scheduler meant for blocking work,
+ * so the event loop never waits on JDBC.
+ */
+public class OffloadingReactiveUrlRepository implements ReactiveUrlRepository {
+    
+    private final UrlRepository delegate;
+    private final Scheduler scheduler;
+    
+    public OffloadingReactiveUrlRepository(UrlRepository delegate) {
+        this(delegate, Schedulers.boundedElastic());
+    }
+    
+    public OffloadingReactiveUrlRepository(UrlRepository delegate, Scheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+    
+    @Override
+    public Mono<String> findOriginalUrlByShortCode(String shortCode) {
+        return Mono.fromCallable(() -> delegate.findOriginalUrlByShortCode(shortCode).orElse(null))
+                .subscribeOn(scheduler);
+    }
+    
+    @Override
+    public Mono<UrlMapping> findMappingByShortCode(String shortCode) {
+        return Mono.fromCallable(() -> delegate.findMappingByShortCode(shortCode).orElse(null))
+                .subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,42 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.IdBlockAllocator;
+
+import io.micronaut.data.exceptions.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Allocates blocks of IDs from a PostgreSQL sequence shared by every node.
+ * Sequence values are never handed out twice, whether or not the transaction that took them commits,
+ * so each call is a single {@code nextval} on its own connection, outside any transaction.
+ */
+public class PostgresIdBlockAllocator implements IdBlockAllocator {
+
+    private static final String NEXT_BLOCK = "SELECT nextval('url_mapping_id_block_seq')";
+
+    private final DataSource dataSource;
+
+    /**
+     * @param dataSource The connection pool of the database holding the sequence, not bound to Micronaut transactions
+     */
+    public PostgresIdBlockAllocator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public long nextBlock() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(NEXT_BLOCK);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to allocate a block of IDs: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.infrastructure.adapters.output.persistence.JdbcUrlMappingRepository;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Read-only UrlRepository over a PostgreSQL read replica.
+ * Writes are rejected: they only ever go to the primary.
+ */
+public class PostgresReplicaUrlRepository extends JdbcPostgresUrlRepository {
+
+    public PostgresReplicaUrlRepository(JdbcUrlMappingRepository repository) {
+        super(repository);
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        throw readOnly();
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        throw readOnly();
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        throw readOnly();
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Read replicas do not accept writes");
+    }
+}
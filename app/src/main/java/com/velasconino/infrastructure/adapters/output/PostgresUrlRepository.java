@@ -1,14 +1,25 @@
 package com.velasconino.infrastructure.adapters.output;
 
 import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.UrlMapping;
 import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingEntity;
 import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingRepository;
 
 import jakarta.inject.Singleton;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * PostgreSQL implementation of the UrlRepository.
+ * Short codes are stored as their {@link ShortCodeCodec} values, so only encodable short codes
+ * can be saved; looking up any other short code finds nothing without querying.
  */
 @Singleton
 public class PostgresUrlRepository implements UrlRepository {
@@ -21,13 +32,83 @@ public class PostgresUrlRepository implements UrlRepository {
     
     @Override
     public void save(String shortCode, String originalUrl) {
-        UrlMappingEntity entity = new UrlMappingEntity(shortCode, originalUrl);
+        UrlMappingEntity entity = UrlMappingEntity.of(shortCode, originalUrl);
         repository.save(entity);
     }
     
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        if (repository.insertIfAbsent(ShortCodeCodec.encode(shortCode), originalUrl) > 0) {
+            return originalUrl;
+        }
+        // The short code was taken, possibly by a concurrent insert: report the winner
+        return repository.findByShortCode(shortCode)
+                .map(UrlMappingEntity::getOriginalUrl)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Short code " + shortCode + " was taken but could not be read back"));
+    }
+    
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        if (expiresAt == null) {
+            return insertIfAbsent(shortCode, originalUrl);
+        }
+        if (repository.insertIfAbsent(ShortCodeCodec.encode(shortCode), originalUrl, expiresAt) > 0) {
+            return originalUrl;
+        }
+        return repository.findByShortCode(shortCode)
+                .map(UrlMappingEntity::getOriginalUrl)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Short code " + shortCode + " was taken but could not be read back"));
+    }
+    
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        if (mappings.isEmpty()) {
+            return Map.of();
+        }
+        
+        Map<String, String> winningUrls = new HashMap<>(mappings);
+        if (repository.insertAllIfAbsent(mappings) < mappings.size()) {
+            // Some short codes were taken, possibly by concurrent inserts: report their winners
+            winningUrls.putAll(findOriginalUrlsByShortCodes(mappings.keySet()));
+        }
+        return winningUrls;
+    }
+    
     @Override
     public Optional<String> findOriginalUrlByShortCode(String shortCode) {
         return repository.findByShortCode(shortCode)
                 .map(UrlMappingEntity::getOriginalUrl);
     }
+    
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        return repository.findByShortCode(shortCode)
+                .map(UrlMappingEntity::toUrlMapping);
+    }
+    
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        List<Long> ids = encodableIds(shortCodes);
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return repository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(UrlMappingEntity::getShortCode, UrlMappingEntity::getOriginalUrl));
+    }
+    
+    /**
+     * @return The ids of the short codes that can be encoded; no other short code can be stored
+     */
+    static List<Long> encodableIds(Collection<String> shortCodes) {
+        List<Long> ids = new ArrayList<>(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            long id = ShortCodeCodec.encodeOrZero(shortCode);
+            if (id != 0) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
 } 
\ No newline at end of file
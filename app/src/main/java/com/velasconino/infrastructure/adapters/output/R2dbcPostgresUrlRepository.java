@@ -0,0 +1,52 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.ReactiveUrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.UrlMapping;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+
+/**
+ * R2DBC implementation of the ReactiveUrlRepository.
+ * Lookups run on the driver's event loop, so no thread is held while the query is in flight.
+ */
+public class R2dbcPostgresUrlRepository implements ReactiveUrlRepository {
+    
+    private static final String FIND_BY_SHORT_CODE = "SELECT original_url, expires_at FROM url_mapping WHERE id = $1";
+    
+    private final ConnectionFactory connectionFactory;
+    
+    public R2dbcPostgresUrlRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+    
+    @Override
+    public Mono<String> findOriginalUrlByShortCode(String shortCode) {
+        return findMappingByShortCode(shortCode).map(UrlMapping::originalUrl);
+    }
+    
+    @Override
+    public Mono<UrlMapping> findMappingByShortCode(String shortCode) {
+        long id = ShortCodeCodec.encodeOrZero(shortCode);
+        if (id == 0) {
+            return Mono.empty();
+        }
+        return Mono.usingWhen(
+                connectionFactory.create(),
+                connection -> Flux.from(connection.createStatement(FIND_BY_SHORT_CODE)
+                                .bind(0, id)
+                                .execute())
+                        .flatMap(result -> result.map((row, metadata) -> {
+                            OffsetDateTime expiresAt = row.get("expires_at", OffsetDateTime.class);
+                            return new UrlMapping(row.get("original_url", String.class),
+                                    expiresAt != null ? expiresAt.toInstant() : null);
+                        }))
+                        .next(),
+                Connection::close);
+    }
+}
@@ -0,0 +1,212 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * UrlRepository that writes to the primary database and resolves short codes on read replicas.
+ * Each lookup goes to one replica, picked in turn or by lowest recent latency.
+ * Replicas lag behind the primary, so a short code the replica does not find is looked up on the
+ * primary, whichever instance wrote it. A short code the primary does not have either is then
+ * answered as missing without asking the primary again for the negative cache window, so repeated
+ * lookups of unknown codes stay on the replicas; writes through this instance evict their codes
+ * from it. A replica that fails is skipped for that lookup in favour of the primary.
+ * Batch lookups only serve shortening, which must see every code already taken, so they go
+ * straight to the primary.
+ */
+public class ReplicaRoutingUrlRepository implements UrlRepository {
+
+    /**
+     * How the replica serving a lookup is picked.
+     */
+    public enum Selection {
+        /** Each replica in turn. */
+        ROUND_ROBIN,
+        /**
+         * The replica with the lowest moving average latency. Every 16th lookup goes to each replica
+         * in turn instead, so a replica that was slow is measured again.
+         */
+        LEAST_LATENCY
+    }
+
+    private static final int MAXIMUM_KNOWN_MISSES = 100_000;
+    private static final int LATENCY_PROBE_INTERVAL = 16;
+    // Weight of a new latency sample in the moving average, as a right shift: 1/8
+    private static final int LATENCY_SMOOTHING_SHIFT = 3;
+    private static final long FAILED_REPLICA_LATENCY_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final UrlRepository primary;
+    private final List<UrlRepository> replicas;
+    private final Selection selection;
+    // Short codes neither a replica nor the primary had when last looked up
+    private final Cache<String, Boolean> knownMisses;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // Moving average latency of each replica in nanoseconds; concurrent updates may overwrite each other
+    private final AtomicLongArray replicaLatencies;
+    private final Counter replicaLookups;
+    private final Counter replicaMissLookups;
+    private final Counter knownMissLookups;
+    private final Counter failedReplicaLookups;
+
+    public ReplicaRoutingUrlRepository(UrlRepository primary,
+                                       List<UrlRepository> replicas,
+                                       Selection selection,
+                                       Duration negativeCacheWindow,
+                                       MeterRegistry meterRegistry) {
+        this(primary, replicas, selection, negativeCacheWindow, meterRegistry, Ticker.systemTicker());
+    }
+
+    ReplicaRoutingUrlRepository(UrlRepository primary,
+                                List<UrlRepository> replicas,
+                                Selection selection,
+                                Duration negativeCacheWindow,
+                                MeterRegistry meterRegistry,
+                                Ticker ticker) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.knownMisses = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_KNOWN_MISSES)
+                .expireAfterWrite(negativeCacheWindow)
+                .ticker(ticker)
+                // Maintenance is cheap; run it inline instead of on the shared common pool
+                .executor(Runnable::run)
+                .build();
+        this.replicaLatencies = new AtomicLongArray(replicas.size());
+        this.replicaLookups = lookupCounter("replica", "Lookups answered by a read replica", meterRegistry);
+        this.replicaMissLookups = lookupCounter("replica-miss",
+                "Lookups retried on the primary for a short code a read replica did not find", meterRegistry);
+        this.knownMissLookups = lookupCounter("known-miss",
+                "Lookups a read replica missed, not retried as the primary recently missed them too", meterRegistry);
+        this.failedReplicaLookups = lookupCounter("replica-failure",
+                "Lookups sent to the primary after a read replica failed", meterRegistry);
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        primary.save(shortCode, originalUrl);
+        knownMisses.invalidate(shortCode);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        String winningUrl = primary.insertIfAbsent(shortCode, originalUrl);
+        knownMisses.invalidate(shortCode);
+        return winningUrl;
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        Map<String, String> winningUrls = primary.insertAllIfAbsent(mappings);
+        knownMisses.invalidateAll(winningUrls.keySet());
+        return winningUrls;
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        String winningUrl = primary.insertIfAbsent(shortCode, originalUrl, expiresAt);
+        knownMisses.invalidate(shortCode);
+        return winningUrl;
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        return find(shortCode, UrlRepository::findOriginalUrlByShortCode);
+    }
+
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        return find(shortCode, UrlRepository::findMappingByShortCode);
+    }
+
+    private <T> Optional<T> find(String shortCode, BiFunction<UrlRepository, String, Optional<T>> lookup) {
+        Optional<T> found;
+        try {
+            found = onReplica(replica -> lookup.apply(replica, shortCode));
+        } catch (RuntimeException e) {
+            failedReplicaLookups.increment();
+            return lookup.apply(primary, shortCode);
+        }
+        if (found.isPresent()) {
+            replicaLookups.increment();
+            return found;
+        }
+        if (knownMisses.getIfPresent(shortCode) != null) {
+            knownMissLookups.increment();
+            return found;
+        }
+        replicaMissLookups.increment();
+        Optional<T> onPrimary = lookup.apply(primary, shortCode);
+        if (onPrimary.isEmpty()) {
+            knownMisses.put(shortCode, Boolean.TRUE);
+        }
+        return onPrimary;
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        // A replica lagging behind would report codes taken meanwhile as free
+        return primary.findOriginalUrlsByShortCodes(shortCodes);
+    }
+
+    private <T> T onReplica(Function<UrlRepository, T> lookup) {
+        int replica = selectReplica();
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = lookup.apply(replicas.get(replica));
+        } catch (RuntimeException e) {
+            // A replica failing fast must not look like the fastest one
+            replicaLatencies.set(replica, FAILED_REPLICA_LATENCY_NANOS);
+            throw e;
+        }
+        long latency = System.nanoTime() - start;
+        long average = replicaLatencies.get(replica);
+        replicaLatencies.set(replica, average + ((latency - average) >> LATENCY_SMOOTHING_SHIFT));
+        return result;
+    }
+
+    private int selectReplica() {
+        int turn = nextReplica.getAndIncrement() & Integer.MAX_VALUE;
+        if (selection == Selection.ROUND_ROBIN) {
+            return turn % replicas.size();
+        }
+        if (turn % LATENCY_PROBE_INTERVAL == 0) {
+            return turn / LATENCY_PROBE_INTERVAL % replicas.size();
+        }
+        int fastest = 0;
+        for (int i = 1; i < replicas.size(); i++) {
+            if (replicaLatencies.get(i) < replicaLatencies.get(fastest)) {
+                fastest = i;
+            }
+        }
+        return fastest;
+    }
+
+    private static Counter lookupCounter(String result, String description, MeterRegistry meterRegistry) {
+        return Counter.builder("url.shortener.replica.lookups")
+                .tag("result", result)
+                .description(description)
+                .register(meterRegistry);
+    }
+}
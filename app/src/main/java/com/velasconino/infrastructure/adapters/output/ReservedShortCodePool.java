@@ -0,0 +1,248 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.ShortCodePool;
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.infrastructure.adapters.output.persistence.ShortCodeReservationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pool of random short codes reserved in advance, so shortening a URL takes a code from memory
+ * instead of probing the database for a free one. Taking a code is a lock-free queue poll.
+ * When fewer than the low watermark are left, one background thread generates random codes,
+ * drops those already mapped, reserves the rest in bulk in {@code short_code_reservation} and
+ * queues them, batch after batch, until the high watermark is reached. Taken codes are released
+ * in bulk on the next refill, or the one after if that release fails, and unused ones when the
+ * pool closes. The same thread renews the reservations it holds four times per reservation TTL
+ * and purges those of any pool not renewed within it, so the codes of a node that crashed are
+ * handed out again. A code the pool checked may still be mapped by another path before it is used,
+ * or reserved again after this node stalled past the TTL, so callers insert it only if absent.
+ */
+public class ReservedShortCodePool implements ShortCodePool, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReservedShortCodePool.class);
+    private static final long RETRY_PAUSE_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final UrlRepository urlRepository;
+    private final ShortCodeReservationRepository reservations;
+    private final int codeLength;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final int batchSize;
+    private final Duration reservationTtl;
+    private final long renewalIntervalNanos;
+    private final String poolId = UUID.randomUUID().toString();
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentLinkedQueue<String> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    // Taken since the last refill, released by the next one
+    private final ConcurrentLinkedQueue<String> taken = new ConcurrentLinkedQueue<>();
+    private final Counter exhausted;
+    private final Timer refills;
+    private final Thread refiller;
+    private volatile boolean closed;
+
+    /**
+     * @param urlRepository The repository codes are checked to be free in
+     * @param reservations The reservations shared by the pools of every node
+     * @param codeLength The length of the generated codes
+     * @param lowWatermark The number of ready codes below which the pool is refilled
+     * @param highWatermark The number of ready codes a refill stops at
+     * @param batchSize The maximum number of codes checked and reserved at once
+     * @param reservationTtl How long reservations not renewed are kept before any pool purges them
+     * @param meterRegistry The registry the pool metrics are published to
+     */
+    public ReservedShortCodePool(UrlRepository urlRepository,
+                                 ShortCodeReservationRepository reservations,
+                                 int codeLength,
+                                 int lowWatermark,
+                                 int highWatermark,
+                                 int batchSize,
+                                 Duration reservationTtl,
+                                 MeterRegistry meterRegistry) {
+        if (codeLength < 1 || codeLength > ShortCodeCodec.MAX_LENGTH) {
+            throw new IllegalArgumentException("Code length must be between 1 and " + ShortCodeCodec.MAX_LENGTH);
+        }
+        if (lowWatermark < 1 || highWatermark <= lowWatermark) {
+            throw new IllegalArgumentException("Watermarks must be positive, the high one above the low one");
+        }
+        if (batchSize < 1 || batchSize > 10_000) {
+            throw new IllegalArgumentException("Batch size must be between 1 and 10000");
+        }
+        if (!reservationTtl.isPositive()) {
+            throw new IllegalArgumentException("Reservation TTL must be positive");
+        }
+        this.urlRepository = urlRepository;
+        this.reservations = reservations;
+        this.codeLength = codeLength;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.batchSize = batchSize;
+        this.reservationTtl = reservationTtl;
+        this.renewalIntervalNanos = reservationTtl.dividedBy(4).toNanos();
+        Gauge.builder("url.shortener.code-pool.depth", depth, AtomicInteger::get)
+                .description("Reserved short codes ready to be taken")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("url.shortener.code-pool.exhausted")
+                .description("Short codes requested from an empty pool")
+                .register(meterRegistry);
+        this.refills = Timer.builder("url.shortener.code-pool.refill")
+                .description("Time taken to check, reserve and queue a batch of short codes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.refiller = Thread.ofPlatform()
+                .name("url-code-pool-refiller")
+                .daemon()
+                .start(this::refillUntilClosed);
+    }
+
+    @Override
+    public Optional<String> take() {
+        String shortCode = ready.poll();
+        if (shortCode == null) {
+            exhausted.increment();
+            LockSupport.unpark(refiller);
+            return Optional.empty();
+        }
+        taken.add(shortCode);
+        if (depth.decrementAndGet() < lowWatermark) {
+            LockSupport.unpark(refiller);
+        }
+        return Optional.of(shortCode);
+    }
+
+    /**
+     * @return The number of codes ready to be taken
+     */
+    public int depth() {
+        return depth.get();
+    }
+
+    /**
+     * Stops refilling and releases the codes taken or left, so other nodes may reserve them again.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(refiller);
+        refiller.join();
+        List<String> unused = new ArrayList<>();
+        for (String shortCode; (shortCode = ready.poll()) != null; ) {
+            unused.add(shortCode);
+        }
+        depth.set(0);
+        try {
+            release(unused);
+            releaseTaken();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to release reserved short codes, they stay unused", e);
+        }
+    }
+
+    private void refillUntilClosed() {
+        long nextRenewal = System.nanoTime();
+        while (!closed) {
+            long untilRenewal = nextRenewal - System.nanoTime();
+            if (untilRenewal <= 0) {
+                try {
+                    renewReservations();
+                } catch (RuntimeException e) {
+                    LOG.warn("Failed to renew reserved short codes, retrying on the next renewal", e);
+                }
+                nextRenewal = System.nanoTime() + renewalIntervalNanos;
+                continue;
+            }
+            if (depth.get() >= lowWatermark) {
+                LockSupport.parkNanos(this, untilRenewal);
+                continue;
+            }
+            try {
+                refill();
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to refill the short code pool, retrying", e);
+                LockSupport.parkNanos(RETRY_PAUSE_NANOS);
+            }
+        }
+    }
+
+    private void refill() {
+        releaseTaken();
+        while (!closed && depth.get() < highWatermark) {
+            long start = System.nanoTime();
+            Set<String> candidates = randomShortCodes(Math.min(batchSize, highWatermark - depth.get()));
+            candidates.removeAll(urlRepository.findOriginalUrlsByShortCodes(candidates).keySet());
+            if (!candidates.isEmpty()) {
+                List<Long> reserved = reservations.reserve(poolId,
+                        candidates.stream().map(ShortCodeCodec::encode).toList());
+                for (long id : reserved) {
+                    ready.add(ShortCodeCodec.decode(id));
+                }
+                depth.addAndGet(reserved.size());
+            }
+            refills.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private void renewReservations() {
+        reservations.renew(poolId);
+        int purged = reservations.purgeReservedBefore(Instant.now().minus(reservationTtl));
+        if (purged > 0) {
+            LOG.info("Released {} short codes reserved by pools that stopped renewing them", purged);
+        }
+    }
+
+    private Set<String> randomShortCodes(int count) {
+        long first = ShortCodeCodec.firstValueOfLength(codeLength);
+        long values = ShortCodeCodec.valuesOfLength(codeLength);
+        Set<String> shortCodes = new LinkedHashSet<>();
+        while (shortCodes.size() < Math.min(count, values)) {
+            shortCodes.add(ShortCodeCodec.decode(first + random.nextLong(values)));
+        }
+        return shortCodes;
+    }
+
+    private void releaseTaken() {
+        List<String> shortCodes = new ArrayList<>();
+        for (String shortCode; (shortCode = taken.poll()) != null; ) {
+            shortCodes.add(shortCode);
+        }
+        for (int from = 0; from < shortCodes.size(); from += batchSize) {
+            try {
+                releaseBatch(shortCodes.subList(from, Math.min(from + batchSize, shortCodes.size())));
+            } catch (RuntimeException e) {
+                // Keep the codes not released yet for the next refill to release
+                taken.addAll(shortCodes.subList(from, shortCodes.size()));
+                throw e;
+            }
+        }
+    }
+
+    private void release(List<String> shortCodes) {
+        for (int from = 0; from < shortCodes.size(); from += batchSize) {
+            releaseBatch(shortCodes.subList(from, Math.min(from + batchSize, shortCodes.size())));
+        }
+    }
+
+    private void releaseBatch(List<String> shortCodes) {
+        reservations.release(shortCodes.stream().map(ShortCodeCodec::encode).toList());
+    }
+}
@@ -0,0 +1,83 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.infrastructure.adapters.output.ConsistentHashRing.IdRange;
+import com.velasconino.infrastructure.adapters.output.ConsistentHashRing.Move;
+import com.velasconino.infrastructure.adapters.output.persistence.JdbcUrlMappingRepository;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingEntity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves URL mappings between shards after the ring assigning short codes to them has changed.
+ * Only the ranges of the ring whose owner changed are visited, each as a handful of range scans
+ * of the source shard's primary key. Mappings are copied to their new shard in keyset-paginated
+ * batches and deleted from the old one once the copy has committed, so a rebalance that is
+ * interrupted can simply be run again.
+ */
+public class ShardRebalancer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private final ConsistentHashRing from;
+    private final ConsistentHashRing to;
+    private final Map<String, JdbcUrlMappingRepository> shards;
+    private final int batchSize;
+
+    /**
+     * @param from The ring the mappings were placed with
+     * @param to The ring to place them with
+     * @param shards The repository of every shard on either ring, keyed by name
+     * @param batchSize The maximum number of mappings copied in one transaction
+     */
+    public ShardRebalancer(ConsistentHashRing from,
+                           ConsistentHashRing to,
+                           Map<String, JdbcUrlMappingRepository> shards,
+                           int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.from = from;
+        this.to = to;
+        this.shards = Map.copyOf(shards);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Moves every mapping whose shard differs between the two rings.
+     *
+     * @return The number of mappings moved
+     */
+    public long rebalance() {
+        List<Move> moves = from.movesTo(to);
+        long moved = 0;
+        for (Move move : moves) {
+            JdbcUrlMappingRepository source = shards.get(move.source());
+            JdbcUrlMappingRepository target = shards.get(move.target());
+            for (IdRange range : move.idRanges()) {
+                moved += move(source, target, range);
+            }
+        }
+        LOG.info("Moved {} URL mappings over {} ranges of the shard ring", moved, moves.size());
+        return moved;
+    }
+
+    private long move(JdbcUrlMappingRepository source, JdbcUrlMappingRepository target, IdRange range) {
+        long moved = 0;
+        long fromId = range.fromId();
+        while (true) {
+            List<UrlMappingEntity> batch = source.findInRange(fromId, range.toId(), batchSize);
+            if (batch.isEmpty()) {
+                return moved;
+            }
+            target.copyAllIfAbsent(batch);
+            List<Long> ids = batch.stream().map(UrlMappingEntity::getId).toList();
+            source.deleteByIds(ids);
+            moved += batch.size();
+            fromId = ids.getLast() + 1;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.UrlMapping;
+
+import io.micronaut.core.annotation.Nullable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * UrlRepository that spreads mappings over several databases, each holding the short codes
+ * a {@link ConsistentHashRing} assigns to it. Single-code calls go to the owning shard;
+ * batch calls are split by shard and sent to all of them in parallel on virtual threads.
+ * <p>
+ * While mappings are being moved to a new ring, the ring they are moving from can be given too:
+ * a short code its new shard does not have is then looked up on its previous one, and is only
+ * inserted on the new shard if the previous one does not hold it already.
+ */
+public class ShardedUrlRepository implements UrlRepository, AutoCloseable {
+
+    private final ConsistentHashRing ring;
+    private final Map<String, UrlRepository> shards;
+    @Nullable
+    private final ConsistentHashRing previousRing;
+    private final ExecutorService executor;
+
+    /**
+     * @param ring The ring assigning short codes to shards
+     * @param shards The repository of every shard on either ring, keyed by name
+     * @param previousRing The ring mappings are being moved from, or null if none are
+     */
+    public ShardedUrlRepository(ConsistentHashRing ring,
+                                Map<String, UrlRepository> shards,
+                                @Nullable ConsistentHashRing previousRing) {
+        List<String> names = new ArrayList<>(ring.nodes());
+        if (previousRing != null) {
+            names.addAll(previousRing.nodes());
+        }
+        for (String name : names) {
+            if (!shards.containsKey(name)) {
+                throw new IllegalArgumentException("No repository for shard " + name);
+            }
+        }
+        this.ring = ring;
+        this.shards = Map.copyOf(shards);
+        this.previousRing = previousRing;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("url-shard-", 0).factory());
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        shards.get(ring.nodeFor(ShortCodeCodec.encode(shortCode))).save(shortCode, originalUrl);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        long id = ShortCodeCodec.encode(shortCode);
+        String previousShard = previousShard(id);
+        if (previousShard != null) {
+            Optional<String> moving = shards.get(previousShard).findOriginalUrlByShortCode(shortCode);
+            if (moving.isPresent()) {
+                return moving.get();
+            }
+        }
+        return shards.get(ring.nodeFor(id)).insertIfAbsent(shortCode, originalUrl);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        long id = ShortCodeCodec.encode(shortCode);
+        String previousShard = previousShard(id);
+        if (previousShard != null) {
+            Optional<String> moving = shards.get(previousShard).findOriginalUrlByShortCode(shortCode);
+            if (moving.isPresent()) {
+                return moving.get();
+            }
+        }
+        return shards.get(ring.nodeFor(id)).insertIfAbsent(shortCode, originalUrl, expiresAt);
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        if (mappings.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> winningUrls = new HashMap<>();
+        Map<String, String> remaining = mappings;
+        if (previousRing != null) {
+            winningUrls.putAll(findOnPreviousShards(mappings.keySet()));
+            remaining = new LinkedHashMap<>(mappings);
+            remaining.keySet().removeAll(winningUrls.keySet());
+        }
+
+        Map<String, Map<String, String>> byShard = new HashMap<>();
+        for (Map.Entry<String, String> mapping : remaining.entrySet()) {
+            byShard.computeIfAbsent(ring.nodeFor(ShortCodeCodec.encode(mapping.getKey())), shard -> new LinkedHashMap<>())
+                    .put(mapping.getKey(), mapping.getValue());
+        }
+        winningUrls.putAll(fanOut(byShard, UrlRepository::insertAllIfAbsent));
+        return winningUrls;
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        long id = ShortCodeCodec.encodeOrZero(shortCode);
+        if (id == 0) {
+            return Optional.empty();
+        }
+        Optional<String> originalUrl = shards.get(ring.nodeFor(id)).findOriginalUrlByShortCode(shortCode);
+        String previousShard = previousShard(id);
+        if (originalUrl.isEmpty() && previousShard != null) {
+            return shards.get(previousShard).findOriginalUrlByShortCode(shortCode);
+        }
+        return originalUrl;
+    }
+
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        long id = ShortCodeCodec.encodeOrZero(shortCode);
+        if (id == 0) {
+            return Optional.empty();
+        }
+        Optional<UrlMapping> mapping = shards.get(ring.nodeFor(id)).findMappingByShortCode(shortCode);
+        String previousShard = previousShard(id);
+        if (mapping.isEmpty() && previousShard != null) {
+            return shards.get(previousShard).findMappingByShortCode(shortCode);
+        }
+        return mapping;
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        Map<String, List<String>> byShard = new HashMap<>();
+        for (String shortCode : shortCodes) {
+            long id = ShortCodeCodec.encodeOrZero(shortCode);
+            if (id != 0) {
+                byShard.computeIfAbsent(ring.nodeFor(id), shard -> new ArrayList<>()).add(shortCode);
+            }
+        }
+        Map<String, String> originalUrls = fanOut(byShard, UrlRepository::findOriginalUrlsByShortCodes);
+        if (previousRing == null) {
+            return originalUrls;
+        }
+
+        List<String> misses = new ArrayList<>();
+        for (List<String> shardCodes : byShard.values()) {
+            for (String shortCode : shardCodes) {
+                if (!originalUrls.containsKey(shortCode)) {
+                    misses.add(shortCode);
+                }
+            }
+        }
+        if (misses.isEmpty()) {
+            return originalUrls;
+        }
+        Map<String, String> merged = new HashMap<>(originalUrls);
+        merged.putAll(findOnPreviousShards(misses));
+        return merged;
+    }
+
+    /**
+     * Stops the virtual threads of calls still fanned out to the shards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private Map<String, String> findOnPreviousShards(Collection<String> shortCodes) {
+        Map<String, List<String>> byPreviousShard = new HashMap<>();
+        for (String shortCode : shortCodes) {
+            String previousShard = previousShard(ShortCodeCodec.encode(shortCode));
+            if (previousShard != null) {
+                byPreviousShard.computeIfAbsent(previousShard, shard -> new ArrayList<>()).add(shortCode);
+            }
+        }
+        return fanOut(byPreviousShard, UrlRepository::findOriginalUrlsByShortCodes);
+    }
+
+    /**
+     * @return The shard a short code is moving from, or null if it is not moving
+     */
+    @Nullable
+    private String previousShard(long id) {
+        if (previousRing == null) {
+            return null;
+        }
+        String previousShard = previousRing.nodeFor(id);
+        return previousShard.equals(ring.nodeFor(id)) ? null : previousShard;
+    }
+
+    private <T> Map<String, String> fanOut(Map<String, T> byShard,
+                                           BiFunction<UrlRepository, T, Map<String, String>> call) {
+        if (byShard.isEmpty()) {
+            return Map.of();
+        }
+        if (byShard.size() == 1) {
+            Map.Entry<String, T> only = byShard.entrySet().iterator().next();
+            return call.apply(shards.get(only.getKey()), only.getValue());
+        }
+
+        List<Future<Map<String, String>>> calls = new ArrayList<>(byShard.size());
+        for (Map.Entry<String, T> shard : byShard.entrySet()) {
+            calls.add(executor.submit(() -> call.apply(shards.get(shard.getKey()), shard.getValue())));
+        }
+        Map<String, String> results = new HashMap<>();
+        try {
+            for (Future<Map<String, String>> shardCall : calls) {
+                results.putAll(shardCall.get());
+            }
+        } catch (InterruptedException e) {
+            calls.forEach(shardCall -> shardCall.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", e);
+        } catch (ExecutionException e) {
+            calls.forEach(shardCall -> shardCall.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,125 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over stored short codes.
+ * Answers "definitely absent" or "possibly present" for a short code, never producing
+ * false negatives for codes that have been added. The filter only becomes authoritative
+ * once it has been populated with every stored short code, see {@link #markPopulated()}.
+ */
+public class ShortCodeBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final AtomicLong bitsSet = new AtomicLong();
+    private volatile boolean populated;
+
+    /**
+     * Creates a filter sized for the expected number of short codes.
+     *
+     * @param expectedEntries The number of short codes the filter is expected to hold
+     * @param falsePositiveProbability The target false-positive probability at the expected size
+     */
+    public ShortCodeBloomFilter(long expectedEntries, double falsePositiveProbability) {
+        if (expectedEntries <= 0) {
+            throw new IllegalArgumentException("Expected entries must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+
+        long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveProbability) / (LN2 * LN2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedEntries * LN2));
+    }
+
+    /**
+     * Records a short code as present.
+     *
+     * @param shortCode The short code to add
+     */
+    public void add(String shortCode) {
+        long hash1 = Hashing.hash(shortCode);
+        long hash2 = Hashing.mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bitIndex = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+            int wordIndex = (int) (bitIndex >>> 6);
+            long mask = 1L << bitIndex;
+
+            long word = words.get(wordIndex);
+            while ((word & mask) == 0) {
+                long witness = words.compareAndExchange(wordIndex, word, word | mask);
+                if (witness == word) {
+                    bitsSet.incrementAndGet();
+                    break;
+                }
+                word = witness;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a short code may have been added.
+     *
+     * @param shortCode The short code to check
+     * @return false if the short code was definitely never added, true otherwise
+     */
+    public boolean mightContain(String shortCode) {
+        long hash1 = Hashing.hash(shortCode);
+        long hash2 = Hashing.mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bitIndex = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks the filter as holding every stored short code.
+     * Until then, negative answers must not be trusted.
+     */
+    public void markPopulated() {
+        populated = true;
+    }
+
+    public boolean isPopulated() {
+        return populated;
+    }
+
+    /**
+     * Estimates the current false-positive probability from the fraction of bits set.
+     *
+     * @return The probability that an absent short code is reported as possibly present
+     */
+    public double expectedFalsePositiveProbability() {
+        return Math.pow((double) bitsSet.get() / bitSize, hashFunctions);
+    }
+
+    /**
+     * Returns the memory held by the bit array.
+     *
+     * @return The size of the bit array in bytes
+     */
+    public long memoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+}
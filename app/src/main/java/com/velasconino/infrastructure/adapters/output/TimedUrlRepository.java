@@ -0,0 +1,107 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Decorator for a UrlRepository that times every call to the delegate.
+ * Calls are recorded in the url.shortener.repository timer, tagged with the method and with the
+ * stage the decorator sits in front of, so stacking it at several points of the decorator chain
+ * shows how much time each stage adds. Timers are registered up front, so recording a call costs
+ * two clock reads and no registry lookup.
+ */
+public class TimedUrlRepository implements UrlRepository {
+
+    // Cache hits all land in the lowest bucket, which keeps the number of series down
+    private static final Duration MINIMUM_EXPECTED_DURATION = Duration.of(10, ChronoUnit.MICROS);
+    private static final Duration MAXIMUM_EXPECTED_DURATION = Duration.ofSeconds(10);
+
+    private final UrlRepository delegate;
+    private final Timer saveTimer;
+    private final Timer insertIfAbsentTimer;
+    private final Timer insertAllIfAbsentTimer;
+    private final Timer findOriginalUrlByShortCodeTimer;
+    private final Timer findOriginalUrlsByShortCodesTimer;
+
+    public TimedUrlRepository(UrlRepository delegate, String stage, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.saveTimer = timer("save", stage, meterRegistry);
+        this.insertIfAbsentTimer = timer("insertIfAbsent", stage, meterRegistry);
+        this.insertAllIfAbsentTimer = timer("insertAllIfAbsent", stage, meterRegistry);
+        this.findOriginalUrlByShortCodeTimer = timer("findOriginalUrlByShortCode", stage, meterRegistry);
+        this.findOriginalUrlsByShortCodesTimer = timer("findOriginalUrlsByShortCodes", stage, meterRegistry);
+    }
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        long start = System.nanoTime();
+        try {
+            delegate.save(shortCode, originalUrl);
+        } finally {
+            saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        return time(insertIfAbsentTimer, () -> delegate.insertIfAbsent(shortCode, originalUrl));
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        return time(insertIfAbsentTimer, () -> delegate.insertIfAbsent(shortCode, originalUrl, expiresAt));
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        return time(insertAllIfAbsentTimer, () -> delegate.insertAllIfAbsent(mappings));
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        return time(findOriginalUrlByShortCodeTimer, () -> delegate.findOriginalUrlByShortCode(shortCode));
+    }
+
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        // Resolving a short code now reads its expiry too; it is timed as the same lookup
+        return time(findOriginalUrlByShortCodeTimer, () -> delegate.findMappingByShortCode(shortCode));
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        return time(findOriginalUrlsByShortCodesTimer, () -> delegate.findOriginalUrlsByShortCodes(shortCodes));
+    }
+
+    private static <T> T time(Timer timer, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer timer(String method, String stage, MeterRegistry meterRegistry) {
+        return Timer.builder("url.shortener.repository")
+                .description("Time spent in UrlRepository calls")
+                .tag("method", method)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MINIMUM_EXPECTED_DURATION)
+                .maximumExpectedValue(MAXIMUM_EXPECTED_DURATION)
+                .register(meterRegistry);
+    }
+}
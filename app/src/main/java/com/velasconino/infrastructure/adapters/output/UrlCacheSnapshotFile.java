@@ -0,0 +1,115 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local snapshot file of cached URL mappings, used to warm the cache after a restart.
+ * Mappings are written as length-prefixed UTF-8 strings behind a magic number and version,
+ * gzip-compressed. The file is replaced atomically, so a crash while writing leaves the previous
+ * snapshot in place, and a file that is truncated or not a snapshot is rejected as a whole.
+ */
+public class UrlCacheSnapshotFile {
+
+    private static final int MAGIC = 0x55524C43;
+    private static final int VERSION = 1;
+
+    private final Path path;
+
+    public UrlCacheSnapshotFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Replaces the snapshot with the given mappings.
+     *
+     * @param mappings The original URLs keyed by short code, in the order they should be reloaded
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(Map<String, String> mappings) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temporary);
+                 DataOutputStream output = new DataOutputStream(
+                         new BufferedOutputStream(new GZIPOutputStream(file)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(mappings.size());
+                for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+                    writeString(output, mapping.getKey());
+                    writeString(output, mapping.getValue());
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads the snapshot.
+     *
+     * @return The mappings in the order they were written, or empty if there is no snapshot
+     * @throws IOException if the snapshot exists but cannot be read or is not a valid snapshot
+     */
+    public Optional<Map<String, String>> read() throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a URL cache snapshot: " + path);
+            }
+            int size = input.readInt();
+            if (size < 0) {
+                throw new IOException("Corrupt URL cache snapshot: " + path);
+            }
+            Map<String, String> mappings = LinkedHashMap.newLinkedHashMap(size);
+            for (int i = 0; i < size; i++) {
+                mappings.put(readString(input), readString(input));
+            }
+            return Optional.of(mappings);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt URL cache snapshot");
+        }
+        byte[] bytes = input.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Truncated URL cache snapshot");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.velasconino.infrastructure.adapters.output.persistence;
+
+import io.micronaut.data.exceptions.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A PostgreSQL session-level advisory lock, over plain JDBC, so a task shared by every node is run
+ * by one of them at a time. The lock is held on a connection of its own for as long as the task
+ * runs; should the node die, PostgreSQL releases it with the session.
+ */
+public class AdvisoryLock {
+
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_lock(?)";
+    private static final String UNLOCK = "SELECT pg_advisory_unlock(?)";
+
+    private final DataSource dataSource;
+    private final long key;
+
+    /**
+     * @param dataSource The connection pool of the database holding the lock, not bound to Micronaut transactions
+     * @param key The key of the lock, the same on every node
+     */
+    public AdvisoryLock(DataSource dataSource, long key) {
+        this.dataSource = dataSource;
+        this.key = key;
+    }
+
+    /**
+     * Runs a task unless another session holds the lock, without waiting for it.
+     *
+     * @param task The task to run while holding the lock
+     * @return Whether the lock was free and the task was run
+     */
+    public boolean runIfFree(Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!call(connection, TRY_LOCK)) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                // The connection goes back to the pool with its session, so the lock must be released
+                call(connection, UNLOCK);
+            }
+            return true;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to take advisory lock " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    private boolean call(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.velasconino.infrastructure.adapters.output.persistence;
+
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.UrlMapping;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.exceptions.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Access to the URL mappings of a database other than the default one, such as a read replica or a shard.
+ * Micronaut Data repositories are bound to a datasource when they are compiled, so databases
+ * whose number is only known from the configuration are queried over plain JDBC instead.
+ * Each call runs on its own connection from the database's pool; batches are committed as one transaction.
+ */
+public class JdbcUrlMappingRepository {
+
+    private static final String FIND_BY_ID = "SELECT original_url, expires_at FROM url_mapping WHERE id = ?";
+    private static final String FIND_BY_IDS = "SELECT id, original_url FROM url_mapping WHERE id IN (";
+    private static final String FIND_IN_RANGE = "SELECT id, original_url, created_at, expires_at FROM url_mapping "
+            + "WHERE id >= ? AND id < ? ORDER BY id LIMIT ?";
+    private static final String FIND_FIRST_EXPIRED = "SELECT expires_at, id FROM url_mapping "
+            + "WHERE expires_at <= ? ORDER BY expires_at, id LIMIT ?";
+    private static final String FIND_EXPIRED_AFTER = "SELECT expires_at, id FROM url_mapping "
+            + "WHERE expires_at <= ? AND (expires_at, id) > (?, ?) ORDER BY expires_at, id LIMIT ?";
+    private static final String INSERT = "INSERT INTO url_mapping (id, original_url, created_at) "
+            + "VALUES (?, ?, CURRENT_TIMESTAMP)";
+    private static final String INSERT_IF_ABSENT = INSERT + " ON CONFLICT DO NOTHING";
+    private static final String INSERT_EXPIRING_IF_ABSENT = "INSERT INTO url_mapping (id, original_url, created_at, expires_at) "
+            + "VALUES (?, ?, CURRENT_TIMESTAMP, ?) ON CONFLICT DO NOTHING";
+    private static final String COPY_IF_ABSENT = "INSERT INTO url_mapping (id, original_url, created_at, expires_at) "
+            + "VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String DELETE_BY_IDS = "DELETE FROM url_mapping WHERE id IN (";
+    private static final String INSERT_ROWS = "INSERT INTO url_mapping (id, original_url, created_at) VALUES ";
+    // PostgreSQL binds at most 65535 parameters per statement, two per row here
+    private static final int MAX_ROWS_PER_INSERT = 10_000;
+
+    /**
+     * The position of an expired mapping in the expiry index, which keyset pagination resumes after.
+     *
+     * @param expiresAt When the mapping expired
+     * @param id The encoded short code
+     */
+    public record ExpiryKey(Instant expiresAt, long id) {
+    }
+
+    private final DataSource dataSource;
+
+    /**
+     * @param dataSource The connection pool of the database, not bound to Micronaut transactions
+     */
+    public JdbcUrlMappingRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Find the original URL of an encoded short code.
+     *
+     * @param id The encoded short code
+     * @return The original URL, or empty if the database does not have it
+     */
+    public Optional<String> findOriginalUrlById(long id) {
+        return findMappingById(id).map(UrlMapping::originalUrl);
+    }
+
+    /**
+     * Find the mapping of an encoded short code, with its expiry.
+     *
+     * @param id The encoded short code
+     * @return The mapping, or empty if the database does not have it
+     */
+    public Optional<UrlMapping> findMappingById(long id) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_ID)) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next()
+                        ? Optional.of(new UrlMapping(resultSet.getString(1), toInstant(resultSet.getTimestamp(2))))
+                        : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to find URL mapping: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Find the original URLs of several encoded short codes with a single IN query.
+     *
+     * @param ids The encoded short codes
+     * @return The original URLs keyed by encoded short code; those the database does not have are skipped
+     */
+    public Map<Long, String> findOriginalUrlsByIds(Collection<Long> ids) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(inList(FIND_BY_IDS, ids.size()))) {
+            int index = 1;
+            for (long id : ids) {
+                statement.setLong(index++, id);
+            }
+            Map<Long, String> originalUrls = HashMap.newHashMap(ids.size());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    originalUrls.put(resultSet.getLong(1), resultSet.getString(2));
+                }
+            }
+            return originalUrls;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to find URL mappings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lists the URL mappings within a range of encoded short codes in ascending order.
+     * Used to walk a range in keyset-paginated batches.
+     *
+     * @param fromId The lowest encoded short code to return
+     * @param toId The encoded short code the range ends before
+     * @param limit The maximum number of mappings to return
+     * @return The next batch of mappings in the range
+     */
+    public List<UrlMappingEntity> findInRange(long fromId, long toId, int limit) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_IN_RANGE)) {
+            statement.setLong(1, fromId);
+            statement.setLong(2, toId);
+            statement.setInt(3, limit);
+            List<UrlMappingEntity> mappings = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    mappings.add(new UrlMappingEntity(resultSet.getLong(1), resultSet.getString(2),
+                            toInstant(resultSet.getTimestamp(3)), toInstant(resultSet.getTimestamp(4))));
+                }
+            }
+            return mappings;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to list URL mappings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Insert a URL mapping.
+     *
+     * @param id The encoded short code
+     * @param originalUrl The original URL
+     */
+    public void insert(long id, String originalUrl) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            statement.setLong(1, id);
+            statement.setString(2, originalUrl);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to insert URL mapping: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Insert a URL mapping unless the short code already exists, in a single statement.
+     *
+     * @param id The encoded short code
+     * @param originalUrl The original URL
+     * @return 1 if the mapping was inserted, 0 if the short code was already taken
+     */
+    public int insertIfAbsent(long id, String originalUrl) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_IF_ABSENT)) {
+            statement.setLong(1, id);
+            statement.setString(2, originalUrl);
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to insert URL mapping: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Insert a URL mapping that expires unless the short code already exists, in a single statement.
+     *
+     * @param id The encoded short code
+     * @param originalUrl The original URL
+     * @param expiresAt When the mapping expires
+     * @return 1 if the mapping was inserted, 0 if the short code was already taken
+     */
+    public int insertIfAbsent(long id, String originalUrl, Instant expiresAt) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_EXPIRING_IF_ABSENT)) {
+            statement.setLong(1, id);
+            statement.setString(2, originalUrl);
+            statement.setTimestamp(3, Timestamp.from(expiresAt));
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to insert URL mapping: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Insert several URL mappings with a single multi-row insert, skipping short codes that
+     * already exist. Larger batches than one statement can bind are split and committed as one
+     * transaction.
+     *
+     * @param mappings The original URLs keyed by encodable short code
+     * @return The number of mappings inserted; fewer than given if some short codes were taken
+     */
+    public int insertAllIfAbsent(Map<String, String> mappings) {
+        try (Connection connection = dataSource.getConnection()) {
+            return inTransaction(connection, () -> {
+                int inserted = 0;
+                for (List<Map.Entry<String, String>> rows : insertRows(mappings)) {
+                    try (PreparedStatement statement = connection.prepareStatement(insertIfAbsent(rows.size()))) {
+                        bind(statement, rows);
+                        inserted += statement.executeUpdate();
+                    }
+                }
+                return new int[] {inserted};
+            })[0];
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to insert URL mappings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copy URL mappings from another database as one JDBC batch in a single transaction,
+     * keeping their creation and expiry times and skipping short codes that already exist.
+     *
+     * @param mappings The mappings to copy
+     */
+    public void copyAllIfAbsent(List<UrlMappingEntity> mappings) {
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                try (PreparedStatement statement = connection.prepareStatement(COPY_IF_ABSENT)) {
+                    for (UrlMappingEntity mapping : mappings) {
+                        statement.setLong(1, mapping.getId());
+                        statement.setString(2, mapping.getOriginalUrl());
+                        statement.setTimestamp(3, mapping.getCreatedAt() != null
+                                ? Timestamp.from(mapping.getCreatedAt())
+                                : new Timestamp(System.currentTimeMillis()));
+                        statement.setTimestamp(4, mapping.getExpiresAt() != null
+                                ? Timestamp.from(mapping.getExpiresAt())
+                                : null);
+                        statement.addBatch();
+                    }
+                    return statement.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to copy URL mappings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lists mappings that have expired in ascending order of expiry, starting after the given one.
+     * Used to purge them in keyset-paginated batches, each a range scan of the expiry index that
+     * resumes past the rows the previous batches deleted instead of skipping them again.
+     *
+     * @param now The time mappings expiring up to are listed
+     * @param after The last mapping of the previous batch, or null to start
+     * @param limit The maximum number of mappings to return
+     * @return The next batch of expired mappings
+     */
+    public List<ExpiryKey> findExpired(Instant now, @Nullable ExpiryKey after, int limit) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     after == null ? FIND_FIRST_EXPIRED : FIND_EXPIRED_AFTER)) {
+            int index = 1;
+            statement.setTimestamp(index++, Timestamp.from(now));
+            if (after != null) {
+                statement.setTimestamp(index++, Timestamp.from(after.expiresAt()));
+                statement.setLong(index++, after.id());
+            }
+            statement.setInt(index, limit);
+            List<ExpiryKey> expired = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    expired.add(new ExpiryKey(resultSet.getTimestamp(1).toInstant(), resultSet.getLong(2)));
+                }
+            }
+            return expired;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to list expired URL mappings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Delete several URL mappings with a single IN statement.
+     *
+     * @param ids The encoded short codes
+     * @return The number of mappings deleted
+     */
+    public int deleteByIds(Collection<Long> ids) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(inList(DELETE_BY_IDS, ids.size()))) {
+            int index = 1;
+            for (long id : ids) {
+                statement.setLong(index++, id);
+            }
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to delete URL mappings: " + e.getMessage(), e);
+        }
+    }
+
+    @Nullable
+    private static Instant toInstant(@Nullable Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    /**
+     * @return The mappings split into groups small enough for one multi-row insert each
+     */
+    static List<List<Map.Entry<String, String>>> insertRows(Map<String, String> mappings) {
+        List<Map.Entry<String, String>> entries = List.copyOf(mappings.entrySet());
+        List<List<Map.Entry<String, String>>> groups = new ArrayList<>();
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_INSERT) {
+            groups.add(entries.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, entries.size())));
+        }
+        return groups;
+    }
+
+    /**
+     * @return A multi-row insert of URL mappings that skips short codes already taken
+     */
+    static String insertIfAbsent(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_ROWS.length() + rows * 29 + 24).append(INSERT_ROWS);
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, CURRENT_TIMESTAMP)" : ", (?, ?, CURRENT_TIMESTAMP)");
+        }
+        return sql.append(" ON CONFLICT DO NOTHING").toString();
+    }
+
+    static void bind(PreparedStatement statement, List<Map.Entry<String, String>> rows) throws SQLException {
+        int index = 1;
+        for (Map.Entry<String, String> row : rows) {
+            statement.setLong(index++, ShortCodeCodec.encode(row.getKey()));
+            statement.setString(index++, row.getValue());
+        }
+    }
+
+    static String inList(String prefix, int size) {
+        StringBuilder sql = new StringBuilder(prefix.length() + size * 3).append(prefix);
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static int[] inTransaction(Connection connection, SqlWork work) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            int[] result = work.run();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        int[] run() throws SQLException;
+    }
+}
@@ -0,0 +1,125 @@
+package com.velasconino.infrastructure.adapters.output.persistence;
+
+import io.micronaut.data.exceptions.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Access to the short codes reserved by code pools, over plain JDBC.
+ * Every pool holds its codes under an ID of its own and renews them while it runs, so the codes of
+ * a pool that stopped without releasing them can be told apart by their age and purged.
+ */
+public class ShortCodeReservationRepository {
+
+    private static final String RESERVE = "INSERT INTO short_code_reservation (id, pool_id, reserved_at) VALUES ";
+    private static final String[] RESERVED_COLUMNS = {"id"};
+    private static final String DELETE_BY_IDS = "DELETE FROM short_code_reservation WHERE id IN (";
+    private static final String RENEW = "UPDATE short_code_reservation SET reserved_at = CURRENT_TIMESTAMP WHERE pool_id = ?";
+    private static final String PURGE_RESERVED_BEFORE = "DELETE FROM short_code_reservation WHERE reserved_at < ?";
+
+    private final DataSource dataSource;
+
+    /**
+     * @param dataSource The connection pool of the database holding the reservations, not bound to Micronaut transactions
+     */
+    public ShortCodeReservationRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Reserves encoded short codes for a pool with a single multi-row insert, skipping those
+     * already reserved by any pool. The reserved codes are read back as the keys the insert
+     * generated, which PostgreSQL's driver fetches with {@code RETURNING id} in the same statement.
+     *
+     * @param poolId The ID of the pool
+     * @param ids The encoded short codes to reserve
+     * @return The encoded short codes the pool now holds
+     */
+    public List<Long> reserve(String poolId, Collection<Long> ids) {
+        StringBuilder sql = new StringBuilder(RESERVE.length() + ids.size() * 28).append(RESERVE);
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, CURRENT_TIMESTAMP)" : ", (?, ?, CURRENT_TIMESTAMP)");
+        }
+        sql.append(" ON CONFLICT DO NOTHING");
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString(), RESERVED_COLUMNS)) {
+            int index = 1;
+            for (long id : ids) {
+                statement.setLong(index++, id);
+                statement.setString(index++, poolId);
+            }
+            statement.executeUpdate();
+            List<Long> reserved = new ArrayList<>(ids.size());
+            try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                while (resultSet.next()) {
+                    reserved.add(resultSet.getLong(1));
+                }
+            }
+            return reserved;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to reserve short codes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Marks every short code a pool holds as reserved now, so they are not purged as stale.
+     *
+     * @param poolId The ID of the pool
+     * @return The number of reservations renewed
+     */
+    public int renew(String poolId) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(RENEW)) {
+            statement.setString(1, poolId);
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to renew reserved short codes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Releases the short codes of any pool last reserved or renewed before a given instant.
+     *
+     * @param before The instant reservations older than are deleted
+     * @return The number of reservations deleted
+     */
+    public int purgeReservedBefore(Instant before) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PURGE_RESERVED_BEFORE)) {
+            statement.setTimestamp(1, Timestamp.from(before));
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to purge stale short code reservations: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Releases reserved short codes with a single IN statement.
+     *
+     * @param ids The encoded short codes
+     * @return The number of reservations deleted
+     */
+    public int release(Collection<Long> ids) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     JdbcUrlMappingRepository.inList(DELETE_BY_IDS, ids.size()))) {
+            int index = 1;
+            for (long id : ids) {
+                statement.setLong(index++, id);
+            }
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to release short codes: " + e.getMessage(), e);
+        }
+    }
+}
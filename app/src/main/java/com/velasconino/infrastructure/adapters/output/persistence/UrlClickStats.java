@@ -0,0 +1,14 @@
+package com.velasconino.infrastructure.adapters.output.persistence;
+
+import java.time.Instant;
+
+/**
+ * Number of clicks on a short code within one minute, for one class of client.
+ *
+ * @param shortCode The short code that was clicked
+ * @param bucketStart The start of the minute the clicks happened in
+ * @param userAgentClass The class of client that clicked
+ * @param clicks The number of clicks
+ */
+public record UrlClickStats(String shortCode, Instant bucketStart, String userAgentClass, long clicks) {
+}
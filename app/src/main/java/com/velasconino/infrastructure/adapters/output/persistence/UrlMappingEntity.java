@@ -1,17 +1,24 @@
 package com.velasconino.infrastructure.adapters.output.persistence;
 
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.data.annotation.DateCreated;
 import io.micronaut.data.annotation.Id;
 import io.micronaut.data.annotation.MappedEntity;
 import io.micronaut.data.annotation.MappedProperty;
+import io.micronaut.data.annotation.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.UrlMapping;
+
 import java.time.Instant;
 
 /**
  * Entity representing a URL mapping in the database.
+ * The short code is stored as its {@link ShortCodeCodec} value in a BIGINT key,
+ * which takes a fixed eight bytes in the primary key index.
  */
 @Data
 @NoArgsConstructor
@@ -20,8 +27,8 @@ import java.time.Instant;
 public class UrlMappingEntity {
     
     @Id
-    @MappedProperty("short_code")
-    private String shortCode;
+    @MappedProperty("id")
+    private Long id;
     
     @MappedProperty("original_url")
     private String originalUrl;
@@ -30,8 +37,31 @@ public class UrlMappingEntity {
     @MappedProperty("created_at")
     private Instant createdAt;
     
-    public UrlMappingEntity(String shortCode, String originalUrl) {
-        this.shortCode = shortCode;
-        this.originalUrl = originalUrl;
+    @Nullable
+    @MappedProperty("expires_at")
+    private Instant expiresAt;
+    
+    /**
+     * @param shortCode A short code that {@link ShortCodeCodec} can encode
+     * @param originalUrl The original URL
+     * @return A new mapping that never expires, timestamped when saved
+     */
+    public static UrlMappingEntity of(String shortCode, String originalUrl) {
+        UrlMappingEntity entity = new UrlMappingEntity();
+        entity.setId(ShortCodeCodec.encode(shortCode));
+        entity.setOriginalUrl(originalUrl);
+        return entity;
+    }
+    
+    /**
+     * @return The mapping as the application sees it
+     */
+    public UrlMapping toUrlMapping() {
+        return new UrlMapping(originalUrl, expiresAt);
+    }
+
+    @Transient
+    public String getShortCode() {
+        return ShortCodeCodec.decode(id);
     }
 } 
\ No newline at end of file
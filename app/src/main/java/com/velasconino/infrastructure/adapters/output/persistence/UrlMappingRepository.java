@@ -1,22 +1,123 @@
 package com.velasconino.infrastructure.adapters.output.persistence;
 
+import com.velasconino.domain.ShortCodeCodec;
+
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.exceptions.DataAccessException;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
+import io.micronaut.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
- * Repository interface for CRUD operations on URL mappings.
+ * Repository for CRUD operations on URL mappings, keyed by the {@link ShortCodeCodec} value of their short codes.
  */
 @JdbcRepository(dialect = Dialect.POSTGRES)
-public interface UrlMappingRepository extends CrudRepository<UrlMappingEntity, String> {
-    
+public abstract class UrlMappingRepository implements CrudRepository<UrlMappingEntity, Long> {
+
+    private static final String INSERT_IF_ABSENT = "INSERT INTO url_mapping (id, original_url, created_at) "
+            + "VALUES (:id, :originalUrl, CURRENT_TIMESTAMP) ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_EXPIRING_IF_ABSENT = "INSERT INTO url_mapping (id, original_url, created_at, expires_at) "
+            + "VALUES (:id, :originalUrl, CURRENT_TIMESTAMP, :expiresAt) ON CONFLICT DO NOTHING";
+
+    private final JdbcOperations jdbcOperations;
+
+    protected UrlMappingRepository(JdbcOperations jdbcOperations) {
+        this.jdbcOperations = jdbcOperations;
+    }
+
     /**
      * Find the original URL by short code.
-     * 
+     *
      * @param shortCode The short code to look up
-     * @return An Optional containing the entity if found, or empty if not found
+     * @return An Optional containing the entity if found, or empty if not found or not encodable
+     */
+    public Optional<UrlMappingEntity> findByShortCode(String shortCode) {
+        long id = ShortCodeCodec.encodeOrZero(shortCode);
+        return id == 0 ? Optional.empty() : findById(id);
+    }
+
+    /**
+     * Find the URL mappings for several encoded short codes with a single IN query.
+     *
+     * @param ids The encoded short codes to look up
+     * @return The entities found; short codes that do not exist are skipped
+     */
+    public abstract List<UrlMappingEntity> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Insert a URL mapping unless the short code already exists, in a single statement.
+     *
+     * @param id The encoded short code
+     * @param originalUrl The original URL
+     * @return 1 if the mapping was inserted, 0 if the short code was already taken
+     */
+    @Query(INSERT_IF_ABSENT)
+    public abstract int insertIfAbsent(long id, String originalUrl);
+
+    /**
+     * Insert a URL mapping that expires unless the short code already exists, in a single statement.
+     *
+     * @param id The encoded short code
+     * @param originalUrl The original URL
+     * @param expiresAt When the mapping expires
+     * @return 1 if the mapping was inserted, 0 if the short code was already taken
+     */
+    @Query(INSERT_EXPIRING_IF_ABSENT)
+    public abstract int insertIfAbsent(long id, String originalUrl, Instant expiresAt);
+
+    /**
+     * Insert several URL mappings with a single multi-row insert, skipping short codes that
+     * already exist. Larger batches than one statement can bind are split and committed as one
+     * transaction.
+     *
+     * @param mappings The original URLs keyed by encodable short code
+     * @return The number of mappings inserted; fewer than given if some short codes were taken
+     */
+    @Transactional
+    public int insertAllIfAbsent(Map<String, String> mappings) {
+        int inserted = 0;
+        for (List<Map.Entry<String, String>> rows : JdbcUrlMappingRepository.insertRows(mappings)) {
+            inserted += jdbcOperations.prepareStatement(JdbcUrlMappingRepository.insertIfAbsent(rows.size()), statement -> {
+                try {
+                    JdbcUrlMappingRepository.bind(statement, rows);
+                    return statement.executeUpdate();
+                } catch (SQLException e) {
+                    throw new DataAccessException("Failed to insert URL mappings: " + e.getMessage(), e);
+                }
+            });
+        }
+        return inserted;
+    }
+
+    /**
+     * Lists stored encoded short codes in ascending order, starting after the given one.
+     * Used to walk the whole table in keyset-paginated batches.
+     *
+     * @param afterId The last encoded short code of the previous batch, or 0 to start
+     * @param limit The maximum number of encoded short codes to return
+     * @return The next batch of encoded short codes
+     */
+    @Query("SELECT id FROM url_mapping WHERE id > :afterId ORDER BY id LIMIT :limit")
+    public abstract List<Long> findIdsAfter(long afterId, int limit);
+
+    /**
+     * Lists the most recently created URL mappings that never expire, newest first.
+     * Used to warm the cache when no snapshot of it is available.
+     *
+     * @param limit The maximum number of mappings to return
+     * @return The most recent mappings
      */
-    Optional<UrlMappingEntity> findByShortCode(String shortCode);
-} 
\ No newline at end of file
+    @Query("SELECT id, original_url, created_at, expires_at FROM url_mapping "
+            + "WHERE expires_at IS NULL ORDER BY created_at DESC LIMIT :limit")
+    public abstract List<UrlMappingEntity> findMostRecent(int limit);
+}
@@ -0,0 +1,92 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.ClickEventPublisher;
+import com.velasconino.application.ports.output.HotLinkStatistics;
+import com.velasconino.infrastructure.adapters.output.ClickAnalyticsPipeline;
+import com.velasconino.infrastructure.adapters.output.HotLinkSketch;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlClickStatsRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Factory for the click analytics and hot link statistics fed by resolved redirects.
+ */
+@Factory
+public class AnalyticsFactory {
+
+    /**
+     * Creates the publisher resolved redirects report their clicks to.
+     * Every click updates the hot link sketch and, unless analytics are disabled or the storage
+     * type has no place for them, is handed to the click analytics pipeline.
+     *
+     * @param hotLinkSketch The sketch of hot links
+     * @param clickAnalyticsPipeline The click analytics pipeline, or null if not created
+     * @return A ClickEventPublisher implementation
+     */
+    @Singleton
+    public ClickEventPublisher clickEventPublisher(HotLinkSketch hotLinkSketch,
+                                                   @Nullable ClickAnalyticsPipeline clickAnalyticsPipeline) {
+        if (clickAnalyticsPipeline == null) {
+            return hotLinkSketch;
+        }
+        return event -> {
+            hotLinkSketch.publish(event);
+            clickAnalyticsPipeline.publish(event);
+        };
+    }
+
+    /**
+     * Creates the sketch of the most clicked short codes and their distinct clients.
+     * Its memory is fixed by the number of buckets and the capacity, however many short codes exist.
+     * It is exposed under its own type and as the HotLinkStatistics the admin endpoint reads,
+     * so it never competes with the ClickEventPublisher above.
+     *
+     * @param bucketDuration The granularity of windows
+     * @param buckets The number of buckets kept, which bounds the longest window
+     * @param capacity The number of hot short codes tracked per bucket, a power of two
+     * @return A hot link sketch
+     */
+    @Singleton
+    @Bean(typed = {HotLinkSketch.class, HotLinkStatistics.class})
+    public HotLinkSketch hotLinkSketch(
+            @Value("${url.shortener.hot-links.bucket-duration:1m}") Duration bucketDuration,
+            @Value("${url.shortener.hot-links.buckets:60}") int buckets,
+            @Value("${url.shortener.hot-links.capacity:256}") int capacity) {
+        return new HotLinkSketch(bucketDuration, buckets, capacity, Clock.systemUTC());
+    }
+
+    /**
+     * Creates the pipeline that aggregates clicks off the request path and writes them to url_click_stats.
+     * It is only created with {@code postgres} storage: {@code memory} and {@code mapped} storage have
+     * no database to write to, and {@code sharded} storage has no single database for the stats, so
+     * in those modes only the hot link sketch counts clicks.
+     * It is exposed under its own type only, so it never competes with the ClickEventPublisher above,
+     * and writes the clicks it still holds when the application shuts down.
+     *
+     * @param clickStatsRepository The repository the aggregated clicks are added to
+     * @param meterRegistry The registry the click counters are published to
+     * @param bufferSize The number of clicks buffered before new ones are dropped, a power of two
+     * @param flushInterval How often the aggregated clicks are written
+     * @return A click analytics pipeline
+     */
+    @Singleton
+    @Bean(typed = ClickAnalyticsPipeline.class, preDestroy = "close")
+    @Requires(property = "url.shortener.analytics.enabled", value = "true", defaultValue = "true")
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public ClickAnalyticsPipeline clickAnalyticsPipeline(
+            UrlClickStatsRepository clickStatsRepository,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.analytics.buffer-size:65536}") int bufferSize,
+            @Value("${url.shortener.analytics.flush-interval:10s}") Duration flushInterval) {
+        return new ClickAnalyticsPipeline(clickStatsRepository, bufferSize, flushInterval, meterRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.infrastructure.adapters.output.ReservedShortCodePool;
+import com.velasconino.infrastructure.adapters.output.persistence.ShortCodeReservationRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.jdbc.DataSourceResolver;
+import jakarta.inject.Singleton;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Factory for the pool of pre-reserved short codes, which are reserved in a PostgreSQL table
+ * shared by every node and so are not available with {@code memory} or {@code mapped} storage.
+ */
+@Factory
+@Requires(property = "url.shortener.code-generation", value = "pool")
+@Requires(property = "url.shortener.storage.type", notEquals = "memory")
+@Requires(property = "url.shortener.storage.type", notEquals = "mapped")
+public class CodePoolFactory {
+
+    /**
+     * Creates the pool and starts filling it in the background; until it is filled, URLs are
+     * shortened by hashing. Codes it holds are released when the application shuts down.
+     *
+     * @param urlRepository The repository codes are checked to be free in
+     * @param applicationContext The context the datasource is looked up in
+     * @param dataSourceResolver Unwraps the datasource from Micronaut's transaction management
+     * @param meterRegistry The registry the pool metrics are published to
+     * @param dataSourceName The name of the datasource under {@code datasources} holding the reservations
+     * @param codeLength The length of the pooled codes
+     * @param lowWatermark The number of ready codes below which the pool is refilled
+     * @param highWatermark The number of ready codes a refill stops at
+     * @param batchSize The maximum number of codes checked and reserved at once
+     * @param reservationTtl How long reservations not renewed, such as those of a crashed node, are kept
+     * @return A pool of reserved short codes
+     */
+    @Singleton
+    @Bean(preDestroy = "close")
+    public ReservedShortCodePool reservedShortCodePool(
+            UrlRepository urlRepository,
+            ApplicationContext applicationContext,
+            DataSourceResolver dataSourceResolver,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.code-pool.datasource:default}") String dataSourceName,
+            @Value("${url.shortener.initial-code-length}") int codeLength,
+            @Value("${url.shortener.code-pool.low-watermark:1000}") int lowWatermark,
+            @Value("${url.shortener.code-pool.high-watermark:10000}") int highWatermark,
+            @Value("${url.shortener.code-pool.batch-size:1000}") int batchSize,
+            @Value("${url.shortener.code-pool.reservation-ttl:1h}") Duration reservationTtl) {
+        ShortCodeReservationRepository reservations = new ShortCodeReservationRepository(dataSourceResolver.resolve(
+                applicationContext.getBean(DataSource.class, Qualifiers.byName(dataSourceName))));
+        return new ReservedShortCodePool(urlRepository, reservations, codeLength, lowWatermark, highWatermark,
+                batchSize, reservationTtl, meterRegistry);
+    }
+}
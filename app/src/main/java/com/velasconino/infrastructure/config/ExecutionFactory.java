@@ -0,0 +1,50 @@
+package com.velasconino.infrastructure.config;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory for the executor that runs the blocking request handling: controller methods,
+ * the use cases they call and the JDBC lookups of redirects.
+ */
+@Factory
+public class ExecutionFactory {
+
+    /**
+     * Name of the executor, as referenced by {@code @ExecuteOn}.
+     */
+    public static final String URL_SHORTENER_EXECUTOR = "url-shortener";
+
+    /**
+     * Creates the request executor for the configured execution mode.
+     * In {@code virtual} mode every request gets its own virtual thread, so a request waiting on
+     * the database no longer holds a carrier thread. In {@code platform} mode requests share a
+     * fixed pool of platform threads.
+     *
+     * @param mode The execution mode, {@code virtual} or {@code platform}
+     * @param platformThreads The number of threads of the pool in platform mode
+     * @return The request executor
+     */
+    @Singleton
+    @Named(URL_SHORTENER_EXECUTOR)
+    @Bean(preDestroy = "shutdown")
+    public ExecutorService urlShortenerExecutor(
+            @Value("${url.shortener.execution.mode:virtual}") String mode,
+            @Value("${url.shortener.execution.platform-threads:200}") int platformThreads) {
+        return switch (mode.toLowerCase(Locale.ROOT)) {
+            case "virtual" -> Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(URL_SHORTENER_EXECUTOR + "-", 0).factory());
+            case "platform" -> Executors.newFixedThreadPool(platformThreads,
+                    Thread.ofPlatform().name(URL_SHORTENER_EXECUTOR + "-", 0).daemon().factory());
+            default -> throw new IllegalArgumentException(
+                    "Unknown execution mode: " + mode + " (expected virtual or platform)");
+        };
+    }
+}
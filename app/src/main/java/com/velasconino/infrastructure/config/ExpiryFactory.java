@@ -0,0 +1,85 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.infrastructure.adapters.output.ExpiredLinkSweeper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.jdbc.DataSourceResolver;
+import jakarta.inject.Singleton;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Factory for the background purge of expired links, on the storage types that can expire them.
+ */
+@Factory
+@Requires(property = "url.shortener.expiry.sweeper.enabled", value = "true", defaultValue = "true")
+public class ExpiryFactory {
+
+    /**
+     * Creates the sweeper purging expired links from the default database, while no other node is.
+     * It stops after the batch being deleted when the application shuts down.
+     *
+     * @param dataSource The default datasource
+     * @param dataSourceResolver Unwraps the datasource from Micronaut's transaction management
+     * @param meterRegistry The registry the purge metrics are published to
+     * @param batchSize The maximum number of links deleted by one statement
+     * @param batchPause How long to wait between batches
+     * @param interval How long to wait between sweeps
+     * @return A sweeper over the default database
+     */
+    @Singleton
+    @Bean(preDestroy = "close")
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public ExpiredLinkSweeper postgresExpiredLinkSweeper(
+            DataSource dataSource,
+            DataSourceResolver dataSourceResolver,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.expiry.sweeper.batch-size:500}") int batchSize,
+            @Value("${url.shortener.expiry.sweeper.batch-pause:100ms}") Duration batchPause,
+            @Value("${url.shortener.expiry.sweeper.interval:1m}") Duration interval) {
+        return new ExpiredLinkSweeper(List.of(dataSourceResolver.resolve(dataSource)),
+                batchSize, batchPause, interval, meterRegistry);
+    }
+
+    /**
+     * Creates the sweeper purging expired links from every shard, one after the other, skipping
+     * those another node is sweeping.
+     * It stops after the batch being deleted when the application shuts down.
+     *
+     * @param applicationContext The context the shard datasources are looked up in
+     * @param dataSourceResolver Unwraps the shard datasources from Micronaut's transaction management
+     * @param meterRegistry The registry the purge metrics are published to
+     * @param shardNames The names of the shard datasources
+     * @param batchSize The maximum number of links deleted by one statement
+     * @param batchPause How long to wait between batches
+     * @param interval How long to wait between sweeps
+     * @return A sweeper over the shards
+     */
+    @Singleton
+    @Bean(preDestroy = "close")
+    @Requires(property = "url.shortener.storage.type", value = "sharded")
+    public ExpiredLinkSweeper shardedExpiredLinkSweeper(
+            ApplicationContext applicationContext,
+            DataSourceResolver dataSourceResolver,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.sharding.shards}") List<String> shardNames,
+            @Value("${url.shortener.expiry.sweeper.batch-size:500}") int batchSize,
+            @Value("${url.shortener.expiry.sweeper.batch-pause:100ms}") Duration batchPause,
+            @Value("${url.shortener.expiry.sweeper.interval:1m}") Duration interval) {
+        List<DataSource> shards = new ArrayList<>(shardNames.size());
+        for (String shardName : shardNames) {
+            shards.add(dataSourceResolver.resolve(
+                    applicationContext.getBean(DataSource.class, Qualifiers.byName(shardName))));
+        }
+        return new ExpiredLinkSweeper(shards, batchSize, batchPause, interval, meterRegistry);
+    }
+}
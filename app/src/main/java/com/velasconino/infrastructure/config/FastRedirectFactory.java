@@ -0,0 +1,37 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.infrastructure.adapters.input.FastRedirectCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+
+/**
+ * Factory for the cache of pre-serialized redirects served by the Netty fast path.
+ */
+@Factory
+@Requires(property = "url.shortener.fast-path.enabled", value = "true")
+public class FastRedirectFactory {
+
+    /**
+     * Creates the cache of pre-serialized redirects. Its buffers are released when it is closed.
+     *
+     * @param maximumSize The maximum number of cached redirects
+     * @param expireAfterWrite How long a redirect is served without asking the controller again
+     * @param meterRegistry The registry the cache metrics are published to
+     * @return The fast path cache
+     */
+    @Singleton
+    @Bean(preDestroy = "close")
+    public FastRedirectCache fastRedirectCache(
+            @Value("${url.shortener.fast-path.maximum-size:10000}") long maximumSize,
+            @Value("${url.shortener.fast-path.expire-after-write:1m}") Duration expireAfterWrite,
+            MeterRegistry meterRegistry) {
+        return new FastRedirectCache(maximumSize, expireAfterWrite, meterRegistry);
+    }
+}
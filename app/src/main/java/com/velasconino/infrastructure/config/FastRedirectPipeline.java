@@ -0,0 +1,93 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.ClickEventPublisher;
+import com.velasconino.infrastructure.adapters.input.FastRedirectCache;
+import com.velasconino.infrastructure.adapters.input.FastRedirectCapture;
+import com.velasconino.infrastructure.adapters.input.FastRedirectHandler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.http.netty.channel.ChannelPipelineCustomizer;
+import io.micronaut.http.server.HttpServerConfiguration;
+import io.micronaut.http.server.netty.NettyServerCustomizer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+/**
+ * Installs the Netty fast path for redirects on every HTTP/1.1 connection: a
+ * {@link FastRedirectHandler} in front of the HTTP codec, answering cached redirects from raw
+ * bytes, and a {@link FastRedirectCapture} behind it, learning redirects from the controller.
+ * HTTP/2 streams are left to the router.
+ */
+@Singleton
+@Requires(property = "url.shortener.fast-path.enabled", value = "true")
+public class FastRedirectPipeline implements BeanCreatedEventListener<NettyServerCustomizer.Registry> {
+
+    private static final String HANDLER_NAME = "url-shortener-fast-redirect";
+    private static final String CAPTURE_NAME = "url-shortener-fast-redirect-capture";
+
+    private final Provider<FastRedirectCache> cache;
+    private final Provider<ClickEventPublisher> clickEventPublisher;
+    private final HttpServerConfiguration serverConfiguration;
+    private final Counter hits;
+    private final Counter misses;
+
+    public FastRedirectPipeline(Provider<FastRedirectCache> cache,
+                                Provider<ClickEventPublisher> clickEventPublisher,
+                                HttpServerConfiguration serverConfiguration,
+                                MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.clickEventPublisher = clickEventPublisher;
+        this.serverConfiguration = serverConfiguration;
+        this.hits = requestCounter(meterRegistry, "hit");
+        this.misses = requestCounter(meterRegistry, "miss");
+    }
+
+    @Override
+    public NettyServerCustomizer.Registry onCreated(BeanCreatedEvent<NettyServerCustomizer.Registry> event) {
+        NettyServerCustomizer.Registry registry = event.getBean();
+        registry.register(new ConnectionCustomizer(null));
+        return registry;
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("url.shortener.fast-path.requests")
+                .description("GET requests for a short code, by whether the fast path answered them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private final class ConnectionCustomizer implements NettyServerCustomizer {
+
+        private final Channel channel;
+
+        private ConnectionCustomizer(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public NettyServerCustomizer specializeForChannel(Channel channel, ChannelRole role) {
+            return role == ChannelRole.CONNECTION ? new ConnectionCustomizer(channel) : this;
+        }
+
+        @Override
+        public void onStreamPipelineBuilt() {
+            if (channel == null) {
+                return;
+            }
+            ChannelPipeline pipeline = channel.pipeline();
+            if (pipeline.get(ChannelPipelineCustomizer.HANDLER_HTTP_SERVER_CODEC) == null) {
+                return;
+            }
+            FastRedirectCapture capture = new FastRedirectCapture(cache.get());
+            pipeline.addAfter(ChannelPipelineCustomizer.HANDLER_HTTP_SERVER_CODEC, CAPTURE_NAME, capture);
+            pipeline.addBefore(ChannelPipelineCustomizer.HANDLER_HTTP_SERVER_CODEC, HANDLER_NAME, new FastRedirectHandler(
+                    cache.get(), capture, clickEventPublisher.get(), serverConfiguration.getClientAddressHeader(), hits, misses));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.velasconino.infrastructure.config;
+
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+
+/**
+ * Refuses to start with R2DBC enabled on a storage type other than {@code postgres}.
+ * R2DBC lookups go straight to the primary PostgreSQL database, so with any other storage they
+ * would miss every mapping that lives elsewhere, in shards, files or memory.
+ */
+@Context
+@Requires(property = "url.shortener.r2dbc.enabled", value = "true")
+public class R2dbcStorageCheck {
+
+    public R2dbcStorageCheck(@Value("${url.shortener.storage.type:postgres}") String storageType) {
+        if (!"postgres".equals(storageType)) {
+            throw new IllegalStateException(
+                    "R2DBC lookups require storage type postgres, not " + storageType
+                            + "; disable url.shortener.r2dbc.enabled");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.velasconino.infrastructure.config;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import io.micronaut.core.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One entry under {@code url.shortener.redirect.overrides}: a redirect status and cache lifetime
+ * for some short codes, or for original URLs starting with a prefix. Settings left out are
+ * taken from the default redirect rule.
+ */
+@EachProperty("url.shortener.redirect.overrides")
+public class RedirectOverrideConfiguration {
+
+    private final String name;
+    private List<String> shortCodes = List.of();
+    @Nullable
+    private String urlPrefix;
+    @Nullable
+    private Integer status;
+    @Nullable
+    private Duration maxAge;
+
+    public RedirectOverrideConfiguration(@Parameter String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getShortCodes() {
+        return shortCodes;
+    }
+
+    public void setShortCodes(List<String> shortCodes) {
+        this.shortCodes = shortCodes;
+    }
+
+    @Nullable
+    public String getUrlPrefix() {
+        return urlPrefix;
+    }
+
+    public void setUrlPrefix(@Nullable String urlPrefix) {
+        this.urlPrefix = urlPrefix;
+    }
+
+    @Nullable
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(@Nullable Integer status) {
+        this.status = status;
+    }
+
+    @Nullable
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(@Nullable Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+}
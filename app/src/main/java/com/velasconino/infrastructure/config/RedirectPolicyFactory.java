@@ -0,0 +1,49 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.infrastructure.adapters.input.RedirectPolicy;
+import com.velasconino.infrastructure.adapters.input.RedirectPolicy.Rule;
+import com.velasconino.infrastructure.adapters.input.RedirectPolicy.RuleOverride;
+
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpStatus;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Factory for the policy deciding how redirects are answered and cached.
+ */
+@Factory
+public class RedirectPolicyFactory {
+
+    /**
+     * Creates the redirect policy from the default rule and its overrides.
+     *
+     * @param status The default redirect status: 301, 302, 307 or 308
+     * @param maxAge How long browsers and CDNs may cache a redirect by default
+     * @param overrides The overrides for some short codes or URL prefixes
+     * @return The redirect policy
+     */
+    @Singleton
+    public RedirectPolicy redirectPolicy(
+            @Value("${url.shortener.redirect.status:301}") int status,
+            @Value("${url.shortener.redirect.max-age:5m}") Duration maxAge,
+            List<RedirectOverrideConfiguration> overrides) {
+        Rule defaultRule = new Rule(HttpStatus.valueOf(status), maxAge);
+        List<RuleOverride> ruleOverrides = new ArrayList<>(overrides.size());
+        for (RedirectOverrideConfiguration override : overrides) {
+            if (override.getShortCodes().isEmpty() && override.getUrlPrefix() == null) {
+                throw new IllegalArgumentException(
+                        "Redirect override " + override.getName() + " needs short-codes or a url-prefix");
+            }
+            Rule rule = new Rule(
+                    override.getStatus() != null ? HttpStatus.valueOf(override.getStatus()) : defaultRule.status(),
+                    override.getMaxAge() != null ? override.getMaxAge() : defaultRule.maxAge());
+            ruleOverrides.add(new RuleOverride(override.getShortCodes(), override.getUrlPrefix(), rule));
+        }
+        return new RedirectPolicy(defaultRule, ruleOverrides);
+    }
+}
@@ -1,27 +1,401 @@
 package com.velasconino.infrastructure.config;
 
+import com.velasconino.application.ports.output.ReactiveUrlRepository;
 import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.infrastructure.adapters.output.BloomFilteredUrlRepository;
+import com.velasconino.infrastructure.adapters.output.CachingReactiveUrlRepository;
+import com.velasconino.infrastructure.adapters.output.CachingUrlRepository;
+import com.velasconino.infrastructure.adapters.output.CompactInMemoryUrlRepository;
+import com.velasconino.infrastructure.adapters.output.ConcurrencyLimitedUrlRepository;
+import com.velasconino.infrastructure.adapters.output.GroupCommitUrlRepository;
+import com.velasconino.infrastructure.adapters.output.MappedFileUrlRepository;
+import com.velasconino.infrastructure.adapters.output.OffloadingReactiveUrlRepository;
+import com.velasconino.infrastructure.adapters.output.PostgresReplicaUrlRepository;
 import com.velasconino.infrastructure.adapters.output.PostgresUrlRepository;
+import com.velasconino.infrastructure.adapters.output.R2dbcPostgresUrlRepository;
+import com.velasconino.infrastructure.adapters.output.ReplicaRoutingUrlRepository;
+import com.velasconino.infrastructure.adapters.output.ShardedUrlRepository;
+import com.velasconino.infrastructure.adapters.output.ShortCodeBloomFilter;
+import com.velasconino.infrastructure.adapters.output.TimedUrlRepository;
+import com.velasconino.infrastructure.adapters.output.persistence.JdbcUrlMappingRepository;
 import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingRepository;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.jdbc.DataSourceResolver;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Factory for creating repository implementations based on the environment.
  */
 @Factory
 public class RepositoryFactory {
-    
+
     /**
      * Creates a PostgreSQL implementation of the UrlRepository.
      * This is the primary implementation used in production.
-     * 
-     * @param urlMappingRepository The Micronaut Data repository for URL mappings
+     * Calls reaching PostgreSQL are bounded to the connection pool size.
+     * When enabled, lookups are spread over read replicas, concurrent inserts are coalesced into group commits,
+     * lookups for unknown short codes are answered by a Bloom filter,
+     * and the result is wrapped in an in-process cache so hot short codes are
+     * resolved without a database round trip.
+     * Calls into the whole chain are timed as the "chain" stage of the repository timer.
+     *
+     * @param databaseUrlRepository The concurrency-limited PostgreSQL repository
+     * @param meterRegistry The registry the repository metrics are published to
+     * @param replicaRoutingUrlRepository The stage routing lookups to read replicas, or null if none are configured
+     * @param groupCommitUrlRepository The group-commit stage in front of PostgreSQL, or null if disabled
+     * @param bloomFilter The Bloom filter over stored short codes, or null if disabled
+     * @param cachingUrlRepository The cache in front of the other stages, or null if disabled
      * @return A PostgreSQL-backed implementation of UrlRepository
      */
     @Singleton
-    public UrlRepository postgresUrlRepository(UrlMappingRepository urlMappingRepository) {
-        return new PostgresUrlRepository(urlMappingRepository);
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public UrlRepository postgresUrlRepository(
+            ConcurrencyLimitedUrlRepository databaseUrlRepository,
+            MeterRegistry meterRegistry,
+            @Nullable ReplicaRoutingUrlRepository replicaRoutingUrlRepository,
+            @Nullable GroupCommitUrlRepository groupCommitUrlRepository,
+            @Nullable ShortCodeBloomFilter bloomFilter,
+            @Nullable CachingUrlRepository cachingUrlRepository) {
+        UrlRepository repository = cachingUrlRepository != null
+                ? cachingUrlRepository
+                : uncachedUrlRepository(databaseUrlRepository(databaseUrlRepository, replicaRoutingUrlRepository),
+                        meterRegistry, groupCommitUrlRepository, bloomFilter);
+
+        return new TimedUrlRepository(repository, "chain", meterRegistry);
+    }
+
+    /**
+     * Creates the embedded implementation of the UrlRepository, storing mappings in local
+     * memory-mapped files instead of PostgreSQL, for deployments without a database.
+     * Calls into it are timed as the "chain" stage of the repository timer.
+     *
+     * @param mappedFileUrlRepository The memory-mapped storage
+     * @param meterRegistry The registry the repository metrics are published to
+     * @return A memory-mapped implementation of UrlRepository
+     */
+    @Singleton
+    @Requires(property = "url.shortener.storage.type", value = "mapped")
+    public UrlRepository mappedUrlRepository(
+            MappedFileUrlRepository mappedFileUrlRepository,
+            MeterRegistry meterRegistry) {
+        return new TimedUrlRepository(mappedFileUrlRepository, "chain", meterRegistry);
+    }
+
+    /**
+     * Creates the sharded implementation of the UrlRepository, spreading mappings over several
+     * PostgreSQL databases by consistent hashing of their short codes.
+     * Calls into it are timed as the "chain" stage of the repository timer.
+     *
+     * @param shardedUrlRepository The repository routing short codes to their shards
+     * @param meterRegistry The registry the repository metrics are published to
+     * @return A sharded implementation of UrlRepository
+     */
+    @Singleton
+    @Requires(property = "url.shortener.storage.type", value = "sharded")
+    public UrlRepository shardedUrlRepository(
+            ShardedUrlRepository shardedUrlRepository,
+            MeterRegistry meterRegistry) {
+        return new TimedUrlRepository(shardedUrlRepository, "chain", meterRegistry);
+    }
+
+    /**
+     * Creates the in-memory implementation of the UrlRepository, packed into primitive arrays
+     * so millions of mappings fit in a modest heap. Mappings are lost when the application stops.
+     * Calls into it are timed as the "chain" stage of the repository timer.
+     *
+     * @param meterRegistry The registry the repository metrics are published to
+     * @param stripes The number of independently locked stripes, a power of two
+     * @param expectedEntries The number of mappings the tables are initially sized for
+     * @return An in-memory implementation of UrlRepository
+     */
+    @Singleton
+    @Requires(property = "url.shortener.storage.type", value = "memory")
+    public UrlRepository memoryUrlRepository(
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.storage.memory.stripes:64}") int stripes,
+            @Value("${url.shortener.storage.memory.expected-entries:1000000}") long expectedEntries) {
+        CompactInMemoryUrlRepository repository = new CompactInMemoryUrlRepository(stripes, expectedEntries);
+        Gauge.builder("url.shortener.storage.memory.bytes", repository, CompactInMemoryUrlRepository::memoryBytes)
+                .description("Heap taken by the in-memory URL tables and slabs")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return new TimedUrlRepository(repository, "chain", meterRegistry);
+    }
+
+    /**
+     * Creates the memory-mapped storage, recovering the mappings already in its directory.
+     * It is exposed under its own type only, so it never competes with the UrlRepository above,
+     * and its files are flushed and closed when the application shuts down.
+     *
+     * @param directory The directory holding the log and index files
+     * @param syncWrites Whether writes are forced to disk before they return
+     * @param compactionThreshold The fraction of the log replaced mappings may take up before it is compacted
+     * @return The memory-mapped storage
+     * @throws IOException if the files cannot be opened
+     */
+    @Singleton
+    @Bean(typed = MappedFileUrlRepository.class, preDestroy = "close")
+    @Requires(property = "url.shortener.storage.type", value = "mapped")
+    public MappedFileUrlRepository mappedFileUrlRepository(
+            @Value("${url.shortener.storage.mapped.directory:data}") Path directory,
+            @Value("${url.shortener.storage.mapped.sync-writes:true}") boolean syncWrites,
+            @Value("${url.shortener.storage.mapped.compaction-threshold:0.5}") double compactionThreshold)
+            throws IOException {
+        return new MappedFileUrlRepository(directory, syncWrites, compactionThreshold);
+    }
+
+    /**
+     * Creates the in-process cache of resolved mappings in front of the other stages.
+     * It is exposed under its own type only, so it never competes with the UrlRepository above,
+     * and can be warmed and snapshotted by {@link UrlCacheWarmStart}.
+     *
+     * @param databaseUrlRepository The concurrency-limited PostgreSQL repository
+     * @param meterRegistry The registry the repository metrics are published to
+     * @param replicaRoutingUrlRepository The stage routing lookups to read replicas, or null if none are configured
+     * @param groupCommitUrlRepository The group-commit stage in front of PostgreSQL, or null if disabled
+     * @param bloomFilter The Bloom filter over stored short codes, or null if disabled
+     * @param cacheMaximumSize The maximum number of mappings kept in the cache
+     * @param cacheExpireAfterWrite How long a mapping stays cached after it was loaded
+     * @return A caching stage in front of PostgreSQL
+     */
+    @Singleton
+    @Bean(typed = CachingUrlRepository.class)
+    @Requires(property = "url.shortener.cache.enabled", value = "true", defaultValue = "true")
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public CachingUrlRepository cachingUrlRepository(
+            ConcurrencyLimitedUrlRepository databaseUrlRepository,
+            MeterRegistry meterRegistry,
+            @Nullable ReplicaRoutingUrlRepository replicaRoutingUrlRepository,
+            @Nullable GroupCommitUrlRepository groupCommitUrlRepository,
+            @Nullable ShortCodeBloomFilter bloomFilter,
+            @Value("${url.shortener.cache.maximum-size:100000}") long cacheMaximumSize,
+            @Value("${url.shortener.cache.expire-after-write:1h}") Duration cacheExpireAfterWrite) {
+        return new CachingUrlRepository(
+                uncachedUrlRepository(databaseUrlRepository(databaseUrlRepository, replicaRoutingUrlRepository),
+                        meterRegistry, groupCommitUrlRepository, bloomFilter),
+                cacheMaximumSize, cacheExpireAfterWrite, meterRegistry);
+    }
+
+    /**
+     * Creates the PostgreSQL repository that every other stage ends up calling.
+     * Callers beyond the connection pool size wait on a semaphore rather than in the pool,
+     * which keeps connection wait times flat when requests run on virtual threads.
+     * Calls that hold a permit are timed as the "database" stage of the repository timer,
+     * and the callers waiting for one are published as a gauge.
+     * It is exposed under its own type only, so it never competes with the UrlRepository above.
+     *
+     * @param urlMappingRepository The Micronaut Data repository for URL mappings
+     * @param meterRegistry The registry the database metrics are published to
+     * @param maxConcurrency The maximum number of concurrent database calls
+     * @return A concurrency-limited PostgreSQL repository
+     */
+    @Singleton
+    @Bean(typed = ConcurrencyLimitedUrlRepository.class)
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public ConcurrencyLimitedUrlRepository concurrencyLimitedUrlRepository(
+            UrlMappingRepository urlMappingRepository,
+            MeterRegistry meterRegistry,
+            @Value("${datasources.default.maximum-pool-size:10}") int maxConcurrency) {
+        ConcurrencyLimitedUrlRepository repository = new ConcurrencyLimitedUrlRepository(
+                new TimedUrlRepository(new PostgresUrlRepository(urlMappingRepository), "database", meterRegistry),
+                maxConcurrency);
+        Gauge.builder("url.shortener.database.waiting-calls", repository, ConcurrencyLimitedUrlRepository::waitingCalls)
+                .description("Calls waiting for a database permit")
+                .register(meterRegistry);
+        return repository;
+    }
+
+    /**
+     * Creates the stage that sends writes to the primary database and lookups to read replicas.
+     * Each replica is a datasource of its own under {@code datasources}, listed by name in
+     * {@code url.shortener.read-replicas.datasources}. Calls to a replica are bounded to its
+     * connection pool size and timed as a stage named after its datasource.
+     * It is exposed under its own type only, so it never competes with the UrlRepository above.
+     *
+     * @param databaseUrlRepository The concurrency-limited PostgreSQL repository of the primary
+     * @param applicationContext The context the replica datasources and their pool sizes are looked up in
+     * @param dataSourceResolver Unwraps the replica datasources from Micronaut's transaction management
+     * @param meterRegistry The registry the replica metrics are published to
+     * @param replicaNames The names of the replica datasources
+     * @param selection How the replica serving a lookup is picked, round-robin or least-latency
+     * @param negativeCacheWindow How long a short code missing on the primary too is not looked up there again
+     * @return A stage routing lookups to read replicas
+     */
+    @Singleton
+    @Bean(typed = ReplicaRoutingUrlRepository.class)
+    @Requires(property = "url.shortener.read-replicas.datasources")
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public ReplicaRoutingUrlRepository replicaRoutingUrlRepository(
+            ConcurrencyLimitedUrlRepository databaseUrlRepository,
+            ApplicationContext applicationContext,
+            DataSourceResolver dataSourceResolver,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.read-replicas.datasources}") List<String> replicaNames,
+            @Value("${url.shortener.read-replicas.selection:round-robin}") String selection,
+            @Value("${url.shortener.read-replicas.negative-cache-window:5s}") Duration negativeCacheWindow) {
+        List<UrlRepository> replicas = new ArrayList<>(replicaNames.size());
+        for (String replicaName : replicaNames) {
+            DataSource dataSource = dataSourceResolver.resolve(
+                    applicationContext.getBean(DataSource.class, Qualifiers.byName(replicaName)));
+            int maxConcurrency = applicationContext.getProperty(
+                    "datasources." + replicaName + ".maximum-pool-size", Integer.class).orElse(10);
+            replicas.add(new ConcurrencyLimitedUrlRepository(
+                    new TimedUrlRepository(
+                            new PostgresReplicaUrlRepository(new JdbcUrlMappingRepository(dataSource)),
+                            replicaName, meterRegistry),
+                    maxConcurrency));
+        }
+        return new ReplicaRoutingUrlRepository(databaseUrlRepository, replicas,
+                ReplicaRoutingUrlRepository.Selection.valueOf(selection.toUpperCase(Locale.ROOT).replace('-', '_')),
+                negativeCacheWindow, meterRegistry);
+    }
+
+    /**
+     * Creates the stage that coalesces concurrent inserts into PostgreSQL into group commits.
+     * It is opt-in: a lone insert waits for the window before it is written, which only pays off
+     * when commits are slow enough for concurrent inserts to share them.
+     * It is exposed under its own type only, so it never competes with the UrlRepository above,
+     * and drains its queue when the application shuts down.
+     *
+     * @param databaseUrlRepository The concurrency-limited PostgreSQL repository
+     * @param replicaRoutingUrlRepository The stage routing lookups to read replicas, or null if none are configured
+     * @param meterRegistry The registry the batch size histogram is published to
+     * @param maxBatchSize The maximum number of inserts written by one commit
+     * @param window How long a batch stays open for more inserts after the first one
+     * @return A group-commit stage writing to PostgreSQL
+     */
+    @Singleton
+    @Bean(typed = GroupCommitUrlRepository.class, preDestroy = "close")
+    @Requires(property = "url.shortener.group-commit.enabled", value = "true", defaultValue = "false")
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public GroupCommitUrlRepository groupCommitUrlRepository(
+            ConcurrencyLimitedUrlRepository databaseUrlRepository,
+            @Nullable ReplicaRoutingUrlRepository replicaRoutingUrlRepository,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.group-commit.max-batch-size:100}") int maxBatchSize,
+            @Value("${url.shortener.group-commit.window:1ms}") Duration window) {
+        return new GroupCommitUrlRepository(databaseUrlRepository(databaseUrlRepository, replicaRoutingUrlRepository),
+                maxBatchSize, window, meterRegistry);
+    }
+
+    /**
+     * Creates the Bloom filter over stored short codes.
+     * It is populated at startup by {@link ShortCodeBloomFilterInitializer} and only learns of codes
+     * saved by this instance afterwards, so it is opt-in and only safe for a single instance.
+     *
+     * @param expectedEntries The number of short codes the filter is sized for
+     * @param falsePositiveProbability The target false-positive probability at that size
+     * @return An empty Bloom filter
+     */
+    @Singleton
+    @Requires(property = "url.shortener.bloom-filter.enabled", value = "true", defaultValue = "false")
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public ShortCodeBloomFilter shortCodeBloomFilter(
+            @Value("${url.shortener.bloom-filter.expected-entries:10000000}") long expectedEntries,
+            @Value("${url.shortener.bloom-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        return new ShortCodeBloomFilter(expectedEntries, falsePositiveProbability);
+    }
+
+    /**
+     * Creates the reactive repository used to resolve short codes without blocking.
+     * When R2DBC is enabled lookups go to PostgreSQL through the non-blocking driver,
+     * behind the same cache as the blocking repository;
+     * otherwise they are offloaded to the blocking repository above, on the request executor.
+     *
+     * @param urlRepository The blocking repository, used when R2DBC is disabled
+     * @param requestExecutor The executor blocking lookups are offloaded to
+     * @param connectionPool The R2DBC connection pool, or null if disabled
+     * @param cachingUrlRepository The cache of the blocking repository, or null if disabled
+     * @return A ReactiveUrlRepository implementation
+     */
+    @Singleton
+    public ReactiveUrlRepository reactiveUrlRepository(
+            UrlRepository urlRepository,
+            @Named(ExecutionFactory.URL_SHORTENER_EXECUTOR) ExecutorService requestExecutor,
+            @Nullable ConnectionPool connectionPool,
+            @Nullable CachingUrlRepository cachingUrlRepository) {
+        if (connectionPool != null) {
+            ReactiveUrlRepository repository = new R2dbcPostgresUrlRepository(connectionPool);
+            return cachingUrlRepository != null
+                    ? new CachingReactiveUrlRepository(repository, cachingUrlRepository)
+                    : repository;
+        }
+        return new OffloadingReactiveUrlRepository(urlRepository, Schedulers.fromExecutorService(
+                requestExecutor, ExecutionFactory.URL_SHORTENER_EXECUTOR));
+    }
+
+    /**
+     * Creates the R2DBC connection pool for the reactive repository.
+     * It connects to the primary PostgreSQL database only, so it is not available with other storage
+     * types, which {@link R2dbcStorageCheck} refuses to start with.
+     *
+     * @param url The R2DBC URL of the database, e.g. r2dbc:postgresql://host:5432/database
+     * @param username The database user
+     * @param password The database password
+     * @param maxSize The maximum number of pooled connections
+     * @return A connection pool, closed when the application shuts down
+     */
+    @Singleton
+    @Named("default")
+    @Bean(preDestroy = "dispose")
+    @Requires(property = "url.shortener.r2dbc.enabled", value = "true")
+    @Requires(property = "url.shortener.storage.type", value = "postgres", defaultValue = "postgres")
+    public ConnectionPool r2dbcConnectionPool(
+            @Value("${url.shortener.r2dbc.url}") String url,
+            @Value("${url.shortener.r2dbc.username}") String username,
+            @Value("${url.shortener.r2dbc.password}") String password,
+            @Value("${url.shortener.r2dbc.pool.max-size:10}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(maxSize)
+                .build());
+    }
+
+    private static UrlRepository databaseUrlRepository(
+            ConcurrencyLimitedUrlRepository databaseUrlRepository,
+            @Nullable ReplicaRoutingUrlRepository replicaRoutingUrlRepository) {
+        return replicaRoutingUrlRepository != null ? replicaRoutingUrlRepository : databaseUrlRepository;
+    }
+
+    private static UrlRepository uncachedUrlRepository(
+            UrlRepository databaseUrlRepository,
+            MeterRegistry meterRegistry,
+            @Nullable GroupCommitUrlRepository groupCommitUrlRepository,
+            @Nullable ShortCodeBloomFilter bloomFilter) {
+        UrlRepository repository = groupCommitUrlRepository != null
+                ? groupCommitUrlRepository
+                : databaseUrlRepository;
+
+        if (bloomFilter != null) {
+            repository = new BloomFilteredUrlRepository(repository, bloomFilter, meterRegistry);
+        }
+        return repository;
     }
-} 
\ No newline at end of file
+}
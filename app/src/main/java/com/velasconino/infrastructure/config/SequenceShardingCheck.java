@@ -0,0 +1,24 @@
+package com.velasconino.infrastructure.config;
+
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+
+/**
+ * Refuses to start with sequence codes on {@code sharded} storage without a scramble key.
+ * Unscrambled sequence codes are consecutive, so the consistent hash ring would place every new
+ * mapping in the same range and every write would land on one shard.
+ */
+@Context
+@Requires(property = "url.shortener.code-generation", value = "sequence")
+public class SequenceShardingCheck {
+
+    public SequenceShardingCheck(@Value("${url.shortener.storage.type:postgres}") String storageType,
+                                 @Value("${url.shortener.sequence.scramble-key:}") String scrambleKey) {
+        if ("sharded".equals(storageType) && scrambleKey.isBlank()) {
+            throw new IllegalStateException(
+                    "Sequence codes on sharded storage require url.shortener.sequence.scramble-key,"
+                            + " otherwise every new mapping lands on one shard");
+        }
+    }
+}
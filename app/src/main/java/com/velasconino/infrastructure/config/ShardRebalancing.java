@@ -0,0 +1,57 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.infrastructure.adapters.output.ShardRebalancer;
+import com.velasconino.infrastructure.adapters.output.persistence.AdvisoryLock;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves URL mappings to their new shards after {@code url.shortener.sharding.shards} has changed.
+ * The move runs in the background, so the server accepts requests meanwhile: the sharded repository
+ * looks up short codes that have not moved yet on their previous shard. Once it has finished,
+ * {@code url.shortener.sharding.previous-shards} can be removed. Every instance starts with the
+ * same shards, so only the one holding the advisory lock moves mappings; the others skip the move,
+ * and one started after it has finished finds nothing left to move. Failures are logged; running
+ * the move again on the next start picks up where it stopped.
+ */
+@Singleton
+@Requires(beans = ShardRebalancer.class)
+public class ShardRebalancing {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardRebalancing.class);
+
+    private final ShardRebalancer rebalancer;
+    private final AdvisoryLock lock;
+
+    public ShardRebalancing(ShardRebalancer rebalancer, AdvisoryLock lock) {
+        this.rebalancer = rebalancer;
+        this.lock = lock;
+    }
+
+    @EventListener
+    public void onStartup(StartupEvent event) {
+        Thread.ofVirtual().name("url-shard-rebalance").start(this::rebalance);
+    }
+
+    /**
+     * Moves the mappings unless another instance is already moving them.
+     *
+     * @return Whether this instance moved them
+     */
+    boolean rebalance() {
+        try {
+            if (lock.runIfFree(rebalancer::rebalance)) {
+                return true;
+            }
+            LOG.info("Another instance is moving URL mappings to their new shards, skipping");
+        } catch (RuntimeException e) {
+            LOG.error("Failed to move URL mappings to their new shards", e);
+        }
+        return false;
+    }
+}
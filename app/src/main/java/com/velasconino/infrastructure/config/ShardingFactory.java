@@ -0,0 +1,145 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.infrastructure.adapters.output.ConcurrencyLimitedUrlRepository;
+import com.velasconino.infrastructure.adapters.output.ConsistentHashRing;
+import com.velasconino.infrastructure.adapters.output.JdbcPostgresUrlRepository;
+import com.velasconino.infrastructure.adapters.output.ShardRebalancer;
+import com.velasconino.infrastructure.adapters.output.ShardedUrlRepository;
+import com.velasconino.infrastructure.adapters.output.TimedUrlRepository;
+import com.velasconino.infrastructure.adapters.output.persistence.AdvisoryLock;
+import com.velasconino.infrastructure.adapters.output.persistence.JdbcUrlMappingRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.jdbc.DataSourceResolver;
+import jakarta.inject.Singleton;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Factory for the sharded storage, which spreads URL mappings over several PostgreSQL databases.
+ * Each shard is a datasource of its own under {@code datasources}, listed by name in
+ * {@code url.shortener.sharding.shards}.
+ */
+@Factory
+@Requires(property = "url.shortener.storage.type", value = "sharded")
+public class ShardingFactory {
+
+    // "url_shar" in ASCII; only has to differ from other advisory locks taken on the shards
+    private static final long SHARD_REBALANCE_LOCK_KEY = 0x75726C5F73686172L;
+
+    /**
+     * Creates the repository routing each short code to its shard.
+     * Calls to a shard are bounded to its connection pool size and timed as a stage named after its datasource.
+     * It is exposed under its own type only, so it never competes with the UrlRepository
+     * of {@link RepositoryFactory}, and stops its fan-out threads when the application shuts down.
+     *
+     * @param applicationContext The context the shard datasources and their pool sizes are looked up in
+     * @param dataSourceResolver Unwraps the shard datasources from Micronaut's transaction management
+     * @param meterRegistry The registry the shard metrics are published to
+     * @param shardNames The names of the shard datasources
+     * @param virtualNodes The number of points each shard is placed at on the ring
+     * @param previousShardNames The shards mappings are being moved from, or null if none are
+     * @return A sharded repository
+     */
+    @Singleton
+    @Bean(typed = ShardedUrlRepository.class, preDestroy = "close")
+    public ShardedUrlRepository shardedUrlRepository(
+            ApplicationContext applicationContext,
+            DataSourceResolver dataSourceResolver,
+            MeterRegistry meterRegistry,
+            @Value("${url.shortener.sharding.shards}") List<String> shardNames,
+            @Value("${url.shortener.sharding.virtual-nodes:128}") int virtualNodes,
+            @Nullable @Property(name = "url.shortener.sharding.previous-shards") List<String> previousShardNames) {
+        Map<String, UrlRepository> shards = new HashMap<>();
+        for (String shardName : allShards(shardNames, previousShardNames)) {
+            int maxConcurrency = applicationContext.getProperty(
+                    "datasources." + shardName + ".maximum-pool-size", Integer.class).orElse(10);
+            shards.put(shardName, new ConcurrencyLimitedUrlRepository(
+                    new TimedUrlRepository(
+                            new JdbcPostgresUrlRepository(
+                                    jdbcUrlMappingRepository(shardName, applicationContext, dataSourceResolver)),
+                            shardName, meterRegistry),
+                    maxConcurrency));
+        }
+        return new ShardedUrlRepository(new ConsistentHashRing(shardNames, virtualNodes), shards,
+                previousShardNames != null ? new ConsistentHashRing(previousShardNames, virtualNodes) : null);
+    }
+
+    /**
+     * Creates the rebalancer moving mappings from the previous shards to the current ones.
+     * It is run at startup by {@link ShardRebalancing}, on one instance at a time.
+     *
+     * @param applicationContext The context the shard datasources are looked up in
+     * @param dataSourceResolver Unwraps the shard datasources from Micronaut's transaction management
+     * @param shardNames The names of the shard datasources
+     * @param virtualNodes The number of points each shard is placed at on the ring
+     * @param previousShardNames The shards mappings are being moved from
+     * @param batchSize The maximum number of mappings moved in one transaction
+     * @return A rebalancer between the previous and current shards
+     */
+    @Singleton
+    @Requires(property = "url.shortener.sharding.previous-shards")
+    public ShardRebalancer shardRebalancer(
+            ApplicationContext applicationContext,
+            DataSourceResolver dataSourceResolver,
+            @Value("${url.shortener.sharding.shards}") List<String> shardNames,
+            @Value("${url.shortener.sharding.virtual-nodes:128}") int virtualNodes,
+            @Value("${url.shortener.sharding.previous-shards}") List<String> previousShardNames,
+            @Value("${url.shortener.sharding.rebalance-batch-size:1000}") int batchSize) {
+        Map<String, JdbcUrlMappingRepository> shards = new HashMap<>();
+        for (String shardName : allShards(shardNames, previousShardNames)) {
+            shards.put(shardName, jdbcUrlMappingRepository(shardName, applicationContext, dataSourceResolver));
+        }
+        return new ShardRebalancer(new ConsistentHashRing(previousShardNames, virtualNodes),
+                new ConsistentHashRing(shardNames, virtualNodes), shards, batchSize);
+    }
+
+    /**
+     * Creates the advisory lock that lets one instance at a time run the rebalancer. It is taken on
+     * the first of the current shards, which every instance moving mappings to them agrees on.
+     *
+     * @param applicationContext The context the shard datasource is looked up in
+     * @param dataSourceResolver Unwraps the shard datasource from Micronaut's transaction management
+     * @param shardNames The names of the shard datasources
+     * @return The lock held while mappings are moved
+     */
+    @Singleton
+    @Requires(property = "url.shortener.sharding.previous-shards")
+    public AdvisoryLock shardRebalanceLock(
+            ApplicationContext applicationContext,
+            DataSourceResolver dataSourceResolver,
+            @Value("${url.shortener.sharding.shards}") List<String> shardNames) {
+        return new AdvisoryLock(dataSourceResolver.resolve(
+                applicationContext.getBean(DataSource.class, Qualifiers.byName(shardNames.getFirst()))),
+                SHARD_REBALANCE_LOCK_KEY);
+    }
+
+    private static Set<String> allShards(List<String> shardNames, @Nullable List<String> previousShardNames) {
+        Set<String> allShards = new LinkedHashSet<>(shardNames);
+        if (previousShardNames != null) {
+            allShards.addAll(previousShardNames);
+        }
+        return allShards;
+    }
+
+    private static JdbcUrlMappingRepository jdbcUrlMappingRepository(
+            String shardName, ApplicationContext applicationContext, DataSourceResolver dataSourceResolver) {
+        DataSource dataSource = dataSourceResolver.resolve(
+                applicationContext.getBean(DataSource.class, Qualifiers.byName(shardName)));
+        return new JdbcUrlMappingRepository(dataSource);
+    }
+}
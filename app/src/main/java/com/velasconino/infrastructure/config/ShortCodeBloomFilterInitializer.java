@@ -0,0 +1,62 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.infrastructure.adapters.output.ShortCodeBloomFilter;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingRepository;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.context.event.StartupEvent;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Populates the short code Bloom filter from the url_mapping table at startup.
+ * The table is walked in keyset-paginated batches so memory use does not grow with its size.
+ * If loading fails the filter is left unpopulated and every lookup keeps reaching the database.
+ */
+@Singleton
+@Requires(beans = ShortCodeBloomFilter.class)
+public class ShortCodeBloomFilterInitializer implements ApplicationEventListener<StartupEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShortCodeBloomFilterInitializer.class);
+
+    private final ShortCodeBloomFilter filter;
+    private final UrlMappingRepository urlMappingRepository;
+    private final int batchSize;
+
+    public ShortCodeBloomFilterInitializer(
+            ShortCodeBloomFilter filter,
+            UrlMappingRepository urlMappingRepository,
+            @Value("${url.shortener.bloom-filter.load-batch-size:10000}") int batchSize) {
+        this.filter = filter;
+        this.urlMappingRepository = urlMappingRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onApplicationEvent(StartupEvent event) {
+        try {
+            long loaded = 0;
+            long lastId = 0;
+            List<Long> batch;
+            do {
+                batch = urlMappingRepository.findIdsAfter(lastId, batchSize);
+                batch.forEach(id -> filter.add(ShortCodeCodec.decode(id)));
+                loaded += batch.size();
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1);
+                }
+            } while (batch.size() == batchSize);
+
+            filter.markPopulated();
+            LOG.info("Loaded {} short codes into the Bloom filter ({} bytes)", loaded, filter.memoryBytes());
+        } catch (RuntimeException e) {
+            LOG.error("Failed to load short codes into the Bloom filter, lookups will not be filtered", e);
+        }
+    }
+}
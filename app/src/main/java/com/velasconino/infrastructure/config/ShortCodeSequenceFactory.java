@@ -0,0 +1,44 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.IdBlockAllocator;
+import com.velasconino.infrastructure.adapters.output.PostgresIdBlockAllocator;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.jdbc.DataSourceResolver;
+import jakarta.inject.Singleton;
+
+import javax.sql.DataSource;
+
+/**
+ * Factory for the ID blocks of sequence-generated short codes, which need a PostgreSQL sequence
+ * shared by every node and so are not available with {@code memory} or {@code mapped} storage.
+ */
+@Factory
+@Requires(property = "url.shortener.code-generation", value = "sequence")
+@Requires(property = "url.shortener.storage.type", notEquals = "memory")
+@Requires(property = "url.shortener.storage.type", notEquals = "mapped")
+public class ShortCodeSequenceFactory {
+
+    /**
+     * Creates the allocator taking blocks of IDs from the sequence of one database.
+     * With sharded storage the sequence must stay in the same database while shards are added
+     * or removed, so it is not tied to any of the shards.
+     *
+     * @param applicationContext The context the datasource is looked up in
+     * @param dataSourceResolver Unwraps the datasource from Micronaut's transaction management
+     * @param dataSourceName The name of the datasource under {@code datasources} holding the sequence
+     * @return An allocator over the sequence
+     */
+    @Singleton
+    public IdBlockAllocator idBlockAllocator(
+            ApplicationContext applicationContext,
+            DataSourceResolver dataSourceResolver,
+            @Value("${url.shortener.sequence.datasource:default}") String dataSourceName) {
+        return new PostgresIdBlockAllocator(dataSourceResolver.resolve(
+                applicationContext.getBean(DataSource.class, Qualifiers.byName(dataSourceName))));
+    }
+}
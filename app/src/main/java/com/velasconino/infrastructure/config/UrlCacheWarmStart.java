@@ -0,0 +1,108 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.infrastructure.adapters.output.CachingUrlRepository;
+import com.velasconino.infrastructure.adapters.output.UrlCacheSnapshotFile;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingEntity;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingRepository;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ShutdownEvent;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Warms the URL mapping cache across restarts.
+ * At shutdown the hottest cached mappings are written to a local snapshot file; at startup,
+ * before the server accepts requests, they are loaded back into the cache. Without a usable
+ * snapshot the most recently created mappings are loaded instead. Mappings never change once
+ * saved, so a snapshot cannot serve a stale URL; links that expire are left out of it so they
+ * cannot outlive their expiry. Failures are logged and leave the cache cold.
+ */
+@Singleton
+@Requires(beans = CachingUrlRepository.class)
+@Requires(property = "url.shortener.cache.warm-start.enabled", value = "true", defaultValue = "true")
+public class UrlCacheWarmStart {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UrlCacheWarmStart.class);
+
+    private final CachingUrlRepository cache;
+    private final UrlMappingRepository urlMappingRepository;
+    private final UrlCacheSnapshotFile snapshotFile;
+    private final int size;
+
+    public UrlCacheWarmStart(
+            CachingUrlRepository cache,
+            UrlMappingRepository urlMappingRepository,
+            @Value("${url.shortener.cache.warm-start.snapshot-path:url-cache.snapshot}") Path snapshotPath,
+            @Value("${url.shortener.cache.warm-start.size:10000}") int size) {
+        this.cache = cache;
+        this.urlMappingRepository = urlMappingRepository;
+        this.snapshotFile = new UrlCacheSnapshotFile(snapshotPath);
+        this.size = size;
+    }
+
+    @EventListener
+    public void onStartup(StartupEvent event) {
+        Optional<Map<String, String>> snapshot = readSnapshot();
+        if (snapshot.isPresent()) {
+            cache.preload(snapshot.get());
+            LOG.info("Warmed the URL cache with {} mappings from {}", snapshot.get().size(), snapshotFile.path());
+            return;
+        }
+
+        try {
+            Map<String, String> recentMappings = new LinkedHashMap<>();
+            for (UrlMappingEntity entity : urlMappingRepository.findMostRecent(size)) {
+                recentMappings.put(entity.getShortCode(), entity.getOriginalUrl());
+            }
+            cache.preload(recentMappings);
+            LOG.info("Warmed the URL cache with the {} most recent mappings", recentMappings.size());
+        } catch (RuntimeException e) {
+            LOG.error("Failed to warm the URL cache, it starts cold", e);
+        }
+    }
+
+    @EventListener
+    public void onShutdown(ShutdownEvent event) {
+        Map<String, String> hottest = cache.hottest(size);
+        try {
+            snapshotFile.write(hottest);
+            LOG.info("Wrote {} hot mappings to {}", hottest.size(), snapshotFile.path());
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Failed to write the URL cache snapshot to {}", snapshotFile.path(), e);
+        }
+    }
+
+    private Optional<Map<String, String>> readSnapshot() {
+        try {
+            return snapshotFile.read().map(mappings -> limit(mappings, size));
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ignoring unreadable URL cache snapshot {}", snapshotFile.path(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static Map<String, String> limit(Map<String, String> mappings, int size) {
+        if (mappings.size() <= size) {
+            return mappings;
+        }
+        Map<String, String> limited = LinkedHashMap.newLinkedHashMap(size);
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            if (limited.size() == size) {
+                break;
+            }
+            limited.put(mapping.getKey(), mapping.getValue());
+        }
+        return limited;
+    }
+}
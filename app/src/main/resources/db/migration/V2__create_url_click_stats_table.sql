@@ -0,0 +1,7 @@
+CREATE TABLE url_click_stats (
+    short_code VARCHAR(32) NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    user_agent_class VARCHAR(16) NOT NULL,
+    clicks BIGINT NOT NULL,
+    PRIMARY KEY (short_code, bucket_start, user_agent_class)
+);
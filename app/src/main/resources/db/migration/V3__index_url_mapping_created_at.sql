@@ -0,0 +1 @@
+CREATE INDEX url_mapping_created_at_idx ON url_mapping (created_at);
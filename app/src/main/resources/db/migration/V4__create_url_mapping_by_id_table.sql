@@ -0,0 +1,9 @@
+-- Expand: short codes move to a BIGINT key holding their base-62 value (see ShortCodeCodec).
+-- The old table keeps serving until V5; scripts/backfill_url_mapping_id.sql copies its rows
+-- in batches in between, so that V5 has little left to copy.
+CREATE TABLE url_mapping_v2 (
+    id BIGINT NOT NULL,
+    original_url TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT url_mapping_v2_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,32 @@
+-- Backfill and contract: copy the rows not copied yet and swap the tables.
+-- A short code is left-padded to ten characters with a character outside the alphabet, whose
+-- position is 0, so that the Horner evaluation below gives the bijective base-62 value of
+-- ShortCodeCodec: each character counts as its position in the alphabet, starting at 1.
+-- Short codes that cannot be encoded, found by mapping the whole alphabet to 'A', are not copied
+-- and stay in url_mapping_legacy.
+INSERT INTO url_mapping_v2 (id, original_url, created_at)
+SELECT
+    ((((((((CAST(POSITION(SUBSTRING(padded FROM 1 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789') AS BIGINT)
+        * 62 + POSITION(SUBSTRING(padded FROM 2 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789'))
+        * 62 + POSITION(SUBSTRING(padded FROM 3 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789'))
+        * 62 + POSITION(SUBSTRING(padded FROM 4 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789'))
+        * 62 + POSITION(SUBSTRING(padded FROM 5 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789'))
+        * 62 + POSITION(SUBSTRING(padded FROM 6 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789'))
+        * 62 + POSITION(SUBSTRING(padded FROM 7 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789'))
+        * 62 + POSITION(SUBSTRING(padded FROM 8 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789'))
+        * 62 + POSITION(SUBSTRING(padded FROM 9 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789'))
+        * 62 + POSITION(SUBSTRING(padded FROM 10 FOR 1) IN 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789') AS id,
+    original_url,
+    created_at
+FROM (
+    SELECT LPAD(short_code, 10, '-') AS padded, original_url, created_at
+    FROM url_mapping
+    WHERE CHAR_LENGTH(short_code) BETWEEN 1 AND 10
+      AND TRANSLATE(short_code, 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789', REPEAT('A', 62)) = REPEAT('A', CHAR_LENGTH(short_code))
+) AS encodable
+ON CONFLICT DO NOTHING;
+
+ALTER TABLE url_mapping RENAME TO url_mapping_legacy;
+DROP INDEX url_mapping_created_at_idx;
+ALTER TABLE url_mapping_v2 RENAME TO url_mapping;
+CREATE INDEX url_mapping_created_at_idx ON url_mapping (created_at);
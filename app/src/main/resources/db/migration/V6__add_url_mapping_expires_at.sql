@@ -0,0 +1,4 @@
+-- Optional expiry of a link. Expired links are treated as not found and purged in the background,
+-- in batches walked through this index in (expires_at, id) order.
+ALTER TABLE url_mapping ADD COLUMN expires_at TIMESTAMP WITH TIME ZONE;
+CREATE INDEX url_mapping_expires_at_idx ON url_mapping (expires_at, id);
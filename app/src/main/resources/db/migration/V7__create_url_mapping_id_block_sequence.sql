@@ -0,0 +1,3 @@
+-- Blocks of IDs for sequence-generated short codes (see HiLoIdGenerator). Each value stands for
+-- url.shortener.sequence.block-size IDs, so a node only calls nextval once per block.
+CREATE SEQUENCE url_mapping_id_block_seq START WITH 1 INCREMENT BY 1;
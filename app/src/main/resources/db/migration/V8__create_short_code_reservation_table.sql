@@ -0,0 +1,8 @@
+-- Short codes claimed by the code pool of a running node (see ReservedShortCodePool), so no two
+-- nodes hand out the same one. Rows are deleted once their code is taken or their node stops.
+CREATE TABLE short_code_reservation (
+    id BIGINT NOT NULL,
+    pool_id VARCHAR(36) NOT NULL,
+    reserved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT short_code_reservation_pkey PRIMARY KEY (id)
+);
@@ -19,4 +19,13 @@ class ShortCodeQueryTest {
             .isInstanceOf(InvalidShortCodeException.class)
             .hasMessageContaining("Short code cannot be null or empty");
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc-123", "café", "ABCDEFGHIJK"})
+    void shouldThrowExceptionWhenShortCodeCannotBeEncoded(String shortCode) {
+        // Then
+        assertThatThrownBy(() -> new ShortCodeQuery(shortCode))
+            .isInstanceOf(InvalidShortCodeException.class)
+            .hasMessageContaining("letters and digits");
+    }
 }
@@ -1,6 +1,7 @@
 package com.velasconino.application.ports.input;
 
 import com.velasconino.application.exceptions.EmptyUrlException;
+import com.velasconino.application.exceptions.InvalidExpiryException;
 import com.velasconino.application.exceptions.InvalidUrlException;
 
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
 import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -42,7 +47,9 @@ class ShortenUrlCommandTest {
         "https://",
         "ftp://",
         "example.com",
-        "www.example.com"
+        "www.example.com",
+        "https://example.com/a b",
+        "https://example.com/%zz"
     })
     void shouldThrowInvalidUrlExceptionWhenUrlIsInvalid(String invalidUrl) {
         assertThatThrownBy(() -> new ShortenUrlCommand(invalidUrl))
@@ -56,7 +63,9 @@ class ShortenUrlCommandTest {
         "http://example.com/path",
         "https://subdomain.example.com/path?query=value",
         "ftp://ftp.example.com/files",
-        "https://example.com/path/to/resource#fragment"
+        "https://example.com/path/to/resource#fragment",
+        "https://bücher.example/straße",
+        "https://example.com/search?q=caf%C3%A9"
     })
     void shouldAcceptValidUrls(String validUrl) {
         // When
@@ -65,4 +74,46 @@ class ShortenUrlCommandTest {
         // Then
         assertThat(command.url()).isEqualTo(validUrl);
     }
-} 
\ No newline at end of file
+    
+    @Test
+    void shouldExposeParsedComponents() {
+        // When
+        ShortenUrlCommand command = new ShortenUrlCommand("https://example.com:8443/path?query=value");
+        
+        // Then
+        assertThat(command.parsedUrl().host()).isEqualTo("example.com");
+        assertThat(command.parsedUrl().port()).isEqualTo(8443);
+        assertThat(command.parsedUrl().path()).isEqualTo("/path");
+        assertThat(command.parsedUrl().query()).isEqualTo("query=value");
+    }
+    
+    @Test
+    void shouldThrowInvalidUrlExceptionWhenUrlIsTooLong() {
+        // Given
+        String longUrl = "https://example.com/" + "a".repeat(100);
+        
+        // When/Then
+        assertThatThrownBy(() -> new ShortenUrlCommand(longUrl, 50))
+            .isInstanceOf(InvalidUrlException.class)
+            .hasMessage("URL cannot be longer than 50 characters");
+    }
+    
+    @Test
+    void shouldKeepTheExpiryToWholeSeconds() {
+        // Given
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(1)).plusMillis(250);
+        
+        // When
+        ShortenUrlCommand command = new ShortenUrlCommand(aUniqueUrl(), 2048, expiresAt);
+        
+        // Then
+        assertThat(command.expiresAt()).isEqualTo(expiresAt.truncatedTo(ChronoUnit.SECONDS));
+    }
+    
+    @Test
+    void shouldThrowInvalidExpiryExceptionWhenExpiryIsNotInTheFuture() {
+        // When/Then
+        assertThatThrownBy(() -> new ShortenUrlCommand(aUniqueUrl(), 2048, Instant.now().minusSeconds(1)))
+            .isInstanceOf(InvalidExpiryException.class);
+    }
+}
@@ -3,14 +3,29 @@ package com.velasconino.application.usecases;
 import com.velasconino.application.exceptions.InvalidUrlException;
 import com.velasconino.application.exceptions.UrlShorteningCollisionException;
 import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.ShortenUrlResult;
 import com.velasconino.application.ports.input.UrlShortenedResponse;
 import com.velasconino.domain.HashBasedAlphanumericShortener;
+import com.velasconino.domain.UrlMapping;
 import com.velasconino.infrastructure.adapters.output.InMemoryUrlRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,8 +38,9 @@ class AlphanumericHashBasedShortenUrlUseCaseTest {
     private static final String BASE_SHORT_URL = "https://myshortener.com/";
     
     private final InMemoryUrlRepository urlRepository = new InMemoryUrlRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     private final AlphanumericHashBasedShortenUrlUseCase useCase = new AlphanumericHashBasedShortenUrlUseCase(
-        urlRepository, INITIAL_CODE_LENGTH, MAX_CODE_LENGTH_INCREASE, BASE_SHORT_URL);
+        urlRepository, meterRegistry, INITIAL_CODE_LENGTH, MAX_CODE_LENGTH_INCREASE, BASE_SHORT_URL);
 
     @Test
     void shouldShortenUrlAndReturnResponse() {
@@ -150,6 +166,204 @@ class AlphanumericHashBasedShortenUrlUseCaseTest {
             .hasMessageContaining("Could not generate a unique short code within the maximum allowed length increase");
     }
 
+    @Test
+    void shouldLookUpLongerCandidateCodesInOneRepositoryCall() {
+        // Given
+        AtomicInteger batchLookups = new AtomicInteger();
+        AtomicInteger singleLookups = new AtomicInteger();
+        InMemoryUrlRepository countingRepository = new InMemoryUrlRepository() {
+            @Override
+            public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+                singleLookups.incrementAndGet();
+                return super.findOriginalUrlByShortCode(shortCode);
+            }
+            
+            @Override
+            public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+                batchLookups.incrementAndGet();
+                assertThat(shortCodes).hasSize(MAX_CODE_LENGTH_INCREASE);
+                return super.findOriginalUrlsByShortCodes(shortCodes);
+            }
+        };
+        AlphanumericHashBasedShortenUrlUseCase countingUseCase = new AlphanumericHashBasedShortenUrlUseCase(
+            countingRepository, meterRegistry, INITIAL_CODE_LENGTH, MAX_CODE_LENGTH_INCREASE, BASE_SHORT_URL);
+        String url = aUniqueUrl();
+        HashBasedAlphanumericShortener shortener = new HashBasedAlphanumericShortener(url);
+        
+        // Collide on the first two candidate lengths
+        countingRepository.save(shortener.generateShortCode(INITIAL_CODE_LENGTH), aUniqueUrl());
+        countingRepository.save(shortener.generateShortCode(INITIAL_CODE_LENGTH + 1), aUniqueUrl());
+        
+        // When
+        UrlShortenedResponse response = countingUseCase.shortenUrl(new ShortenUrlCommand(url));
+        
+        // Then
+        assertThat(response.shortCode()).hasSize(INITIAL_CODE_LENGTH + 2);
+        assertThat(batchLookups.get()).isEqualTo(1);
+        assertThat(singleLookups.get()).isZero();
+    }
+
+    @Test
+    void shouldRecordTheTimeAndCandidateCodesTriedPerShortenedUrl() {
+        // Given
+        String collidingUrl = aUniqueUrl();
+        HashBasedAlphanumericShortener shortener = new HashBasedAlphanumericShortener(collidingUrl);
+        urlRepository.save(shortener.generateShortCode(INITIAL_CODE_LENGTH), aUniqueUrl());
+        
+        // When
+        useCase.shortenUrl(new ShortenUrlCommand(aUniqueUrl()));
+        useCase.shortenUrl(new ShortenUrlCommand(collidingUrl));
+        
+        // Then
+        DistributionSummary attempts = meterRegistry.get("url.shortener.shorten.attempts").summary();
+        assertThat(attempts.count()).isEqualTo(2);
+        assertThat(attempts.totalAmount()).isEqualTo(3);
+        assertThat(attempts.max()).isEqualTo(2);
+        assertThat(meterRegistry.get("url.shortener.use-case").tag("use-case", "shorten").timer().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void shouldClaimFreeInitialCodeWithoutAnyLookup() {
+        // Given
+        AtomicInteger lookups = new AtomicInteger();
+        InMemoryUrlRepository countingRepository = new InMemoryUrlRepository() {
+            @Override
+            public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+                lookups.incrementAndGet();
+                return super.findOriginalUrlByShortCode(shortCode);
+            }
+            
+            @Override
+            public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+                lookups.incrementAndGet();
+                return super.findOriginalUrlsByShortCodes(shortCodes);
+            }
+        };
+        AlphanumericHashBasedShortenUrlUseCase countingUseCase = new AlphanumericHashBasedShortenUrlUseCase(
+            countingRepository, meterRegistry, INITIAL_CODE_LENGTH, MAX_CODE_LENGTH_INCREASE, BASE_SHORT_URL);
+        
+        // When
+        UrlShortenedResponse response = countingUseCase.shortenUrl(new ShortenUrlCommand(aUniqueUrl()));
+        
+        // Then
+        assertThat(response.shortCode()).hasSize(INITIAL_CODE_LENGTH);
+        assertThat(lookups.get()).isZero();
+    }
+
+    @Test
+    void shouldGiveEveryConcurrentRequestADistinctWorkingCode() throws Exception {
+        // Given - many threads shortening a small set of URLs, several of them colliding
+        int threads = 16;
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            urls.add(aUniqueUrl());
+        }
+        String collidingUrl = aUniqueUrl();
+        urls.add(collidingUrl);
+        HashBasedAlphanumericShortener collidingShortener = new HashBasedAlphanumericShortener(collidingUrl);
+        urlRepository.save(collidingShortener.generateShortCode(INITIAL_CODE_LENGTH), aUniqueUrl());
+        
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<UrlShortenedResponse>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < 500; i++) {
+                String url = urls.get(i % urls.size());
+                Callable<UrlShortenedResponse> shorten = () -> useCase.shortenUrl(new ShortenUrlCommand(url));
+                responses.add(executor.submit(shorten));
+            }
+            
+            // Then - each URL always gets the same code, and that code resolves to it
+            for (int i = 0; i < responses.size(); i++) {
+                String url = urls.get(i % urls.size());
+                String shortCode = responses.get(i).get().shortCode();
+                assertThat(urlRepository.findOriginalUrlByShortCode(shortCode)).contains(url);
+                assertThat(shortCode).isEqualTo(responses.get(i % urls.size()).get().shortCode());
+            }
+            assertThat(responses.get(urls.size() - 1).get().shortCode()).hasSize(INITIAL_CODE_LENGTH + 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldShortenBatchWithOneLookupAndOneInsert() {
+        // Given
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicInteger inserts = new AtomicInteger();
+        InMemoryUrlRepository countingRepository = new InMemoryUrlRepository() {
+            @Override
+            public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+                lookups.incrementAndGet();
+                return super.findOriginalUrlsByShortCodes(shortCodes);
+            }
+            
+            @Override
+            public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+                inserts.incrementAndGet();
+                return super.insertAllIfAbsent(mappings);
+            }
+        };
+        AlphanumericHashBasedShortenUrlUseCase countingUseCase = new AlphanumericHashBasedShortenUrlUseCase(
+            countingRepository, meterRegistry, INITIAL_CODE_LENGTH, MAX_CODE_LENGTH_INCREASE, BASE_SHORT_URL);
+        String firstUrl = aUniqueUrl();
+        String secondUrl = aUniqueUrl();
+        
+        // When - the first URL appears twice in the batch
+        List<ShortenUrlResult> results = countingUseCase.shortenUrls(List.of(
+            new ShortenUrlCommand(firstUrl), new ShortenUrlCommand(secondUrl), new ShortenUrlCommand(firstUrl)));
+        
+        // Then
+        assertThat(results).hasSize(3).allMatch(ShortenUrlResult::isSuccess);
+        assertThat(results.get(0).response().shortCode()).isEqualTo(results.get(2).response().shortCode());
+        assertThat(countingRepository.findOriginalUrlByShortCode(results.get(0).response().shortCode()))
+            .contains(firstUrl);
+        assertThat(countingRepository.findOriginalUrlByShortCode(results.get(1).response().shortCode()))
+            .contains(secondUrl);
+        assertThat(lookups.get()).isEqualTo(1);
+        assertThat(inserts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldGiveLongerCodeInBatchWhenInitialCodeIsTaken() {
+        // Given
+        String url = aUniqueUrl();
+        HashBasedAlphanumericShortener shortener = new HashBasedAlphanumericShortener(url);
+        urlRepository.save(shortener.generateShortCode(INITIAL_CODE_LENGTH), aUniqueUrl());
+        
+        // When
+        List<ShortenUrlResult> results = useCase.shortenUrls(List.of(new ShortenUrlCommand(url)));
+        
+        // Then
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.response().shortCode())
+                .isEqualTo(shortener.generateShortCode(INITIAL_CODE_LENGTH + 1));
+        });
+    }
+
+    @Test
+    void shouldReportCollisionOnlyForTheUrlWithoutFreeCandidateInBatch() {
+        // Given - every candidate code of one URL is taken
+        String collidingUrl = aUniqueUrl();
+        String otherUrl = aUniqueUrl();
+        new HashBasedAlphanumericShortener(collidingUrl)
+            .generateShortCodes(INITIAL_CODE_LENGTH, INITIAL_CODE_LENGTH + MAX_CODE_LENGTH_INCREASE)
+            .forEach(shortCode -> urlRepository.save(shortCode, aUniqueUrl()));
+        
+        // When
+        List<ShortenUrlResult> results = useCase.shortenUrls(List.of(
+            new ShortenUrlCommand(collidingUrl), new ShortenUrlCommand(otherUrl)));
+        
+        // Then
+        assertThat(results.get(0).isSuccess()).isFalse();
+        assertThat(results.get(0).error()).isInstanceOf(UrlShorteningCollisionException.class);
+        assertThat(results.get(1).isSuccess()).isTrue();
+        assertThat(urlRepository.findOriginalUrlByShortCode(results.get(1).response().shortCode()))
+            .contains(otherUrl);
+    }
+
     @Test
     void shouldThrowInvalidUrlExceptionWhenCommandHasInvalidUrl() {
         // Given an invalid URL
@@ -161,6 +375,14 @@ class AlphanumericHashBasedShortenUrlUseCaseTest {
             .hasMessageContaining("Invalid URL format");
     }
 
+    @Test
+    void shouldRejectCodeLengthsThatCannotBeStoredAsIntegers() {
+        // When / Then
+        assertThatThrownBy(() -> new AlphanumericHashBasedShortenUrlUseCase(
+                urlRepository, meterRegistry, INITIAL_CODE_LENGTH, 3, BASE_SHORT_URL))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
     /**
      * Creates a short URL by forcing collisions with existing short codes.
      * This method simulates the scenario where the URL shortener needs to generate
@@ -181,7 +403,7 @@ class AlphanumericHashBasedShortenUrlUseCaseTest {
     private UrlShortenedResponse createShortUrlWithForcedCollision(String longUrl, List<String> existingShortCodes) {
         // Create a test implementation that will generate collisions with existing codes
         AlphanumericHashBasedShortenUrlUseCase collisionTestUseCase = new AlphanumericHashBasedShortenUrlUseCase(
-            urlRepository, INITIAL_CODE_LENGTH, MAX_CODE_LENGTH_INCREASE, BASE_SHORT_URL) {
+            urlRepository, meterRegistry, INITIAL_CODE_LENGTH, MAX_CODE_LENGTH_INCREASE, BASE_SHORT_URL) {
             @Override
             public UrlShortenedResponse shortenUrl(ShortenUrlCommand command) {
                 // Create a shortener for the URL
@@ -205,4 +427,43 @@ class AlphanumericHashBasedShortenUrlUseCaseTest {
         // This should detect the collisions and create a longer code
         return collisionTestUseCase.shortenUrl(new ShortenUrlCommand(longUrl));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void shouldNotShareShortCodesBetweenLinksThatExpireAndLinksThatDoNot() {
+        // Given
+        String url = aUniqueUrl();
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(1));
+        
+        // When
+        UrlShortenedResponse permanent = useCase.shortenUrl(new ShortenUrlCommand(url));
+        UrlShortenedResponse expiring = useCase.shortenUrl(new ShortenUrlCommand(url, 2048, expiresAt));
+        UrlShortenedResponse expiringAgain = useCase.shortenUrl(new ShortenUrlCommand(url, 2048, expiresAt));
+        
+        // Then
+        assertThat(expiring.shortCode()).isNotEqualTo(permanent.shortCode());
+        assertThat(expiringAgain.shortCode()).isEqualTo(expiring.shortCode());
+        assertThat(urlRepository.findMappingByShortCode(permanent.shortCode()))
+            .contains(UrlMapping.permanent(url));
+        assertThat(urlRepository.findMappingByShortCode(expiring.shortCode()))
+            .contains(new UrlMapping(url, expiresAt.truncatedTo(ChronoUnit.SECONDS)));
+    }
+
+    @Test
+    void shouldShortenLinksThatExpireOneByOneInBatches() {
+        // Given
+        String permanentUrl = aUniqueUrl();
+        String expiringUrl = aUniqueUrl();
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(1));
+        
+        // When
+        List<ShortenUrlResult> results = useCase.shortenUrls(List.of(
+            new ShortenUrlCommand(permanentUrl), new ShortenUrlCommand(expiringUrl, 2048, expiresAt)));
+        
+        // Then
+        assertThat(results).hasSize(2).allMatch(ShortenUrlResult::isSuccess);
+        assertThat(urlRepository.findMappingByShortCode(results.get(0).response().shortCode()))
+            .contains(UrlMapping.permanent(permanentUrl));
+        assertThat(urlRepository.findMappingByShortCode(results.get(1).response().shortCode()))
+            .hasValueSatisfying(mapping -> assertThat(mapping.expiresAt()).isNotNull());
+    }
+}
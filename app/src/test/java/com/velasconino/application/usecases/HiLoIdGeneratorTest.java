@@ -0,0 +1,85 @@
+package com.velasconino.application.usecases;
+
+import com.velasconino.application.ports.output.IdBlockAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HiLoIdGeneratorTest {
+
+    private final CountingIdBlockAllocator allocator = new CountingIdBlockAllocator();
+
+    @Test
+    void shouldHandOutTheIdsOfABlockBeforeAllocatingTheNext() {
+        // Given
+        HiLoIdGenerator generator = new HiLoIdGenerator(allocator, 3);
+
+        // When
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(generator.nextId());
+        }
+
+        // Then
+        assertThat(ids).containsExactly(3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(allocator.blocks.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotHandOutTheSameIdTwiceToConcurrentCallers() throws Exception {
+        // Given
+        HiLoIdGenerator generator = new HiLoIdGenerator(allocator, 10);
+        List<Callable<List<Long>>> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            callers.add(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int j = 0; j < 1_000; j++) {
+                    ids.add(generator.nextId());
+                }
+                return ids;
+            });
+        }
+
+        // When
+        Set<Long> ids = new HashSet<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<List<Long>> future : executor.invokeAll(callers)) {
+                ids.addAll(future.get());
+            }
+        }
+
+        // Then
+        assertThat(ids).hasSize(8_000);
+        assertThat(allocator.blocks.get()).isEqualTo(800);
+    }
+
+    @Test
+    void shouldRejectEmptyBlocks() {
+        assertThatThrownBy(() -> new HiLoIdGenerator(allocator, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Allocator counting blocks from 1, like a fresh sequence.
+     */
+    private static class CountingIdBlockAllocator implements IdBlockAllocator {
+
+        private final AtomicLong blocks = new AtomicLong();
+
+        @Override
+        public long nextBlock() {
+            return blocks.incrementAndGet();
+        }
+    }
+}
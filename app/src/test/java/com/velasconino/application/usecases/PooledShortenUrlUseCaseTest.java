@@ -0,0 +1,131 @@
+package com.velasconino.application.usecases;
+
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.ShortenUrlResult;
+import com.velasconino.application.ports.input.UrlShortenedResponse;
+import com.velasconino.application.ports.output.ShortCodePool;
+import com.velasconino.domain.HashBasedAlphanumericShortener;
+import com.velasconino.infrastructure.adapters.output.InMemoryUrlRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledShortenUrlUseCaseTest {
+
+    private static final int INITIAL_CODE_LENGTH = 8;
+    private static final String BASE_SHORT_URL = "https://myshortener.com/";
+
+    private final Queue<String> pooledShortCodes = new ArrayDeque<>();
+    private final ShortCodePool pool = () -> Optional.ofNullable(pooledShortCodes.poll());
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final InMemoryUrlRepository urlRepository = new InMemoryUrlRepository() {
+        @Override
+        public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+            lookups.incrementAndGet();
+            return super.findOriginalUrlsByShortCodes(shortCodes);
+        }
+    };
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PooledShortenUrlUseCase useCase = new PooledShortenUrlUseCase(
+        urlRepository, pool, meterRegistry, INITIAL_CODE_LENGTH, 2, BASE_SHORT_URL);
+
+    @Test
+    void shouldGiveTheUrlThePooledCodeWithoutAnyLookup() {
+        // Given
+        String pooledShortCode = aUniqueShortCode();
+        pooledShortCodes.add(pooledShortCode);
+        String url = aUniqueUrl();
+
+        // When
+        UrlShortenedResponse response = useCase.shortenUrl(new ShortenUrlCommand(url));
+
+        // Then
+        assertThat(response.shortCode()).isEqualTo(pooledShortCode);
+        assertThat(urlRepository.findOriginalUrlByShortCode(pooledShortCode)).contains(url);
+        assertThat(lookups.get()).isZero();
+        assertThat(meterRegistry.get("url.shortener.use-case").tag("use-case", "shorten").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipPooledCodesMappedSinceTheyWereReserved() {
+        // Given
+        String mappedShortCode = aUniqueShortCode();
+        String freeShortCode = aUniqueShortCode();
+        urlRepository.save(mappedShortCode, aUniqueUrl());
+        pooledShortCodes.addAll(List.of(mappedShortCode, freeShortCode));
+
+        // When
+        UrlShortenedResponse response = useCase.shortenUrl(new ShortenUrlCommand(aUniqueUrl()));
+
+        // Then
+        assertThat(response.shortCode()).isEqualTo(freeShortCode);
+    }
+
+    @Test
+    void shouldFallBackToHashingWhenThePoolRunsDry() {
+        // Given
+        String url = aUniqueUrl();
+
+        // When
+        UrlShortenedResponse response = useCase.shortenUrl(new ShortenUrlCommand(url));
+
+        // Then
+        assertThat(response.shortCode())
+            .isEqualTo(new HashBasedAlphanumericShortener(url).generateShortCode(INITIAL_CODE_LENGTH));
+        assertThat(urlRepository.findOriginalUrlByShortCode(response.shortCode())).contains(url);
+    }
+
+    @Test
+    void shouldStoreLinksThatExpireUnderPooledCodes() {
+        // Given
+        String pooledShortCode = aUniqueShortCode();
+        pooledShortCodes.add(pooledShortCode);
+
+        // When
+        UrlShortenedResponse response = useCase.shortenUrl(
+            new ShortenUrlCommand(aUniqueUrl(), 2048, Instant.now().plus(Duration.ofDays(1))));
+
+        // Then
+        assertThat(response.shortCode()).isEqualTo(pooledShortCode);
+        assertThat(urlRepository.findMappingByShortCode(pooledShortCode))
+            .hasValueSatisfying(mapping -> assertThat(mapping.expiresAt()).isNotNull());
+    }
+
+    @Test
+    void shouldHashTheRestOfABatchOnceThePoolRunsDry() {
+        // Given
+        String pooledShortCode = aUniqueShortCode();
+        pooledShortCodes.add(pooledShortCode);
+        String pooledUrl = aUniqueUrl();
+        String hashedUrl = aUniqueUrl();
+        String expiringUrl = aUniqueUrl();
+
+        // When
+        List<ShortenUrlResult> results = useCase.shortenUrls(List.of(
+            new ShortenUrlCommand(pooledUrl),
+            new ShortenUrlCommand(hashedUrl),
+            new ShortenUrlCommand(expiringUrl, 2048, Instant.now().plus(Duration.ofDays(1)))));
+
+        // Then
+        assertThat(results).hasSize(3).allMatch(ShortenUrlResult::isSuccess);
+        assertThat(results.get(0).response().shortCode()).isEqualTo(pooledShortCode);
+        assertThat(results.get(1).response().shortCode())
+            .isEqualTo(new HashBasedAlphanumericShortener(hashedUrl).generateShortCode(INITIAL_CODE_LENGTH));
+        assertThat(urlRepository.findOriginalUrlByShortCode(results.get(2).response().shortCode()))
+            .contains(expiringUrl);
+    }
+}
@@ -0,0 +1,195 @@
+package com.velasconino.application.usecases;
+
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.ShortenUrlResult;
+import com.velasconino.application.ports.input.UrlShortenedResponse;
+import com.velasconino.application.ports.output.IdBlockAllocator;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.ShortCodePermutation;
+import com.velasconino.domain.UrlMapping;
+import com.velasconino.infrastructure.adapters.output.InMemoryUrlRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequenceBasedShortenUrlUseCaseTest {
+
+    private static final int BLOCK_SIZE = 100;
+    private static final int INITIAL_CODE_LENGTH = 8;
+    private static final String BASE_SHORT_URL = "https://myshortener.com/";
+
+    private final AtomicLong blocks = new AtomicLong();
+    private final IdBlockAllocator allocator = blocks::incrementAndGet;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountingUrlRepository urlRepository = new CountingUrlRepository();
+    private final SequenceBasedShortenUrlUseCase useCase = new SequenceBasedShortenUrlUseCase(
+        urlRepository, allocator, meterRegistry, BLOCK_SIZE, null, INITIAL_CODE_LENGTH, BASE_SHORT_URL);
+
+    @Test
+    void shouldGiveTheFirstUrlTheCodeOfTheFirstIdOfTheFirstBlock() {
+        // Given
+        String url = aUniqueUrl();
+
+        // When
+        UrlShortenedResponse response = useCase.shortenUrl(new ShortenUrlCommand(url));
+
+        // Then
+        assertThat(response.shortCode()).isEqualTo(ShortCodeCodec.decode(BLOCK_SIZE));
+        assertThat(response.shortUrl()).isEqualTo(BASE_SHORT_URL + response.shortCode());
+        assertThat(urlRepository.findOriginalUrlByShortCode(response.shortCode())).contains(url);
+    }
+
+    @Test
+    void shouldShortenWithASingleInsertAndNoLookup() {
+        // When
+        for (int i = 0; i < 3 * BLOCK_SIZE; i++) {
+            useCase.shortenUrl(new ShortenUrlCommand(aUniqueUrl()));
+        }
+
+        // Then
+        assertThat(urlRepository.inserts.get()).isEqualTo(3 * BLOCK_SIZE);
+        assertThat(urlRepository.lookups.get()).isZero();
+        assertThat(blocks.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldGiveTheSameUrlANewCodeEveryTime() {
+        // Given
+        String url = aUniqueUrl();
+
+        // When
+        String first = useCase.shortenUrl(new ShortenUrlCommand(url)).shortCode();
+        String second = useCase.shortenUrl(new ShortenUrlCommand(url)).shortCode();
+
+        // Then
+        assertThat(first).isNotEqualTo(second);
+        assertThat(urlRepository.findOriginalUrlByShortCode(second)).contains(url);
+    }
+
+    @Test
+    void shouldSkipIdsWhoseCodeIsAlreadyTaken() {
+        // Given
+        urlRepository.save(ShortCodeCodec.decode(BLOCK_SIZE), aUniqueUrl());
+        String url = aUniqueUrl();
+
+        // When
+        UrlShortenedResponse response = useCase.shortenUrl(new ShortenUrlCommand(url));
+
+        // Then
+        assertThat(response.shortCode()).isEqualTo(ShortCodeCodec.decode(BLOCK_SIZE + 1));
+        DistributionSummary attempts = meterRegistry.get("url.shortener.shorten.attempts").summary();
+        assertThat(attempts.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldScrambleCodesWithAKey() {
+        // Given
+        SequenceBasedShortenUrlUseCase scramblingUseCase = new SequenceBasedShortenUrlUseCase(
+            urlRepository, allocator, meterRegistry, BLOCK_SIZE, "secret", INITIAL_CODE_LENGTH, BASE_SHORT_URL);
+
+        // When
+        String shortCode = scramblingUseCase.shortenUrl(new ShortenUrlCommand(aUniqueUrl())).shortCode();
+
+        // Then
+        assertThat(shortCode).hasSize(INITIAL_CODE_LENGTH);
+        assertThat(new ShortCodePermutation("secret", INITIAL_CODE_LENGTH).idOf(shortCode)).isEqualTo(BLOCK_SIZE);
+    }
+
+    @Test
+    void shouldStoreTheExpiryOfLinksThatExpire() {
+        // Given
+        String url = aUniqueUrl();
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(1));
+
+        // When
+        UrlShortenedResponse response = useCase.shortenUrl(new ShortenUrlCommand(url, 2048, expiresAt));
+
+        // Then
+        assertThat(urlRepository.findMappingByShortCode(response.shortCode()))
+            .contains(new UrlMapping(url, expiresAt.truncatedTo(ChronoUnit.SECONDS)));
+    }
+
+    @Test
+    void shouldShortenBatchWithOneBulkInsert() {
+        // Given
+        String firstUrl = aUniqueUrl();
+        String secondUrl = aUniqueUrl();
+        String expiringUrl = aUniqueUrl();
+
+        // When
+        List<ShortenUrlResult> results = useCase.shortenUrls(List.of(
+            new ShortenUrlCommand(firstUrl),
+            new ShortenUrlCommand(secondUrl),
+            new ShortenUrlCommand(expiringUrl, 2048, Instant.now().plus(Duration.ofDays(1)))));
+
+        // Then
+        assertThat(results).hasSize(3).allMatch(ShortenUrlResult::isSuccess);
+        assertThat(urlRepository.bulkInserts.get()).isEqualTo(1);
+        assertThat(urlRepository.lookups.get()).isZero();
+        assertThat(urlRepository.findOriginalUrlByShortCode(results.get(0).response().shortCode())).contains(firstUrl);
+        assertThat(urlRepository.findOriginalUrlByShortCode(results.get(1).response().shortCode())).contains(secondUrl);
+        assertThat(urlRepository.findMappingByShortCode(results.get(2).response().shortCode()))
+            .hasValueSatisfying(mapping -> assertThat(mapping.expiresAt()).isNotNull());
+    }
+
+    @Test
+    void shouldShortenUrlsOfTheBatchWhoseCodeIsTakenOneByOne() {
+        // Given
+        urlRepository.save(ShortCodeCodec.decode(BLOCK_SIZE), aUniqueUrl());
+        String url = aUniqueUrl();
+
+        // When
+        List<ShortenUrlResult> results = useCase.shortenUrls(List.of(new ShortenUrlCommand(url)));
+
+        // Then
+        assertThat(results).singleElement().matches(ShortenUrlResult::isSuccess);
+        assertThat(urlRepository.findOriginalUrlByShortCode(results.get(0).response().shortCode())).contains(url);
+    }
+
+    /**
+     * In-memory repository that counts inserts and lookups.
+     */
+    private static class CountingUrlRepository extends InMemoryUrlRepository {
+
+        private final AtomicInteger inserts = new AtomicInteger();
+        private final AtomicInteger bulkInserts = new AtomicInteger();
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public String insertIfAbsent(String shortCode, String originalUrl) {
+            inserts.incrementAndGet();
+            return super.insertIfAbsent(shortCode, originalUrl);
+        }
+
+        @Override
+        public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+            bulkInserts.incrementAndGet();
+            return super.insertAllIfAbsent(mappings);
+        }
+
+        @Override
+        public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+            lookups.incrementAndGet();
+            return super.findOriginalUrlsByShortCodes(shortCodes);
+        }
+
+        @Override
+        public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+            lookups.incrementAndGet();
+            return super.findMappingByShortCode(shortCode);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.velasconino.application.usecases;
+
+import com.velasconino.application.exceptions.InvalidHotLinksQueryException;
+import com.velasconino.application.ports.input.HotLinksQuery;
+import com.velasconino.application.ports.output.HotLinkStatistics;
+import com.velasconino.domain.HotLink;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StandardFindHotLinksUseCaseTest {
+
+    private final StandardFindHotLinksUseCase useCase = new StandardFindHotLinksUseCase(new HotLinkStatistics() {
+        @Override
+        public List<HotLink> topLinks(Duration window, int limit) {
+            return List.of(new HotLink("abc", window.toMinutes(), limit));
+        }
+
+        @Override
+        public Duration retention() {
+            return Duration.ofHours(1);
+        }
+    });
+
+    @Test
+    @DisplayName("Should return the hot links of the requested window")
+    void shouldReturnHotLinksOfTheRequestedWindow() {
+        // When
+        List<HotLink> hotLinks = useCase.findHotLinks(new HotLinksQuery(Duration.ofMinutes(5), 10));
+
+        // Then
+        assertThat(hotLinks).containsExactly(new HotLink("abc", 5, 10));
+    }
+
+    @Test
+    @DisplayName("Should reject windows longer than the retention")
+    void shouldRejectWindowsLongerThanTheRetention() {
+        assertThatThrownBy(() -> useCase.findHotLinks(new HotLinksQuery(Duration.ofHours(2), 10)))
+            .isInstanceOf(InvalidHotLinksQueryException.class)
+            .hasMessageContaining("Window cannot be longer than");
+    }
+
+    @Test
+    @DisplayName("Should reject empty windows and out of range limits")
+    void shouldRejectEmptyWindowsAndOutOfRangeLimits() {
+        assertThatThrownBy(() -> new HotLinksQuery(Duration.ZERO, 10))
+            .isInstanceOf(InvalidHotLinksQueryException.class);
+        assertThatThrownBy(() -> new HotLinksQuery(Duration.ofMinutes(5), HotLinksQuery.MAX_LIMIT + 1))
+            .isInstanceOf(InvalidHotLinksQueryException.class);
+    }
+}
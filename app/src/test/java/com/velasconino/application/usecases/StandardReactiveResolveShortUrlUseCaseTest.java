@@ -0,0 +1,102 @@
+package com.velasconino.application.usecases;
+
+import com.velasconino.application.ports.input.ShortCodeQuery;
+import com.velasconino.domain.ClickEvent;
+import com.velasconino.domain.UrlMapping;
+import com.velasconino.infrastructure.adapters.output.InMemoryUrlRepository;
+import com.velasconino.infrastructure.adapters.output.OffloadingReactiveUrlRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StandardReactiveResolveShortUrlUseCaseTest {
+
+    private final InMemoryUrlRepository urlRepository = new InMemoryUrlRepository();
+    private final List<ClickEvent> clicks = new ArrayList<>();
+    private final StandardReactiveResolveShortUrlUseCase useCase = new StandardReactiveResolveShortUrlUseCase(
+        new OffloadingReactiveUrlRepository(urlRepository, Schedulers.immediate()), clicks::add, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("Should emit original URL when short code exists")
+    void shouldEmitOriginalUrlWhenShortCodeExists() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        urlRepository.save(shortCode, originalUrl);
+
+        // When
+        Optional<String> result = useCase.resolveShortUrl(new ShortCodeQuery(shortCode)).blockOptional();
+
+        // Then
+        assertThat(result).contains(originalUrl);
+    }
+
+    @Test
+    @DisplayName("Should complete empty when short code does not exist")
+    void shouldCompleteEmptyWhenShortCodeDoesNotExist() {
+        // When
+        Optional<String> result = useCase.resolveShortUrl(new ShortCodeQuery("unknown")).blockOptional();
+
+        // Then
+        assertThat(result).isEmpty();
+        assertThat(clicks).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should publish a click with the user agent when short code exists")
+    void shouldPublishClickWhenShortCodeExists() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        urlRepository.save(shortCode, aUniqueUrl());
+
+        // When
+        useCase.resolveShortUrl(new ShortCodeQuery(shortCode, "curl/8.5.0", "203.0.113.7")).block();
+
+        // Then
+        assertThat(clicks).singleElement().satisfies(click -> {
+            assertThat(click.shortCode()).isEqualTo(shortCode);
+            assertThat(click.userAgent()).isEqualTo("curl/8.5.0");
+        });
+    }
+
+    @Test
+    @DisplayName("Should complete empty without a click when the link has expired")
+    void shouldCompleteEmptyWhenLinkHasExpired() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        urlRepository.insertIfAbsent(shortCode, aUniqueUrl(), Instant.now().minusSeconds(1));
+
+        // When
+        Optional<String> result = useCase.resolveShortUrl(new ShortCodeQuery(shortCode)).blockOptional();
+
+        // Then
+        assertThat(result).isEmpty();
+        assertThat(clicks).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should emit the expiry of a link that expires")
+    void shouldEmitTheExpiryOfALinkThatExpires() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        Instant expiresAt = Instant.now().plusSeconds(60);
+        urlRepository.insertIfAbsent(shortCode, originalUrl, expiresAt);
+
+        // When
+        Optional<UrlMapping> result = useCase.resolveMapping(new ShortCodeQuery(shortCode)).blockOptional();
+
+        // Then
+        assertThat(result).contains(new UrlMapping(originalUrl, expiresAt));
+    }
+}
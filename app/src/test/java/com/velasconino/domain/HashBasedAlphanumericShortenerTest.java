@@ -2,8 +2,17 @@ package com.velasconino.domain;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
 import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -60,4 +69,78 @@ class HashBasedAlphanumericShortenerTest {
         
         assertThat(code1).isEqualTo(code2);
     }
-} 
\ No newline at end of file
+    
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "https://example.com | EAaArVRs5q | EAaArVRs5qV39C9S3zO0z9ynVoWeZkuNfeMpsVDQnOkV0V0V0V",
+        "https://example.com/a?b=c | 4FEvKRgNEa | 4FEvKRgNEa3MI487rhr5X2wVfLiXOpBO9z1ijGhKulgc7c7c7c",
+        "https://ex\u00e4mple.com/\u00fc | XeFCZHlQkW | XeFCZHlQkW7pLWiGtJLvPa2qmWtWGVjjIT5IP4RhkZ4Z4Z4Z4Z",
+        "ftp://ftp.example.com/files | D6IAAZb4uR | D6IAAZb4uRoNNYFm6XFoHyC1r6dCuHLC9nMkb1Ea5a5a5a5a5a"
+    })
+    void shouldKeepGeneratingPreviouslyIssuedCodes(String url, String tenCharCode, String fiftyCharCode) {
+        // Codes issued by the Base64-filtering implementation must stay stable
+        HashBasedAlphanumericShortener shortener = new HashBasedAlphanumericShortener(url);
+        
+        assertThat(shortener.generateShortCode(10)).isEqualTo(tenCharCode);
+        assertThat(shortener.generateShortCode(50)).isEqualTo(fiftyCharCode);
+    }
+    
+    @Test
+    void shouldGenerateCandidateCodesAsPrefixesOfEachOther() {
+        HashBasedAlphanumericShortener shortener = new HashBasedAlphanumericShortener(aUniqueUrl());
+        
+        List<String> shortCodes = shortener.generateShortCodes(8, 10);
+        
+        assertThat(shortCodes).hasSize(3);
+        assertThat(shortCodes.get(0)).isEqualTo(shortener.generateShortCode(8));
+        assertThat(shortCodes.get(1)).isEqualTo(shortener.generateShortCode(9));
+        assertThat(shortCodes.get(2)).isEqualTo(shortener.generateShortCode(10));
+        assertThat(shortCodes.get(2)).startsWith(shortCodes.get(1)).startsWith(shortCodes.get(0));
+    }
+    
+    @Test
+    void shouldAllocateLittleMoreThanTheGeneratedCodes() {
+        // Given
+        com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String url = aUniqueUrl();
+        int iterations = 20_000;
+        for (int i = 0; i < iterations; i++) {
+            new HashBasedAlphanumericShortener(url).generateShortCodes(8, 10);
+        }
+        
+        // When
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            new HashBasedAlphanumericShortener(url).generateShortCodes(8, 10);
+        }
+        long allocatedPerShorten = (threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / iterations;
+        
+        // Then - the shortener, its hash, the three codes and their list; no digest or encoding garbage
+        assertThat(allocatedPerShorten).isLessThan(400);
+    }
+
+    @Test
+    void shouldGenerateTheSameCodesOnConcurrentVirtualThreads() throws Exception {
+        // Given
+        List<String> urls = IntStream.range(0, 1_000).mapToObj(i -> aUniqueUrl()).toList();
+        List<String> expected = urls.stream()
+            .map(url -> new HashBasedAlphanumericShortener(url).generateShortCode(10))
+            .toList();
+
+        // When - every URL on a thread of its own, sharing the pooled digests
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String url : urls) {
+                results.add(executor.submit(() -> new HashBasedAlphanumericShortener(url).generateShortCode(10)));
+            }
+        }
+
+        // Then
+        for (int i = 0; i < urls.size(); i++) {
+            assertThat(results.get(i).get()).isEqualTo(expected.get(i));
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.velasconino.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShortCodeCodecTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A", "9", "AA", "aB3", "Zz09Zz09", "9999999999", "AAAAAAAAAA"})
+    void shouldDecodeEncodedShortCodes(String shortCode) {
+        // When
+        long value = ShortCodeCodec.encode(shortCode);
+
+        // Then
+        assertThat(value).isPositive();
+        assertThat(ShortCodeCodec.decode(value)).isEqualTo(shortCode);
+    }
+
+    @Test
+    void shouldEncodeShortCodesGeneratedByTheShortener() {
+        // Given
+        String shortCode = new HashBasedAlphanumericShortener("https://example.com").generateShortCode(10);
+
+        // When / Then
+        assertThat(ShortCodeCodec.isEncodable(shortCode)).isTrue();
+        assertThat(ShortCodeCodec.decode(ShortCodeCodec.encode(shortCode))).isEqualTo(shortCode);
+    }
+
+    @Test
+    void shouldEncodeCodesDifferingOnlyInLeadingCharactersDifferently() {
+        // Given
+        Set<Long> values = new HashSet<>();
+
+        // When
+        for (String shortCode : new String[]{"A", "AA", "AAA", "B", "AB", "BA"}) {
+            values.add(ShortCodeCodec.encode(shortCode));
+        }
+
+        // Then
+        assertThat(values).hasSize(6);
+    }
+
+    @Test
+    void shouldFitTheLongestShortCodeInALong() {
+        // When
+        long value = ShortCodeCodec.encode("9".repeat(ShortCodeCodec.MAX_LENGTH));
+
+        // Then
+        assertThat(value).isPositive();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "test-123", "café", "ABCDEFGHIJK", "a b"})
+    void shouldNotEncodeOtherShortCodes(String shortCode) {
+        // When / Then
+        assertThat(ShortCodeCodec.isEncodable(shortCode)).isFalse();
+        assertThat(ShortCodeCodec.encodeOrZero(shortCode)).isZero();
+        assertThatThrownBy(() -> ShortCodeCodec.encode(shortCode)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectNonPositiveValues() {
+        // When / Then
+        assertThatThrownBy(() -> ShortCodeCodec.decode(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ShortCodeCodec.decode(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldPlaceTheValuesOfEachLengthInOneRange() {
+        // Given
+        long first = ShortCodeCodec.firstValueOfLength(3);
+        long last = first + ShortCodeCodec.valuesOfLength(3) - 1;
+
+        // When / Then
+        assertThat(ShortCodeCodec.decode(first)).isEqualTo("AAA");
+        assertThat(ShortCodeCodec.decode(last)).isEqualTo("999");
+        assertThat(ShortCodeCodec.decode(last + 1)).isEqualTo("AAAA");
+    }
+}
@@ -0,0 +1,85 @@
+package com.velasconino.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShortCodePermutationTest {
+
+    private final ShortCodePermutation permutation = new ShortCodePermutation("secret", 8);
+
+    @Test
+    void shouldMapIdsBackFromTheirShortCodes() {
+        for (long id : new long[]{0, 1, 999, 1_000_000, 218_340_105_584_895L, 218_340_105_584_896L}) {
+            // When
+            String shortCode = permutation.shortCodeOf(id);
+
+            // Then
+            assertThat(ShortCodeCodec.isEncodable(shortCode)).isTrue();
+            assertThat(permutation.idOf(shortCode)).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void shouldGiveConsecutiveIdsDistinctCodesOfTheMinimumLength() {
+        // Given
+        Set<String> shortCodes = new HashSet<>();
+
+        // When
+        for (long id = 1_000; id < 11_000; id++) {
+            shortCodes.add(permutation.shortCodeOf(id));
+        }
+
+        // Then
+        assertThat(shortCodes).hasSize(10_000);
+        assertThat(shortCodes).allSatisfy(shortCode -> assertThat(shortCode).hasSize(8));
+    }
+
+    @Test
+    void shouldNotKeepTheOrderOfIds() {
+        // When
+        String first = permutation.shortCodeOf(1_000);
+        String second = permutation.shortCodeOf(1_001);
+
+        // Then
+        assertThat(first.substring(0, 7)).isNotEqualTo(second.substring(0, 7));
+    }
+
+    @Test
+    void shouldMoveOnToLongerCodesOnceEveryCodeOfALengthIsUsed() {
+        // Given
+        ShortCodePermutation singleCharacter = new ShortCodePermutation("secret", 1);
+        Set<String> shortCodes = new HashSet<>();
+
+        // When
+        for (long id = 0; id < 62; id++) {
+            shortCodes.add(singleCharacter.shortCodeOf(id));
+        }
+
+        // Then
+        assertThat(shortCodes).hasSize(62);
+        assertThat(singleCharacter.shortCodeOf(62)).hasSize(2);
+        assertThat(singleCharacter.idOf(singleCharacter.shortCodeOf(62))).isEqualTo(62);
+    }
+
+    @Test
+    void shouldDeriveDifferentCodesFromDifferentKeys() {
+        // Given
+        ShortCodePermutation other = new ShortCodePermutation("another secret", 8);
+
+        // When / Then
+        assertThat(other.shortCodeOf(1_000)).isNotEqualTo(permutation.shortCodeOf(1_000));
+        assertThat(new ShortCodePermutation("secret", 8).shortCodeOf(1_000))
+            .isEqualTo(permutation.shortCodeOf(1_000));
+    }
+
+    @Test
+    void shouldRejectNegativeIds() {
+        assertThatThrownBy(() -> permutation.shortCodeOf(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
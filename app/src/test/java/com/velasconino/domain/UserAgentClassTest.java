@@ -0,0 +1,30 @@
+package com.velasconino.domain;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserAgentClassTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html) | BOT",
+        "Slackbot-LinkExpanding 1.0 (+https://api.slack.com/robots)                | BOT",
+        "curl/8.5.0                                                                | BOT",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 17_5 like Mac OS X) Mobile/15E148      | MOBILE",
+        "Mozilla/5.0 (Linux; Android 14; Pixel 8) Chrome/126.0 Mobile Safari/537.36 | MOBILE",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/126.0 Safari/537.36      | DESKTOP",
+        "SomeFeedReader/1.0                                                        | OTHER"
+    })
+    void shouldClassifyUserAgents(String userAgent, UserAgentClass expected) {
+        assertThat(UserAgentClass.of(userAgent)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    void shouldClassifyAMissingUserAgentAsUnknown(String userAgent) {
+        assertThat(UserAgentClass.of(userAgent)).isEqualTo(UserAgentClass.UNKNOWN);
+    }
+}
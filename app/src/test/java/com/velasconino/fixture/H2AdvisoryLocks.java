@@ -0,0 +1,53 @@
+package com.velasconino.fixture;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-ins for PostgreSQL's session-level advisory lock functions on H2, where each lock is held
+ * by at most one session. Unlike PostgreSQL's, a lock taken twice by the same session is released
+ * by a single unlock.
+ */
+public class H2AdvisoryLocks {
+
+    /**
+     * Appended to an H2 URL to define the functions when the database is first opened.
+     */
+    public static final String INIT = ";INIT="
+            + "CREATE ALIAS IF NOT EXISTS pg_try_advisory_lock FOR 'com.velasconino.fixture.H2AdvisoryLocks.tryLock'\\;"
+            + "CREATE ALIAS IF NOT EXISTS pg_advisory_unlock FOR 'com.velasconino.fixture.H2AdvisoryLocks.unlock'";
+
+    private static final Map<Long, Integer> HOLDERS = new ConcurrentHashMap<>();
+
+    /**
+     * Defines the functions on an open database.
+     *
+     * @param connection A connection to the database
+     */
+    public static void define(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(INIT.substring(";INIT=".length()).replace("\\;", ";"));
+        }
+    }
+
+    public static boolean tryLock(Connection connection, long key) throws SQLException {
+        int session = sessionId(connection);
+        return HOLDERS.computeIfAbsent(key, k -> session) == session;
+    }
+
+    public static boolean unlock(Connection connection, long key) throws SQLException {
+        return HOLDERS.remove(key, sessionId(connection));
+    }
+
+    private static int sessionId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT SESSION_ID()")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.velasconino.fixture;
 
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Fixture for generating test short codes.
  */
 public class ShortCodeFixture {
-    
+
+    private static final String ALPHANUMERIC_CHARS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
     /**
      * Generates a unique short code for testing purposes.
+     * Like generated codes it is alphanumeric and ten characters long, so it can be stored as an integer.
      * 
      * @return A unique short code string
      */
     public static String aUniqueShortCode() {
-        return "test-" + UUID.randomUUID().toString().substring(0, 8);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] shortCode = new char[10];
+        for (int i = 0; i < shortCode.length; i++) {
+            shortCode[i] = ALPHANUMERIC_CHARS.charAt(random.nextInt(ALPHANUMERIC_CHARS.length()));
+        }
+        return new String(shortCode);
     }
-} 
\ No newline at end of file
+}
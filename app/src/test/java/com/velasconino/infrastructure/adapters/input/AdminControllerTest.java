@@ -0,0 +1,100 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import com.velasconino.infrastructure.adapters.input.dto.HotLinksDto;
+import com.velasconino.infrastructure.adapters.input.dto.UrlRequestDto;
+import com.velasconino.infrastructure.adapters.input.dto.UrlResponseDto;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.web.router.Router;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import jakarta.inject.Inject;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@MicronautTest
+@Property(name = "micronaut.http.client.follow-redirects", value = "false")
+class AdminControllerTest {
+
+    @Inject
+    @Client("/")
+    HttpClient client;
+
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    Router router;
+
+    HttpClient managementClient;
+
+    @BeforeEach
+    void setUp() throws MalformedURLException {
+        int managementPort = router.getExposedPorts().stream()
+            .filter(port -> port != server.getPort())
+            .findFirst()
+            .orElseThrow();
+        managementClient = HttpClient.create(URI.create("http://localhost:" + managementPort).toURL());
+    }
+
+    @AfterEach
+    void tearDown() {
+        managementClient.close();
+    }
+
+    @Test
+    @DisplayName("Should list the most clicked short codes with their distinct clients")
+    void shouldListHotLinks() {
+        // Given
+        String shortUrl = client.toBlocking().retrieve(
+            HttpRequest.POST("/shorten", new UrlRequestDto(aUniqueUrl())), UrlResponseDto.class).shortUrl();
+        String shortCode = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        for (int i = 0; i < 3; i++) {
+            client.toBlocking().exchange(HttpRequest.GET("/" + shortCode).header(HttpHeaders.USER_AGENT, "agent-" + i));
+            client.toBlocking().exchange(HttpRequest.GET("/" + shortCode).header(HttpHeaders.USER_AGENT, "agent-" + i));
+        }
+
+        // When
+        HotLinksDto hotLinks = managementClient.toBlocking().retrieve("/admin/hot?window=5m&limit=100", HotLinksDto.class);
+
+        // Then
+        assertThat(hotLinks.window()).isEqualTo("PT5M");
+        assertThat(hotLinks.links()).anySatisfy(hotLink -> {
+            assertThat(hotLink.shortCode()).isEqualTo(shortCode);
+            assertThat(hotLink.clicks()).isEqualTo(6);
+            assertThat(hotLink.distinctClients()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    @DisplayName("Should return 400 for a window longer than the retention")
+    void shouldRejectWindowsLongerThanTheRetention() {
+        assertThatThrownBy(() -> managementClient.toBlocking().exchange("/admin/hot?window=2h"))
+            .isInstanceOfSatisfying(HttpClientResponseException.class, exception ->
+                assertThat(exception.getStatus().getCode()).isEqualTo(HttpStatus.BAD_REQUEST.getCode()));
+    }
+
+    @Test
+    @DisplayName("Should not list hot links on the public port")
+    void shouldNotListHotLinksOnThePublicPort() {
+        assertThatThrownBy(() -> client.toBlocking().exchange("/admin/hot"))
+            .isInstanceOfSatisfying(HttpClientResponseException.class, exception ->
+                assertThat(exception.getStatus().getCode()).isEqualTo(HttpStatus.NOT_FOUND.getCode()));
+    }
+}
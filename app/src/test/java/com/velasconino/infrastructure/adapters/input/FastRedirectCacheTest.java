@@ -0,0 +1,48 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastRedirectCacheTest {
+
+    @Test
+    void shouldReleaseTheBuffersOfAnEvictedRedirectOnceTheLastWriterIsDone() {
+        // Given
+        FastRedirectCache cache = new FastRedirectCache(10, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        String shortCode = aUniqueShortCode();
+        ByteBuf redirect = Unpooled.directBuffer().writeBytes("HTTP/1.1 301 Moved Permanently\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        ByteBuf notModified = Unpooled.directBuffer().writeBytes("HTTP/1.1 304 Not Modified\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        cache.put(shortCode, new FastRedirectCache.Entry(redirect, notModified, "\"tag\""));
+
+        // When
+        FastRedirectCache.Entry entry = cache.retain(shortCode);
+        ByteBuf written = entry.redirect();
+        cache.close();
+
+        // Then
+        assertThat(cache.retain(shortCode)).isNull();
+        assertThat(redirect.refCnt()).isPositive();
+        entry.release();
+        written.release();
+        assertThat(redirect.refCnt()).isZero();
+        assertThat(notModified.refCnt()).isZero();
+    }
+
+    @Test
+    void shouldMissAnUnknownShortCode() {
+        // Given
+        FastRedirectCache cache = new FastRedirectCache(10, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        // When / Then
+        assertThat(cache.retain(aUniqueShortCode())).isNull();
+        assertThat(cache.contains(aUniqueShortCode())).isFalse();
+    }
+}
@@ -0,0 +1,151 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import com.velasconino.domain.ClickEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastRedirectHandlerTest {
+
+    private static final String ENTITY_TAG = "\"tag\"";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ClickEvent> clicks = new ArrayList<>();
+    private FastRedirectCache cache;
+    private EmbeddedChannel channel;
+    private String shortCode;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FastRedirectCache(100, Duration.ofMinutes(1), meterRegistry);
+        shortCode = aUniqueShortCode();
+        cache.put(shortCode, new FastRedirectCache.Entry(
+                bytes("HTTP/1.1 301 Moved Permanently\r\nlocation: https://example.com/\r\netag: " + ENTITY_TAG + "\r\n"),
+                bytes("HTTP/1.1 304 Not Modified\r\netag: " + ENTITY_TAG + "\r\n"),
+                ENTITY_TAG));
+        channel = new EmbeddedChannel(new FastRedirectHandler(cache, new FastRedirectCapture(cache), clicks::add, null,
+                Counter.builder("hits").register(meterRegistry), Counter.builder("misses").register(meterRegistry)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+        cache.close();
+    }
+
+    @Test
+    void shouldAnswerACachedShortCodeWithoutPassingTheRequestOn() {
+        // When
+        channel.writeInbound(bytes("GET /" + shortCode + " HTTP/1.1\r\nHost: test\r\nUser-Agent: curl\r\n\r\n"));
+
+        // Then
+        assertThat(channel.inboundMessages()).isEmpty();
+        String response = readOutbound();
+        assertThat(response).startsWith("HTTP/1.1 301 Moved Permanently\r\nlocation: https://example.com/\r\n");
+        assertThat(response).containsPattern("\r\ndate: [A-Z][a-z]{2}, \\d{2} [A-Z][a-z]{2} \\d{4} \\d{2}:\\d{2}:\\d{2} GMT\r\n\r\n$");
+        assertThat(clicks).singleElement().satisfies(click -> {
+            assertThat(click.shortCode()).isEqualTo(shortCode);
+            assertThat(click.userAgent()).isEqualTo("curl");
+        });
+    }
+
+    @Test
+    void shouldAnswerAMatchingConditionalRequestWithNotModified() {
+        // When
+        channel.writeInbound(bytes("GET /" + shortCode + " HTTP/1.1\r\nIf-None-Match: W/" + ENTITY_TAG + "\r\n\r\n"));
+
+        // Then
+        assertThat(readOutbound()).startsWith("HTTP/1.1 304 Not Modified\r\n");
+    }
+
+    @Test
+    void shouldReassembleARequestSplitAcrossReads() {
+        // When
+        channel.writeInbound(bytes("GET /" + shortCode + " HTTP/1.1\r\nHo"));
+        channel.writeInbound(bytes("st: test\r\n\r"));
+        channel.writeInbound(bytes("\n"));
+
+        // Then
+        assertThat(channel.inboundMessages()).isEmpty();
+        assertThat(readOutbound()).startsWith("HTTP/1.1 301 ");
+    }
+
+    @Test
+    void shouldPassOnRequestsItCannotAnswerByteForByte() {
+        // Given
+        String unknown = "GET /" + aUniqueShortCode() + " HTTP/1.1\r\n\r\n";
+        String closing = "GET /" + shortCode + " HTTP/1.1\r\nConnection: close\r\n\r\n";
+        String query = "GET /" + shortCode + "?utm=1 HTTP/1.1\r\n\r\n";
+
+        // When
+        channel.writeInbound(bytes(unknown + closing + query));
+
+        // Then
+        assertThat(readInbound()).isEqualTo(unknown);
+        assertThat(readInbound()).isEqualTo(closing);
+        assertThat(readInbound()).isEqualTo(query);
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(clicks).isEmpty();
+    }
+
+    @Test
+    void shouldLeaveTheConnectionToTheCodecOnceARequestHasABody() {
+        // Given
+        String post = "POST /shorten HTTP/1.1\r\nContent-Length: 4\r\n\r\nbody";
+        String cached = "GET /" + shortCode + " HTTP/1.1\r\n\r\n";
+
+        // When
+        channel.writeInbound(bytes(post + cached));
+
+        // Then
+        assertThat(readInbound()).isEqualTo("POST /shorten HTTP/1.1\r\nContent-Length: 4\r\n\r\n");
+        assertThat(readInbound()).isEqualTo("body" + cached);
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+
+    @Test
+    void shouldFindTheEndOfARequestHead() {
+        // When / Then
+        assertThat(FastRedirectHandler.headLength(bytes("GET / HTTP/1.1\r\nHost: a\r\n\r\nGET"))).isEqualTo(27);
+        assertThat(FastRedirectHandler.headLength(bytes("GET / HTTP/1.1\r\nHost: a\r\n"))).isZero();
+        assertThat(FastRedirectHandler.headLength(bytes("GET / HTTP/1.1\r\nHost: a\r\n\r"))).isZero();
+        assertThat(FastRedirectHandler.headLength(bytes("GET / HTTP/1.1\nHost: a\n\n"))).isNegative();
+    }
+
+    private String readOutbound() {
+        StringBuilder response = new StringBuilder();
+        for (ByteBuf buffer = channel.readOutbound(); buffer != null; buffer = channel.readOutbound()) {
+            response.append(buffer.toString(StandardCharsets.ISO_8859_1));
+            buffer.release();
+        }
+        return response.toString();
+    }
+
+    private String readInbound() {
+        ByteBuf buffer = channel.readInbound();
+        try {
+            return buffer.toString(StandardCharsets.ISO_8859_1);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static ByteBuf bytes(String text) {
+        return Unpooled.copiedBuffer(text, StandardCharsets.ISO_8859_1);
+    }
+}
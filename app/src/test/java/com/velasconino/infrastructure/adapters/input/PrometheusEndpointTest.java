@@ -0,0 +1,88 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import com.velasconino.infrastructure.adapters.input.dto.UrlRequestDto;
+import com.velasconino.infrastructure.adapters.input.dto.UrlResponseDto;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.web.router.Router;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import jakarta.inject.Inject;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@MicronautTest
+@Property(name = "micronaut.http.client.follow-redirects", value = "false")
+class PrometheusEndpointTest {
+
+    @Inject
+    @Client("/")
+    HttpClient client;
+
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    Router router;
+
+    @Test
+    @DisplayName("Should expose per-stage timers and error counters for scraping on the management port")
+    void shouldExposePerStageTimersAndErrorCounters() throws MalformedURLException {
+        // Given
+        String shortUrl = client.toBlocking().retrieve(
+            HttpRequest.POST("/shorten", new UrlRequestDto(aUniqueUrl())), UrlResponseDto.class).shortUrl();
+        String shortCode = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        client.toBlocking().exchange(HttpRequest.GET("/" + shortCode));
+        assertThatThrownBy(() -> client.toBlocking().exchange(
+            HttpRequest.POST("/shorten", new UrlRequestDto("not-a-valid-url"))))
+            .isInstanceOf(HttpClientResponseException.class);
+
+        // When
+        String metrics;
+        try (HttpClient managementClient = HttpClient.create(managementUrl())) {
+            metrics = managementClient.toBlocking().retrieve("/prometheus");
+        }
+
+        // Then
+        assertThat(metrics)
+            .contains("http_server_requests_seconds_bucket{")
+            .contains("url_shortener_use_case_seconds_count{use_case=\"shorten\"}")
+            .contains("url_shortener_use_case_seconds_count{use_case=\"resolve\"}")
+            .contains("url_shortener_shorten_attempts_count")
+            .contains("url_shortener_repository_seconds_count{method=\"insertIfAbsent\",stage=\"chain\"}")
+            .contains("url_shortener_repository_seconds_count{method=\"insertAllIfAbsent\",stage=\"database\"}")
+            .contains("url_shortener_database_waiting_calls")
+            .contains("hikaricp_connections_acquire_seconds")
+            .contains("url_shortener_errors_total{exception=\"InvalidUrlException\"}");
+    }
+
+    @Test
+    @DisplayName("Should not expose metrics on the public port")
+    void shouldNotExposeMetricsOnThePublicPort() {
+        assertThatThrownBy(() -> client.toBlocking().exchange("/prometheus"))
+            .isInstanceOfSatisfying(HttpClientResponseException.class, exception ->
+                assertThat(exception.getStatus().getCode()).isEqualTo(HttpStatus.NOT_FOUND.getCode()));
+    }
+
+    private URL managementUrl() throws MalformedURLException {
+        int managementPort = router.getExposedPorts().stream()
+            .filter(port -> port != server.getPort())
+            .findFirst()
+            .orElseThrow();
+        return URI.create("http://localhost:" + managementPort).toURL();
+    }
+}
@@ -0,0 +1,137 @@
+package com.velasconino.infrastructure.adapters.input;
+
+import com.velasconino.infrastructure.adapters.input.RedirectPolicy.Rule;
+import com.velasconino.infrastructure.adapters.input.RedirectPolicy.RuleOverride;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedirectPolicyTest {
+
+    private static final Rule DEFAULT_RULE = new Rule(HttpStatus.MOVED_PERMANENTLY, Duration.ofMinutes(5));
+
+    @Test
+    void shouldRedirectWithTheDefaultRule() {
+        // Given
+        RedirectPolicy policy = new RedirectPolicy(DEFAULT_RULE, List.of());
+        String originalUrl = aUniqueUrl();
+
+        // When
+        HttpResponse<?> response = policy.respond(HttpRequest.GET("/code"), aUniqueShortCode(), originalUrl, originalUrl);
+
+        // Then
+        assertThat(response.getStatus().getCode()).isEqualTo(301);
+        assertThat(response.getHeaders().get("Location")).isEqualTo(originalUrl);
+        assertThat(response.getHeaders().get("Cache-Control")).isEqualTo("public, max-age=300");
+    }
+
+    @Test
+    void shouldMakeCachesRevalidateWithoutAMaxAge() {
+        // Given
+        RedirectPolicy policy = new RedirectPolicy(new Rule(HttpStatus.TEMPORARY_REDIRECT, Duration.ZERO), List.of());
+        String originalUrl = aUniqueUrl();
+
+        // When
+        HttpResponse<?> response = policy.respond(HttpRequest.GET("/code"), aUniqueShortCode(), originalUrl, originalUrl);
+
+        // Then
+        assertThat(response.getStatus().getCode()).isEqualTo(307);
+        assertThat(response.getHeaders().get("Cache-Control")).isEqualTo("no-cache");
+    }
+
+    @Test
+    void shouldNotLetALinkThatExpiresBeCachedPastItsExpiry() {
+        // Given
+        RedirectPolicy policy = new RedirectPolicy(DEFAULT_RULE, List.of());
+        String originalUrl = aUniqueUrl();
+        Instant soon = Instant.now().plusSeconds(61);
+        Instant later = Instant.now().plus(Duration.ofDays(1));
+
+        // When
+        HttpResponse<?> expiringSoon = policy.respond(HttpRequest.GET("/code"), aUniqueShortCode(), originalUrl,
+                originalUrl, soon);
+        HttpResponse<?> expiringLater = policy.respond(HttpRequest.GET("/code"), aUniqueShortCode(), originalUrl,
+                originalUrl, later);
+
+        // Then
+        assertThat(expiringSoon.getHeaders().get("Cache-Control")).isIn("public, max-age=60", "public, max-age=59");
+        assertThat(expiringLater.getHeaders().get("Cache-Control")).isEqualTo("public, max-age=300");
+        assertThat(expiringSoon.getHeaders().get("Expires"))
+                .isEqualTo(DateTimeFormatter.RFC_1123_DATE_TIME.format(soon.atZone(ZoneOffset.UTC)));
+    }
+
+    @Test
+    void shouldAnswerAMatchingConditionalRequestWithNotModified() {
+        // Given
+        RedirectPolicy policy = new RedirectPolicy(DEFAULT_RULE, List.of());
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        String entityTag = RedirectPolicy.entityTag(shortCode, originalUrl);
+
+        // When
+        HttpResponse<?> strong = policy.respond(HttpRequest.GET("/" + shortCode).header("If-None-Match", entityTag),
+                shortCode, originalUrl, originalUrl);
+        HttpResponse<?> weakInList = policy.respond(HttpRequest.GET("/" + shortCode).header("If-None-Match", "\"other\", W/" + entityTag),
+                shortCode, originalUrl, originalUrl);
+        HttpResponse<?> stale = policy.respond(HttpRequest.GET("/" + shortCode).header("If-None-Match", "\"other\""),
+                shortCode, originalUrl, originalUrl);
+
+        // Then
+        assertThat(strong.getStatus().getCode()).isEqualTo(304);
+        assertThat(strong.getHeaders().get("ETag")).isEqualTo(entityTag);
+        assertThat(weakInList.getStatus().getCode()).isEqualTo(304);
+        assertThat(stale.getStatus().getCode()).isEqualTo(301);
+    }
+
+    @Test
+    void shouldDeriveDifferentEntityTagsForDifferentMappings() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When / Then
+        assertThat(RedirectPolicy.entityTag(shortCode, originalUrl)).isEqualTo(RedirectPolicy.entityTag(shortCode, originalUrl));
+        assertThat(RedirectPolicy.entityTag(shortCode, originalUrl)).isNotEqualTo(RedirectPolicy.entityTag(shortCode, aUniqueUrl()));
+        assertThat(RedirectPolicy.entityTag(shortCode, originalUrl)).isNotEqualTo(RedirectPolicy.entityTag(aUniqueShortCode(), originalUrl));
+    }
+
+    @Test
+    void shouldPreferShortCodeOverridesOverTheLongestMatchingUrlPrefix() {
+        // Given
+        Rule campaign = new Rule(HttpStatus.FOUND, Duration.ZERO);
+        Rule docs = new Rule(HttpStatus.PERMANENT_REDIRECT, Duration.ofDays(1));
+        Rule pinned = new Rule(HttpStatus.TEMPORARY_REDIRECT, Duration.ofSeconds(30));
+        RedirectPolicy policy = new RedirectPolicy(DEFAULT_RULE, List.of(
+                new RuleOverride(List.of(), "https://example.com/", campaign),
+                new RuleOverride(List.of(), "https://example.com/docs/", docs),
+                new RuleOverride(List.of("Pinned01"), null, pinned)));
+
+        // When / Then
+        assertThat(policy.ruleFor("Other001", "https://example.com/docs/start")).isEqualTo(docs);
+        assertThat(policy.ruleFor("Other001", "https://example.com/sale")).isEqualTo(campaign);
+        assertThat(policy.ruleFor("Pinned01", "https://example.com/docs/start")).isEqualTo(pinned);
+        assertThat(policy.ruleFor("Other001", "https://elsewhere.com/")).isEqualTo(DEFAULT_RULE);
+    }
+
+    @Test
+    void shouldRejectStatusesThatAreNotRedirects() {
+        // When / Then
+        assertThatThrownBy(() -> new Rule(HttpStatus.OK, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Rule(HttpStatus.SEE_OTHER, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
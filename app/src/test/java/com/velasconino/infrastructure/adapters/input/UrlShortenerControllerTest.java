@@ -1,6 +1,7 @@
 package com.velasconino.infrastructure.adapters.input;
 
 import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.infrastructure.adapters.input.dto.BatchUrlResultDto;
 import com.velasconino.infrastructure.adapters.input.dto.UrlRequestDto;
 import com.velasconino.infrastructure.adapters.input.dto.UrlResponseDto;
 import com.velasconino.infrastructure.adapters.input.error.UrlShortenerExceptionHandler.ErrorResponse;
@@ -9,6 +10,7 @@ import com.velasconino.infrastructure.adapters.output.InMemoryUrlRepository;
 import io.micronaut.context.annotation.Value;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.core.type.Argument;
 import io.micronaut.http.client.HttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.DefaultHttpClientConfiguration;
@@ -20,18 +22,28 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import jakarta.inject.Inject;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
 import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
 
 @MicronautTest
+// The mocked repository is refreshed after every test, so tests sharing it must not overlap
+@Execution(ExecutionMode.SAME_THREAD)
 class UrlShortenerControllerTest {
 
     @Inject
@@ -122,6 +134,82 @@ class UrlShortenerControllerTest {
             
             assertThat(exception.getStatus().getCode()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
         }
+        
+        @Test
+        @DisplayName("Should return 400 when the expiry is not in the future")
+        void testPastExpiryReturnsBadRequest() {
+            // Given
+            var request = new UrlRequestDto(aUniqueUrl(), Instant.now().minusSeconds(60));
+            
+            // When/Then
+            HttpClientResponseException exception = assertThrowsBadRequestWithErrorResponse(
+                request, "Expiry must be in the future");
+            
+            assertThat(exception.getStatus().getCode()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
+        }
+    }
+    
+    @Nested
+    @DisplayName("POST /shorten/batch endpoint")
+    class ShortenUrlBatchTests {
+        
+        @Test
+        @DisplayName("Should return one result per URL in input order")
+        void testCreateShortUrls() {
+            // Given
+            String firstUrl = aUniqueUrl();
+            String secondUrl = aUniqueUrl();
+            var requests = List.of(
+                new UrlRequestDto(firstUrl),
+                new UrlRequestDto("not-a-valid-url"),
+                new UrlRequestDto(""),
+                new UrlRequestDto(secondUrl));
+
+            // When
+            var response = client.toBlocking()
+                    .exchange(HttpRequest.POST("/shorten/batch", requests),
+                        Argument.listOf(BatchUrlResultDto.class));
+
+            // Then
+            assertThat(response.status().getCode()).isEqualTo(HttpStatus.OK.getCode());
+            List<BatchUrlResultDto> results = response.body();
+            assertThat(results).hasSize(4);
+            assertThat(results.get(0).status()).isEqualTo(HttpStatus.CREATED.getCode());
+            assertThat(results.get(1).status()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
+            assertThat(results.get(1).message()).contains("Invalid URL format");
+            assertThat(results.get(2).status()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
+            assertThat(results.get(2).message()).contains("URL cannot be null or empty");
+            assertThat(results.get(3).status()).isEqualTo(HttpStatus.CREATED.getCode());
+            
+            assertThat(urlRepository.findOriginalUrlByShortCode(shortCodeOf(results.get(0).shortUrl())))
+                .contains(firstUrl);
+            assertThat(urlRepository.findOriginalUrlByShortCode(shortCodeOf(results.get(3).shortUrl())))
+                .contains(secondUrl);
+        }
+        
+        @Test
+        @DisplayName("Should return 400 when the batch exceeds the maximum size")
+        void testOversizedBatchReturnsBadRequest() {
+            // Given
+            List<UrlRequestDto> requests = new ArrayList<>(
+                Collections.nCopies(1001, new UrlRequestDto(aUniqueUrl())));
+
+            // When/Then
+            HttpClientResponseException exception = assertThrows(
+                HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(HttpRequest.POST("/shorten/batch", requests))
+            );
+            
+            // Then
+            assertThat(exception.getStatus().getCode()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
+            ErrorResponse errorResponse = exception.getResponse().getBody(ErrorResponse.class).get();
+            assertThat(errorResponse.message()).contains("Batch cannot contain more than 1000 URLs");
+        }
+        
+        private String shortCodeOf(String shortUrl) {
+            assertThat(shortUrl).startsWith(baseShortUrl);
+            return shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        }
     }
     
     @Nested
@@ -145,6 +233,100 @@ class UrlShortenerControllerTest {
             assertThat(response.getHeaders().get("Location")).isEqualTo(originalUrl);
         }
         
+        @ParameterizedTest
+        @CsvSource(delimiter = '|', value = {
+            "https://bücher.example/straße       | https://xn--bcher-kva.example/stra%C3%9Fe",
+            "https://example.com/😀?q=ü#ß        | https://example.com/%F0%9F%98%80?q=%C3%BC#%C3%9F",
+            "http://[2001:db8::1]:8080/a        | http://[2001:db8::1]:8080/a",
+            "http://[::ffff:192.0.2.1]/         | http://[::ffff:192.0.2.1]/"
+        })
+        @DisplayName("Should redirect to the ASCII form of any URL it shortened")
+        void testRedirectToAsciiForm(String originalUrl, String location) {
+            // Given
+            String shortUrl = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/shorten", new UrlRequestDto(originalUrl)), UrlResponseDto.class)
+                    .shortUrl();
+
+            // When
+            var response = client.toBlocking()
+                    .exchange(HttpRequest.GET("/" + shortUrl.substring(shortUrl.lastIndexOf('/') + 1)));
+
+            // Then
+            assertThat(response.status().getCode()).isEqualTo(HttpStatus.MOVED_PERMANENTLY.getCode());
+            assertThat(response.getHeaders().get("Location")).isEqualTo(location);
+        }
+        
+        @ParameterizedTest
+        @ValueSource(strings = {
+            "https://example.com/a\u00A0b",
+            "https://example.com/\u3000",
+            "http://[v1.x]/",
+            "http://[:::::]/"
+        })
+        @DisplayName("Should refuse to shorten URLs it could not redirect to")
+        void testUnredirectableUrlReturnsBadRequest(String originalUrl) {
+            // When
+            var exception = assertThrows(HttpClientResponseException.class, () ->
+                client.toBlocking().exchange(HttpRequest.POST("/shorten", new UrlRequestDto(originalUrl)))
+            );
+
+            // Then
+            assertThat(exception.getStatus().getCode()).isEqualTo(HttpStatus.BAD_REQUEST.getCode());
+        }
+        
+        @Test
+        @DisplayName("Should let browsers and CDNs cache the redirect")
+        void testRedirectIsCacheable() {
+            // Given
+            String shortCode = aUniqueShortCode();
+            urlRepository.save(shortCode, aUniqueUrl());
+
+            // When
+            var response = client.toBlocking()
+                    .exchange(HttpRequest.GET("/" + shortCode));
+
+            // Then
+            assertThat(response.getHeaders().get("Cache-Control")).isEqualTo("public, max-age=300");
+            assertThat(response.getHeaders().get("ETag")).startsWith("\"").endsWith("\"");
+        }
+        
+        @Test
+        @DisplayName("Should return 304 when the client's copy of the redirect is current")
+        void testRedirectNotModified() {
+            // Given
+            String shortCode = aUniqueShortCode();
+            urlRepository.save(shortCode, aUniqueUrl());
+            String entityTag = client.toBlocking()
+                    .exchange(HttpRequest.GET("/" + shortCode))
+                    .getHeaders().get("ETag");
+
+            // When
+            var response = client.toBlocking()
+                    .exchange(HttpRequest.GET("/" + shortCode).header("If-None-Match", entityTag));
+
+            // Then
+            assertThat(response.status().getCode()).isEqualTo(HttpStatus.NOT_MODIFIED.getCode());
+            assertThat(response.getHeaders().get("ETag")).isEqualTo(entityTag);
+            assertThat(response.getHeaders().get("Location")).isNull();
+        }
+        
+        @Test
+        @DisplayName("Should return 404 when the link has expired")
+        void testRedirectExpired() {
+            // Given
+            String shortCode = aUniqueShortCode();
+            urlRepository.insertIfAbsent(shortCode, aUniqueUrl(), Instant.now().minusSeconds(1));
+
+            // When/Then
+            HttpClientResponseException exception = assertThrows(
+                HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(HttpRequest.GET("/" + shortCode))
+            );
+            
+            // Then
+            assertThat(exception.getStatus().getCode()).isEqualTo(HttpStatus.NOT_FOUND.getCode());
+        }
+        
         @Test
         @DisplayName("Should return 404 when short code doesn't exist")
         void testRedirectNotFound() {
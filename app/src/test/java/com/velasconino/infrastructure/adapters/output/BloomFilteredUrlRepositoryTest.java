@@ -0,0 +1,129 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilteredUrlRepositoryTest {
+
+    private final CountingUrlRepository delegate = new CountingUrlRepository();
+    private final ShortCodeBloomFilter filter = new ShortCodeBloomFilter(1_000, 0.01);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BloomFilteredUrlRepository repository =
+        new BloomFilteredUrlRepository(delegate, filter, meterRegistry);
+
+    @Test
+    void shouldAnswerUnknownShortCodesWithoutCallingDelegate() {
+        // Given
+        filter.markPopulated();
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(aUniqueShortCode());
+
+        // Then
+        assertThat(result).isEmpty();
+        assertThat(delegate.lookups.get()).isZero();
+        assertThat(meterRegistry.get("url.shortener.bloom-filter.lookups").tag("result", "rejected")
+            .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldResolveSavedShortCodes() {
+        // Given
+        filter.markPopulated();
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        repository.save(shortCode, originalUrl);
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(result).contains(originalUrl);
+        assertThat(delegate.lookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipDelegateWhenNoShortCodeOfBatchMayBeStored() {
+        // Given
+        filter.markPopulated();
+
+        // When
+        Map<String, String> result = repository.findOriginalUrlsByShortCodes(
+            List.of(aUniqueShortCode(), aUniqueShortCode()));
+
+        // Then
+        assertThat(result).isEmpty();
+        assertThat(delegate.batchLookups.get()).isZero();
+    }
+
+    @Test
+    void shouldLookUpOnlyPossiblyStoredShortCodesOfBatch() {
+        // Given
+        filter.markPopulated();
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        repository.save(shortCode, originalUrl);
+
+        // When
+        Map<String, String> result = repository.findOriginalUrlsByShortCodes(
+            List.of(shortCode, aUniqueShortCode()));
+
+        // Then
+        assertThat(result).containsOnly(Map.entry(shortCode, originalUrl));
+        assertThat(delegate.batchLookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPassLookupsThroughUntilPopulated() {
+        // Given - a mapping stored behind the filter's back, before population
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        delegate.save(shortCode, originalUrl);
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(result).contains(originalUrl);
+        assertThat(delegate.lookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPublishFilterGauges() {
+        assertThat(meterRegistry.get("url.shortener.bloom-filter.memory").gauge().value())
+            .isEqualTo(filter.memoryBytes());
+        assertThat(meterRegistry.get("url.shortener.bloom-filter.false-positive-probability").gauge().value())
+            .isZero();
+    }
+
+    /**
+     * In-memory repository that counts how many lookups reach it.
+     */
+    private static class CountingUrlRepository extends InMemoryUrlRepository {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+        private final AtomicInteger batchLookups = new AtomicInteger();
+
+        @Override
+        public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+            lookups.incrementAndGet();
+            return super.findOriginalUrlByShortCode(shortCode);
+        }
+
+        @Override
+        public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+            batchLookups.incrementAndGet();
+            return super.findOriginalUrlsByShortCodes(shortCodes);
+        }
+    }
+}
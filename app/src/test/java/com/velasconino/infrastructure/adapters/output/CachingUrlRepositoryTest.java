@@ -0,0 +1,211 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.UrlMapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingUrlRepositoryTest {
+
+    private final CountingUrlRepository delegate = new CountingUrlRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CachingUrlRepository repository = new CachingUrlRepository(
+        delegate, 100, Duration.ofMinutes(10), meterRegistry);
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        delegate.save(shortCode, originalUrl);
+
+        // When
+        Optional<String> first = repository.findOriginalUrlByShortCode(shortCode);
+        Optional<String> second = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(first).contains(originalUrl);
+        assertThat(second).contains(originalUrl);
+        assertThat(delegate.lookups.get()).isEqualTo(1);
+        assertThat(repository.stats().hitCount()).isEqualTo(1);
+        assertThat(repository.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCacheMappingOnSave() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        repository.save(shortCode, originalUrl);
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(result).contains(originalUrl);
+        assertThat(delegate.lookups.get()).isZero();
+    }
+
+    @Test
+    void shouldNotCacheUnknownShortCodes() {
+        // Given
+        String shortCode = aUniqueShortCode();
+
+        // When
+        repository.findOriginalUrlByShortCode(shortCode);
+        repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(delegate.lookups.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldLoadOnlyUncachedShortCodesInBatchLookupsWithoutCachingThem() {
+        // Given
+        String cachedShortCode = aUniqueShortCode();
+        String uncachedShortCode = aUniqueShortCode();
+        String cachedUrl = aUniqueUrl();
+        String uncachedUrl = aUniqueUrl();
+        repository.save(cachedShortCode, cachedUrl);
+        delegate.save(uncachedShortCode, uncachedUrl);
+
+        // When
+        Map<String, String> result = repository.findOriginalUrlsByShortCodes(
+            List.of(cachedShortCode, uncachedShortCode));
+
+        // Then
+        assertThat(result).containsOnly(
+            Map.entry(cachedShortCode, cachedUrl),
+            Map.entry(uncachedShortCode, uncachedUrl));
+        assertThat(delegate.batchLookups).containsExactly(List.of(uncachedShortCode));
+        assertThat(repository.findOriginalUrlByShortCode(uncachedShortCode)).contains(uncachedUrl);
+        assertThat(delegate.lookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepMappingsThatExpireNoLongerThanTheirExpiry() throws InterruptedException {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        Instant expiresAt = Instant.now().plusMillis(100);
+        repository.insertIfAbsent(shortCode, originalUrl, expiresAt);
+
+        // When
+        Optional<UrlMapping> beforeExpiry = repository.findMappingByShortCode(shortCode);
+        Thread.sleep(150);
+        repository.findMappingByShortCode(shortCode);
+
+        // Then
+        assertThat(beforeExpiry).contains(new UrlMapping(originalUrl, expiresAt));
+        assertThat(delegate.lookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLeaveMappingsThatExpireOutOfTheHottest() {
+        // Given
+        String permanent = aUniqueShortCode();
+        String expiring = aUniqueShortCode();
+        repository.save(permanent, aUniqueUrl());
+        repository.insertIfAbsent(expiring, aUniqueUrl(), Instant.now().plus(Duration.ofHours(1)));
+
+        // When
+        Map<String, String> hottest = repository.hottest(10);
+
+        // Then
+        assertThat(hottest).containsOnlyKeys(permanent);
+    }
+
+    @Test
+    void shouldEvictEntriesBeyondMaximumSize() {
+        // Given
+        CachingUrlRepository smallRepository = new CachingUrlRepository(
+            delegate, 10, Duration.ofMinutes(10), meterRegistry);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            smallRepository.save(aUniqueShortCode(), aUniqueUrl());
+        }
+
+        // Then
+        assertThat(smallRepository.stats().evictionCount()).isGreaterThan(0);
+    }
+
+    @Test
+    void shouldPublishCacheMetrics() {
+        // Given
+        String shortCode = aUniqueShortCode();
+
+        // When
+        repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(meterRegistry.find("cache.gets").tag("cache", "url-mapping").meters()).isNotEmpty();
+    }
+
+    @Test
+    void shouldServePreloadedMappingsWithoutReachingTheDelegate() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        repository.preload(Map.of(shortCode, originalUrl));
+
+        // Then
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+        assertThat(delegate.lookups.get()).isZero();
+    }
+
+    @Test
+    void shouldReturnTheHottestMappingsFirst() {
+        // Given
+        String hot = aUniqueShortCode();
+        String cold = aUniqueShortCode();
+        repository.save(hot, aUniqueUrl());
+        repository.save(cold, aUniqueUrl());
+        for (int i = 0; i < 10; i++) {
+            repository.findOriginalUrlByShortCode(hot);
+        }
+
+        // When
+        Map<String, String> hottest = repository.hottest(1);
+
+        // Then
+        assertThat(hottest).containsOnlyKeys(hot);
+        assertThat(repository.hottest(10).keySet()).containsExactly(hot, cold);
+    }
+
+    /**
+     * In-memory repository that counts how many lookups reach it.
+     */
+    private static class CountingUrlRepository extends InMemoryUrlRepository {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+        private final List<List<String>> batchLookups = new ArrayList<>();
+
+        @Override
+        public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+            lookups.incrementAndGet();
+            return super.findMappingByShortCode(shortCode);
+        }
+
+        @Override
+        public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+            batchLookups.add(List.copyOf(shortCodes));
+            return super.findOriginalUrlsByShortCodes(shortCodes);
+        }
+    }
+}
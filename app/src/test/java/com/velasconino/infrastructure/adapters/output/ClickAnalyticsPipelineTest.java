@@ -0,0 +1,125 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.ClickEvent;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlClickStats;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlClickStatsRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickAnalyticsPipelineTest {
+
+    private static final String CHROME = "Mozilla/5.0 (X11; Linux x86_64) Chrome/126.0 Safari/537.36";
+    private static final String GOOGLEBOT = "Mozilla/5.0 (compatible; Googlebot/2.1)";
+
+    private final RecordingClickStatsRepository clickStatsRepository = new RecordingClickStatsRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClickAnalyticsPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    void shouldAggregateClicksPerShortCodeMinuteAndClient() throws InterruptedException {
+        // Given
+        pipeline = new ClickAnalyticsPipeline(clickStatsRepository, 1024, Duration.ofHours(1), meterRegistry);
+        long minute = Instant.parse("2025-01-01T10:15:00Z").toEpochMilli();
+
+        // When
+        pipeline.publish(new ClickEvent("abc", minute + 1_000, CHROME, null));
+        pipeline.publish(new ClickEvent("abc", minute + 59_999, CHROME, null));
+        pipeline.publish(new ClickEvent("abc", minute + 60_000, CHROME, null));
+        pipeline.publish(new ClickEvent("abc", minute + 2_000, GOOGLEBOT, null));
+        pipeline.publish(new ClickEvent("xyz", minute + 3_000, null, null));
+        pipeline.close();
+
+        // Then
+        assertThat(clickStatsRepository.stats).containsExactlyInAnyOrder(
+                new UrlClickStats("abc", Instant.ofEpochMilli(minute), "DESKTOP", 2),
+                new UrlClickStats("abc", Instant.ofEpochMilli(minute + 60_000), "DESKTOP", 1),
+                new UrlClickStats("abc", Instant.ofEpochMilli(minute), "BOT", 1),
+                new UrlClickStats("xyz", Instant.ofEpochMilli(minute), "UNKNOWN", 1));
+        assertThat(clicks("recorded")).isEqualTo(5);
+    }
+
+    @Test
+    void shouldFlushPeriodically() throws InterruptedException {
+        // Given
+        pipeline = new ClickAnalyticsPipeline(clickStatsRepository, 1024, Duration.ofMillis(20), meterRegistry);
+
+        // When
+        pipeline.publish(new ClickEvent("abc", System.currentTimeMillis(), CHROME, null));
+
+        // Then
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (clickStatsRepository.stats.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(clickStatsRepository.stats).hasSize(1);
+    }
+
+    @Test
+    void shouldDropAndCountClicksPublishedAfterClosing() throws InterruptedException {
+        // Given
+        pipeline = new ClickAnalyticsPipeline(clickStatsRepository, 2, Duration.ofHours(1), meterRegistry);
+        pipeline.close();
+
+        // When
+        pipeline.publish(new ClickEvent("abc", System.currentTimeMillis(), CHROME, null));
+
+        // Then
+        assertThat(clicks("dropped")).isEqualTo(1);
+        assertThat(clickStatsRepository.stats).isEmpty();
+    }
+
+    @Test
+    void shouldCountClicksLostWhenWritingFails() throws InterruptedException {
+        // Given
+        clickStatsRepository.failing = true;
+        pipeline = new ClickAnalyticsPipeline(clickStatsRepository, 1024, Duration.ofHours(1), meterRegistry);
+
+        // When
+        pipeline.publish(new ClickEvent("abc", System.currentTimeMillis(), CHROME, null));
+        pipeline.publish(new ClickEvent("xyz", System.currentTimeMillis(), CHROME, null));
+        pipeline.close();
+
+        // Then
+        assertThat(clicks("lost")).isEqualTo(2);
+        assertThat(clicks("recorded")).isZero();
+    }
+
+    private double clicks(String result) {
+        return meterRegistry.get("url.shortener.clicks").tag("result", result).counter().count();
+    }
+
+    private static class RecordingClickStatsRepository extends UrlClickStatsRepository {
+
+        private final List<UrlClickStats> stats = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+
+        RecordingClickStatsRepository() {
+            super(null);
+        }
+
+        @Override
+        public void addClicks(Collection<UrlClickStats> clicks) {
+            if (failing) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            stats.addAll(clicks);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.ClickEvent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClickEventRingBufferTest {
+
+    @Test
+    void shouldReturnEventsInTheOrderTheyWereOffered() {
+        // Given
+        ClickEventRingBuffer buffer = new ClickEventRingBuffer(4);
+        ClickEvent first = new ClickEvent("first", 1L, null, null);
+        ClickEvent second = new ClickEvent("second", 2L, null, null);
+
+        // When
+        buffer.offer(first);
+        buffer.offer(second);
+
+        // Then
+        assertThat(buffer.poll()).isEqualTo(first);
+        assertThat(buffer.poll()).isEqualTo(second);
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void shouldRejectEventsWhenFullAndAcceptThemOncePolled() {
+        // Given
+        ClickEventRingBuffer buffer = new ClickEventRingBuffer(2);
+        buffer.offer(new ClickEvent("a", 1L, null, null));
+        buffer.offer(new ClickEvent("b", 2L, null, null));
+
+        // When
+        boolean offeredWhenFull = buffer.offer(new ClickEvent("c", 3L, null, null));
+        buffer.poll();
+        boolean offeredAfterPoll = buffer.offer(new ClickEvent("d", 4L, null, null));
+
+        // Then
+        assertThat(offeredWhenFull).isFalse();
+        assertThat(offeredAfterPoll).isTrue();
+        assertThat(buffer.poll().shortCode()).isEqualTo("b");
+        assertThat(buffer.poll().shortCode()).isEqualTo("d");
+    }
+
+    @Test
+    void shouldRejectCapacitiesThatAreNotAPowerOfTwo() {
+        assertThatThrownBy(() -> new ClickEventRingBuffer(3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ClickEventRingBuffer(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldNotLoseOrDuplicateEventsOfConcurrentProducers() throws Exception {
+        // Given
+        ClickEventRingBuffer buffer = new ClickEventRingBuffer(64);
+        int producers = 8;
+        int eventsPerProducer = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String producer = "producer-" + p;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    ClickEvent event = new ClickEvent(producer, i, null, null);
+                    while (!buffer.offer(event)) {
+                        Thread.yield();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // When
+        start.countDown();
+        Set<String> received = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received.size() < producers * eventsPerProducer && System.nanoTime() < deadline) {
+            ClickEvent event = buffer.poll();
+            if (event == null) {
+                Thread.yield();
+            } else {
+                assertThat(received.add(event.shortCode() + "/" + event.timestampMillis())).isTrue();
+            }
+        }
+
+        // Then
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(received).hasSize(producers * eventsPerProducer);
+        assertThat(buffer.poll()).isNull();
+    }
+}
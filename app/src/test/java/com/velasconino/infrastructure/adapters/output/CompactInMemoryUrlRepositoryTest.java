@@ -0,0 +1,208 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.HashBasedAlphanumericShortener;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactInMemoryUrlRepositoryTest {
+
+    private final CompactInMemoryUrlRepository repository = new CompactInMemoryUrlRepository(4, 16);
+
+    @Test
+    void shouldFindSavedMapping() {
+        // Given
+        String shortCode = anEncodableShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        repository.save(shortCode, originalUrl);
+
+        // Then
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldNotFindUnknownShortCode() {
+        // Given
+        repository.save(anEncodableShortCode(), aUniqueUrl());
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(anEncodableShortCode());
+
+        // Then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void shouldStoreShortCodesThatCannotBeEncoded() {
+        // Given
+        String shortCode = "custom-" + aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        String winningUrl = repository.insertIfAbsent(shortCode, originalUrl);
+
+        // Then
+        assertThat(winningUrl).isEqualTo(originalUrl);
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldStoreNonAsciiAndLongUrls() {
+        // Given
+        String nonAsciiCode = anEncodableShortCode();
+        String nonAsciiUrl = "https://example.com/café/東京?q=😀";
+        String longCode = anEncodableShortCode();
+        String longUrl = "https://example.com/" + "a".repeat(20_000);
+
+        // When
+        repository.save(nonAsciiCode, nonAsciiUrl);
+        repository.save(longCode, longUrl);
+
+        // Then
+        assertThat(repository.findOriginalUrlByShortCode(nonAsciiCode)).contains(nonAsciiUrl);
+        assertThat(repository.findOriginalUrlByShortCode(longCode)).contains(longUrl);
+    }
+
+    @Test
+    void shouldKeepTheFirstMappingOfAShortCodeOnInsertIfAbsent() {
+        // Given
+        String shortCode = anEncodableShortCode();
+        String firstUrl = aUniqueUrl();
+
+        // When
+        String inserted = repository.insertIfAbsent(shortCode, firstUrl);
+        String rejected = repository.insertIfAbsent(shortCode, aUniqueUrl());
+
+        // Then
+        assertThat(inserted).isEqualTo(firstUrl);
+        assertThat(rejected).isEqualTo(firstUrl);
+    }
+
+    @Test
+    void shouldReplaceTheMappingOfAShortCodeOnSave() {
+        // Given
+        String shortCode = anEncodableShortCode();
+        repository.save(shortCode, aUniqueUrl());
+        String replacementUrl = aUniqueUrl();
+
+        // When
+        repository.save(shortCode, replacementUrl);
+
+        // Then
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(replacementUrl);
+        assertThat(repository.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnTheWinningUrlOfEveryShortCodeOnInsertAllIfAbsent() {
+        // Given
+        String takenCode = anEncodableShortCode();
+        String takenUrl = aUniqueUrl();
+        repository.save(takenCode, takenUrl);
+        String freeCode = anEncodableShortCode();
+        String freeUrl = aUniqueUrl();
+
+        // When
+        Map<String, String> result = repository.insertAllIfAbsent(Map.of(takenCode, aUniqueUrl(), freeCode, freeUrl));
+
+        // Then
+        assertThat(result).containsExactlyInAnyOrderEntriesOf(Map.of(takenCode, takenUrl, freeCode, freeUrl));
+    }
+
+    @Test
+    void shouldKeepEveryMappingAsTheTablesGrow() {
+        // Given
+        Map<String, String> mappings = someMappings(20_000);
+
+        // When
+        repository.insertAllIfAbsent(mappings);
+
+        // Then
+        assertThat(repository.size()).isEqualTo(mappings.size());
+        assertThat(repository.findOriginalUrlsByShortCodes(mappings.keySet())).isEqualTo(mappings);
+    }
+
+    @Test
+    void shouldTakeLittleMoreMemoryThanTheUrlBytes() {
+        // Given
+        Map<String, String> mappings = someMappings(50_000);
+        long urlBytes = mappings.values().stream().mapToLong(url -> url.length() + 1).sum();
+
+        // When
+        repository.insertAllIfAbsent(mappings);
+
+        // Then: at most 43 bytes of table per mapping, and the unused end of each stripe's last slab
+        long slabSlack = 4L * CompactInMemoryUrlRepository.SLAB_BYTES;
+        assertThat(repository.memoryBytes()).isLessThan(urlBytes + 43L * mappings.size() + slabSlack);
+    }
+
+    @Test
+    void shouldResolveMappingsWhileOthersAreWritten() throws InterruptedException {
+        // Given
+        Map<String, String> existing = someMappings(100);
+        repository.insertAllIfAbsent(existing);
+        Map<String, String> added = someMappings(20_000);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch writersDone = new CountDownLatch(2);
+        List<Map<String, String>> halves = split(added);
+
+        // When
+        List<Thread> threads = new ArrayList<>();
+        for (Map<String, String> half : halves) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                half.forEach(repository::insertIfAbsent);
+                writersDone.countDown();
+            }));
+        }
+        threads.add(Thread.ofPlatform().start(() -> {
+            while (writersDone.getCount() > 0) {
+                existing.forEach((shortCode, originalUrl) -> {
+                    if (!repository.findOriginalUrlByShortCode(shortCode).equals(Optional.of(originalUrl))) {
+                        failures.add(shortCode);
+                    }
+                });
+                Thread.yield();
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(repository.findOriginalUrlsByShortCodes(added.keySet())).isEqualTo(added);
+    }
+
+    private static String anEncodableShortCode() {
+        return new HashBasedAlphanumericShortener(aUniqueUrl()).generateShortCode(10);
+    }
+
+    private static Map<String, String> someMappings(int count) {
+        Map<String, String> mappings = new LinkedHashMap<>();
+        while (mappings.size() < count) {
+            mappings.put(anEncodableShortCode(), aUniqueUrl());
+        }
+        return mappings;
+    }
+
+    private static List<Map<String, String>> split(Map<String, String> mappings) {
+        Map<String, String> first = new LinkedHashMap<>();
+        Map<String, String> second = new LinkedHashMap<>();
+        mappings.forEach((shortCode, originalUrl) ->
+                (first.size() <= second.size() ? first : second).put(shortCode, originalUrl));
+        return List.of(first, second);
+    }
+}
@@ -0,0 +1,95 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitedUrlRepositoryTest {
+
+    private static final int MAX_CONCURRENCY = 4;
+
+    private final SlowUrlRepository delegate = new SlowUrlRepository();
+    private final ConcurrencyLimitedUrlRepository repository =
+        new ConcurrencyLimitedUrlRepository(delegate, MAX_CONCURRENCY);
+
+    @Test
+    void shouldNeverLetMoreCallsThroughThanAllowed() throws Exception {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        delegate.save(shortCode, originalUrl);
+
+        // When - far more virtual threads than permits
+        List<Future<Optional<String>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> repository.findOriginalUrlByShortCode(shortCode)));
+            }
+        }
+
+        // Then
+        for (Future<Optional<String>> result : results) {
+            assertThat(result.get()).contains(originalUrl);
+        }
+        assertThat(delegate.maxConcurrentCalls.get()).isLessThanOrEqualTo(MAX_CONCURRENCY);
+        assertThat(repository.availablePermits()).isEqualTo(MAX_CONCURRENCY);
+    }
+
+    @Test
+    void shouldReleasePermitWhenDelegateFails() {
+        // Given
+        ConcurrencyLimitedUrlRepository failingRepository = new ConcurrencyLimitedUrlRepository(
+            new InMemoryUrlRepository() {
+                @Override
+                public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+                    throw new IllegalStateException("Database unavailable");
+                }
+            }, 1);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            try {
+                failingRepository.findOriginalUrlByShortCode(aUniqueShortCode());
+            } catch (IllegalStateException expected) {
+                // The permit must still be returned
+            }
+        }
+
+        // Then
+        assertThat(failingRepository.availablePermits()).isEqualTo(1);
+    }
+
+    /**
+     * In-memory repository whose lookups take a while and record how many overlap.
+     */
+    private static class SlowUrlRepository extends InMemoryUrlRepository {
+
+        private final AtomicInteger concurrentCalls = new AtomicInteger();
+        private final AtomicInteger maxConcurrentCalls = new AtomicInteger();
+
+        @Override
+        public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+            int current = concurrentCalls.incrementAndGet();
+            maxConcurrentCalls.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(5);
+                return super.findOriginalUrlByShortCode(shortCode);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                concurrentCalls.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.infrastructure.adapters.output.ConsistentHashRing.IdRange;
+import com.velasconino.infrastructure.adapters.output.ConsistentHashRing.Move;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+
+    private static final int VIRTUAL_NODES = 128;
+    private static final int CODES = 30_000;
+
+    private final ConsistentHashRing threeShards = new ConsistentHashRing(List.of("shard-1", "shard-2", "shard-3"), VIRTUAL_NODES);
+    private final ConsistentHashRing fourShards = new ConsistentHashRing(List.of("shard-1", "shard-2", "shard-3", "shard-4"), VIRTUAL_NODES);
+
+    @Test
+    void shouldAssignEveryShortCodeTheSameShardOnEveryInstance() {
+        // Given
+        ConsistentHashRing sameShards = new ConsistentHashRing(List.of("shard-1", "shard-2", "shard-3"), VIRTUAL_NODES);
+
+        // When / Then
+        for (int i = 0; i < 1000; i++) {
+            long id = ShortCodeCodec.encode(aUniqueShortCode());
+            assertThat(sameShards.nodeFor(id)).isEqualTo(threeShards.nodeFor(id));
+        }
+    }
+
+    @Test
+    void shouldSpreadShortCodesEvenly() {
+        // Given
+        Map<String, Integer> counts = new HashMap<>();
+
+        // When
+        for (int i = 0; i < CODES; i++) {
+            counts.merge(threeShards.nodeFor(ShortCodeCodec.encode(aUniqueShortCode())), 1, Integer::sum);
+        }
+
+        // Then
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(CODES / 4, CODES * 5 / 12));
+    }
+
+    @Test
+    void shouldOnlyMoveShortCodesToAnAddedShard() {
+        // Given
+        int moved = 0;
+
+        // When
+        for (int i = 0; i < CODES; i++) {
+            long id = ShortCodeCodec.encode(aUniqueShortCode());
+            String before = threeShards.nodeFor(id);
+            String after = fourShards.nodeFor(id);
+            if (!before.equals(after)) {
+                assertThat(after).isEqualTo("shard-4");
+                moved++;
+            }
+        }
+
+        // Then: about a quarter of the codes move, not most of them as with modulo hashing
+        assertThat(moved).isBetween(CODES / 6, CODES / 3);
+    }
+
+    @Test
+    void shouldListTheIdRangesOfExactlyTheReassignedShortCodes() {
+        // Given
+        List<Move> moves = threeShards.movesTo(fourShards);
+
+        // When / Then
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5000; i++) {
+            String shortCode = aUniqueShortCode().substring(random.nextInt(ShortCodeCodec.MAX_LENGTH));
+            long id = ShortCodeCodec.encode(shortCode);
+            Move move = moveOf(moves, id);
+            if (threeShards.nodeFor(id).equals(fourShards.nodeFor(id))) {
+                assertThat(move).as(shortCode).isNull();
+            } else {
+                assertThat(move).as(shortCode).isNotNull();
+                assertThat(move.source()).isEqualTo(threeShards.nodeFor(id));
+                assertThat(move.target()).isEqualTo("shard-4");
+            }
+        }
+    }
+
+    @Test
+    void shouldListNoMovesBetweenIdenticalRings() {
+        // Given
+        ConsistentHashRing sameShards = new ConsistentHashRing(List.of("shard-3", "shard-2", "shard-1"), VIRTUAL_NODES);
+
+        // When
+        List<Move> moves = threeShards.movesTo(sameShards);
+
+        // Then
+        assertThat(moves).isEmpty();
+    }
+
+    @Test
+    void shouldPlaceShortCodesByTheirLeadingCharacters() {
+        // Given / When / Then
+        assertThat(ConsistentHashRing.position(ShortCodeCodec.encode("A"))).isZero();
+        assertThat(ConsistentHashRing.position(ShortCodeCodec.encode("AAAAAAAAAA"))).isZero();
+        assertThat(ConsistentHashRing.position(ShortCodeCodec.encode("B")))
+                .isEqualTo(ConsistentHashRing.position(ShortCodeCodec.encode("BAAAAAAAAA")));
+        assertThat(ConsistentHashRing.position(ShortCodeCodec.encode("9999999999"))).isEqualTo(ConsistentHashRing.SIZE - 1);
+    }
+
+    @Test
+    void shouldRejectDuplicateNodes() {
+        // When / Then
+        assertThatThrownBy(() -> new ConsistentHashRing(List.of("shard-1", "shard-1"), VIRTUAL_NODES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Move moveOf(List<Move> moves, long id) {
+        for (Move move : moves) {
+            for (IdRange range : move.idRanges()) {
+                if (id >= range.fromId() && id < range.toId()) {
+                    return move;
+                }
+            }
+        }
+        return null;
+    }
+}
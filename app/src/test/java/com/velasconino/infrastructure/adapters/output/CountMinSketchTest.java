@@ -0,0 +1,50 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTest {
+
+    @Test
+    void shouldNeverUnderestimateAndStayCloseForFrequentHashes() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        long hot = Hashing.hash("hot");
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add(hot);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(Hashing.hash("cold-" + i));
+        }
+
+        // Then
+        assertThat(sketch.estimate(hot)).isBetween(1_000L, 1_100L);
+        assertThat(sketch.estimate(Hashing.hash("cold-42"))).isGreaterThanOrEqualTo(1L);
+        assertThat(sketch.memoryBytes()).isEqualTo(4 * 1024 * Long.BYTES);
+    }
+
+    @Test
+    void shouldReturnTheEstimateIncludingTheAddedOccurrence() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        long hash = Hashing.hash("abc");
+
+        // When
+        sketch.add(hash);
+        long estimate = sketch.add(hash);
+
+        // Then
+        assertThat(estimate).isEqualTo(2);
+        assertThat(sketch.estimate(Hashing.hash("never-added"))).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectWidthsThatAreNotAPowerOfTwo() {
+        assertThatThrownBy(() -> new CountMinSketch(4, 1000)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CountMinSketch(0, 1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
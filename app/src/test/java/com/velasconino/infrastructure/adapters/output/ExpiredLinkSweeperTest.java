@@ -0,0 +1,99 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.fixture.H2AdvisoryLocks;
+import com.velasconino.infrastructure.adapters.output.persistence.AdvisoryLock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.jdbc.DataSourceResolver;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * H2 has no advisory locks, so sweeps are run under the stand-ins of {@link H2AdvisoryLocks}.
+ */
+@MicronautTest(transactional = false)
+@Property(name = "url.shortener.expiry.sweeper.batch-size", value = "2")
+@Property(name = "url.shortener.expiry.sweeper.batch-pause", value = "0s")
+@Property(name = "url.shortener.expiry.sweeper.interval", value = "1h")
+class ExpiredLinkSweeperTest {
+
+    @Inject
+    ExpiredLinkSweeper sweeper;
+
+    @Inject
+    PostgresUrlRepository repository;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    DataSourceResolver dataSourceResolver;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection connection = dataSourceResolver.resolve(dataSource).getConnection()) {
+            H2AdvisoryLocks.define(connection);
+        }
+    }
+
+    @Test
+    void shouldPurgeExpiredLinksInBatches() {
+        // Given
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String shortCode = aUniqueShortCode();
+            repository.insertIfAbsent(shortCode, aUniqueUrl(), Instant.now().minus(Duration.ofMinutes(i + 1)));
+            expired.add(shortCode);
+        }
+        String expiring = aUniqueShortCode();
+        repository.insertIfAbsent(expiring, aUniqueUrl(), Instant.now().plus(Duration.ofHours(1)));
+        String permanent = aUniqueShortCode();
+        repository.insertIfAbsent(permanent, aUniqueUrl());
+
+        // When
+        long purged = sweeper.sweep();
+
+        // Then
+        assertThat(purged).isGreaterThanOrEqualTo(5);
+        assertThat(repository.findOriginalUrlsByShortCodes(expired)).isEmpty();
+        assertThat(repository.findOriginalUrlByShortCode(expiring)).isPresent();
+        assertThat(repository.findOriginalUrlByShortCode(permanent)).isPresent();
+        assertThat(meterRegistry.get("url.shortener.expiry.purged").counter().count()).isGreaterThanOrEqualTo(5);
+        assertThat(meterRegistry.get("url.shortener.expiry.sweep").timer().count()).isPositive();
+    }
+
+    @Test
+    void shouldSkipDatabasesAnotherNodeIsSweeping() {
+        // Given
+        String expired = aUniqueShortCode();
+        repository.insertIfAbsent(expired, aUniqueUrl(), Instant.now().minus(Duration.ofMinutes(1)));
+        AdvisoryLock otherNode = new AdvisoryLock(dataSourceResolver.resolve(dataSource), ExpiredLinkSweeper.LOCK_KEY);
+        AtomicLong purged = new AtomicLong(-1);
+
+        // When
+        otherNode.runIfFree(() -> purged.set(sweeper.sweep()));
+
+        // Then
+        assertThat(purged).hasValue(0);
+        assertThat(repository.findOriginalUrlsByShortCodes(List.of(expired))).containsKey(expired);
+    }
+}
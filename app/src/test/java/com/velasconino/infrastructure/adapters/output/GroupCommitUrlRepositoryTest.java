@@ -0,0 +1,207 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupCommitUrlRepositoryTest {
+
+    private final CountingUrlRepository delegate = new CountingUrlRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+    private GroupCommitUrlRepository repository;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void shouldWriteConcurrentInsertsInFewerCommits() throws Exception {
+        // Given
+        repository = new GroupCommitUrlRepository(delegate, 100, Duration.ofMillis(50), meterRegistry);
+        int inserts = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        List<String> shortCodes = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < inserts; i++) {
+            String shortCode = aUniqueShortCode();
+            String url = aUniqueUrl();
+            shortCodes.add(shortCode);
+            urls.add(url);
+            results.add(executor.submit(() -> {
+                start.await();
+                return repository.insertIfAbsent(shortCode, url);
+            }));
+        }
+
+        // When
+        start.countDown();
+
+        // Then
+        for (int i = 0; i < inserts; i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(urls.get(i));
+            assertThat(delegate.findOriginalUrlByShortCode(shortCodes.get(i))).contains(urls.get(i));
+        }
+        assertThat(delegate.commits.get()).isLessThan(inserts);
+        DistributionSummary batchSizes = meterRegistry.get("url.shortener.group-commit.batch-size").summary();
+        assertThat(batchSizes.count()).isEqualTo(delegate.commits.get());
+        assertThat(batchSizes.totalAmount()).isEqualTo(inserts);
+    }
+
+    @Test
+    void shouldAgreeOnOneWinnerForTheSameShortCodeInOneBatch() throws Exception {
+        // Given
+        repository = new GroupCommitUrlRepository(delegate, 100, Duration.ofMillis(50), meterRegistry);
+        String shortCode = aUniqueShortCode();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String url = aUniqueUrl();
+            results.add(executor.submit(() -> {
+                start.await();
+                return repository.insertIfAbsent(shortCode, url);
+            }));
+        }
+
+        // When
+        start.countDown();
+
+        // Then
+        Set<String> winners = new HashSet<>();
+        for (Future<String> result : results) {
+            winners.add(result.get(5, TimeUnit.SECONDS));
+        }
+        assertThat(winners).hasSize(1);
+        assertThat(delegate.findOriginalUrlByShortCode(shortCode)).contains(winners.iterator().next());
+    }
+
+    @Test
+    void shouldCommitAsSoonAsTheBatchIsFull() throws Exception {
+        // Given - a window far longer than the test timeout
+        repository = new GroupCommitUrlRepository(delegate, 4, Duration.ofMinutes(10), meterRegistry);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String shortCode = aUniqueShortCode();
+            String url = aUniqueUrl();
+            results.add(executor.submit(() -> repository.insertIfAbsent(shortCode, url)));
+        }
+
+        // When/Then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        assertThat(delegate.commits.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFailEveryInsertOfAFailedCommit() {
+        // Given
+        CountingUrlRepository failingDelegate = new CountingUrlRepository() {
+            @Override
+            public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+                throw new IllegalStateException("Database unavailable");
+            }
+        };
+        repository = new GroupCommitUrlRepository(failingDelegate, 100, Duration.ZERO, meterRegistry);
+
+        // When/Then
+        assertThatThrownBy(() -> repository.insertIfAbsent(aUniqueShortCode(), aUniqueUrl()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Database unavailable");
+    }
+
+    @Test
+    void shouldKeepFlushingAfterACommitFailsWithAnError() {
+        // Given - a delegate whose first commit fails with an Error
+        AtomicInteger commits = new AtomicInteger();
+        CountingUrlRepository erroringDelegate = new CountingUrlRepository() {
+            @Override
+            public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+                if (commits.getAndIncrement() == 0) {
+                    throw new StackOverflowError();
+                }
+                return super.insertAllIfAbsent(mappings);
+            }
+        };
+        repository = new GroupCommitUrlRepository(erroringDelegate, 100, Duration.ZERO, meterRegistry);
+        String url = aUniqueUrl();
+
+        // When/Then
+        assertThatThrownBy(() -> repository.insertIfAbsent(aUniqueShortCode(), aUniqueUrl()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasCauseInstanceOf(StackOverflowError.class);
+        assertThat(repository.insertIfAbsent(aUniqueShortCode(), url)).isEqualTo(url);
+    }
+
+    @Test
+    void shouldDrainQueuedInsertsOnClose() throws Exception {
+        // Given - inserts waiting for a long window
+        repository = new GroupCommitUrlRepository(delegate, 100, Duration.ofMinutes(10), meterRegistry);
+        String shortCode = aUniqueShortCode();
+        String url = aUniqueUrl();
+        Future<String> result = executor.submit(() -> repository.insertIfAbsent(shortCode, url));
+        Thread.sleep(100);
+        assertThat(result).isNotDone();
+
+        // When
+        repository.close();
+
+        // Then
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(url);
+        assertThat(delegate.findOriginalUrlByShortCode(shortCode)).contains(url);
+    }
+
+    @Test
+    void shouldWriteDirectlyAfterClose() throws Exception {
+        // Given
+        repository = new GroupCommitUrlRepository(delegate, 100, Duration.ofMillis(1), meterRegistry);
+        repository.close();
+        String shortCode = aUniqueShortCode();
+        String url = aUniqueUrl();
+
+        // When
+        String result = repository.insertIfAbsent(shortCode, url);
+
+        // Then
+        assertThat(result).isEqualTo(url);
+        assertThat(delegate.commits.get()).isZero();
+    }
+
+    /**
+     * In-memory repository that counts how many batch inserts reach it.
+     */
+    private static class CountingUrlRepository extends InMemoryUrlRepository {
+
+        private final AtomicInteger commits = new AtomicInteger();
+
+        @Override
+        public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+            commits.incrementAndGet();
+            return super.insertAllIfAbsent(mappings);
+        }
+    }
+}
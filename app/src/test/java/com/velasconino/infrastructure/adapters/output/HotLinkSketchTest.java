@@ -0,0 +1,109 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.ClickEvent;
+import com.velasconino.domain.HotLink;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HotLinkSketchTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:30:30Z");
+
+    private final HotLinkSketch sketch = new HotLinkSketch(
+            Duration.ofMinutes(1), 60, 64, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void shouldRankShortCodesByClicksInTheWindow() {
+        // Given
+        click("hot", NOW, 300);
+        click("warm", NOW.minusSeconds(30), 200);
+        click("cool", NOW.minusSeconds(60), 100);
+
+        // When
+        List<HotLink> hotLinks = sketch.topLinks(Duration.ofMinutes(5), 2);
+
+        // Then
+        assertThat(hotLinks).extracting(HotLink::shortCode).containsExactly("hot", "warm");
+        assertThat(hotLinks.get(0).clicks()).isEqualTo(300);
+    }
+
+    @Test
+    void shouldOnlyCountClicksWithinTheWindow() {
+        // Given
+        click("old", NOW.minus(Duration.ofMinutes(10)), 500);
+        click("recent", NOW, 10);
+
+        // When
+        List<HotLink> lastFiveMinutes = sketch.topLinks(Duration.ofMinutes(5), 10);
+        List<HotLink> lastHour = sketch.topLinks(Duration.ofHours(1), 10);
+
+        // Then
+        assertThat(lastFiveMinutes).extracting(HotLink::shortCode).containsExactly("recent");
+        assertThat(lastHour).extracting(HotLink::shortCode).containsExactly("old", "recent");
+    }
+
+    @Test
+    void shouldEstimateDistinctClientsAcrossBuckets() {
+        // Given
+        for (int client = 0; client < 200; client++) {
+            String address = "10.0.0." + client;
+            sketch.publish(new ClickEvent("abc", NOW.minusSeconds(90).toEpochMilli(), "Mozilla/5.0", address));
+            sketch.publish(new ClickEvent("abc", NOW.toEpochMilli(), "Mozilla/5.0", address));
+            sketch.publish(new ClickEvent("abc", NOW.toEpochMilli(), "curl/8.5.0", address));
+        }
+
+        // When
+        HotLink hotLink = sketch.topLinks(Duration.ofMinutes(5), 1).get(0);
+
+        // Then, the same address with another user agent is another client
+        assertThat(hotLink.clicks()).isEqualTo(600);
+        assertThat((double) hotLink.distinctClients()).isCloseTo(400, within(60.0));
+    }
+
+    @Test
+    void shouldKeepTrackingHotCodesAmongManyColdOnes() {
+        // Given
+        for (int i = 0; i < 10_000; i++) {
+            click("cold-" + i, NOW, 1);
+            if (i % 10 == 0) {
+                click("hot", NOW, 1);
+            }
+        }
+
+        // When
+        List<HotLink> hotLinks = sketch.topLinks(Duration.ofMinutes(1), 1);
+
+        // Then
+        assertThat(hotLinks).extracting(HotLink::shortCode).containsExactly("hot");
+        assertThat(hotLinks.get(0).clicks()).isGreaterThanOrEqualTo(1_000);
+    }
+
+    @Test
+    void shouldIgnoreClicksOlderThanTheRetention() {
+        // Given
+        click("recent", NOW, 1);
+
+        // When
+        click("ancient", NOW.minus(Duration.ofHours(2)), 1);
+
+        // Then
+        assertThat(sketch.retention()).isEqualTo(Duration.ofHours(1));
+        assertThat(sketch.topLinks(Duration.ofHours(1), 10)).extracting(HotLink::shortCode)
+            .containsExactly("recent");
+    }
+
+    private void click(String shortCode, Instant at, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.publish(new ClickEvent(shortCode, at.toEpochMilli(), null, "192.0.2." + (i % 256)));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 100_000})
+    void shouldEstimateDistinctHashesWithinTheExpectedError(int distinct) {
+        // Given
+        HyperLogLog hyperLogLog = new HyperLogLog(10);
+
+        // When
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (int i = 0; i < distinct; i++) {
+                hyperLogLog.add(Hashing.hash("client-" + i));
+            }
+        }
+
+        // Then, within three standard errors of 3.25%
+        assertThat((double) hyperLogLog.estimate()).isCloseTo(distinct, within(distinct * 0.1 + 1));
+    }
+
+    @Test
+    void shouldEstimateTheUnionWhenMerged() {
+        // Given
+        HyperLogLog first = new HyperLogLog(10);
+        HyperLogLog second = new HyperLogLog(10);
+        for (int i = 0; i < 20_000; i++) {
+            first.add(Hashing.hash("client-" + i));
+            second.add(Hashing.hash("client-" + (i + 10_000)));
+        }
+
+        // When
+        first.addAll(second);
+
+        // Then
+        assertThat((double) first.estimate()).isCloseTo(30_000, within(3_000.0));
+    }
+
+    @Test
+    void shouldNotLoseUpdatesOfConcurrentAdds() throws InterruptedException {
+        // Given
+        HyperLogLog concurrent = new HyperLogLog(8);
+        HyperLogLog sequential = new HyperLogLog(8);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread * 5_000;
+            executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    concurrent.add(Hashing.hash("client-" + (offset + i)));
+                }
+            });
+        }
+        for (int i = 0; i < 20_000; i++) {
+            sequential.add(Hashing.hash("client-" + i));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then, registers only ever rise, so the order of adds does not matter
+        assertThat(concurrent.estimate()).isEqualTo(sequential.estimate());
+    }
+
+    @Test
+    void shouldRejectMergingDifferentPrecisions() {
+        assertThatThrownBy(() -> new HyperLogLog(8).addAll(new HyperLogLog(10)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,8 +1,12 @@
 package com.velasconino.infrastructure.adapters.output;
 
 import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.UrlMapping;
 
 import jakarta.inject.Singleton;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -14,22 +18,68 @@ import java.util.concurrent.ConcurrentHashMap;
 public class InMemoryUrlRepository implements UrlRepository {
     
     private final Map<String, String> urlMap = new ConcurrentHashMap<>();
+    private final Map<String, Instant> expiries = new ConcurrentHashMap<>();
     
     @Override
     public void save(String shortCode, String originalUrl) {
         urlMap.put(shortCode, originalUrl);
     }
     
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        String existingUrl = urlMap.putIfAbsent(shortCode, originalUrl);
+        return existingUrl == null ? originalUrl : existingUrl;
+    }
+    
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl, Instant expiresAt) {
+        String existingUrl = urlMap.putIfAbsent(shortCode, originalUrl);
+        if (existingUrl != null) {
+            return existingUrl;
+        }
+        if (expiresAt != null) {
+            expiries.put(shortCode, expiresAt);
+        }
+        return originalUrl;
+    }
+    
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        Map<String, String> winningUrls = new HashMap<>();
+        mappings.forEach((shortCode, originalUrl) ->
+            winningUrls.put(shortCode, insertIfAbsent(shortCode, originalUrl)));
+        return winningUrls;
+    }
+    
     @Override
     public Optional<String> findOriginalUrlByShortCode(String shortCode) {
         return Optional.ofNullable(urlMap.get(shortCode));
     }
     
+    @Override
+    public Optional<UrlMapping> findMappingByShortCode(String shortCode) {
+        return findOriginalUrlByShortCode(shortCode)
+                .map(originalUrl -> new UrlMapping(originalUrl, expiries.get(shortCode)));
+    }
+    
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        Map<String, String> originalUrls = new HashMap<>();
+        shortCodes.forEach(shortCode -> {
+            String originalUrl = urlMap.get(shortCode);
+            if (originalUrl != null) {
+                originalUrls.put(shortCode, originalUrl);
+            }
+        });
+        return originalUrls;
+    }
+    
     /**
      * Clears all entries from the repository.
      * This method is primarily used for testing.
      */
     public void clear() { 
         urlMap.clear();
+        expiries.clear();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,325 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedFileUrlRepositoryTest {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final List<MappedFileUrlRepository> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeRepositories() throws Exception {
+        for (MappedFileUrlRepository repository : opened) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void shouldFindSavedMapping() throws IOException {
+        // Given
+        MappedFileUrlRepository repository = open();
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        repository.save(shortCode, originalUrl);
+
+        // Then
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldNotFindUnknownShortCode() throws IOException {
+        // Given
+        MappedFileUrlRepository repository = open();
+        repository.save(aUniqueShortCode(), aUniqueUrl());
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(aUniqueShortCode());
+
+        // Then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void shouldStoreNonAsciiUrls() throws IOException {
+        // Given
+        MappedFileUrlRepository repository = open();
+        String shortCode = aUniqueShortCode();
+        String originalUrl = "https://example.com/café/東京?q=😀";
+
+        // When
+        repository.save(shortCode, originalUrl);
+
+        // Then
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldKeepTheFirstMappingOfAShortCodeOnInsertIfAbsent() throws IOException {
+        // Given
+        MappedFileUrlRepository repository = open();
+        String shortCode = aUniqueShortCode();
+        String firstUrl = aUniqueUrl();
+
+        // When
+        String inserted = repository.insertIfAbsent(shortCode, firstUrl);
+        String rejected = repository.insertIfAbsent(shortCode, aUniqueUrl());
+
+        // Then
+        assertThat(inserted).isEqualTo(firstUrl);
+        assertThat(rejected).isEqualTo(firstUrl);
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(firstUrl);
+    }
+
+    @Test
+    void shouldReturnTheWinningUrlOfEveryShortCodeOnInsertAllIfAbsent() throws IOException {
+        // Given
+        MappedFileUrlRepository repository = open();
+        String takenCode = aUniqueShortCode();
+        String takenUrl = aUniqueUrl();
+        repository.save(takenCode, takenUrl);
+        String freeCode = aUniqueShortCode();
+        String freeUrl = aUniqueUrl();
+
+        // When
+        Map<String, String> result = repository.insertAllIfAbsent(Map.of(takenCode, aUniqueUrl(), freeCode, freeUrl));
+
+        // Then
+        assertThat(result).containsExactlyInAnyOrderEntriesOf(Map.of(takenCode, takenUrl, freeCode, freeUrl));
+    }
+
+    @Test
+    void shouldFindSeveralMappingsAtOnce() throws IOException {
+        // Given
+        MappedFileUrlRepository repository = open();
+        Map<String, String> mappings = someMappings(10);
+        repository.insertAllIfAbsent(mappings);
+        List<String> shortCodes = new ArrayList<>(mappings.keySet());
+        shortCodes.add(aUniqueShortCode());
+
+        // When
+        Map<String, String> result = repository.findOriginalUrlsByShortCodes(shortCodes);
+
+        // Then
+        assertThat(result).isEqualTo(mappings);
+    }
+
+    @Test
+    void shouldReplaceTheMappingOfAShortCodeOnSave() throws IOException {
+        // Given
+        MappedFileUrlRepository repository = open();
+        String shortCode = aUniqueShortCode();
+        repository.save(shortCode, aUniqueUrl());
+        String replacementUrl = aUniqueUrl();
+
+        // When
+        repository.save(shortCode, replacementUrl);
+
+        // Then
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(replacementUrl);
+    }
+
+    @Test
+    void shouldRecoverMappingsWhenReopened() throws Exception {
+        // Given
+        MappedFileUrlRepository repository = open();
+        Map<String, String> mappings = someMappings(500);
+        repository.insertAllIfAbsent(mappings);
+        String replacedCode = mappings.keySet().iterator().next();
+        String replacementUrl = aUniqueUrl();
+        repository.save(replacedCode, replacementUrl);
+        mappings.put(replacedCode, replacementUrl);
+        close(repository);
+
+        // When
+        MappedFileUrlRepository reopened = open();
+
+        // Then
+        assertThat(reopened.findOriginalUrlsByShortCodes(mappings.keySet())).isEqualTo(mappings);
+    }
+
+    @Test
+    void shouldDiscardATornRecordWhenReopened() throws Exception {
+        // Given
+        MappedFileUrlRepository repository = open();
+        String keptCode = aUniqueShortCode();
+        String keptUrl = aUniqueUrl();
+        repository.save(keptCode, keptUrl);
+        long keptEnd = repository.logSize();
+        String tornCode = aUniqueShortCode();
+        repository.save(tornCode, aUniqueUrl());
+        close(repository);
+        corruptByteAt(keptEnd + 20);
+
+        // When
+        MappedFileUrlRepository reopened = open();
+        String newCode = aUniqueShortCode();
+        String newUrl = aUniqueUrl();
+        reopened.save(newCode, newUrl);
+
+        // Then
+        assertThat(reopened.findOriginalUrlByShortCode(keptCode)).contains(keptUrl);
+        assertThat(reopened.findOriginalUrlByShortCode(tornCode)).isEmpty();
+        assertThat(reopened.findOriginalUrlByShortCode(newCode)).contains(newUrl);
+    }
+
+    @Test
+    void shouldDropReplacedMappingsWhenCompacted() throws IOException {
+        // Given
+        MappedFileUrlRepository repository = open();
+        Map<String, String> mappings = someMappings(50);
+        repository.insertAllIfAbsent(mappings);
+        for (String shortCode : mappings.keySet()) {
+            String replacementUrl = aUniqueUrl();
+            repository.save(shortCode, replacementUrl);
+            mappings.put(shortCode, replacementUrl);
+        }
+        long sizeBefore = repository.logSize();
+
+        // When
+        repository.compact();
+
+        // Then
+        assertThat(repository.logSize()).isLessThan(sizeBefore);
+        assertThat(repository.findOriginalUrlsByShortCodes(mappings.keySet())).isEqualTo(mappings);
+        assertThat(directory.resolve("urls.log.compacting")).doesNotExist();
+    }
+
+    @Test
+    void shouldRecoverCompactedMappingsWhenReopened() throws Exception {
+        // Given
+        MappedFileUrlRepository repository = open();
+        Map<String, String> mappings = someMappings(50);
+        repository.insertAllIfAbsent(mappings);
+        for (String shortCode : mappings.keySet()) {
+            String replacementUrl = aUniqueUrl();
+            repository.save(shortCode, replacementUrl);
+            mappings.put(shortCode, replacementUrl);
+        }
+        repository.compact();
+        String laterCode = aUniqueShortCode();
+        String laterUrl = aUniqueUrl();
+        repository.save(laterCode, laterUrl);
+        mappings.put(laterCode, laterUrl);
+        close(repository);
+
+        // When
+        MappedFileUrlRepository reopened = open();
+
+        // Then
+        assertThat(reopened.findOriginalUrlsByShortCodes(mappings.keySet())).isEqualTo(mappings);
+    }
+
+    @Test
+    void shouldKeepMappingsWrittenWhileCompacting() throws Exception {
+        // Given
+        MappedFileUrlRepository repository = open();
+        Map<String, String> mappings = new HashMap<>(someMappings(200));
+        repository.insertAllIfAbsent(mappings);
+        Map<String, String> writtenMeanwhile = someMappings(200);
+
+        // When
+        Thread writer = Thread.ofPlatform().start(() -> writtenMeanwhile.forEach(repository::save));
+        repository.compact();
+        writer.join();
+        repository.compact();
+
+        // Then
+        mappings.putAll(writtenMeanwhile);
+        assertThat(repository.findOriginalUrlsByShortCodes(mappings.keySet())).isEqualTo(mappings);
+    }
+
+    @Test
+    void shouldResolveMappingsWhileOthersAreWritten() throws Exception {
+        // Given
+        MappedFileUrlRepository repository = open();
+        Map<String, String> existing = someMappings(100);
+        repository.insertAllIfAbsent(existing);
+        Map<String, String> added = someMappings(2000);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch writerDone = new CountDownLatch(1);
+
+        // When
+        Thread writer = Thread.ofPlatform().start(() -> {
+            added.forEach(repository::insertIfAbsent);
+            writerDone.countDown();
+        });
+        Thread reader = Thread.ofPlatform().start(() -> {
+            while (writerDone.getCount() > 0) {
+                existing.forEach((shortCode, originalUrl) -> {
+                    if (!repository.findOriginalUrlByShortCode(shortCode).equals(Optional.of(originalUrl))) {
+                        failures.add(shortCode);
+                    }
+                });
+                Thread.yield();
+            }
+        });
+        writer.join();
+        reader.join();
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(repository.findOriginalUrlsByShortCodes(added.keySet())).isEqualTo(added);
+    }
+
+    @Test
+    void shouldRejectWritesOnceClosed() throws Exception {
+        // Given
+        MappedFileUrlRepository repository = open();
+        close(repository);
+
+        // When / Then
+        assertThatThrownBy(() -> repository.save(aUniqueShortCode(), aUniqueUrl()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private MappedFileUrlRepository open() throws IOException {
+        MappedFileUrlRepository repository = new MappedFileUrlRepository(directory, false, 0.5, CHUNK_SIZE);
+        opened.add(repository);
+        return repository;
+    }
+
+    private void close(MappedFileUrlRepository repository) throws Exception {
+        opened.remove(repository);
+        repository.close();
+    }
+
+    private void corruptByteAt(long position) throws IOException {
+        Path log = directory.resolve(MappedFileUrlRepository.LOG_FILE);
+        byte[] content = Files.readAllBytes(log);
+        content[(int) position] ^= 0x5A;
+        Files.write(log, content);
+    }
+
+    private static Map<String, String> someMappings(int count) {
+        Map<String, String> mappings = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            mappings.put(aUniqueShortCode(), aUniqueUrl());
+        }
+        return mappings;
+    }
+}
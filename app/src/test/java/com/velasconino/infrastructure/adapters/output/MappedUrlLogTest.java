@@ -0,0 +1,94 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedUrlLogTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackAppendedRecords() throws IOException {
+        try (MappedUrlLog log = openEmpty()) {
+            // When
+            long position = log.append("abc123", url("https://example.com/a"));
+
+            // Then
+            assertThat(log.readShortCode(position)).isEqualTo("abc123");
+            assertThat(log.readUrl(position)).isEqualTo("https://example.com/a");
+            assertThat(log.hasShortCode(position, "abc123")).isTrue();
+            assertThat(log.hasShortCode(position, "abc124")).isFalse();
+            assertThat(log.shortCodeHash(position)).isEqualTo(Hashing.hash("abc123"));
+        }
+    }
+
+    @Test
+    void shouldNotSplitRecordsAcrossChunks() throws IOException {
+        List<Long> positions = new ArrayList<>();
+        try (MappedUrlLog log = openEmpty()) {
+            // When
+            for (int i = 0; i < 40; i++) {
+                positions.add(log.append("code" + i, url("https://example.com/" + "x".repeat(i * 3))));
+            }
+
+            // Then
+            for (long position : positions) {
+                assertThat(position % CHUNK_SIZE + log.recordSize(position)).isLessThanOrEqualTo(CHUNK_SIZE);
+            }
+            assertThat(log.end()).isGreaterThan(CHUNK_SIZE);
+        }
+
+        // And the records are replayed in order
+        List<Long> recovered = new ArrayList<>();
+        try (MappedUrlLog log = MappedUrlLog.open(directory.resolve("urls.log"), CHUNK_SIZE)) {
+            log.recover(recovered::add);
+        }
+        assertThat(recovered).isEqualTo(positions);
+    }
+
+    @Test
+    void shouldCompareShortCodesOfTwoRecords() throws IOException {
+        try (MappedUrlLog log = openEmpty()) {
+            // Given
+            long first = log.append("same", url("https://example.com/1"));
+            long second = log.append("same", url("https://example.com/2"));
+            long other = log.append("other", url("https://example.com/3"));
+
+            // When / Then
+            assertThat(log.haveSameShortCode(first, second)).isTrue();
+            assertThat(log.haveSameShortCode(first, other)).isFalse();
+        }
+    }
+
+    @Test
+    void shouldRejectRecordsLargerThanAChunk() throws IOException {
+        try (MappedUrlLog log = openEmpty()) {
+            // When / Then
+            assertThatThrownBy(() -> log.append("abc", new byte[CHUNK_SIZE]))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private MappedUrlLog openEmpty() throws IOException {
+        MappedUrlLog log = MappedUrlLog.open(directory.resolve("urls.log"), CHUNK_SIZE);
+        log.recover(position -> {
+        });
+        return log;
+    }
+
+    private static byte[] url(String url) {
+        return url.getBytes(StandardCharsets.UTF_8);
+    }
+}
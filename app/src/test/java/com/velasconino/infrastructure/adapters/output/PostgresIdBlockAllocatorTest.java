@@ -0,0 +1,37 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import io.micronaut.jdbc.DataSourceResolver;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest(transactional = false)
+class PostgresIdBlockAllocatorTest {
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    DataSourceResolver dataSourceResolver;
+
+    @Test
+    void shouldNeverHandOutTheSameBlockTwice() {
+        // Given
+        PostgresIdBlockAllocator allocator = new PostgresIdBlockAllocator(dataSourceResolver.resolve(dataSource));
+        PostgresIdBlockAllocator otherNode = new PostgresIdBlockAllocator(dataSourceResolver.resolve(dataSource));
+
+        // When
+        long first = allocator.nextBlock();
+        long second = otherNode.nextBlock();
+        long third = allocator.nextBlock();
+
+        // Then
+        assertThat(first).isPositive();
+        assertThat(second).isGreaterThan(first);
+        assertThat(third).isGreaterThan(second);
+    }
+}
@@ -1,5 +1,7 @@
 package com.velasconino.infrastructure.adapters.output;
 
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.domain.UrlMapping;
 import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingEntity;
 import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingRepository;
 
@@ -8,7 +10,15 @@ import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
@@ -63,4 +73,149 @@ class PostgresUrlRepositoryTest {
         // Then
         assertThat(result).isEmpty();
     }
-} 
\ No newline at end of file
+    
+    @Test
+    void shouldInsertWhenShortCodeIsFree() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        
+        // When
+        String winningUrl = repository.insertIfAbsent(shortCode, originalUrl);
+        
+        // Then
+        assertThat(winningUrl).isEqualTo(originalUrl);
+        assertThat(urlMappingRepository.findByShortCode(shortCode))
+            .hasValueSatisfying(entity -> assertThat(entity.getCreatedAt()).isNotNull());
+    }
+    
+    @Test
+    void shouldReturnExistingUrlWhenShortCodeIsTaken() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String existingUrl = aUniqueUrl();
+        repository.save(shortCode, existingUrl);
+        
+        // When
+        String winningUrl = repository.insertIfAbsent(shortCode, aUniqueUrl());
+        
+        // Then
+        assertThat(winningUrl).isEqualTo(existingUrl);
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(existingUrl);
+    }
+    
+    @Test
+    void shouldAgreeOnOneWinnerWhenInsertingConcurrently() throws Exception {
+        // Given
+        String shortCode = aUniqueShortCode();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<String>> results = new ArrayList<>();
+        
+        // When
+        try {
+            for (int i = 0; i < threads * 4; i++) {
+                String originalUrl = aUniqueUrl();
+                results.add(executor.submit(() -> repository.insertIfAbsent(shortCode, originalUrl)));
+            }
+            Set<String> winningUrls = new HashSet<>();
+            for (Future<String> result : results) {
+                winningUrls.add(result.get());
+            }
+            
+            // Then
+            assertThat(winningUrls).hasSize(1);
+            assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(winningUrls.iterator().next());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void shouldFindSeveralShortCodesInOneLookup() {
+        // Given
+        String firstShortCode = aUniqueShortCode();
+        String secondShortCode = aUniqueShortCode();
+        String nonExistentShortCode = aUniqueShortCode();
+        String firstUrl = aUniqueUrl();
+        String secondUrl = aUniqueUrl();
+        repository.save(firstShortCode, firstUrl);
+        repository.save(secondShortCode, secondUrl);
+        
+        // When
+        Map<String, String> result = repository.findOriginalUrlsByShortCodes(
+            List.of(firstShortCode, secondShortCode, nonExistentShortCode));
+        
+        // Then
+        assertThat(result).containsOnly(
+            Map.entry(firstShortCode, firstUrl),
+            Map.entry(secondShortCode, secondUrl));
+    }
+    
+    @Test
+    void shouldInsertFreeShortCodesOfBatchAndKeepExistingOnes() {
+        // Given
+        String takenShortCode = aUniqueShortCode();
+        String freeShortCode = aUniqueShortCode();
+        String existingUrl = aUniqueUrl();
+        String freeUrl = aUniqueUrl();
+        repository.save(takenShortCode, existingUrl);
+        
+        // When
+        Map<String, String> result = repository.insertAllIfAbsent(Map.of(
+            takenShortCode, aUniqueUrl(),
+            freeShortCode, freeUrl));
+        
+        // Then
+        assertThat(result).containsOnly(
+            Map.entry(takenShortCode, existingUrl),
+            Map.entry(freeShortCode, freeUrl));
+        assertThat(repository.findOriginalUrlByShortCode(takenShortCode)).contains(existingUrl);
+        assertThat(repository.findOriginalUrlByShortCode(freeShortCode)).contains(freeUrl);
+    }
+    
+    @Test
+    void shouldStoreShortCodeAsItsEncodedValue() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        
+        // When
+        repository.save(shortCode, originalUrl);
+        
+        // Then
+        assertThat(urlMappingRepository.findById(ShortCodeCodec.encode(shortCode)))
+            .hasValueSatisfying(entity -> assertThat(entity.getOriginalUrl()).isEqualTo(originalUrl));
+    }
+    
+    @Test
+    void shouldNotFindShortCodesThatCannotBeEncoded() {
+        // Given
+        String shortCode = "custom-" + aUniqueShortCode();
+        
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+        Map<String, String> results = repository.findOriginalUrlsByShortCodes(List.of(shortCode));
+        
+        // Then
+        assertThat(result).isEmpty();
+        assertThat(results).isEmpty();
+    }
+    
+    @Test
+    void shouldFindMappingsWithTheirExpiry() {
+        // Given
+        String expiring = aUniqueShortCode();
+        String permanent = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        Instant expiresAt = Instant.parse("2100-01-01T00:00:00Z");
+        
+        // When
+        repository.insertIfAbsent(expiring, originalUrl, expiresAt);
+        repository.insertIfAbsent(permanent, originalUrl);
+        
+        // Then
+        assertThat(repository.findMappingByShortCode(expiring)).contains(new UrlMapping(originalUrl, expiresAt));
+        assertThat(repository.findMappingByShortCode(permanent)).contains(UrlMapping.permanent(originalUrl));
+    }
+}
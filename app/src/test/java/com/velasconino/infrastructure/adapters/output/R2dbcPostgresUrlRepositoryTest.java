@@ -0,0 +1,86 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.ReactiveUrlRepository;
+import com.velasconino.domain.UrlMapping;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest(transactional = false)
+@Property(name = "url.shortener.r2dbc.enabled", value = "true")
+@Property(name = "url.shortener.r2dbc.url", value = "r2dbc:h2:mem:///testdb?DB_CLOSE_DELAY=-1&MODE=PostgreSQL&DATABASE_TO_LOWER=TRUE")
+@Property(name = "url.shortener.r2dbc.username", value = "sa")
+@Property(name = "url.shortener.r2dbc.password", value = "")
+class R2dbcPostgresUrlRepositoryTest {
+
+    @Inject
+    ReactiveUrlRepository reactiveRepository;
+
+    @Inject
+    PostgresUrlRepository repository;
+
+    @Inject
+    CachingUrlRepository cachingRepository;
+
+    @Test
+    void shouldUseR2dbcBehindTheCacheWhenEnabled() {
+        assertThat(reactiveRepository).isInstanceOf(CachingReactiveUrlRepository.class);
+    }
+
+    @Test
+    void shouldResolveCachedShortCodesWithoutTheDatabase() {
+        // Given - a mapping only the cache knows of
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        cachingRepository.cacheMapping(shortCode, UrlMapping.permanent(originalUrl));
+
+        // When
+        String result = reactiveRepository.findOriginalUrlByShortCode(shortCode).block();
+
+        // Then
+        assertThat(result).isEqualTo(originalUrl);
+    }
+
+    @Test
+    void shouldCacheMappingsFoundInTheDatabase() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        repository.save(shortCode, originalUrl);
+
+        // When
+        reactiveRepository.findOriginalUrlByShortCode(shortCode).block();
+
+        // Then
+        assertThat(cachingRepository.findCachedMapping(shortCode)).contains(UrlMapping.permanent(originalUrl));
+    }
+
+    @Test
+    void shouldFindUrlSavedThroughJdbc() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        repository.save(shortCode, originalUrl);
+
+        // When
+        String result = reactiveRepository.findOriginalUrlByShortCode(shortCode).block();
+
+        // Then
+        assertThat(result).isEqualTo(originalUrl);
+    }
+
+    @Test
+    void shouldCompleteEmptyWhenShortCodeNotFound() {
+        // When
+        var result = reactiveRepository.findOriginalUrlByShortCode(aUniqueShortCode()).blockOptional();
+
+        // Then
+        assertThat(result).isEmpty();
+    }
+}
@@ -0,0 +1,276 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.infrastructure.adapters.output.ReplicaRoutingUrlRepository.Selection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingUrlRepositoryTest {
+
+    private static final Duration NEGATIVE_CACHE_WINDOW = Duration.ofSeconds(5);
+
+    private final CountingUrlRepository primary = new CountingUrlRepository();
+    private final CountingUrlRepository firstReplica = new CountingUrlRepository();
+    private final CountingUrlRepository secondReplica = new CountingUrlRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void shouldWriteToThePrimaryOnly() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        repository.insertIfAbsent(shortCode, originalUrl);
+
+        // Then
+        assertThat(primary.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+        assertThat(firstReplica.findOriginalUrlByShortCode(shortCode)).isEmpty();
+        assertThat(secondReplica.findOriginalUrlByShortCode(shortCode)).isEmpty();
+    }
+
+    @Test
+    void shouldResolveOnEachReplicaInTurn() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        replicate(shortCode, originalUrl);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+        }
+
+        // Then
+        assertThat(firstReplica.lookups.get()).isEqualTo(2);
+        assertThat(secondReplica.lookups.get()).isEqualTo(2);
+        assertThat(meterRegistry.counter("url.shortener.replica.lookups", "result", "replica").count()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldResolveWritesOnThePrimaryWhenReplicasLag() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        repository.save(shortCode, originalUrl);
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(result).contains(originalUrl);
+        assertThat(meterRegistry.counter("url.shortener.replica.lookups", "result", "replica-miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldResolveWritesOfOtherInstancesOnThePrimaryWhenReplicasLag() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        primary.save(shortCode, originalUrl);
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(result).contains(originalUrl);
+    }
+
+    @Test
+    void shouldNotFindUnknownShortCodesOnEitherDatabase() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(aUniqueShortCode());
+
+        // Then
+        assertThat(result).isEmpty();
+        assertThat(meterRegistry.counter("url.shortener.replica.lookups", "result", "replica-miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLookUpUnknownShortCodesOnThePrimaryOncePerWindow() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String shortCode = aUniqueShortCode();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertThat(repository.findOriginalUrlByShortCode(shortCode)).isEmpty();
+        }
+
+        // Then
+        assertThat(primary.lookups.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("url.shortener.replica.lookups", "result", "known-miss").count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldLookUpUnknownShortCodesOnThePrimaryAgainOnceTheWindowElapses() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        repository.findOriginalUrlByShortCode(shortCode);
+        primary.save(shortCode, originalUrl);
+
+        // When
+        Optional<String> withinWindow = repository.findOriginalUrlByShortCode(shortCode);
+        nanoTime.addAndGet(NEGATIVE_CACHE_WINDOW.plusMillis(1).toNanos());
+        Optional<String> afterWindow = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(withinWindow).isEmpty();
+        assertThat(afterWindow).contains(originalUrl);
+    }
+
+    @Test
+    void shouldResolveWritesOfUnknownShortCodesOnThePrimaryWithinTheWindow() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        repository.findOriginalUrlByShortCode(shortCode);
+        repository.insertAllIfAbsent(Map.of(shortCode, originalUrl));
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(result).contains(originalUrl);
+    }
+
+    @Test
+    void shouldLookUpBatchesOnThePrimaryOnly() {
+        // Given
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String replicatedCode = aUniqueShortCode();
+        String replicatedUrl = aUniqueUrl();
+        replicate(replicatedCode, replicatedUrl);
+        primary.save(replicatedCode, replicatedUrl);
+        String otherInstanceCode = aUniqueShortCode();
+        String otherInstanceUrl = aUniqueUrl();
+        primary.save(otherInstanceCode, otherInstanceUrl);
+
+        // When
+        Map<String, String> result = repository.findOriginalUrlsByShortCodes(
+            List.of(replicatedCode, otherInstanceCode, aUniqueShortCode()));
+
+        // Then
+        assertThat(result).containsOnly(Map.entry(replicatedCode, replicatedUrl),
+            Map.entry(otherInstanceCode, otherInstanceUrl));
+        assertThat(firstReplica.batchLookups.get()).isZero();
+        assertThat(secondReplica.batchLookups.get()).isZero();
+    }
+
+    @Test
+    void shouldResolveOnThePrimaryWhenAReplicaFails() {
+        // Given
+        firstReplica.failing = true;
+        ReplicaRoutingUrlRepository repository = repository(Selection.ROUND_ROBIN);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        primary.save(shortCode, originalUrl);
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(result).contains(originalUrl);
+        assertThat(meterRegistry.counter("url.shortener.replica.lookups", "result", "replica-failure").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPreferTheFastestReplica() {
+        // Given
+        firstReplica.latency = Duration.ofMillis(2);
+        ReplicaRoutingUrlRepository repository = repository(Selection.LEAST_LATENCY);
+        String shortCode = aUniqueShortCode();
+        replicate(shortCode, aUniqueUrl());
+
+        // When
+        for (int i = 0; i < 64; i++) {
+            repository.findOriginalUrlByShortCode(shortCode);
+        }
+
+        // Then: apart from the first lookup, the slow replica only gets the periodic probes
+        assertThat(firstReplica.lookups.get()).isLessThanOrEqualTo(4);
+        assertThat(secondReplica.lookups.get()).isGreaterThanOrEqualTo(60);
+    }
+
+    @Test
+    void shouldAvoidAFailingReplica() {
+        // Given
+        firstReplica.failing = true;
+        ReplicaRoutingUrlRepository repository = repository(Selection.LEAST_LATENCY);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        replicate(shortCode, originalUrl);
+        primary.save(shortCode, originalUrl);
+
+        // When
+        for (int i = 0; i < 64; i++) {
+            assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+        }
+
+        // Then
+        assertThat(firstReplica.lookups.get()).isLessThanOrEqualTo(4);
+    }
+
+    private ReplicaRoutingUrlRepository repository(Selection selection) {
+        return new ReplicaRoutingUrlRepository(primary, List.of(firstReplica, secondReplica), selection,
+            NEGATIVE_CACHE_WINDOW, meterRegistry, nanoTime::get);
+    }
+
+    private void replicate(String shortCode, String originalUrl) {
+        firstReplica.save(shortCode, originalUrl);
+        secondReplica.save(shortCode, originalUrl);
+    }
+
+    private static class CountingUrlRepository extends InMemoryUrlRepository {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+        private final AtomicInteger batchLookups = new AtomicInteger();
+        private volatile Duration latency = Duration.ZERO;
+        private volatile boolean failing;
+
+        @Override
+        public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+            lookups.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("Replica unavailable");
+            }
+            if (!latency.isZero()) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.findOriginalUrlByShortCode(shortCode);
+        }
+
+        @Override
+        public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+            batchLookups.incrementAndGet();
+            return super.findOriginalUrlsByShortCodes(shortCodes);
+        }
+    }
+}
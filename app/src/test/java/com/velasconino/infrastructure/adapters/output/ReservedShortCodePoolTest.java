@@ -0,0 +1,183 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.infrastructure.adapters.output.persistence.ShortCodeReservationRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.data.exceptions.DataAccessException;
+import io.micronaut.jdbc.DataSourceResolver;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest(transactional = false)
+class ReservedShortCodePoolTest {
+
+    private static final int CODE_LENGTH = 8;
+    private static final Duration RESERVATION_TTL = Duration.ofHours(1);
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    DataSourceResolver dataSourceResolver;
+
+    private final InMemoryUrlRepository urlRepository = new InMemoryUrlRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ShortCodeReservationRepository reservations;
+
+    @BeforeEach
+    void setUp() {
+        reservations = new ShortCodeReservationRepository(dataSourceResolver.resolve(dataSource));
+    }
+
+    @Test
+    void shouldFillUpToTheHighWatermarkWithDistinctReservedCodes() throws Exception {
+        try (ReservedShortCodePool pool = newPool(5, 20, 8)) {
+            // When
+            awaitDepth(pool, 20);
+            Set<String> shortCodes = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                shortCodes.add(pool.take().orElseThrow());
+            }
+
+            // Then
+            assertThat(shortCodes).hasSize(10).allSatisfy(shortCode -> assertThat(shortCode).hasSize(CODE_LENGTH));
+            List<Long> ids = shortCodes.stream().map(ShortCodeCodec::encode).toList();
+            assertThat(reservations.reserve("another-pool", ids)).isEmpty();
+            assertThat(meterRegistry.get("url.shortener.code-pool.refill").timer().count()).isGreaterThanOrEqualTo(3);
+        }
+    }
+
+    @Test
+    void shouldRefillOnceBelowTheLowWatermark() throws Exception {
+        try (ReservedShortCodePool pool = newPool(5, 10, 10)) {
+            // Given
+            awaitDepth(pool, 10);
+
+            // When
+            for (int i = 0; i < 6; i++) {
+                pool.take().orElseThrow();
+            }
+
+            // Then
+            awaitDepth(pool, 10);
+            assertThat(meterRegistry.get("url.shortener.code-pool.depth").gauge().value()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    void shouldReportAnEmptyPool() throws Exception {
+        // Given
+        ReservedShortCodePool pool = newPool(1, 2, 2);
+        pool.close();
+
+        // When
+        Optional<String> shortCode = pool.take();
+
+        // Then
+        assertThat(shortCode).isEmpty();
+        assertThat(meterRegistry.get("url.shortener.code-pool.exhausted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReleaseItsCodesWhenClosed() throws Exception {
+        // Given
+        ReservedShortCodePool pool = newPool(5, 10, 10);
+        awaitDepth(pool, 10);
+        String taken = pool.take().orElseThrow();
+
+        // When
+        pool.close();
+
+        // Then
+        long id = ShortCodeCodec.encode(taken);
+        assertThat(reservations.reserve("another-pool", List.of(id))).containsExactly(id);
+        assertThat(pool.depth()).isZero();
+    }
+
+    @Test
+    void shouldReleaseTakenCodesOnALaterRefillWhenTheirReleaseFails() throws Exception {
+        // Given
+        FailingReservations failingReservations = new FailingReservations(dataSourceResolver.resolve(dataSource));
+        try (ReservedShortCodePool pool = new ReservedShortCodePool(urlRepository, failingReservations, CODE_LENGTH,
+                5, 10, 10, RESERVATION_TTL, meterRegistry)) {
+            awaitDepth(pool, 10);
+            failingReservations.releaseFailures.set(1);
+
+            // When
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                ids.add(ShortCodeCodec.encode(pool.take().orElseThrow()));
+            }
+
+            // Then: the first refill fails to release them and the retry does
+            awaitDepth(pool, 10);
+            assertThat(failingReservations.releaseFailures.get()).isZero();
+            assertThat(reservations.reserve("another-pool", ids)).containsExactlyInAnyOrderElementsOf(ids);
+        }
+    }
+
+    @Test
+    void shouldReleaseReservationsOfPoolsThatStoppedRenewingThem() throws Exception {
+        // Given
+        long crashed = ShortCodeCodec.encode(aUniqueShortCode());
+        reservations.reserve("crashed-pool", List.of(crashed));
+        Thread.sleep(200);
+
+        try (ReservedShortCodePool pool = new ReservedShortCodePool(urlRepository, reservations, CODE_LENGTH,
+                5, 10, 10, Duration.ofMillis(100), meterRegistry)) {
+            // When
+            awaitDepth(pool, 10);
+            Thread.sleep(200);
+
+            // Then: the crashed pool's code is free again, while the running pool's codes stay held
+            assertThat(reservations.reserve("another-pool", List.of(crashed))).containsExactly(crashed);
+            String held = pool.take().orElseThrow();
+            assertThat(reservations.reserve("another-pool", List.of(ShortCodeCodec.encode(held)))).isEmpty();
+        }
+    }
+
+    private ReservedShortCodePool newPool(int lowWatermark, int highWatermark, int batchSize) {
+        return new ReservedShortCodePool(urlRepository, reservations, CODE_LENGTH, lowWatermark, highWatermark,
+                batchSize, RESERVATION_TTL, meterRegistry);
+    }
+
+    private static void awaitDepth(ReservedShortCodePool pool, int depth) throws InterruptedException {
+        for (int i = 0; i < 100 && pool.depth() < depth; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(pool.depth()).isEqualTo(depth);
+    }
+
+    private static class FailingReservations extends ShortCodeReservationRepository {
+
+        private final AtomicInteger releaseFailures = new AtomicInteger();
+
+        FailingReservations(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public int release(Collection<Long> ids) {
+            if (releaseFailures.getAndUpdate(failures -> Math.max(failures - 1, 0)) > 0) {
+                throw new DataAccessException("Connection refused");
+            }
+            return super.release(ids);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedUrlRepositoryTest {
+
+    private static final int VIRTUAL_NODES = 64;
+
+    private final ConsistentHashRing twoShards = new ConsistentHashRing(List.of("shard-1", "shard-2"), VIRTUAL_NODES);
+    private final ConsistentHashRing threeShards = new ConsistentHashRing(List.of("shard-1", "shard-2", "shard-3"), VIRTUAL_NODES);
+    private final Map<String, ThreadRecordingUrlRepository> shards = Map.of(
+            "shard-1", new ThreadRecordingUrlRepository(),
+            "shard-2", new ThreadRecordingUrlRepository(),
+            "shard-3", new ThreadRecordingUrlRepository());
+    private ShardedUrlRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void shouldStoreEachMappingOnItsShardOnly() {
+        // Given
+        repository = repository(threeShards, null);
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        repository.insertIfAbsent(shortCode, originalUrl);
+
+        // Then
+        String owner = threeShards.nodeFor(ShortCodeCodec.encode(shortCode));
+        shards.forEach((name, shard) -> assertThat(shard.findOriginalUrlByShortCode(shortCode))
+                .as(name).isEqualTo(name.equals(owner) ? Optional.of(originalUrl) : Optional.empty()));
+        assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldSendBatchesToEveryShardInParallel() {
+        // Given
+        repository = repository(threeShards, null);
+        Map<String, String> mappings = new LinkedHashMap<>();
+        for (int i = 0; i < 60; i++) {
+            mappings.put(aUniqueShortCode(), aUniqueUrl());
+        }
+
+        // When
+        Map<String, String> inserted = repository.insertAllIfAbsent(mappings);
+        Map<String, String> found = repository.findOriginalUrlsByShortCodes(
+                new ArrayList<>(mappings.keySet()));
+
+        // Then
+        assertThat(inserted).isEqualTo(mappings);
+        assertThat(found).isEqualTo(mappings);
+        shards.values().forEach(shard -> {
+            assertThat(shard.size()).isPositive();
+            assertThat(shard.callingThreads).allSatisfy(thread -> assertThat(thread).startsWith("url-shard-"));
+        });
+    }
+
+    @Test
+    void shouldSkipShortCodesThatCannotBeStored() {
+        // Given
+        repository = repository(threeShards, null);
+
+        // When / Then
+        assertThat(repository.findOriginalUrlByShortCode("not-a-code")).isEmpty();
+        assertThat(repository.findOriginalUrlsByShortCodes(List.of("not-a-code"))).isEmpty();
+        assertThatThrownBy(() -> repository.insertIfAbsent("not-a-code", aUniqueUrl()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldFindMappingsThatHaveNotMovedYetOnTheirPreviousShard() {
+        // Given
+        repository = repository(threeShards, twoShards);
+        Map<String, String> mappings = placedBy(twoShards, 60);
+
+        // When
+        Map<String, String> found = repository.findOriginalUrlsByShortCodes(new ArrayList<>(mappings.keySet()));
+
+        // Then
+        assertThat(found).isEqualTo(mappings);
+        mappings.forEach((shortCode, originalUrl) ->
+                assertThat(repository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl));
+    }
+
+    @Test
+    void shouldNotInsertAShortCodeStillHeldByItsPreviousShard() {
+        // Given
+        repository = repository(threeShards, twoShards);
+        String shortCode = movingShortCode();
+        String originalUrl = aUniqueUrl();
+        shards.get(twoShards.nodeFor(ShortCodeCodec.encode(shortCode))).save(shortCode, originalUrl);
+
+        // When
+        String winningUrl = repository.insertIfAbsent(shortCode, aUniqueUrl());
+        Map<String, String> winningUrls = repository.insertAllIfAbsent(Map.of(shortCode, aUniqueUrl()));
+
+        // Then
+        assertThat(winningUrl).isEqualTo(originalUrl);
+        assertThat(winningUrls).containsExactly(Map.entry(shortCode, originalUrl));
+        assertThat(shards.get("shard-3").findOriginalUrlByShortCode(shortCode)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectShardsWithoutARepository() {
+        // When / Then
+        assertThatThrownBy(() -> new ShardedUrlRepository(threeShards, Map.of("shard-1", new InMemoryUrlRepository()), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ShardedUrlRepository repository(ConsistentHashRing ring, ConsistentHashRing previousRing) {
+        return new ShardedUrlRepository(ring, new HashMap<String, UrlRepository>(shards), previousRing);
+    }
+
+    private Map<String, String> placedBy(ConsistentHashRing ring, int count) {
+        Map<String, String> mappings = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String shortCode = aUniqueShortCode();
+            String originalUrl = aUniqueUrl();
+            shards.get(ring.nodeFor(ShortCodeCodec.encode(shortCode))).save(shortCode, originalUrl);
+            mappings.put(shortCode, originalUrl);
+        }
+        return mappings;
+    }
+
+    private String movingShortCode() {
+        while (true) {
+            String shortCode = aUniqueShortCode();
+            if (threeShards.nodeFor(ShortCodeCodec.encode(shortCode)).equals("shard-3")) {
+                return shortCode;
+            }
+        }
+    }
+
+    private static class ThreadRecordingUrlRepository extends InMemoryUrlRepository {
+
+        private final Set<String> callingThreads = ConcurrentHashMap.newKeySet();
+        private int size;
+
+        @Override
+        public synchronized Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+            callingThreads.add(Thread.currentThread().getName());
+            size += mappings.size();
+            return super.insertAllIfAbsent(mappings);
+        }
+
+        @Override
+        public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+            callingThreads.add(Thread.currentThread().getName());
+            return super.findOriginalUrlsByShortCodes(shortCodes);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShortCodeBloomFilterTest {
+
+    private static final int EXPECTED_ENTRIES = 10_000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final ShortCodeBloomFilter filter = new ShortCodeBloomFilter(EXPECTED_ENTRIES, FALSE_POSITIVE_PROBABILITY);
+
+    @Test
+    void shouldNeverReportAddedShortCodesAsAbsent() {
+        // Given
+        List<String> shortCodes = new ArrayList<>();
+        for (int i = 0; i < EXPECTED_ENTRIES; i++) {
+            String shortCode = aUniqueShortCode();
+            shortCodes.add(shortCode);
+            filter.add(shortCode);
+        }
+
+        // Then
+        assertThat(shortCodes).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateCloseToTarget() {
+        // Given
+        for (int i = 0; i < EXPECTED_ENTRIES; i++) {
+            filter.add(aUniqueShortCode());
+        }
+
+        // When
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(aUniqueShortCode())) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat((double) falsePositives / probes).isLessThan(FALSE_POSITIVE_PROBABILITY * 2);
+        assertThat(filter.expectedFalsePositiveProbability()).isLessThan(FALSE_POSITIVE_PROBABILITY * 2);
+    }
+
+    @Test
+    void shouldReportMemoryFootprintOfBitArray() {
+        assertThat(filter.memoryBytes()).isEqualTo(filter.bitSize() / 8);
+        assertThat(filter.bitSize()).isGreaterThanOrEqualTo(EXPECTED_ENTRIES * 9L);
+    }
+
+    @Test
+    void shouldNotBePopulatedUntilMarked() {
+        assertThat(filter.isPopulated()).isFalse();
+
+        filter.markPopulated();
+
+        assertThat(filter.isPopulated()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0, 1, -0.5})
+    void shouldRejectInvalidFalsePositiveProbability(double falsePositiveProbability) {
+        assertThatThrownBy(() -> new ShortCodeBloomFilter(EXPECTED_ENTRIES, falsePositiveProbability))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("False positive probability must be between 0 and 1");
+    }
+}
@@ -0,0 +1,77 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimedUrlRepositoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryUrlRepository delegate = new InMemoryUrlRepository();
+    private final TimedUrlRepository repository = new TimedUrlRepository(delegate, "database", meterRegistry);
+
+    @Test
+    void shouldTimeEachMethodSeparately() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        repository.insertIfAbsent(shortCode, originalUrl);
+        repository.findOriginalUrlByShortCode(shortCode);
+        repository.findOriginalUrlByShortCode(aUniqueShortCode());
+        repository.findOriginalUrlsByShortCodes(List.of(shortCode));
+
+        // Then
+        assertThat(timer("insertIfAbsent").count()).isEqualTo(1);
+        assertThat(timer("findOriginalUrlByShortCode").count()).isEqualTo(2);
+        assertThat(timer("findOriginalUrlsByShortCodes").count()).isEqualTo(1);
+        assertThat(timer("save").count()).isZero();
+        assertThat(timer("insertAllIfAbsent").count()).isZero();
+    }
+
+    @Test
+    void shouldPassResultsThrough() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        delegate.save(shortCode, originalUrl);
+
+        // When
+        Optional<String> result = repository.findOriginalUrlByShortCode(shortCode);
+
+        // Then
+        assertThat(result).contains(originalUrl);
+    }
+
+    @Test
+    void shouldTimeFailedCalls() {
+        // Given
+        TimedUrlRepository failingRepository = new TimedUrlRepository(new InMemoryUrlRepository() {
+            @Override
+            public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+                throw new IllegalStateException("Database unavailable");
+            }
+        }, "failing", meterRegistry);
+
+        // When/Then
+        assertThatThrownBy(() -> failingRepository.findOriginalUrlByShortCode(aUniqueShortCode()))
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(meterRegistry.get("url.shortener.repository")
+            .tag("method", "findOriginalUrlByShortCode")
+            .tag("stage", "failing")
+            .timer().count()).isEqualTo(1);
+    }
+
+    private Timer timer(String method) {
+        return meterRegistry.get("url.shortener.repository").tag("method", method).tag("stage", "database").timer();
+    }
+}
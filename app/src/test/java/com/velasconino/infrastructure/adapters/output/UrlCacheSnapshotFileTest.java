@@ -0,0 +1,79 @@
+package com.velasconino.infrastructure.adapters.output;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UrlCacheSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackTheMappingsInTheOrderTheyWereWritten() throws IOException {
+        // Given
+        UrlCacheSnapshotFile snapshotFile = new UrlCacheSnapshotFile(directory.resolve("nested/cache.snapshot"));
+        Map<String, String> mappings = new LinkedHashMap<>();
+        mappings.put("hot", "https://example.com/hot");
+        mappings.put("bücher", "https://bücher.example/straße?q=😀");
+        mappings.put("cold", "https://example.com/" + "a".repeat(70_000));
+
+        // When
+        snapshotFile.write(mappings);
+
+        // Then
+        assertThat(snapshotFile.read()).hasValueSatisfying(read ->
+            assertThat(read).containsExactlyEntriesOf(mappings));
+        assertThat(directory.resolve("nested")).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void shouldReplaceThePreviousSnapshot() throws IOException {
+        // Given
+        UrlCacheSnapshotFile snapshotFile = new UrlCacheSnapshotFile(directory.resolve("cache.snapshot"));
+        snapshotFile.write(Map.of("old", "https://example.com/old"));
+
+        // When
+        snapshotFile.write(Map.of("new", "https://example.com/new"));
+
+        // Then
+        assertThat(snapshotFile.read()).contains(Map.of("new", "https://example.com/new"));
+    }
+
+    @Test
+    void shouldReportAMissingSnapshotAsEmpty() throws IOException {
+        assertThat(new UrlCacheSnapshotFile(directory.resolve("missing.snapshot")).read()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectFilesThatAreNotSnapshots() throws IOException {
+        // Given
+        Path path = directory.resolve("cache.snapshot");
+        Files.writeString(path, "not a snapshot");
+
+        // Then
+        assertThatThrownBy(() -> new UrlCacheSnapshotFile(path).read()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldRejectTruncatedSnapshots() throws IOException {
+        // Given
+        Path path = directory.resolve("cache.snapshot");
+        UrlCacheSnapshotFile snapshotFile = new UrlCacheSnapshotFile(path);
+        snapshotFile.write(Map.of("abc", "https://example.com/" + "a".repeat(10_000)));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+        // Then
+        assertThatThrownBy(snapshotFile::read).isInstanceOf(IOException.class);
+    }
+}
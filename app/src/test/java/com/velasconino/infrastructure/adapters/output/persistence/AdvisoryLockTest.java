@@ -0,0 +1,84 @@
+package com.velasconino.infrastructure.adapters.output.persistence;
+
+import com.velasconino.fixture.H2AdvisoryLocks;
+
+import io.micronaut.jdbc.DataSourceResolver;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * H2 has no advisory locks, so the test runs against the stand-ins of {@link H2AdvisoryLocks}.
+ */
+@MicronautTest(transactional = false)
+class AdvisoryLockTest {
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    DataSourceResolver dataSourceResolver;
+
+    private AdvisoryLock lock;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource resolved = dataSourceResolver.resolve(dataSource);
+        try (Connection connection = resolved.getConnection()) {
+            H2AdvisoryLocks.define(connection);
+        }
+        lock = new AdvisoryLock(resolved, ThreadLocalRandom.current().nextLong());
+    }
+
+    @Test
+    void shouldRunTheTaskWhenTheLockIsFree() {
+        // Given
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // When
+        boolean result = lock.runIfFree(() -> ran.set(true));
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(ran).isTrue();
+    }
+
+    @Test
+    void shouldSkipTheTaskWhileAnotherSessionHoldsTheLock() {
+        // Given
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // When
+        boolean result = lock.runIfFree(() ->
+            ran.set(CompletableFuture.supplyAsync(() -> lock.runIfFree(() -> { })).join()));
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    void shouldReleaseTheLockWhenTheTaskFails() {
+        // Given
+        assertThatThrownBy(() -> lock.runIfFree(() -> {
+            throw new IllegalStateException("Task failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // When
+        boolean result = lock.runIfFree(() -> { });
+
+        // Then
+        assertThat(result).isTrue();
+    }
+}
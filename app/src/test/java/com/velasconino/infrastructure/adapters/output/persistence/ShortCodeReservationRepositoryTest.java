@@ -0,0 +1,81 @@
+package com.velasconino.infrastructure.adapters.output.persistence;
+
+import com.velasconino.domain.ShortCodeCodec;
+
+import io.micronaut.jdbc.DataSourceResolver;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.List;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest(transactional = false)
+class ShortCodeReservationRepositoryTest {
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    DataSourceResolver dataSourceResolver;
+
+    private ShortCodeReservationRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ShortCodeReservationRepository(dataSourceResolver.resolve(dataSource));
+    }
+
+    @Test
+    void shouldReserveOnlyCodesNoOtherPoolHolds() {
+        // Given
+        long held = ShortCodeCodec.encode(aUniqueShortCode());
+        long free = ShortCodeCodec.encode(aUniqueShortCode());
+        repository.reserve("other-pool", List.of(held));
+
+        // When
+        List<Long> reserved = repository.reserve("pool", List.of(held, free));
+
+        // Then
+        assertThat(reserved).containsExactly(free);
+    }
+
+    @Test
+    void shouldLetReleasedCodesBeReservedAgain() {
+        // Given
+        long id = ShortCodeCodec.encode(aUniqueShortCode());
+        repository.reserve("other-pool", List.of(id));
+
+        // When
+        int released = repository.release(List.of(id));
+
+        // Then
+        assertThat(released).isEqualTo(1);
+        assertThat(repository.reserve("pool", List.of(id))).containsExactly(id);
+    }
+
+    @Test
+    void shouldPurgeOnlyReservationsNotRenewedSince() throws InterruptedException {
+        // Given
+        long stale = ShortCodeCodec.encode(aUniqueShortCode());
+        long renewed = ShortCodeCodec.encode(aUniqueShortCode());
+        repository.reserve("crashed-pool", List.of(stale));
+        repository.reserve("running-pool", List.of(renewed));
+        Thread.sleep(10);
+        Instant cutoff = Instant.now();
+        Thread.sleep(10);
+        repository.renew("running-pool");
+
+        // When
+        int purged = repository.purgeReservedBefore(cutoff);
+
+        // Then
+        assertThat(purged).isGreaterThanOrEqualTo(1);
+        assertThat(repository.reserve("pool", List.of(stale, renewed))).containsExactly(stale);
+    }
+}
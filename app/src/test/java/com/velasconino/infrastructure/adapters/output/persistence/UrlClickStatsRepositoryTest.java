@@ -0,0 +1,41 @@
+package com.velasconino.infrastructure.adapters.output.persistence;
+
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest
+class UrlClickStatsRepositoryTest {
+
+    @Inject
+    UrlClickStatsRepository repository;
+
+    @Test
+    void shouldAddClicksToExistingAndNewRows() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        Instant minute = Instant.parse("2025-01-01T10:15:00Z");
+        repository.addClicks(List.of(
+                new UrlClickStats(shortCode, minute, "DESKTOP", 3),
+                new UrlClickStats(shortCode, minute, "BOT", 1)));
+
+        // When
+        repository.addClicks(List.of(
+                new UrlClickStats(shortCode, minute, "DESKTOP", 2),
+                new UrlClickStats(shortCode, minute.plusSeconds(60), "DESKTOP", 4)));
+
+        // Then
+        assertThat(repository.countClicks(shortCode)).isEqualTo(10);
+    }
+
+    @Test
+    void shouldCountNoClicksForAnUnclickedShortCode() {
+        assertThat(repository.countClicks(aUniqueShortCode())).isZero();
+    }
+}
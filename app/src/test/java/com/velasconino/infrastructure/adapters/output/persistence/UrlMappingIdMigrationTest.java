@@ -0,0 +1,78 @@
+package com.velasconino.infrastructure.adapters.output.persistence;
+
+import com.velasconino.domain.ShortCodeCodec;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlMappingIdMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:url-mapping-id-migration;DB_CLOSE_DELAY=-1;"
+            + "MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+
+    @Test
+    void shouldBackfillShortCodesWithTheirEncodedValues() throws SQLException {
+        // Given
+        migrate("4");
+        List<String> shortCodes = List.of("A", "9", "AA", "zZ09", "9999999999", aUniqueShortCode(), aUniqueShortCode());
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            for (String shortCode : shortCodes) {
+                insertLegacy(connection, shortCode, "https://example.com/" + shortCode);
+            }
+            insertLegacy(connection, "custom-code", "https://example.com/custom");
+
+            // When
+            migrate("latest");
+
+            // Then
+            Map<Long, String> migrated = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT id, original_url FROM url_mapping")) {
+                while (resultSet.next()) {
+                    migrated.put(resultSet.getLong(1), resultSet.getString(2));
+                }
+            }
+            Map<Long, String> expected = new HashMap<>();
+            shortCodes.forEach(shortCode -> expected.put(ShortCodeCodec.encode(shortCode), "https://example.com/" + shortCode));
+            assertThat(migrated).isEqualTo(expected);
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM url_mapping_legacy")) {
+                resultSet.next();
+                assertThat(resultSet.getLong(1)).isEqualTo(shortCodes.size() + 1);
+            }
+        }
+    }
+
+    private static void migrate(String target) {
+        Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .locations("classpath:db/migration")
+                .target(MigrationVersion.fromVersion(target))
+                .load()
+                .migrate();
+    }
+
+    private static void insertLegacy(Connection connection, String shortCode, String originalUrl) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO url_mapping (short_code, original_url) VALUES (?, ?)")) {
+            statement.setString(1, shortCode);
+            statement.setString(2, originalUrl);
+            statement.executeUpdate();
+        }
+    }
+}
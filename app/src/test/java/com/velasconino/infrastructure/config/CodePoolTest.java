@@ -0,0 +1,49 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.ShortenUrlUseCase;
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.application.usecases.PooledShortenUrlUseCase;
+import com.velasconino.infrastructure.adapters.output.ReservedShortCodePool;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest(transactional = false)
+@Property(name = "url.shortener.code-generation", value = "pool")
+@Property(name = "url.shortener.code-pool.low-watermark", value = "10")
+@Property(name = "url.shortener.code-pool.high-watermark", value = "50")
+@Property(name = "url.shortener.code-pool.batch-size", value = "25")
+class CodePoolTest {
+
+    @Inject
+    ShortenUrlUseCase shortenUrlUseCase;
+
+    @Inject
+    ReservedShortCodePool pool;
+
+    @Inject
+    UrlRepository urlRepository;
+
+    @Test
+    void shouldShortenUrlsWithPooledCodes() throws InterruptedException {
+        // Given
+        for (int i = 0; i < 100 && pool.depth() < 50; i++) {
+            Thread.sleep(50);
+        }
+        String url = aUniqueUrl();
+
+        // When
+        String shortCode = shortenUrlUseCase.shortenUrl(new ShortenUrlCommand(url)).shortCode();
+
+        // Then
+        assertThat(shortenUrlUseCase).isInstanceOf(PooledShortenUrlUseCase.class);
+        assertThat(pool.depth()).isEqualTo(49);
+        assertThat(urlRepository.findOriginalUrlByShortCode(shortCode)).contains(url);
+    }
+}
@@ -0,0 +1,54 @@
+package com.velasconino.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutionFactoryTest {
+
+    private final ExecutionFactory factory = new ExecutionFactory();
+
+    @Test
+    void shouldRunRequestsOnVirtualThreadsInVirtualMode() throws Exception {
+        // Given
+        ExecutorService executor = factory.urlShortenerExecutor("virtual", 1);
+
+        try {
+            // When
+            Thread thread = executor.submit(Thread::currentThread).get();
+
+            // Then
+            assertThat(thread.isVirtual()).isTrue();
+            assertThat(thread.getName()).startsWith("url-shortener-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRunRequestsOnPlatformThreadsInPlatformMode() throws Exception {
+        // Given
+        ExecutorService executor = factory.urlShortenerExecutor("platform", 2);
+
+        try {
+            // When
+            Thread thread = executor.submit(Thread::currentThread).get();
+
+            // Then
+            assertThat(thread.isVirtual()).isFalse();
+            assertThat(thread.getName()).startsWith("url-shortener-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownMode() {
+        assertThatThrownBy(() -> factory.urlShortenerExecutor("carrier-pigeon", 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Unknown execution mode");
+    }
+}
@@ -0,0 +1,128 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.UrlRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Talks raw HTTP/1.1 over one keep-alive connection, so the requests answered by the fast path
+ * and those passed on to the router can be told apart by the request counter.
+ */
+@MicronautTest
+@Property(name = "url.shortener.fast-path.enabled", value = "true")
+class FastRedirectPipelineTest {
+
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    UrlRepository urlRepository;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Test
+    void shouldAnswerRepeatedRedirectsFromTheFastPath() throws IOException {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        urlRepository.save(shortCode, originalUrl);
+        double hitsBefore = requests("hit");
+
+        try (Socket socket = new Socket(server.getHost(), server.getPort())) {
+            // When
+            String routed = exchange(socket, "GET /" + shortCode + " HTTP/1.1\r\nHost: test\r\n\r\n");
+            String cached = exchange(socket, "GET /" + shortCode + " HTTP/1.1\r\nHost: test\r\n\r\n");
+            String entityTag = header(cached, "etag");
+            String notModified = exchange(socket,
+                    "GET /" + shortCode + " HTTP/1.1\r\nHost: test\r\nIf-None-Match: " + entityTag + "\r\n\r\n");
+
+            // Then
+            assertThat(routed).startsWith("HTTP/1.1 301 ");
+            assertThat(cached).startsWith("HTTP/1.1 301 ");
+            assertThat(header(cached, "location")).isEqualTo(originalUrl);
+            assertThat(header(cached, "cache-control")).isEqualTo(header(routed, "cache-control"));
+            assertThat(entityTag).isEqualTo(header(routed, "etag"));
+            assertThat(header(cached, "date")).isNotNull();
+            assertThat(notModified).startsWith("HTTP/1.1 304 ");
+            assertThat(requests("hit") - hitsBefore).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldPassOtherRequestsOnToTheRouter() throws IOException {
+        // Given
+        String shortCode = aUniqueShortCode();
+        urlRepository.save(shortCode, aUniqueUrl());
+        String body = "{\"url\":\"" + aUniqueUrl() + "\"}";
+
+        try (Socket socket = new Socket(server.getHost(), server.getPort())) {
+            // When
+            String redirect = exchange(socket, "GET /" + shortCode + " HTTP/1.1\r\nHost: test\r\n\r\n");
+            String unknown = exchange(socket, "GET /" + aUniqueShortCode() + " HTTP/1.1\r\nHost: test\r\n\r\n");
+            String created = exchange(socket, "POST /shorten HTTP/1.1\r\nHost: test\r\nContent-Type: application/json\r\n"
+                    + "Content-Length: " + body.length() + "\r\n\r\n" + body);
+            String redirectAfterBody = exchange(socket, "GET /" + shortCode + " HTTP/1.1\r\nHost: test\r\n\r\n");
+
+            // Then
+            assertThat(redirect).startsWith("HTTP/1.1 301 ");
+            assertThat(unknown).startsWith("HTTP/1.1 404 ");
+            assertThat(created).startsWith("HTTP/1.1 201 ");
+            assertThat(redirectAfterBody).startsWith("HTTP/1.1 301 ");
+        }
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("url.shortener.fast-path.requests").tag("result", result).counter().count();
+    }
+
+    /**
+     * Sends a request and reads its response head, skipping the body.
+     */
+    private static String exchange(Socket socket, String request) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString(StandardCharsets.ISO_8859_1).endsWith("\r\n\r\n")) {
+            int read = in.read();
+            if (read < 0) {
+                throw new IOException("Connection closed after " + head);
+            }
+            head.write(read);
+        }
+        String response = head.toString(StandardCharsets.ISO_8859_1);
+        String contentLength = header(response, "content-length");
+        in.readNBytes(contentLength == null ? 0 : Integer.parseInt(contentLength));
+        return response;
+    }
+
+    private static String header(String response, String name) {
+        for (String line : response.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).toLowerCase(Locale.ROOT).equals(name)) {
+                return line.substring(colon + 1).strip();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.infrastructure.adapters.output.CachingUrlRepository;
+import com.velasconino.infrastructure.adapters.output.ClickAnalyticsPipeline;
+import com.velasconino.infrastructure.adapters.output.MappedFileUrlRepository;
+import com.velasconino.infrastructure.adapters.output.ShortCodeBloomFilter;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest
+@Property(name = "url.shortener.storage.type", value = "mapped")
+@Property(name = "url.shortener.storage.mapped.directory", value = "build/mapped-storage-test")
+class MappedStorageTest {
+
+    @Inject
+    ApplicationContext applicationContext;
+
+    @Inject
+    UrlRepository urlRepository;
+
+    @Inject
+    MappedFileUrlRepository mappedFileUrlRepository;
+
+    @Test
+    void shouldStoreMappingsInMappedFiles() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        urlRepository.insertIfAbsent(shortCode, originalUrl);
+
+        // Then
+        assertThat(mappedFileUrlRepository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldNotCreateThePostgresStages() {
+        assertThat(applicationContext.containsBean(CachingUrlRepository.class)).isFalse();
+        assertThat(applicationContext.containsBean(ShortCodeBloomFilter.class)).isFalse();
+        assertThat(applicationContext.containsBean(ClickAnalyticsPipeline.class)).isFalse();
+    }
+}
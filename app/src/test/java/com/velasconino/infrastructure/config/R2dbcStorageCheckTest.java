@@ -0,0 +1,24 @@
+package com.velasconino.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class R2dbcStorageCheckTest {
+
+    @Test
+    void shouldAcceptPostgresStorage() {
+        assertThatCode(() -> new R2dbcStorageCheck("postgres")).doesNotThrowAnyException();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sharded", "mapped", "memory"})
+    void shouldRefuseOtherStorageTypes(String storageType) {
+        assertThatThrownBy(() -> new R2dbcStorageCheck(storageType))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining(storageType);
+    }
+}
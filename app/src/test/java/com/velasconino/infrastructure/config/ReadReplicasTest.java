@@ -0,0 +1,107 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.infrastructure.adapters.output.ReplicaRoutingUrlRepository;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingRepository;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.jdbc.DataSourceResolver;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two H2 databases stand in for the read replicas. Nothing replicates to them, so a mapping
+ * is only found on a replica if the test wrote it there.
+ */
+@MicronautTest
+@Property(name = "datasources.replica-1.url", value = "jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE")
+@Property(name = "datasources.replica-1.username", value = "sa")
+@Property(name = "datasources.replica-1.password", value = "")
+@Property(name = "datasources.replica-1.driver-class-name", value = "org.h2.Driver")
+@Property(name = "datasources.replica-2.url", value = "jdbc:h2:mem:replica2;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE")
+@Property(name = "datasources.replica-2.username", value = "sa")
+@Property(name = "datasources.replica-2.password", value = "")
+@Property(name = "datasources.replica-2.driver-class-name", value = "org.h2.Driver")
+@Property(name = "flyway.datasources.replica-1.enabled", value = "true")
+@Property(name = "flyway.datasources.replica-2.enabled", value = "true")
+@Property(name = "url.shortener.read-replicas.datasources", value = "replica-1,replica-2")
+@Property(name = "url.shortener.read-replicas.selection", value = "round-robin")
+class ReadReplicasTest {
+
+    @Inject
+    ReplicaRoutingUrlRepository replicaRoutingUrlRepository;
+
+    @Inject
+    UrlRepository urlRepository;
+
+    @Inject
+    UrlMappingRepository urlMappingRepository;
+
+    @Inject
+    DataSourceResolver dataSourceResolver;
+
+    @Inject
+    @Named("replica-1")
+    DataSource firstReplica;
+
+    @Inject
+    @Named("replica-2")
+    DataSource secondReplica;
+
+    @Test
+    void shouldResolveOnBothReplicas() throws SQLException {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String firstReplicaUrl = aUniqueUrl();
+        String secondReplicaUrl = aUniqueUrl();
+        insert(firstReplica, shortCode, firstReplicaUrl);
+        insert(secondReplica, shortCode, secondReplicaUrl);
+
+        // When
+        Set<String> resolvedUrls = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            replicaRoutingUrlRepository.findOriginalUrlByShortCode(shortCode).ifPresent(resolvedUrls::add);
+        }
+
+        // Then
+        assertThat(resolvedUrls).containsExactlyInAnyOrder(firstReplicaUrl, secondReplicaUrl);
+    }
+
+    @Test
+    void shouldWriteToThePrimaryAndReadItsOwnWrites() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+
+        // When
+        urlRepository.insertIfAbsent(shortCode, originalUrl);
+
+        // Then
+        assertThat(urlMappingRepository.findByShortCode(shortCode)).isPresent();
+        assertThat(replicaRoutingUrlRepository.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    private void insert(DataSource replica, String shortCode, String originalUrl) throws SQLException {
+        try (Connection connection = dataSourceResolver.resolve(replica).getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "INSERT INTO url_mapping (id, original_url) VALUES (?, ?)")) {
+            statement.setLong(1, ShortCodeCodec.encode(shortCode));
+            statement.setString(2, originalUrl);
+            statement.executeUpdate();
+        }
+    }
+}
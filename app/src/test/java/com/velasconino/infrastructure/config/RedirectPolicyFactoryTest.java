@@ -0,0 +1,53 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.infrastructure.adapters.input.RedirectPolicy;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest
+@Property(name = "url.shortener.redirect.status", value = "302")
+@Property(name = "url.shortener.redirect.max-age", value = "1h")
+@Property(name = "url.shortener.redirect.overrides.campaigns.url-prefix", value = "https://campaign.example.com/")
+@Property(name = "url.shortener.redirect.overrides.campaigns.max-age", value = "0s")
+@Property(name = "url.shortener.redirect.overrides.docs.short-codes", value = "DocsLink1,DocsLink2")
+@Property(name = "url.shortener.redirect.overrides.docs.status", value = "308")
+class RedirectPolicyFactoryTest {
+
+    @Inject
+    RedirectPolicy redirectPolicy;
+
+    @Test
+    void shouldApplyTheConfiguredDefaultRule() {
+        // When
+        HttpResponse<?> response = respond("Other0001", "https://example.com/");
+
+        // Then
+        assertThat(response.getStatus().getCode()).isEqualTo(302);
+        assertThat(response.getHeaders().get("Cache-Control")).isEqualTo("public, max-age=3600");
+    }
+
+    @Test
+    void shouldApplyTheConfiguredOverridesOnTopOfTheDefaultRule() {
+        // When
+        HttpResponse<?> campaign = respond("Other0001", "https://campaign.example.com/sale");
+        HttpResponse<?> docs = respond("DocsLink2", "https://example.com/docs");
+
+        // Then
+        assertThat(campaign.getStatus().getCode()).isEqualTo(302);
+        assertThat(campaign.getHeaders().get("Cache-Control")).isEqualTo("no-cache");
+        assertThat(docs.getStatus().getCode()).isEqualTo(308);
+        assertThat(docs.getHeaders().get("Cache-Control")).isEqualTo("public, max-age=3600");
+    }
+
+    private HttpResponse<?> respond(String shortCode, String originalUrl) {
+        return redirectPolicy.respond(HttpRequest.GET("/" + shortCode), shortCode, originalUrl, originalUrl);
+    }
+}
@@ -0,0 +1,40 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.ShortenUrlUseCase;
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.application.usecases.SequenceBasedShortenUrlUseCase;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest(transactional = false)
+@Property(name = "url.shortener.code-generation", value = "sequence")
+@Property(name = "url.shortener.sequence.scramble-key", value = "test-key")
+class SequenceCodeGenerationTest {
+
+    @Inject
+    ShortenUrlUseCase shortenUrlUseCase;
+
+    @Inject
+    UrlRepository urlRepository;
+
+    @Test
+    void shouldShortenUrlsWithCodesOfIdsFromTheSequence() {
+        // Given
+        String url = aUniqueUrl();
+
+        // When
+        String shortCode = shortenUrlUseCase.shortenUrl(new ShortenUrlCommand(url)).shortCode();
+
+        // Then
+        assertThat(shortenUrlUseCase).isInstanceOf(SequenceBasedShortenUrlUseCase.class);
+        assertThat(shortCode).hasSize(8);
+        assertThat(urlRepository.findOriginalUrlByShortCode(shortCode)).contains(url);
+    }
+}
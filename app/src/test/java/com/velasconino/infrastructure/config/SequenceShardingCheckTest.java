@@ -0,0 +1,29 @@
+package com.velasconino.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SequenceShardingCheckTest {
+
+    @Test
+    void shouldAcceptShardedStorageWithAScrambleKey() {
+        assertThatCode(() -> new SequenceShardingCheck("sharded", "key")).doesNotThrowAnyException();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " "})
+    void shouldRefuseShardedStorageWithoutAScrambleKey(String scrambleKey) {
+        assertThatThrownBy(() -> new SequenceShardingCheck("sharded", scrambleKey))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("scramble-key");
+    }
+
+    @Test
+    void shouldAcceptPostgresStorageWithoutAScrambleKey() {
+        assertThatCode(() -> new SequenceShardingCheck("postgres", "")).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,182 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.fixture.H2AdvisoryLocks;
+import com.velasconino.infrastructure.adapters.output.ConsistentHashRing;
+import com.velasconino.infrastructure.adapters.output.ShardRebalancer;
+import com.velasconino.infrastructure.adapters.output.persistence.AdvisoryLock;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.jdbc.DataSourceResolver;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three H2 databases stand in for the shards. Mappings are being moved from the first two
+ * to all three, as after a shard has been added. The first shard holds the rebalancing lock,
+ * through the stand-ins of {@link H2AdvisoryLocks}.
+ */
+@MicronautTest
+@Property(name = "datasources.shard-1.url", value = "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE" + H2AdvisoryLocks.INIT)
+@Property(name = "datasources.shard-1.username", value = "sa")
+@Property(name = "datasources.shard-1.password", value = "")
+@Property(name = "datasources.shard-1.driver-class-name", value = "org.h2.Driver")
+@Property(name = "datasources.shard-2.url", value = "jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE")
+@Property(name = "datasources.shard-2.username", value = "sa")
+@Property(name = "datasources.shard-2.password", value = "")
+@Property(name = "datasources.shard-2.driver-class-name", value = "org.h2.Driver")
+@Property(name = "datasources.shard-3.url", value = "jdbc:h2:mem:shard3;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE")
+@Property(name = "datasources.shard-3.username", value = "sa")
+@Property(name = "datasources.shard-3.password", value = "")
+@Property(name = "datasources.shard-3.driver-class-name", value = "org.h2.Driver")
+@Property(name = "flyway.datasources.shard-1.enabled", value = "true")
+@Property(name = "flyway.datasources.shard-2.enabled", value = "true")
+@Property(name = "flyway.datasources.shard-3.enabled", value = "true")
+@Property(name = "url.shortener.storage.type", value = "sharded")
+@Property(name = "url.shortener.sharding.shards", value = "shard-1,shard-2,shard-3")
+@Property(name = "url.shortener.sharding.previous-shards", value = "shard-1,shard-2")
+@Property(name = "url.shortener.sharding.virtual-nodes", value = "64")
+@Property(name = "url.shortener.sharding.rebalance-batch-size", value = "7")
+class ShardingTest {
+
+    private static final ConsistentHashRing SHARDS = new ConsistentHashRing(List.of("shard-1", "shard-2", "shard-3"), 64);
+    private static final ConsistentHashRing PREVIOUS_SHARDS = new ConsistentHashRing(List.of("shard-1", "shard-2"), 64);
+
+    @Inject
+    UrlRepository urlRepository;
+
+    @Inject
+    ShardRebalancer shardRebalancer;
+
+    @Inject
+    ShardRebalancing shardRebalancing;
+
+    @Inject
+    AdvisoryLock shardRebalanceLock;
+
+    @Inject
+    DataSourceResolver dataSourceResolver;
+
+    @Inject
+    @Named("shard-1")
+    DataSource firstShard;
+
+    @Inject
+    @Named("shard-2")
+    DataSource secondShard;
+
+    @Inject
+    @Named("shard-3")
+    DataSource thirdShard;
+
+    @Test
+    void shouldStoreEachMappingOnItsShardOnly() throws SQLException {
+        // Given
+        Map<String, String> mappings = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            mappings.put(aUniqueShortCode(), aUniqueUrl());
+        }
+
+        // When
+        urlRepository.insertAllIfAbsent(mappings);
+
+        // Then
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            String owner = SHARDS.nodeFor(ShortCodeCodec.encode(mapping.getKey()));
+            for (Map.Entry<String, DataSource> shard : shards().entrySet()) {
+                assertThat(find(shard.getValue(), mapping.getKey()))
+                        .as(shard.getKey())
+                        .isEqualTo(shard.getKey().equals(owner) ? Optional.of(mapping.getValue()) : Optional.empty());
+            }
+        }
+        assertThat(urlRepository.findOriginalUrlsByShortCodes(new ArrayList<>(mappings.keySet()))).isEqualTo(mappings);
+    }
+
+    @Test
+    void shouldMoveOnlyReassignedMappingsToTheirNewShard() throws SQLException {
+        // Given: mappings placed on the two previous shards, with codes of every length
+        Map<String, String> mappings = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            String shortCode = aUniqueShortCode().substring(i % ShortCodeCodec.MAX_LENGTH);
+            String originalUrl = aUniqueUrl();
+            if (mappings.putIfAbsent(shortCode, originalUrl) == null) {
+                insert(shards().get(PREVIOUS_SHARDS.nodeFor(ShortCodeCodec.encode(shortCode))), shortCode, originalUrl);
+            }
+        }
+        assertThat(urlRepository.findOriginalUrlsByShortCodes(new ArrayList<>(mappings.keySet()))).isEqualTo(mappings);
+
+        // When
+        shardRebalancer.rebalance();
+
+        // Then
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            String owner = SHARDS.nodeFor(ShortCodeCodec.encode(mapping.getKey()));
+            for (Map.Entry<String, DataSource> shard : shards().entrySet()) {
+                assertThat(find(shard.getValue(), mapping.getKey()))
+                        .as(mapping.getKey() + " on " + shard.getKey())
+                        .isEqualTo(shard.getKey().equals(owner) ? Optional.of(mapping.getValue()) : Optional.empty());
+            }
+            assertThat(urlRepository.findOriginalUrlByShortCode(mapping.getKey())).contains(mapping.getValue());
+        }
+    }
+
+    @Test
+    void shouldMoveMappingsOnOneInstanceAtATime() {
+        // Given
+        AtomicBoolean movedMeanwhile = new AtomicBoolean(true);
+
+        // When: another instance holds the lock
+        shardRebalanceLock.runIfFree(() ->
+            movedMeanwhile.set(CompletableFuture.supplyAsync(shardRebalancing::rebalance).join()));
+
+        // Then
+        assertThat(movedMeanwhile).isFalse();
+        assertThat(shardRebalancing.rebalance()).isTrue();
+    }
+
+    private Map<String, DataSource> shards() {
+        return Map.of("shard-1", firstShard, "shard-2", secondShard, "shard-3", thirdShard);
+    }
+
+    private Optional<String> find(DataSource shard, String shortCode) throws SQLException {
+        try (Connection connection = dataSourceResolver.resolve(shard).getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT original_url FROM url_mapping WHERE id = ?")) {
+            statement.setLong(1, ShortCodeCodec.encode(shortCode));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.of(resultSet.getString(1)) : Optional.empty();
+            }
+        }
+    }
+
+    private void insert(DataSource shard, String shortCode, String originalUrl) throws SQLException {
+        try (Connection connection = dataSourceResolver.resolve(shard).getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "INSERT INTO url_mapping (id, original_url) VALUES (?, ?)")) {
+            statement.setLong(1, ShortCodeCodec.encode(shortCode));
+            statement.setString(2, originalUrl);
+            statement.executeUpdate();
+        }
+    }
+}
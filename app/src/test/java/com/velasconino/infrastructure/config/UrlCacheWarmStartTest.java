@@ -0,0 +1,107 @@
+package com.velasconino.infrastructure.config;
+
+import com.velasconino.domain.ShortCodeCodec;
+import com.velasconino.infrastructure.adapters.output.CachingUrlRepository;
+import com.velasconino.infrastructure.adapters.output.InMemoryUrlRepository;
+import com.velasconino.infrastructure.adapters.output.UrlCacheSnapshotFile;
+import com.velasconino.infrastructure.adapters.output.persistence.UrlMappingRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.event.ShutdownEvent;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static com.velasconino.fixture.ShortCodeFixture.aUniqueShortCode;
+import static com.velasconino.fixture.UrlFixture.aUniqueUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest
+class UrlCacheWarmStartTest {
+
+    @Inject
+    ApplicationContext applicationContext;
+
+    @Inject
+    UrlMappingRepository urlMappingRepository;
+
+    @TempDir
+    Path directory;
+
+    // The delegate is empty, so only warmed mappings can be resolved
+    private final CachingUrlRepository cache = new CachingUrlRepository(
+        new InMemoryUrlRepository(), 1000, Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+    @Test
+    void shouldWarmTheCacheFromTheSnapshot() throws IOException {
+        // Given
+        Path snapshotPath = directory.resolve("cache.snapshot");
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        new UrlCacheSnapshotFile(snapshotPath).write(Map.of(shortCode, originalUrl));
+
+        // When
+        warmStart(snapshotPath).onStartup(new StartupEvent(applicationContext));
+
+        // Then
+        assertThat(cache.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldWarmTheCacheWithRecentMappingsWithoutASnapshot() {
+        // Given
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        urlMappingRepository.insertIfAbsent(ShortCodeCodec.encode(shortCode), originalUrl);
+
+        // When
+        warmStart(directory.resolve("missing.snapshot")).onStartup(new StartupEvent(applicationContext));
+
+        // Then
+        assertThat(cache.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldFallBackToRecentMappingsWhenTheSnapshotIsUnreadable() throws IOException {
+        // Given
+        Path snapshotPath = directory.resolve("cache.snapshot");
+        Files.writeString(snapshotPath, "corrupt");
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        urlMappingRepository.insertIfAbsent(ShortCodeCodec.encode(shortCode), originalUrl);
+
+        // When
+        warmStart(snapshotPath).onStartup(new StartupEvent(applicationContext));
+
+        // Then
+        assertThat(cache.findOriginalUrlByShortCode(shortCode)).contains(originalUrl);
+    }
+
+    @Test
+    void shouldSnapshotTheHottestMappingsOnShutdown() throws IOException {
+        // Given
+        Path snapshotPath = directory.resolve("cache.snapshot");
+        String shortCode = aUniqueShortCode();
+        String originalUrl = aUniqueUrl();
+        cache.save(shortCode, originalUrl);
+
+        // When
+        warmStart(snapshotPath).onShutdown(new ShutdownEvent(applicationContext));
+
+        // Then
+        assertThat(new UrlCacheSnapshotFile(snapshotPath).read()).contains(Map.of(shortCode, originalUrl));
+    }
+
+    private UrlCacheWarmStart warmStart(Path snapshotPath) {
+        return new UrlCacheWarmStart(cache, urlMappingRepository, snapshotPath, 10000);
+    }
+}
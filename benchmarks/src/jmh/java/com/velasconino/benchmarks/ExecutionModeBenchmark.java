@@ -0,0 +1,139 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.application.usecases.AlphanumericHashBasedShortenUrlUseCase;
+import com.velasconino.infrastructure.adapters.output.ConcurrencyLimitedUrlRepository;
+import com.velasconino.infrastructure.config.ExecutionFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the virtual and platform thread execution modes on a burst of concurrent shorten requests.
+ * The database is simulated by a fixed latency behind the same semaphore the application uses, so the
+ * result shows how each mode copes once requests outnumber the platform pool. Each operation is one
+ * burst; lower is better.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExecutionModeBenchmark {
+
+    @Param({"virtual", "platform"})
+    public String mode;
+
+    @Param({"200"})
+    public int platformThreads;
+
+    @Param({"10", "400"})
+    public int databaseConcurrency;
+
+    @Param({"2000"})
+    public int requests;
+
+    @Param({"2"})
+    public long databaseLatencyMillis;
+
+    private ExecutorService executor;
+    private AlphanumericHashBasedShortenUrlUseCase useCase;
+    private List<ShortenUrlCommand> commands;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = new ExecutionFactory().urlShortenerExecutor(mode, platformThreads);
+        UrlRepository repository = new ConcurrencyLimitedUrlRepository(
+                new SimulatedLatencyUrlRepository(TimeUnit.MILLISECONDS.toNanos(databaseLatencyMillis)),
+                databaseConcurrency);
+        useCase = new AlphanumericHashBasedShortenUrlUseCase(
+                repository, new SimpleMeterRegistry(), 8, 2, "https://sho.rt/");
+        commands = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            commands.add(new ShortenUrlCommand("https://example.com/articles/" + i + "?ref=benchmark"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int burstOfShortenRequests() throws Exception {
+        List<Future<String>> results = new ArrayList<>(requests);
+        for (ShortenUrlCommand command : commands) {
+            results.add(executor.submit(() -> useCase.shortenUrl(command).shortCode()));
+        }
+        int completed = 0;
+        for (Future<String> result : results) {
+            result.get();
+            completed++;
+        }
+        return completed;
+    }
+
+    /**
+     * In-memory repository that parks the calling thread as long as a database round trip would.
+     */
+    private static class SimulatedLatencyUrlRepository extends InMemoryUrlRepository {
+
+        private final long latencyNanos;
+
+        SimulatedLatencyUrlRepository(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public void save(String shortCode, String originalUrl) {
+            roundTrip();
+            super.save(shortCode, originalUrl);
+        }
+
+        @Override
+        public String insertIfAbsent(String shortCode, String originalUrl) {
+            roundTrip();
+            return super.insertIfAbsent(shortCode, originalUrl);
+        }
+
+        @Override
+        public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+            roundTrip();
+            return super.insertAllIfAbsent(mappings);
+        }
+
+        @Override
+        public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+            roundTrip();
+            return super.findOriginalUrlByShortCode(shortCode);
+        }
+
+        @Override
+        public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+            roundTrip();
+            return super.findOriginalUrlsByShortCodes(shortCodes);
+        }
+
+        private void roundTrip() {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+}
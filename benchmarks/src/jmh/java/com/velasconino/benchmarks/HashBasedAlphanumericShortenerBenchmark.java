@@ -0,0 +1,121 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.domain.HashBasedAlphanumericShortener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of generating every candidate short code for one URL.
+ * Compares the single-digest shortener with the previous implementation, which hashed and
+ * Base64-encoded the URL again for each candidate length. Run with the GC profiler to compare
+ * gc.alloc.rate.norm, the bytes allocated per shorten.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HashBasedAlphanumericShortenerBenchmark {
+
+    private static final String ALPHANUMERIC_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    @Param({"https://example.com/some/fairly/typical/path?with=query&and=parameters"})
+    public String url;
+
+    @Param({"8"})
+    public int initialCodeLength;
+
+    @Param({"2"})
+    public int maxCodeLengthIncrease;
+
+    /**
+     * Code lengths for {@link #generateShortCode}, kept apart from the candidate benchmarks' parameters.
+     */
+    @State(Scope.Benchmark)
+    public static class CodeLength {
+
+        @Param({"6", "8", "12", "20", "43"})
+        public int length;
+    }
+
+    @Benchmark
+    public String generateShortCode(CodeLength codeLength) {
+        return new HashBasedAlphanumericShortener(url).generateShortCode(codeLength.length);
+    }
+
+    @Benchmark
+    public List<String> singleDigestCandidates() {
+        return new HashBasedAlphanumericShortener(url)
+                .generateShortCodes(initialCodeLength, initialCodeLength + maxCodeLengthIncrease);
+    }
+
+    /**
+     * Generates the candidates on a new virtual thread, as a request does in the {@code virtual}
+     * execution mode, so digests cannot be reused per thread. Compare with {@link #virtualThread}
+     * for the allocation of the shortening alone.
+     */
+    @Benchmark
+    public List<String> singleDigestCandidatesOnVirtualThread() throws InterruptedException {
+        List<List<String>> shortCodes = new ArrayList<>(1);
+        Thread.ofVirtual().start(() -> shortCodes.add(singleDigestCandidates())).join();
+        return shortCodes.getFirst();
+    }
+
+    /**
+     * Starts and joins a virtual thread doing nothing, the baseline of {@link #singleDigestCandidatesOnVirtualThread}.
+     */
+    @Benchmark
+    public List<String> virtualThread() throws InterruptedException {
+        List<List<String>> shortCodes = new ArrayList<>(1);
+        Thread.ofVirtual().start(() -> shortCodes.add(List.of())).join();
+        return shortCodes.getFirst();
+    }
+
+    @Benchmark
+    public List<String> base64FilteringCandidates() throws NoSuchAlgorithmException {
+        List<String> shortCodes = new ArrayList<>();
+        for (int length = initialCodeLength; length <= initialCodeLength + maxCodeLengthIncrease; length++) {
+            shortCodes.add(base64FilteringShortCode(url, length));
+        }
+        return shortCodes;
+    }
+
+    /**
+     * The previous implementation of HashBasedAlphanumericShortener.generateShortCode, kept as a baseline.
+     */
+    private static String base64FilteringShortCode(String url, int length) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hashBytes = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+        String base64Hash = Base64.getUrlEncoder().withoutPadding().encodeToString(hashBytes);
+
+        StringBuilder shortCode = new StringBuilder();
+        for (char c : base64Hash.toCharArray()) {
+            if (ALPHANUMERIC_CHARS.indexOf(c) != -1) {
+                shortCode.append(c);
+                if (shortCode.length() == length) {
+                    break;
+                }
+            }
+        }
+        while (shortCode.length() < length) {
+            int index = (shortCode.length() * 31 + url.hashCode()) % ALPHANUMERIC_CHARS.length();
+            if (index < 0) {
+                index += ALPHANUMERIC_CHARS.length();
+            }
+            shortCode.append(ALPHANUMERIC_CHARS.charAt(index));
+        }
+        return shortCode.toString();
+    }
+}
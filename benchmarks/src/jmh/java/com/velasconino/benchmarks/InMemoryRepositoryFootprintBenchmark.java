@@ -0,0 +1,94 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.application.ports.output.UrlRepository;
+import com.velasconino.domain.HashBasedAlphanumericShortener;
+import com.velasconino.infrastructure.adapters.output.CompactInMemoryUrlRepository;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap taken per mapping by the compact in-memory repository against the
+ * ConcurrentHashMap-based one, reported as the bytesPerMapping counter, along with the time to fill them.
+ * Short codes are the 8-character codes the shortener generates for typical 60-byte URLs.
+ * Heap use is compared after a full GC before and after filling, so run it on its own fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class InMemoryRepositoryFootprintBenchmark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Param({"1000000"})
+    public int mappings;
+
+    @Param({"compact", "concurrent-hash-map"})
+    public String repository;
+
+    private String[] shortCodes;
+    private String[] originalUrls;
+    private UrlRepository filled;
+
+    @Setup
+    public void setUp() {
+        shortCodes = new String[mappings];
+        originalUrls = new String[mappings];
+        for (int i = 0; i < mappings; i++) {
+            originalUrls[i] = "https://example.com/articles/" + i + "/a-readable-slug?ref=bench";
+            shortCodes[i] = new HashBasedAlphanumericShortener(originalUrls[i]).generateShortCode(8);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void release() {
+        filled = null;
+    }
+
+    @Benchmark
+    public UrlRepository fill(Footprint footprint) {
+        long heapBefore = usedHeapAfterGc();
+        UrlRepository target = "compact".equals(repository)
+                ? new CompactInMemoryUrlRepository(64, mappings)
+                : new InMemoryUrlRepository();
+        for (int i = 0; i < mappings; i++) {
+            // Copies, so the strings kept by the map are charged to it as they would be in production
+            target.insertIfAbsent(new String(shortCodes[i]), new String(originalUrls[i]));
+        }
+        filled = target;
+        footprint.bytesPerMapping = (double) (usedHeapAfterGc() - heapBefore) / mappings;
+        return target;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public double bytesPerMapping;
+    }
+}
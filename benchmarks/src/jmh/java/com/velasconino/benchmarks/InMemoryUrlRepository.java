@@ -0,0 +1,56 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.application.ports.output.UrlRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe in-memory UrlRepository, so benchmarks measure the application code rather than a database.
+ */
+class InMemoryUrlRepository implements UrlRepository {
+
+    private final Map<String, String> urls = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(String shortCode, String originalUrl) {
+        urls.put(shortCode, originalUrl);
+    }
+
+    @Override
+    public String insertIfAbsent(String shortCode, String originalUrl) {
+        return claim(shortCode, originalUrl);
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(Map<String, String> mappings) {
+        Map<String, String> winningUrls = new HashMap<>();
+        mappings.forEach((shortCode, originalUrl) -> winningUrls.put(shortCode, claim(shortCode, originalUrl)));
+        return winningUrls;
+    }
+
+    @Override
+    public Optional<String> findOriginalUrlByShortCode(String shortCode) {
+        return Optional.ofNullable(urls.get(shortCode));
+    }
+
+    @Override
+    public Map<String, String> findOriginalUrlsByShortCodes(Collection<String> shortCodes) {
+        Map<String, String> originalUrls = new HashMap<>();
+        for (String shortCode : shortCodes) {
+            String originalUrl = urls.get(shortCode);
+            if (originalUrl != null) {
+                originalUrls.put(shortCode, originalUrl);
+            }
+        }
+        return originalUrls;
+    }
+
+    private String claim(String shortCode, String originalUrl) {
+        String existingUrl = urls.putIfAbsent(shortCode, originalUrl);
+        return existingUrl == null ? originalUrl : existingUrl;
+    }
+}
@@ -0,0 +1,129 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.application.ports.output.UrlRepository;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@code GET /{shortCode}} against the embedded server, with the Netty fast path
+ * on and off. Every benchmark thread is one client holding a keep-alive connection and sending
+ * one request at a time, over a set of short codes that all fit in the caches, so the result
+ * is the cost of the HTTP handling rather than of the lookup. Clients and server share the
+ * cores of the machine; divide the throughput by {@code Runtime.availableProcessors()} for
+ * requests per second per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class RedirectFastPathBenchmark {
+
+    @Param({"false", "true"})
+    public boolean fastPath;
+
+    @Param({"1000"})
+    public int shortCodes;
+
+    private ApplicationContext context;
+    private EmbeddedServer server;
+    private byte[][] requests;
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private Socket socket;
+        private OutputStream out;
+        private InputStream in;
+        private int next;
+
+        @Setup
+        public void connect(RedirectFastPathBenchmark benchmark) throws IOException {
+            socket = new Socket(benchmark.server.getHost(), benchmark.server.getPort());
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream());
+        }
+
+        @TearDown
+        public void disconnect() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = ApplicationContext.builder()
+                .properties(Map.of(
+                        "micronaut.server.port", -1,
+                        "datasources.default.url", "jdbc:h2:mem:redirect-bench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "datasources.default.username", "sa",
+                        "datasources.default.password", "",
+                        "datasources.default.driver-class-name", "org.h2.Driver",
+                        "flyway.datasources.default.enabled", false,
+                        "url.shortener.base-url", "https://sho.rt/",
+                        "url.shortener.storage.type", "memory",
+                        "url.shortener.fast-path.enabled", fastPath))
+                .start();
+        server = context.getBean(EmbeddedServer.class).start();
+
+        UrlRepository urlRepository = context.getBean(UrlRepository.class);
+        requests = new byte[shortCodes][];
+        for (int i = 0; i < shortCodes; i++) {
+            String shortCode = "bench" + Integer.toString(i, 36);
+            urlRepository.save(shortCode, "https://example.com/articles/" + i + "/a-readable-slug?ref=bench");
+            requests[i] = ("GET /" + shortCode + " HTTP/1.1\r\nHost: sho.rt\r\nUser-Agent: bench\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int redirect(Client client) throws IOException {
+        client.out.write(requests[client.next++ % requests.length]);
+        client.out.flush();
+        return readHead(client.in);
+    }
+
+    /**
+     * Reads a response head; redirects have no body.
+     *
+     * @return The length of the head
+     */
+    private static int readHead(InputStream in) throws IOException {
+        int length = 0;
+        int last = 0;
+        while (last != 0x0d0a0d0a) {
+            int read = in.read();
+            if (read < 0) {
+                throw new IOException("Connection closed");
+            }
+            last = (last << 8) | read;
+            length++;
+        }
+        return length;
+    }
+}
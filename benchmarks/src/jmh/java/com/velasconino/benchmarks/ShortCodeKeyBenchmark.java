@@ -0,0 +1,134 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.domain.HashBasedAlphanumericShortener;
+import com.velasconino.domain.ShortCodeCodec;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares url_mapping keyed by the VARCHAR short code with url_mapping keyed by its BIGINT
+ * {@link ShortCodeCodec} value: the latency of a primary key lookup, encoding included, and the
+ * size of the compacted database file holding the table and its indexes, reported as the tableBytes counter.
+ * Runs against an embedded H2 database as a stand-in for PostgreSQL; on PostgreSQL, compare
+ * {@code pg_relation_size('url_mapping_pkey')} before and after the migration instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShortCodeKeyBenchmark {
+
+    @Param({"varchar", "bigint"})
+    public String key;
+
+    @Param({"200000"})
+    public int mappings;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement lookup;
+    private String[] shortCodes;
+    private long tableBytes;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("short-code-key");
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:" + directory.resolve("db") + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE");
+        connection = dataSource.getConnection("sa", "");
+        boolean bigint = "bigint".equals(key);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(bigint
+                    ? "CREATE TABLE url_mapping (id BIGINT PRIMARY KEY, original_url TEXT NOT NULL)"
+                    : "CREATE TABLE url_mapping (short_code VARCHAR(32) PRIMARY KEY, original_url TEXT NOT NULL)");
+        }
+
+        shortCodes = new String[mappings];
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(bigint
+                ? "INSERT INTO url_mapping (id, original_url) VALUES (?, ?)"
+                : "INSERT INTO url_mapping (short_code, original_url) VALUES (?, ?)")) {
+            for (int i = 0; i < mappings; i++) {
+                String originalUrl = "https://example.com/articles/" + i + "/a-readable-slug?ref=bench";
+                shortCodes[i] = new HashBasedAlphanumericShortener(originalUrl).generateShortCode(8);
+                if (bigint) {
+                    insert.setLong(1, ShortCodeCodec.encode(shortCodes[i]));
+                } else {
+                    insert.setString(1, shortCodes[i]);
+                }
+                insert.setString(2, originalUrl);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        try (Statement statement = connection.createStatement()) {
+            // Rewrites the file without the pages left behind by inserting in random key order
+            statement.execute("SHUTDOWN COMPACT");
+        }
+        tableBytes = Files.size(directory.resolve("db.mv.db"));
+        connection = dataSource.getConnection("sa", "");
+        lookup = connection.prepareStatement(bigint
+                ? "SELECT original_url FROM url_mapping WHERE id = ?"
+                : "SELECT original_url FROM url_mapping WHERE short_code = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public String lookup(Footprint footprint) throws SQLException {
+        footprint.tableBytes = tableBytes;
+        String shortCode = shortCodes[next];
+        next = next + 1 == shortCodes.length ? 0 : next + 1;
+        if ("bigint".equals(key)) {
+            lookup.setLong(1, ShortCodeCodec.encode(shortCode));
+        } else {
+            lookup.setString(1, shortCode);
+        }
+        try (ResultSet resultSet = lookup.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long tableBytes;
+    }
+}
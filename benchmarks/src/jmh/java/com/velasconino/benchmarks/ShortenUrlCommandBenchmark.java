@@ -0,0 +1,53 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.application.exceptions.InvalidUrlException;
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures URL validation in the ShortenUrlCommand constructor on valid, invalid and pathological input.
+ * The pathological cases are long URLs that fail on their last character, which is where a
+ * backtracking validator spends the most time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShortenUrlCommandBenchmark {
+
+    @Param({"valid", "valid-long", "invalid-scheme", "invalid-trailing", "pathological"})
+    public String kind;
+
+    private String url;
+
+    @Setup
+    public void setUp() {
+        url = switch (kind) {
+            case "valid" -> "https://example.com/some/fairly/typical/path?with=query&and=parameters";
+            case "valid-long" -> "https://example.com/" + "segment/".repeat(250) + "end";
+            case "invalid-scheme" -> "mailto:someone@example.com";
+            case "invalid-trailing" -> "https://example.com/path/ending/with/a/space ";
+            case "pathological" -> "https://" + ":".repeat(2000) + "@" + "a.".repeat(2000) + "\\";
+            default -> throw new IllegalArgumentException("Unknown URL kind: " + kind);
+        };
+    }
+
+    @Benchmark
+    public Object validate() {
+        try {
+            // No length limit, so long input is validated rather than rejected up front
+            return new ShortenUrlCommand(url, Integer.MAX_VALUE);
+        } catch (InvalidUrlException e) {
+            return e;
+        }
+    }
+}
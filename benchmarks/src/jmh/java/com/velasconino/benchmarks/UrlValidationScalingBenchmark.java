@@ -0,0 +1,60 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.domain.ParsedUrl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Shows how URL validation cost grows with input length on adversarial URLs, which look valid
+ * until their last character. Divide the score by the length to get the cost per character,
+ * which should stay flat. The regex ShortenUrlCommand used before is measured for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UrlValidationScalingBenchmark {
+
+    private static final Pattern REGEX = Pattern.compile(
+            "^(https?|ftp)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]");
+
+    @Param({"128", "1024", "8192", "65536"})
+    public int length;
+
+    @Param({"trailing-dot", "trailing-space"})
+    public String kind;
+
+    private String url;
+
+    @Setup
+    public void setUp() {
+        String prefix = "https://example.com/";
+        String filler = "a".repeat(length - prefix.length() - 1);
+        url = switch (kind) {
+            // The regex backtracks through the whole body looking for a valid last character
+            case "trailing-dot" -> prefix + filler.replace('a', '.') + ".";
+            // Both stop at the space
+            case "trailing-space" -> prefix + filler + " ";
+            default -> throw new IllegalArgumentException("Unknown URL kind: " + kind);
+        };
+    }
+
+    @Benchmark
+    public Object parsedUrl() {
+        return ParsedUrl.parse(url);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return REGEX.matcher(url).matches();
+    }
+}
@@ -0,0 +1,74 @@
+package com.velasconino.benchmarks;
+
+import com.velasconino.application.ports.input.ShortCodeQuery;
+import com.velasconino.application.ports.input.ShortenUrlCommand;
+import com.velasconino.application.ports.input.UrlShortenedResponse;
+import com.velasconino.application.usecases.AlphanumericHashBasedShortenUrlUseCase;
+import com.velasconino.application.usecases.StandardReactiveResolveShortUrlUseCase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the shorten and resolve use cases against a shared in-memory repository from several
+ * threads at once, so contention in the use cases and the repository shows up in the results.
+ * Shortening cycles through a fixed set of URLs: the first pass claims new codes, later passes
+ * find the codes already mapped to the same URL. Resolving goes through the reactive use case the
+ * controller uses, over the same repository, and blocks for the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class UseCaseContentionBenchmark {
+
+    private static final String BASE_URL = "https://sho.rt/";
+
+    @Param({"100000"})
+    public int urls;
+
+    private String[] originalUrls;
+    private ShortCodeQuery[] queries;
+    private AlphanumericHashBasedShortenUrlUseCase shortenUseCase;
+    private StandardReactiveResolveShortUrlUseCase resolveUseCase;
+
+    @Setup
+    public void setUp() {
+        InMemoryUrlRepository repository = new InMemoryUrlRepository();
+        shortenUseCase = new AlphanumericHashBasedShortenUrlUseCase(repository, new SimpleMeterRegistry(), 8, 2, BASE_URL);
+        resolveUseCase = new StandardReactiveResolveShortUrlUseCase(
+                shortCode -> Mono.justOrEmpty(repository.findOriginalUrlByShortCode(shortCode)),
+                event -> { }, new SimpleMeterRegistry());
+
+        originalUrls = new String[urls];
+        queries = new ShortCodeQuery[urls];
+        for (int i = 0; i < urls; i++) {
+            originalUrls[i] = "https://example.com/articles/" + i + "?ref=benchmark";
+            UrlShortenedResponse response = shortenUseCase.shortenUrl(new ShortenUrlCommand(originalUrls[i]));
+            queries[i] = new ShortCodeQuery(response.shortCode());
+        }
+    }
+
+    @Benchmark
+    public UrlShortenedResponse shorten() {
+        String url = originalUrls[ThreadLocalRandom.current().nextInt(urls)];
+        return shortenUseCase.shortenUrl(new ShortenUrlCommand(url));
+    }
+
+    @Benchmark
+    public String resolve() {
+        return resolveUseCase.resolveShortUrl(queries[ThreadLocalRandom.current().nextInt(urls)]).block();
+    }
+}
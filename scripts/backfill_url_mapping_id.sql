@@ -0,0 +1,87 @@
+-- Batched backfill of url_mapping_v2 for PostgreSQL, run with psql between migrations V4 and V5
+-- while the previous version of the service keeps serving from url_mapping:
+--
+--   psql "$DATABASE_URL" -f scripts/backfill_url_mapping_id.sql
+--
+-- A trigger first copies every new or replaced mapping to url_mapping_v2, then existing rows are
+-- copied in batches of 10000 short codes, each committed on its own so that no long transaction
+-- holds back vacuum. The script can be stopped and run again. Applying V5 afterwards only has to
+-- copy what the trigger and the batches missed before it renames the old table to url_mapping_legacy.
+-- Values are computed as in V5 and ShortCodeCodec.
+
+CREATE OR REPLACE FUNCTION url_mapping_id(short_code VARCHAR) RETURNS BIGINT
+LANGUAGE plpgsql IMMUTABLE AS $$
+DECLARE
+    alphabet CONSTANT TEXT := 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789';
+    padded TEXT;
+BEGIN
+    IF CHAR_LENGTH(short_code) NOT BETWEEN 1 AND 10 OR TRANSLATE(short_code, alphabet, REPEAT('A', 62)) <> REPEAT('A', CHAR_LENGTH(short_code)) THEN
+        RETURN NULL;
+    END IF;
+    padded := LPAD(short_code, 10, '-');
+    RETURN ((((((((CAST(POSITION(SUBSTRING(padded FROM 1 FOR 1) IN alphabet) AS BIGINT)
+        * 62 + POSITION(SUBSTRING(padded FROM 2 FOR 1) IN alphabet))
+        * 62 + POSITION(SUBSTRING(padded FROM 3 FOR 1) IN alphabet))
+        * 62 + POSITION(SUBSTRING(padded FROM 4 FOR 1) IN alphabet))
+        * 62 + POSITION(SUBSTRING(padded FROM 5 FOR 1) IN alphabet))
+        * 62 + POSITION(SUBSTRING(padded FROM 6 FOR 1) IN alphabet))
+        * 62 + POSITION(SUBSTRING(padded FROM 7 FOR 1) IN alphabet))
+        * 62 + POSITION(SUBSTRING(padded FROM 8 FOR 1) IN alphabet))
+        * 62 + POSITION(SUBSTRING(padded FROM 9 FOR 1) IN alphabet))
+        * 62 + POSITION(SUBSTRING(padded FROM 10 FOR 1) IN alphabet);
+END $$;
+
+CREATE OR REPLACE FUNCTION url_mapping_copy_to_v2() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    new_id BIGINT := url_mapping_id(NEW.short_code);
+BEGIN
+    IF new_id IS NOT NULL THEN
+        INSERT INTO url_mapping_v2 (id, original_url, created_at)
+        VALUES (new_id, NEW.original_url, NEW.created_at)
+        ON CONFLICT (id) DO UPDATE SET original_url = EXCLUDED.original_url;
+    END IF;
+    RETURN NEW;
+END $$;
+
+DROP TRIGGER IF EXISTS url_mapping_copy_to_v2 ON url_mapping;
+CREATE TRIGGER url_mapping_copy_to_v2
+    AFTER INSERT OR UPDATE ON url_mapping
+    FOR EACH ROW EXECUTE FUNCTION url_mapping_copy_to_v2();
+
+DO $$
+DECLARE
+    last_short_code VARCHAR(32) := '';
+    batch_end VARCHAR(32);
+    copied BIGINT := 0;
+    batch_copied BIGINT;
+BEGIN
+    LOOP
+        SELECT MAX(short_code) INTO batch_end
+        FROM (
+            SELECT short_code FROM url_mapping
+            WHERE short_code > last_short_code
+            ORDER BY short_code
+            LIMIT 10000
+        ) AS batch;
+        EXIT WHEN batch_end IS NULL;
+
+        INSERT INTO url_mapping_v2 (id, original_url, created_at)
+        SELECT url_mapping_id(short_code), original_url, created_at
+        FROM url_mapping
+        WHERE short_code > last_short_code AND short_code <= batch_end
+          AND url_mapping_id(short_code) IS NOT NULL
+        ON CONFLICT DO NOTHING;
+        GET DIAGNOSTICS batch_copied = ROW_COUNT;
+
+        copied := copied + batch_copied;
+        last_short_code := batch_end;
+        COMMIT;
+        RAISE NOTICE 'Copied % mappings, up to short code %', copied, last_short_code;
+    END LOOP;
+END $$;
+
+-- Once V5 has been applied, the trigger and functions are no longer needed:
+--   DROP TRIGGER url_mapping_copy_to_v2 ON url_mapping_legacy;
+--   DROP FUNCTION url_mapping_copy_to_v2();
+--   DROP FUNCTION url_mapping_id(VARCHAR);